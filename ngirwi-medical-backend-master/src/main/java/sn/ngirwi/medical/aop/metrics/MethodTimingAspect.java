@@ -0,0 +1,103 @@
+package sn.ngirwi.medical.aop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Aspect recording a Micrometer {@link Timer} for service and repository methods.
+ * <p>
+ * Only a fraction of the invocations ({@code application.metrics.method-timing.sampling-rate}) is recorded, so counts
+ * exported for these timers are sampled counts. Percentiles are configured through the standard
+ * {@code management.metrics.distribution.*} properties for the {@value #METER_NAME} meter.
+ */
+@Aspect
+public class MethodTimingAspect {
+
+    public static final String METER_NAME = "ngirwi.method";
+
+    private static final String REPOSITORY_PACKAGE = "sn.ngirwi.medical.repository.";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Supplier<String> hospitalTag;
+
+    private final double samplingRate;
+
+    private final Map<Class<?>, String> classTags = new ConcurrentHashMap<>();
+
+    public MethodTimingAspect(MeterRegistry meterRegistry, Supplier<String> hospitalTag, double samplingRate) {
+        this.meterRegistry = meterRegistry;
+        this.hospitalTag = hospitalTag;
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * Pointcut that matches the services of the application and the methods of its Spring Data repositories.
+     */
+    @Pointcut(
+        "(within(sn.ngirwi.medical.service..*) && within(@org.springframework.stereotype.Service *))" +
+        " || execution(* sn.ngirwi.medical.repository..*(..))"
+    )
+    public void timedPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times a sampled subset of the invocations.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception thrown by the invoked method.
+     */
+    @Around("timedPointcut()")
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (samplingRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+            return joinPoint.proceed();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(
+                Timer
+                    .builder(METER_NAME)
+                    .description("Execution time of service and repository methods")
+                    .tag("class", classTag(joinPoint))
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("hospital", hospitalTag.get())
+                    .register(meterRegistry)
+            );
+        }
+    }
+
+    /**
+     * Repository methods are often declared by Spring Data interfaces ({@code CrudRepository}...), so the
+     * application repository interface implemented by the proxy is used as class tag instead.
+     */
+    private String classTag(ProceedingJoinPoint joinPoint) {
+        return classTags.computeIfAbsent(
+            joinPoint.getThis().getClass(),
+            proxyClass -> {
+                for (Class<?> proxiedInterface : proxyClass.getInterfaces()) {
+                    if (proxiedInterface.getName().startsWith(REPOSITORY_PACKAGE)) {
+                        return proxiedInterface.getSimpleName();
+                    }
+                }
+                return ClassUtils.getUserClass(proxyClass).getSimpleName();
+            }
+        );
+    }
+}
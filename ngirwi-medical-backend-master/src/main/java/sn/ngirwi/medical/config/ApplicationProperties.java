@@ -1,5 +1,6 @@
 package sn.ngirwi.medical.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +11,277 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Metrics metrics = new Metrics();
+
+    private final Replica replica = new Replica();
+
+    private final Database database = new Database();
+
     // jhipster-needle-application-properties-property
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public Database getDatabase() {
+        return database;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Metrics {
+
+        /**
+         * Maximum number of distinct hospital ids used as a meter tag; further hospitals are reported as "other".
+         */
+        private int maxHospitalTags = 50;
+
+        private final MethodTiming methodTiming = new MethodTiming();
+
+        private final SlowRequests slowRequests = new SlowRequests();
+
+        public int getMaxHospitalTags() {
+            return maxHospitalTags;
+        }
+
+        public void setMaxHospitalTags(int maxHospitalTags) {
+            this.maxHospitalTags = maxHospitalTags;
+        }
+
+        public MethodTiming getMethodTiming() {
+            return methodTiming;
+        }
+
+        public SlowRequests getSlowRequests() {
+            return slowRequests;
+        }
+
+        public static class MethodTiming {
+
+            /**
+             * Whether service and repository methods are timed.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Fraction of invocations (between 0 and 1) that are recorded.
+             */
+            private double samplingRate = 1.0;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getSamplingRate() {
+                return samplingRate;
+            }
+
+            public void setSamplingRate(double samplingRate) {
+                this.samplingRate = samplingRate;
+            }
+        }
+
+        public static class SlowRequests {
+
+            /**
+             * Requests taking at least this long are kept for the {@code slowrequests} management endpoint.
+             */
+            private Duration threshold = Duration.ofSeconds(2);
+
+            /**
+             * Number of slow requests kept in memory.
+             */
+            private int capacity = 100;
+
+            public Duration getThreshold() {
+                return threshold;
+            }
+
+            public void setThreshold(Duration threshold) {
+                this.threshold = threshold;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+        }
+    }
+
+    public static class Database {
+
+        private final Pool pool = new Pool();
+
+        public Pool getPool() {
+            return pool;
+        }
+
+        /**
+         * Sizing of the primary connection pool, applied over {@code spring.datasource.hikari}. Unset values keep the
+         * Hikari settings.
+         * <p>
+         * A pool larger than {@code (2 * cores of the database server) + disks} rarely helps: extra connections queue
+         * inside PostgreSQL instead of in the pool. Requests and async tasks
+         * ({@code spring.task.execution.pool.max-size}) waiting for a connection show up as pending acquisitions.
+         */
+        public static class Pool {
+
+            private Integer maximumPoolSize;
+
+            private Integer minimumIdle;
+
+            /**
+             * Maximum time a caller waits for a connection before failing.
+             */
+            private Duration connectionTimeout;
+
+            /**
+             * Number of threads waiting for a connection above which the {@code connectionPool} health indicator
+             * (part of the readiness group) reports the application as out of service.
+             */
+            private int maxPendingAcquisitions = 10;
+
+            public Integer getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(Integer maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+
+            public Integer getMinimumIdle() {
+                return minimumIdle;
+            }
+
+            public void setMinimumIdle(Integer minimumIdle) {
+                this.minimumIdle = minimumIdle;
+            }
+
+            public Duration getConnectionTimeout() {
+                return connectionTimeout;
+            }
+
+            public void setConnectionTimeout(Duration connectionTimeout) {
+                this.connectionTimeout = connectionTimeout;
+            }
+
+            public int getMaxPendingAcquisitions() {
+                return maxPendingAcquisitions;
+            }
+
+            public void setMaxPendingAcquisitions(int maxPendingAcquisitions) {
+                this.maxPendingAcquisitions = maxPendingAcquisitions;
+            }
+        }
+    }
+
+    /**
+     * Read replica receiving the read-only transactions, see {@link DatabaseConfiguration}.
+     */
+    public static class Replica {
+
+        private boolean enabled = false;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Size of the replica pool; the other pool settings are copied from {@code spring.datasource.hikari}.
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * Replication lag above which read-only transactions fall back to the primary.
+         */
+        private Duration maxLag = Duration.ofSeconds(10);
+
+        private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+        /**
+         * Query returning the replication lag of the replica, in seconds.
+         */
+        private String lagQuery =
+            "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public Duration getLagCheckInterval() {
+            return lagCheckInterval;
+        }
+
+        public void setLagCheckInterval(Duration lagCheckInterval) {
+            this.lagCheckInterval = lagCheckInterval;
+        }
+
+        public String getLagQuery() {
+            return lagQuery;
+        }
+
+        public void setLagQuery(String lagQuery) {
+            this.lagQuery = lagQuery;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -45,6 +45,7 @@ public class CacheConfiguration {
         return cm -> {
             createCache(cm, sn.ngirwi.medical.repository.UserRepository.USERS_BY_LOGIN_CACHE);
             createCache(cm, sn.ngirwi.medical.repository.UserRepository.USERS_BY_EMAIL_CACHE);
+            createCache(cm, sn.ngirwi.medical.service.DoctorService.DOCTORS_BY_HOSPITAL_CACHE);
             createCache(cm, sn.ngirwi.medical.domain.User.class.getName());
             createCache(cm, sn.ngirwi.medical.domain.Authority.class.getName());
             createCache(cm, sn.ngirwi.medical.domain.User.class.getName() + ".authorities");
@@ -1,15 +1,29 @@
 package sn.ngirwi.medical.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.sql.SQLException;
+import java.util.List;
+import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import sn.ngirwi.medical.management.ConnectionPoolHealthIndicator;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
@@ -41,6 +55,115 @@ public class DatabaseConfiguration {
         return H2ConfigurationHelper.createServer(port);
     }
 
+    /**
+     * Replace the auto-configured pool by a {@link ReplicaRoutingDataSource} when a read replica is configured.
+     * <p>
+     * The primary pool keeps the {@code spring.datasource.*} settings; the replica pool copies them, with the
+     * {@code application.replica.*} url, credentials and size.
+     *
+     * @return the routing data source.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.replica", name = "enabled", havingValue = "true")
+    public ReplicaRoutingDataSource dataSource(
+        DataSourceProperties dataSourceProperties,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        applyPoolSizing(primary, applicationProperties.getDatabase().getPool());
+
+        ApplicationProperties.Replica replicaProperties = applicationProperties.getReplica();
+        HikariConfig replicaConfig = new HikariConfig();
+        primary.copyStateTo(replicaConfig);
+        replicaConfig.setPoolName(primary.getPoolName() != null ? primary.getPoolName() + "-replica" : "Hikari-replica");
+        replicaConfig.setJdbcUrl(replicaProperties.getUrl());
+        replicaConfig.setUsername(replicaProperties.getUsername() != null ? replicaProperties.getUsername() : primary.getUsername());
+        replicaConfig.setPassword(replicaProperties.getPassword() != null ? replicaProperties.getPassword() : primary.getPassword());
+        replicaConfig.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+        replicaConfig.setReadOnly(true);
+
+        // the pools are not beans, so the hikaricp.* meters are not bound by Spring Boot
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicaConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        });
+
+        log.info("Routing read-only transactions to the replica {}", replicaProperties.getUrl());
+        return new ReplicaRoutingDataSource(
+            primary,
+            new HikariDataSource(replicaConfig),
+            replicaProperties.getLagQuery(),
+            replicaProperties.getMaxLag(),
+            replicaProperties.getLagCheckInterval()
+        );
+    }
+
+    /**
+     * Apply {@code application.database.pool} to the auto-configured pool, after the {@code spring.datasource.hikari}
+     * binding.
+     *
+     * @param env the environment.
+     * @return the post processor.
+     */
+    @Bean
+    public static BeanPostProcessor hikariPoolSizingPostProcessor(Environment env) {
+        ApplicationProperties.Database.Pool pool = Binder
+            .get(env)
+            .bind("application.database.pool", ApplicationProperties.Database.Pool.class)
+            .orElseGet(ApplicationProperties.Database.Pool::new);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    applyPoolSizing((HikariDataSource) bean, pool);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Readiness check tripping when too many threads wait for a connection, see {@link ConnectionPoolHealthIndicator}.
+     *
+     * @param dataSource the application data source.
+     * @param applicationProperties the application properties.
+     * @return the health indicator.
+     */
+    @Bean
+    public ConnectionPoolHealthIndicator connectionPoolHealthIndicator(DataSource dataSource, ApplicationProperties applicationProperties) {
+        return new ConnectionPoolHealthIndicator(
+            hikariPools(dataSource),
+            applicationProperties.getDatabase().getPool().getMaxPendingAcquisitions()
+        );
+    }
+
+    private static List<HikariDataSource> hikariPools(DataSource dataSource) {
+        if (dataSource instanceof ReplicaRoutingDataSource) {
+            return ((ReplicaRoutingDataSource) dataSource).getPools();
+        }
+        if (dataSource instanceof HikariDataSource) {
+            return List.of((HikariDataSource) dataSource);
+        }
+        if (dataSource instanceof DelegatingDataSource && ((DelegatingDataSource) dataSource).getTargetDataSource() != null) {
+            return hikariPools(((DelegatingDataSource) dataSource).getTargetDataSource());
+        }
+        return List.of();
+    }
+
+    private static void applyPoolSizing(HikariConfig config, ApplicationProperties.Database.Pool pool) {
+        if (pool.getMaximumPoolSize() != null) {
+            config.setMaximumPoolSize(pool.getMaximumPoolSize());
+        }
+        if (pool.getMinimumIdle() != null) {
+            config.setMinimumIdle(pool.getMinimumIdle());
+        }
+        if (pool.getConnectionTimeout() != null) {
+            config.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        }
+    }
+
     private String getValidPortForH2() {
         int port = Integer.parseInt(env.getProperty("server.port"));
         if (port < 10000) {
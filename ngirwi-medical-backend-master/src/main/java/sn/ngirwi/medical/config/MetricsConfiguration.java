@@ -0,0 +1,54 @@
+package sn.ngirwi.medical.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import sn.ngirwi.medical.aop.metrics.MethodTimingAspect;
+import sn.ngirwi.medical.management.HospitalMeterTags;
+import sn.ngirwi.medical.security.SecurityUtils;
+import sn.ngirwi.medical.web.filter.RequestMetricsFilter;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class MetricsConfiguration {
+
+    /**
+     * Adds the hospital of the authenticated user, resolved by {@link RequestMetricsFilter}, to {@code http.server.requests}.
+     */
+    @Bean
+    public WebMvcTagsContributor hospitalWebMvcTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+                Object hospital = request.getAttribute(RequestMetricsFilter.HOSPITAL_TAG_ATTRIBUTE);
+                return Tags.of(HospitalMeterTags.TAG, hospital != null ? hospital.toString() : HospitalMeterTags.NONE);
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.empty();
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.metrics.method-timing", name = "enabled", havingValue = "true")
+    public MethodTimingAspect methodTimingAspect(
+        MeterRegistry meterRegistry,
+        HospitalMeterTags hospitalMeterTags,
+        ApplicationProperties applicationProperties
+    ) {
+        return new MethodTimingAspect(
+            meterRegistry,
+            () -> hospitalMeterTags.hospital(SecurityUtils.getCurrentUserHospitalId().orElse(null)),
+            applicationProperties.getMetrics().getMethodTiming().getSamplingRate()
+        );
+    }
+}
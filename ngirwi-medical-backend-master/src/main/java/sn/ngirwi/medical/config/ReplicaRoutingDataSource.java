@@ -0,0 +1,115 @@
+package sn.ngirwi.medical.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link javax.sql.DataSource} sending read-only transactions to a replica pool and everything else to the primary.
+ * <p>
+ * The physical connection is only fetched on the first statement (see {@link LazyConnectionDataSourceProxy}), once the
+ * transaction read-only flag is known. The replica lag is checked in the background: while the replica is unreachable
+ * or lagging more than {@code maxLag}, read-only transactions use the primary.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    private static final String REPLICA = "replica";
+
+    private final HikariDataSource primary;
+
+    private final HikariDataSource replica;
+
+    private final ScheduledExecutorService lagChecker;
+
+    private volatile boolean replicaUsable = false;
+
+    public ReplicaRoutingDataSource(
+        HikariDataSource primary,
+        HikariDataSource replica,
+        String lagQuery,
+        Duration maxLag,
+        Duration lagCheckInterval
+    ) {
+        this.primary = primary;
+        this.replica = replica;
+
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable ? REPLICA : PRIMARY;
+            }
+        };
+        router.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+
+        lagChecker =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-lag-checker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        lagChecker.scheduleWithFixedDelay(() -> checkLag(lagQuery, maxLag), 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the primary and replica pools.
+     */
+    public List<HikariDataSource> getPools() {
+        return List.of(primary, replica);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void checkLag(String lagQuery, Duration maxLag) {
+        boolean usable;
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                double lagSeconds = resultSet.next() ? resultSet.getDouble(1) : Double.MAX_VALUE;
+                usable = lagSeconds * 1000 <= maxLag.toMillis();
+                if (!usable) {
+                    log.warn("Replica lag of {}s exceeds {}, read-only transactions use the primary", lagSeconds, maxLag);
+                }
+            } finally {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Replica lag check failed, read-only transactions use the primary: {}", e.getMessage());
+            usable = false;
+        }
+        if (usable && !replicaUsable) {
+            log.info("Replica available, read-only transactions are routed to it");
+        }
+        replicaUsable = usable;
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replica.close();
+        primary.close();
+    }
+}
@@ -13,8 +13,11 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.filter.CorsFilter;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
+import sn.ngirwi.medical.management.HospitalMeterTags;
+import sn.ngirwi.medical.management.SlowRequestRecorder;
 import sn.ngirwi.medical.security.*;
 import sn.ngirwi.medical.security.jwt.*;
+import sn.ngirwi.medical.web.filter.RequestMetricsFilter;
 
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true)
@@ -26,14 +29,21 @@ public class SecurityConfiguration {
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
+    private final HospitalMeterTags hospitalMeterTags;
+    private final SlowRequestRecorder slowRequestRecorder;
+
     public SecurityConfiguration(
         TokenProvider tokenProvider,
         CorsFilter corsFilter,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        HospitalMeterTags hospitalMeterTags,
+        SlowRequestRecorder slowRequestRecorder
     ) {
         this.tokenProvider = tokenProvider;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
+        this.hospitalMeterTags = hospitalMeterTags;
+        this.slowRequestRecorder = slowRequestRecorder;
     }
 
     @Bean
@@ -52,6 +62,7 @@ public class SecurityConfiguration {
             .frameOptions().sameOrigin()
             .and()
             .addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(new RequestMetricsFilter(hospitalMeterTags, slowRequestRecorder), UsernamePasswordAuthenticationFilter.class)
             .exceptionHandling()
             .authenticationEntryPoint(problemSupport)
             .accessDeniedHandler(problemSupport)
@@ -0,0 +1,67 @@
+package sn.ngirwi.medical.config;
+
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.internal.util.collections.ArrayHelper;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Configuration;
+import sn.ngirwi.medical.domain.SyncTracked;
+import sn.ngirwi.medical.repository.SyncChangeIds;
+
+/**
+ * Stamps the {@link SyncTracked} entities with the change id of their transaction when Hibernate writes them.
+ * <p>
+ * The id is set in the state Hibernate is about to write, not only on the entity: the insert or update already
+ * carries it, without a second statement.
+ */
+@Configuration
+public class SyncChangeConfiguration {
+
+    private static final String CHANGE_ID = "changeId";
+
+    public SyncChangeConfiguration(EntityManagerFactory entityManagerFactory, SyncChangeIds syncChangeIds) {
+        SyncChangeListener listener = new SyncChangeListener(syncChangeIds);
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, listener);
+        registry.appendListeners(EventType.PRE_UPDATE, listener);
+    }
+
+    private static final class SyncChangeListener implements PreInsertEventListener, PreUpdateEventListener {
+
+        private final SyncChangeIds syncChangeIds;
+
+        SyncChangeListener(SyncChangeIds syncChangeIds) {
+            this.syncChangeIds = syncChangeIds;
+        }
+
+        @Override
+        public boolean onPreInsert(PreInsertEvent event) {
+            stamp(event.getEntity(), event.getPersister(), event.getState(), event.getSession());
+            return false;
+        }
+
+        @Override
+        public boolean onPreUpdate(PreUpdateEvent event) {
+            stamp(event.getEntity(), event.getPersister(), event.getState(), event.getSession());
+            return false;
+        }
+
+        private void stamp(Object entity, EntityPersister persister, Object[] state, Session session) {
+            if (entity instanceof SyncTracked) {
+                long changeId = syncChangeIds.current(session);
+                ((SyncTracked) entity).setChangeId(changeId);
+                state[ArrayHelper.indexOf(persister.getPropertyNames(), CHANGE_ID)] = changeId;
+            }
+        }
+    }
+}
@@ -10,15 +10,26 @@ import javax.persistence.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * A Bill.
  */
 @Entity
-@Table(name = "bill")
+@Table(
+    name = "bill",
+    indexes = {
+        @Index(name = "idx_bill_date", columnList = "date"),
+        @Index(name = "idx_bill_hospitalisation", columnList = "hospitalisation_id"),
+        @Index(name = "idx_bill_patient_date", columnList = "patient_id, date DESC, id DESC"),
+        @Index(name = "idx_bill_change", columnList = "change_id, id"),
+    }
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(AuditingEntityListener.class)
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class Bill implements Serializable {
+public class Bill implements Serializable, SyncTracked {
 
     private static final long serialVersionUID = 1L;
 
@@ -48,6 +59,12 @@ public class Bill implements Serializable {
     @Column(name = "total", precision = 21, scale = 2)
     private BigDecimal total;
 
+    /**
+     * Hospitalisation facturée par cette facture (facture générée à la clôture), null pour une facture saisie.
+     */
+    @Column(name = "hospitalisation_id")
+    private Long hospitalisationId;
+
     @ManyToOne
     @JsonIgnoreProperties(value = { "dossierMedical", "consultations" }, allowSetters = true)
     private Patient patient;
@@ -57,6 +74,20 @@ public class Bill implements Serializable {
     @JsonIgnoreProperties(value = { "bill" }, allowSetters = true)
     private Set<BillElement> billElements = new HashSet<>();
 
+    /**
+     * Date de la dernière modification.
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_date")
+    private Instant lastModifiedDate;
+
+    /**
+     * Position de la dernière modification dans l'ordre de validation, curseur de la synchronisation différentielle ;
+     * écrite à chaque insertion ou mise à jour (voir {@link SyncTracked}).
+     */
+    @Column(name = "change_id", nullable = false)
+    private Long changeId = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -150,6 +181,19 @@ public class Bill implements Serializable {
         this.total = total;
     }
 
+    public Long getHospitalisationId() {
+        return this.hospitalisationId;
+    }
+
+    public Bill hospitalisationId(Long hospitalisationId) {
+        this.setHospitalisationId(hospitalisationId);
+        return this;
+    }
+
+    public void setHospitalisationId(Long hospitalisationId) {
+        this.hospitalisationId = hospitalisationId;
+    }
+
     public Patient getPatient() {
         return this.patient;
     }
@@ -194,6 +238,23 @@ public class Bill implements Serializable {
         return this;
     }
 
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getChangeId() {
+        return this.changeId;
+    }
+
+    @Override
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -224,6 +285,7 @@ public class Bill implements Serializable {
             ", desc='" + getDesc() + "'" +
             ", ipm='" + getIpm() + "'" +
             ", total=" + getTotal() +
+            ", hospitalisationId=" + getHospitalisationId() +
             "}";
     }
 }
@@ -26,11 +26,17 @@ public class BillElement implements Serializable {
     @Column(name = "name")
     private String name;
 
+    /**
+     * Prix unitaire en FCFA.
+     */
     @Column(name = "price")
-    private Double price;
+    private Long price;
 
-    @Column(name = "percentage")
-    private Double percentage;
+    /**
+     * Remise en points de base (1 % = 100).
+     */
+    @Column(name = "discount_bp")
+    private Integer discountBp;
 
     @Column(name = "quantity")
     private Integer quantity;
@@ -67,30 +73,30 @@ public class BillElement implements Serializable {
         this.name = name;
     }
 
-    public Double getPrice() {
+    public Long getPrice() {
         return this.price;
     }
 
-    public BillElement price(Double price) {
+    public BillElement price(Long price) {
         this.setPrice(price);
         return this;
     }
 
-    public void setPrice(Double price) {
+    public void setPrice(Long price) {
         this.price = price;
     }
 
-    public Double getPercentage() {
-        return this.percentage;
+    public Integer getDiscountBp() {
+        return this.discountBp;
     }
 
-    public BillElement percentage(Double percentage) {
-        this.setPercentage(percentage);
+    public BillElement discountBp(Integer discountBp) {
+        this.setDiscountBp(discountBp);
         return this;
     }
 
-    public void setPercentage(Double percentage) {
-        this.percentage = percentage;
+    public void setDiscountBp(Integer discountBp) {
+        this.discountBp = discountBp;
     }
 
     public Integer getQuantity() {
@@ -145,7 +151,7 @@ public class BillElement implements Serializable {
             "id=" + getId() +
             ", name='" + getName() + "'" +
             ", price=" + getPrice() +
-            ", percentage=" + getPercentage() +
+            ", discountBp=" + getDiscountBp() +
             ", quantity=" + getQuantity() +
             "}";
     }
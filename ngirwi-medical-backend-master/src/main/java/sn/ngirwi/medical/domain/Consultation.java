@@ -8,15 +8,24 @@ import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * A Consultation.
  */
 @Entity
-@Table(name = "consultation")
+@Table(
+    name = "consultation",
+    indexes = {
+        @Index(name = "idx_consultation_patient_date", columnList = "patient_id, date_time DESC, id DESC"),
+        @Index(name = "idx_consultation_change", columnList = "change_id, id"),
+    }
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(AuditingEntityListener.class)
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class Consultation implements Serializable {
+public class Consultation implements Serializable, SyncTracked {
 
     private static final long serialVersionUID = 1L;
 
@@ -265,6 +274,20 @@ public class Consultation implements Serializable {
     @OneToOne(mappedBy = "consultation")
     private Prescription ordonance;
 
+    /**
+     * Date de la dernière modification.
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_date")
+    private Instant lastModifiedDate;
+
+    /**
+     * Position de la dernière modification dans l'ordre de validation, curseur de la synchronisation différentielle ;
+     * écrite à chaque insertion ou mise à jour (voir {@link SyncTracked}).
+     */
+    @Column(name = "change_id", nullable = false)
+    private Long changeId = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -1261,6 +1284,23 @@ public class Consultation implements Serializable {
         return this;
     }
 
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getChangeId() {
+        return this.changeId;
+    }
+
+    @Override
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
@@ -17,10 +18,18 @@ import sn.ngirwi.medical.domain.enumeration.HospitalisationStatus;
  * A Hospitalisation.
  */
 @Entity
-@Table(name = "hospitalisation")
+@Table(
+    name = "hospitalisation",
+    indexes = {
+        @Index(name = "idx_hospitalisation_status_ews", columnList = "status, latest_early_warning_score DESC"),
+        @Index(name = "idx_hospitalisation_release_date", columnList = "release_date"),
+        @Index(name = "idx_hospitalisation_patient_entry", columnList = "patient_id, entry_date DESC, id DESC"),
+        @Index(name = "idx_hospitalisation_change", columnList = "change_id, id"),
+    }
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class Hospitalisation extends AbstractAuditingEntity<Long> implements Serializable {
+public class Hospitalisation extends AbstractAuditingEntity<Long> implements Serializable, SyncTracked {
 
     private static final long serialVersionUID = 1L;
 
@@ -80,6 +89,14 @@ public class Hospitalisation extends AbstractAuditingEntity<Long> implements Ser
     @Column(name = "total_amount", precision = 21, scale = 2)
     private BigDecimal totalAmount;
 
+    /** Dernier score d'alerte précoce (NEWS2) mesuré — mis à jour à l'enregistrement des fiches de surveillance */
+    @Column(name = "latest_early_warning_score")
+    private Integer latestEarlyWarningScore;
+
+    /** Date de la fiche ayant donné le dernier score */
+    @Column(name = "latest_early_warning_score_date")
+    private LocalDate latestEarlyWarningScoreDate;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dossier_medical_id")
     @JsonIgnoreProperties(value = { "patient", "consultations" }, allowSetters = true)
@@ -96,6 +113,13 @@ public class Hospitalisation extends AbstractAuditingEntity<Long> implements Ser
 
     public Hospitalisation() {}
 
+    /**
+     * Position de la dernière modification dans l'ordre de validation, curseur de la synchronisation différentielle ;
+     * écrite à chaque insertion ou mise à jour (voir {@link SyncTracked}).
+     */
+    @Column(name = "change_id", nullable = false)
+    private Long changeId = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     @Override
@@ -263,6 +287,22 @@ public class Hospitalisation extends AbstractAuditingEntity<Long> implements Ser
         this.totalAmount = totalAmount;
     }
 
+    public Integer getLatestEarlyWarningScore() {
+        return latestEarlyWarningScore;
+    }
+
+    public void setLatestEarlyWarningScore(Integer latestEarlyWarningScore) {
+        this.latestEarlyWarningScore = latestEarlyWarningScore;
+    }
+
+    public LocalDate getLatestEarlyWarningScoreDate() {
+        return latestEarlyWarningScoreDate;
+    }
+
+    public void setLatestEarlyWarningScoreDate(LocalDate latestEarlyWarningScoreDate) {
+        this.latestEarlyWarningScoreDate = latestEarlyWarningScoreDate;
+    }
+
     // ============================
     // Builder Methods
     // ============================
@@ -327,6 +367,15 @@ public class Hospitalisation extends AbstractAuditingEntity<Long> implements Ser
         return this;
     }
 
+    public Long getChangeId() {
+        return this.changeId;
+    }
+
+    @Override
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
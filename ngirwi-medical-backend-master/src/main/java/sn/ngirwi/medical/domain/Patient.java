@@ -10,6 +10,8 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import sn.ngirwi.medical.domain.enumeration.BLOODTYPE;
 import sn.ngirwi.medical.domain.enumeration.GENDER;
 import sn.ngirwi.medical.domain.enumeration.MARITALSTATUS;
@@ -18,10 +20,19 @@ import sn.ngirwi.medical.domain.enumeration.MARITALSTATUS;
  * A Patient.
  */
 @Entity
-@Table(name = "patient")
+@Table(
+    name = "patient",
+    indexes = {
+        @Index(name = "idx_patient_hospital_name_key", columnList = "hospital_id, name_key"),
+        @Index(name = "idx_patient_hospital_birthday", columnList = "hospital_id, birthday"),
+        @Index(name = "idx_patient_hospital_phone_key", columnList = "hospital_id, phone_key"),
+        @Index(name = "idx_patient_hospital_change", columnList = "hospital_id, change_id, id"),
+    }
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(AuditingEntityListener.class)
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class Patient implements Serializable {
+public class Patient implements Serializable, SyncTracked {
 
     private static final long serialVersionUID = 1L;
 
@@ -87,6 +98,16 @@ public class Patient implements Serializable {
     @Column(name = "hospital_id")
     private Long hospitalId;
 
+    /**
+     * Clés de blocage de la détection des doublons, calculées par
+     * {@link sn.ngirwi.medical.service.duplicate.PatientBlockingKeys} à chaque enregistrement.
+     */
+    @Column(name = "name_key", length = 32)
+    private String nameKey;
+
+    @Column(name = "phone_key", length = 16)
+    private String phoneKey;
+
     @JsonIgnoreProperties(value = { "patient" }, allowSetters = true)
     @OneToOne(mappedBy = "patient", fetch = FetchType.EAGER)
     private DossierMedical dossierMedical;
@@ -96,6 +117,20 @@ public class Patient implements Serializable {
     @JsonIgnoreProperties(value = { "patient", "ordonance" }, allowSetters = true)
     private Set<Consultation> consultations = new HashSet<>();
 
+    /**
+     * Date de la dernière modification.
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_date")
+    private Instant lastModifiedDate;
+
+    /**
+     * Position de la dernière modification dans l'ordre de validation, curseur de la synchronisation différentielle ;
+     * écrite à chaque insertion ou mise à jour (voir {@link SyncTracked}).
+     */
+    @Column(name = "change_id", nullable = false)
+    private Long changeId = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -351,6 +386,39 @@ public class Patient implements Serializable {
         this.hospitalId = hospitalId;
     }
 
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public void setNameKey(String nameKey) {
+        this.nameKey = nameKey;
+    }
+
+    public String getPhoneKey() {
+        return phoneKey;
+    }
+
+    public void setPhoneKey(String phoneKey) {
+        this.phoneKey = phoneKey;
+    }
+
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getChangeId() {
+        return this.changeId;
+    }
+
+    @Override
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
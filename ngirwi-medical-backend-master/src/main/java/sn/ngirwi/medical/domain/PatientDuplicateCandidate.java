@@ -0,0 +1,126 @@
+package sn.ngirwi.medical.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+
+/**
+ * A pair of patients of the same hospital that probably are the same person, found by the nightly duplicate report.
+ * <p>
+ * All the rows of a hospital are replaced on each run by
+ * {@link sn.ngirwi.medical.service.duplicate.DuplicatePatientService}.
+ */
+@Entity
+@Table(
+    name = "patient_duplicate_candidate",
+    indexes = { @Index(name = "idx_patient_duplicate_hospital_score", columnList = "hospital_id, score") }
+)
+public class PatientDuplicateCandidate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "hospital_id", nullable = false)
+    private Long hospitalId;
+
+    /**
+     * Le dossier le plus récent de la paire.
+     */
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    /**
+     * Le dossier plus ancien qu'il double probablement.
+     */
+    @Column(name = "candidate_id", nullable = false)
+    private Long candidateId;
+
+    /**
+     * Score de 0 à 100.
+     */
+    @Column(name = "score", nullable = false)
+    private Integer score;
+
+    /**
+     * Critères concordants, séparés par des virgules.
+     */
+    @Column(name = "reasons", length = 64)
+    private String reasons;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+
+    public PatientDuplicateCandidate() {}
+
+    public PatientDuplicateCandidate(Long hospitalId, Long patientId, Long candidateId, Integer score, String reasons, Instant computedAt) {
+        this.hospitalId = hospitalId;
+        this.patientId = patientId;
+        this.candidateId = candidateId;
+        this.score = score;
+        this.reasons = reasons;
+        this.computedAt = computedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public Long getCandidateId() {
+        return candidateId;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public String getReasons() {
+        return reasons;
+    }
+
+    public Instant getComputedAt() {
+        return computedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PatientDuplicateCandidate)) {
+            return false;
+        }
+        return id != null && id.equals(((PatientDuplicateCandidate) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PatientDuplicateCandidate{" +
+            "id=" + getId() +
+            ", hospitalId=" + getHospitalId() +
+            ", patientId=" + getPatientId() +
+            ", candidateId=" + getCandidateId() +
+            ", score=" + getScore() +
+            ", reasons='" + getReasons() + "'" +
+            "}";
+    }
+}
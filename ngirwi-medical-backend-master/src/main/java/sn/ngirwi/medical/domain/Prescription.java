@@ -8,15 +8,24 @@ import java.util.Set;
 import javax.persistence.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * A Prescription.
  */
 @Entity
-@Table(name = "prescription")
+@Table(
+    name = "prescription",
+    indexes = {
+        @Index(name = "idx_prescription_consultation_date", columnList = "consultation_id, creation_date DESC, id DESC"),
+        @Index(name = "idx_prescription_change", columnList = "change_id, id"),
+    }
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(AuditingEntityListener.class)
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class Prescription implements Serializable {
+public class Prescription implements Serializable, SyncTracked {
 
     private static final long serialVersionUID = 1L;
 
@@ -42,6 +51,20 @@ public class Prescription implements Serializable {
     @JsonIgnoreProperties(value = { "ordonance" }, allowSetters = true)
     private Set<Medecine> medecines = new HashSet<>();
 
+    /**
+     * Date de la dernière modification.
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_date")
+    private Instant lastModifiedDate;
+
+    /**
+     * Position de la dernière modification dans l'ordre de validation, curseur de la synchronisation différentielle ;
+     * écrite à chaque insertion ou mise à jour (voir {@link SyncTracked}).
+     */
+    @Column(name = "change_id", nullable = false)
+    private Long changeId = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -127,6 +150,23 @@ public class Prescription implements Serializable {
         return this;
     }
 
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getChangeId() {
+        return this.changeId;
+    }
+
+    @Override
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
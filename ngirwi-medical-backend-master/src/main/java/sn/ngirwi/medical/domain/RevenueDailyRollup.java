@@ -0,0 +1,150 @@
+package sn.ngirwi.medical.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import javax.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Revenue of one day for a hospital, per source (bills or finalised hospitalisations), service and insurer.
+ * <p>
+ * Rows are only written by {@link sn.ngirwi.medical.repository.RevenueRollupRefreshRepository}, which
+ * replaces all the rows of the refreshed days. The key columns are never null ({@link #NO_HOSPITAL}, {@link #NONE})
+ * so that the unique constraint on them holds on every database.
+ */
+@Entity
+@Immutable
+@Table(
+    name = "revenue_daily_rollup",
+    uniqueConstraints = @UniqueConstraint(
+        name = "ux_revenue_daily_rollup__key",
+        columnNames = { "hospital_id", "revenue_date", "source", "service", "insurer" }
+    )
+)
+public class RevenueDailyRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String SOURCE_BILL = "BILL";
+    public static final String SOURCE_HOSPITALISATION = "HOSPITALISATION";
+
+    /** Hospital id of the revenue of patients without hospital. */
+    public static final long NO_HOSPITAL = -1L;
+
+    /** Service or insurer of the revenue that has none. */
+    public static final String NONE = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "hospital_id", nullable = false)
+    private Long hospitalId;
+
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+
+    @Column(name = "source", length = 16, nullable = false)
+    private String source;
+
+    @Column(name = "service", length = 128, nullable = false)
+    private String service;
+
+    @Column(name = "insurer", nullable = false)
+    private String insurer;
+
+    /**
+     * Montant en FCFA.
+     */
+    @Column(name = "amount", nullable = false)
+    private Long amount;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    protected RevenueDailyRollup() {}
+
+    public RevenueDailyRollup(
+        Long hospitalId,
+        LocalDate revenueDate,
+        String source,
+        String service,
+        String insurer,
+        Long amount,
+        Integer itemCount
+    ) {
+        this.hospitalId = hospitalId;
+        this.revenueDate = revenueDate;
+        this.source = source;
+        this.service = service;
+        this.insurer = insurer;
+        this.amount = amount;
+        this.itemCount = itemCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public LocalDate getRevenueDate() {
+        return revenueDate;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getInsurer() {
+        return insurer;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RevenueDailyRollup)) {
+            return false;
+        }
+        return id != null && id.equals(((RevenueDailyRollup) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RevenueDailyRollup{" +
+            "id=" + getId() +
+            ", hospitalId=" + getHospitalId() +
+            ", revenueDate='" + getRevenueDate() + "'" +
+            ", source='" + getSource() + "'" +
+            ", service='" + getService() + "'" +
+            ", insurer='" + getInsurer() + "'" +
+            ", amount=" + getAmount() +
+            ", itemCount=" + getItemCount() +
+            "}";
+    }
+}
@@ -91,14 +91,20 @@ public class SurveillanceSheet extends AbstractAuditingEntity<Long> implements S
     @Column(name = "administered_medication") // Medecine
     private String administeredMedication;
 
+    /** Score d'alerte précoce (NEWS2) calculé côté backend à partir des paramètres vitaux */
+    @Column(name = "early_warning_score")
+    private Integer earlyWarningScore;
+
     /** Médicaments administrés (journalier) — saisis par l'utilisateur */
     @ElementCollection
     @CollectionTable(name = "surveillance_sheet_medications", joinColumns = @JoinColumn(name = "surveillance_sheet_id"))
+    @OrderColumn(name = "med_position") // liste indexée : ajout/modification d'une ligne = un seul INSERT/UPDATE
     private List<MedicationEntry> medications = new ArrayList<>();
 
     /** Actes/soins réalisés (journalier) — saisis par l'utilisateur */
     @ElementCollection
     @CollectionTable(name = "surveillance_sheet_acts", joinColumns = @JoinColumn(name = "surveillance_sheet_id"))
+    @OrderColumn(name = "act_position")
     private List<ActEntry> acts = new ArrayList<>();
 
     /** Total journalier (médicaments + actes) calculé côté backend */
@@ -299,6 +305,14 @@ public class SurveillanceSheet extends AbstractAuditingEntity<Long> implements S
         this.administeredMedication = administeredMedication;
     }
 
+    public Integer getEarlyWarningScore() {
+        return earlyWarningScore;
+    }
+
+    public void setEarlyWarningScore(Integer earlyWarningScore) {
+        this.earlyWarningScore = earlyWarningScore;
+    }
+
     public Hospitalisation getHospitalisation() {
         return hospitalisation;
     }
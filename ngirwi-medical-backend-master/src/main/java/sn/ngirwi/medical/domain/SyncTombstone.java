@@ -0,0 +1,123 @@
+package sn.ngirwi.medical.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+
+/**
+ * Trace of a deleted patient, consultation, prescription, bill or hospitalisation, read by the delta synchronisation
+ * ({@link sn.ngirwi.medical.service.sync.SyncService}) so that offline clients remove their copy.
+ * <p>
+ * Written by the {@code delete} of each service and purged after the retention period of the synchronisation.
+ */
+@Entity
+@Table(name = "sync_tombstone", indexes = { @Index(name = "idx_sync_tombstone_hospital_change", columnList = "hospital_id, change_id, id") })
+public class SyncTombstone implements Serializable, SyncTracked {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String PATIENT = "PATIENT";
+
+    public static final String CONSULTATION = "CONSULTATION";
+
+    public static final String PRESCRIPTION = "PRESCRIPTION";
+
+    public static final String BILL = "BILL";
+
+    public static final String HOSPITALISATION = "HOSPITALISATION";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * {@link #PATIENT}, {@link #CONSULTATION}, {@link #PRESCRIPTION}, {@link #BILL} ou {@link #HOSPITALISATION}.
+     */
+    @Column(name = "entity_type", length = 16, nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /**
+     * L'hôpital du patient de l'enregistrement supprimé, null si aucun.
+     */
+    @Column(name = "hospital_id")
+    private Long hospitalId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    @Column(name = "change_id", nullable = false)
+    private Long changeId = 0L;
+
+    public SyncTombstone() {}
+
+    public SyncTombstone(String entityType, Long entityId, Long hospitalId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.hospitalId = hospitalId;
+        this.deletedAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public Long getChangeId() {
+        return changeId;
+    }
+
+    @Override
+    public void setChangeId(Long changeId) {
+        this.changeId = changeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SyncTombstone)) {
+            return false;
+        }
+        return id != null && id.equals(((SyncTombstone) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncTombstone{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", hospitalId=" + getHospitalId() +
+            ", deletedAt='" + getDeletedAt() + "'" +
+            ", changeId=" + getChangeId() +
+            "}";
+    }
+}
@@ -0,0 +1,12 @@
+package sn.ngirwi.medical.domain;
+
+/**
+ * Entity read by the delta synchronisation ({@link sn.ngirwi.medical.service.sync.SyncService}).
+ * <p>
+ * Its {@code change_id} column is written on every insert and update with the id of the writing transaction, which
+ * orders the changes by commit rather than by the clock of the writer: a reader knows which transactions may still
+ * commit below a given id and never moves its cursor past them.
+ */
+public interface SyncTracked {
+    void setChangeId(Long changeId);
+}
@@ -0,0 +1,55 @@
+package sn.ngirwi.medical.management;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * Health indicator reporting the connection pools as out of service when too many threads wait for a connection.
+ * <p>
+ * It is part of the readiness group, so a saturated instance stops receiving traffic until its pool drains.
+ */
+public class ConnectionPoolHealthIndicator extends AbstractHealthIndicator {
+
+    private final List<HikariDataSource> pools;
+
+    private final int maxPendingAcquisitions;
+
+    public ConnectionPoolHealthIndicator(List<HikariDataSource> pools, int maxPendingAcquisitions) {
+        super("Connection pool health check failed");
+        this.pools = pools;
+        this.maxPendingAcquisitions = maxPendingAcquisitions;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        builder.up();
+        for (HikariDataSource pool : pools) {
+            HikariPoolMXBean poolMXBean = pool.getHikariPoolMXBean();
+            if (poolMXBean == null) {
+                builder.withDetail(pool.getPoolName(), Map.of("started", false));
+                continue;
+            }
+            int pending = poolMXBean.getThreadsAwaitingConnection();
+            builder.withDetail(
+                pool.getPoolName(),
+                Map.of(
+                    "active",
+                    poolMXBean.getActiveConnections(),
+                    "idle",
+                    poolMXBean.getIdleConnections(),
+                    "max",
+                    pool.getMaximumPoolSize(),
+                    "pending",
+                    pending
+                )
+            );
+            if (pending > maxPendingAcquisitions) {
+                builder.outOfService();
+            }
+        }
+    }
+}
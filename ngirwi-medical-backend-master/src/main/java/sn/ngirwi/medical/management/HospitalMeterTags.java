@@ -0,0 +1,52 @@
+package sn.ngirwi.medical.management;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+import sn.ngirwi.medical.config.ApplicationProperties;
+
+/**
+ * Resolves the {@code hospital} meter tag of the current request.
+ * <p>
+ * The number of distinct values is bounded by {@code application.metrics.max-hospital-tags} to keep the
+ * cardinality of the exported series under control: hospitals seen after the limit is reached are reported as
+ * {@link #OTHER}.
+ */
+@Component
+public class HospitalMeterTags {
+
+    public static final String TAG = "hospital";
+
+    public static final String NONE = "none";
+
+    public static final String OTHER = "other";
+
+    private final int maxHospitalTags;
+
+    private final Set<String> knownHospitals = ConcurrentHashMap.newKeySet();
+
+    public HospitalMeterTags(ApplicationProperties applicationProperties) {
+        this.maxHospitalTags = applicationProperties.getMetrics().getMaxHospitalTags();
+    }
+
+    /**
+     * @param hospitalId the hospital id.
+     * @return the tag value for the given hospital.
+     */
+    public String hospital(Long hospitalId) {
+        if (hospitalId == null) {
+            return NONE;
+        }
+        String value = hospitalId.toString();
+        if (knownHospitals.contains(value)) {
+            return value;
+        }
+        synchronized (knownHospitals) {
+            if (knownHospitals.size() < maxHospitalTags) {
+                knownHospitals.add(value);
+                return value;
+            }
+        }
+        return knownHospitals.contains(value) ? value : OTHER;
+    }
+}
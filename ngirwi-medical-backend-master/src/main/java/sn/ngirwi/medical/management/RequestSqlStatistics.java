@@ -0,0 +1,52 @@
+package sn.ngirwi.medical.management;
+
+/**
+ * JDBC statement count and time spent in the database for the request being processed by the current thread.
+ * <p>
+ * Statistics are only collected between {@link #start()} and {@link #clear()}; statements executed outside of a
+ * tracked request (scheduled jobs, async tasks) are ignored.
+ */
+public final class RequestSqlStatistics {
+
+    private static final ThreadLocal<RequestSqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+
+    private long databaseNanos;
+
+    private RequestSqlStatistics() {}
+
+    /**
+     * Start tracking the statements of the current thread.
+     *
+     * @return the statistics of the current thread.
+     */
+    public static RequestSqlStatistics start() {
+        RequestSqlStatistics statistics = new RequestSqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stop tracking the statements of the current thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    static void record(int statements, long nanos) {
+        RequestSqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statementCount += statements;
+            statistics.databaseNanos += nanos;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getDatabaseNanos() {
+        return databaseNanos;
+    }
+}
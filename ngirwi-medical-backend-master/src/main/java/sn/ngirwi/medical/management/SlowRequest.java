@@ -0,0 +1,96 @@
+package sn.ngirwi.medical.management;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A request that took longer than {@code application.metrics.slow-requests.threshold}.
+ */
+public class SlowRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Instant timestamp;
+
+    private final String endpoint;
+
+    private final String hospital;
+
+    private final int status;
+
+    private final long durationMs;
+
+    private final int sqlStatements;
+
+    private final long databaseTimeMs;
+
+    public SlowRequest(
+        Instant timestamp,
+        String endpoint,
+        String hospital,
+        int status,
+        long durationMs,
+        int sqlStatements,
+        long databaseTimeMs
+    ) {
+        this.timestamp = timestamp;
+        this.endpoint = endpoint;
+        this.hospital = hospital;
+        this.status = status;
+        this.durationMs = durationMs;
+        this.sqlStatements = sqlStatements;
+        this.databaseTimeMs = databaseTimeMs;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getHospital() {
+        return hospital;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public long getDatabaseTimeMs() {
+        return databaseTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "SlowRequest{" +
+            "timestamp=" +
+            timestamp +
+            ", endpoint='" +
+            endpoint +
+            "'" +
+            ", hospital='" +
+            hospital +
+            "'" +
+            ", status=" +
+            status +
+            ", durationMs=" +
+            durationMs +
+            ", sqlStatements=" +
+            sqlStatements +
+            ", databaseTimeMs=" +
+            databaseTimeMs +
+            "}"
+        );
+    }
+}
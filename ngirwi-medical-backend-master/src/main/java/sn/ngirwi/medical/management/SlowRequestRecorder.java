@@ -0,0 +1,62 @@
+package sn.ngirwi.medical.management;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import sn.ngirwi.medical.config.ApplicationProperties;
+
+/**
+ * Keeps the most recent slow requests in a fixed-size ring buffer.
+ */
+@Component
+public class SlowRequestRecorder {
+
+    private final Logger log = LoggerFactory.getLogger(SlowRequestRecorder.class);
+
+    private final Duration threshold;
+
+    private final SlowRequest[] buffer;
+
+    private int next;
+
+    private int size;
+
+    public SlowRequestRecorder(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Metrics.SlowRequests slowRequests = applicationProperties.getMetrics().getSlowRequests();
+        this.threshold = slowRequests.getThreshold();
+        this.buffer = new SlowRequest[Math.max(1, slowRequests.getCapacity())];
+    }
+
+    /**
+     * @param duration the duration of a request.
+     * @return true if a request of this duration must be recorded.
+     */
+    public boolean isSlow(Duration duration) {
+        return duration.compareTo(threshold) >= 0;
+    }
+
+    public void record(SlowRequest slowRequest) {
+        log.warn("Slow request: {}", slowRequest);
+        synchronized (buffer) {
+            buffer[next] = slowRequest;
+            next = (next + 1) % buffer.length;
+            size = Math.min(size + 1, buffer.length);
+        }
+    }
+
+    /**
+     * @return the recorded slow requests, most recent first.
+     */
+    public List<SlowRequest> getSlowRequests() {
+        synchronized (buffer) {
+            List<SlowRequest> slowRequests = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                slowRequests.add(buffer[(next - i + buffer.length) % buffer.length]);
+            }
+            return slowRequests;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package sn.ngirwi.medical.management;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate session listener feeding {@link RequestSqlStatistics} with the statements executed by the session.
+ * <p>
+ * Registered for every session through the {@code hibernate.session.events.auto} property.
+ */
+public class SqlStatisticsSessionEventListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long statementStart = -1;
+
+    private long batchStart = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        if (statementStart >= 0) {
+            RequestSqlStatistics.record(1, System.nanoTime() - statementStart);
+            statementStart = -1;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        if (batchStart >= 0) {
+            RequestSqlStatistics.record(1, System.nanoTime() - batchStart);
+            batchStart = -1;
+        }
+    }
+}
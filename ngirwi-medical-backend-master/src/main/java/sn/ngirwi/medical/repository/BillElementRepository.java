@@ -13,15 +13,19 @@ import sn.ngirwi.medical.domain.BillElement;
 public interface BillElementRepository extends JpaRepository<BillElement, Long> {
     List<BillElement> findByBill_Id(Long id);
 
-    boolean existsByNameAndPriceAndPercentageAndQuantityAndBill_Id(String name, Double price, Double percentage, Integer quantity, Long id);
+    boolean existsByNameAndPriceAndDiscountBpAndQuantityAndBill_Id(String name, Long price, Integer discountBp, Integer quantity, Long id);
 
-    long deleteByNameAndPriceAndPercentageAndQuantityAndBill_Id(String name, Double price, Double percentage, Integer quantity, Long id);
+    long deleteByNameAndPriceAndDiscountBpAndQuantityAndBill_Id(String name, Long price, Integer discountBp, Integer quantity, Long id);
 
+    /**
+     * Total FCFA des lignes d'une facture, même formule que {@link sn.ngirwi.medical.service.BillTotals#total} :
+     * somme en dix-millièmes de franc, arrondie une fois.
+     */
     @Query(
-        value = "select COALESCE(sum(CAST(price as decimal(21,2)) * COALESCE(quantity,0) * (1 - COALESCE(percentage,0)/100)),0) from bill_element where bill_id = :billId",
+        value = "select COALESCE((sum(price * COALESCE(quantity,0) * (10000 - COALESCE(discount_bp,0))) + 5000) / 10000, 0) from bill_element where bill_id = :billId",
         nativeQuery = true
     )
-    java.math.BigDecimal computeTotalByBillId(@org.springframework.data.repository.query.Param("billId") Long billId);
+    Long computeTotalByBillId(@org.springframework.data.repository.query.Param("billId") Long billId);
 
     org.springframework.data.domain.Page<BillElement> findByBill_Patient_HospitalId(Long hospitalId, org.springframework.data.domain.Pageable pageable);
 
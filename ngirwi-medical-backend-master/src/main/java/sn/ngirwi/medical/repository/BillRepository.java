@@ -1,9 +1,18 @@
 package sn.ngirwi.medical.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ngirwi.medical.domain.Bill;
 
@@ -18,4 +27,40 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
     Page<Bill> findByPatient_HospitalId(Long hospitalId, Pageable pageable);
 
     java.util.Optional<Bill> findByIdAndPatient_HospitalId(Long id, Long hospitalId);
+
+    /**
+     * Bills with their patient and lines, in one query (batch printing).
+     */
+    @Query("select distinct b from Bill b left join fetch b.patient left join fetch b.billElements where b.id in :ids")
+    List<Bill> findAllWithElementsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Bills of a period with their lines, one row per line (or one row for a bill without line), read through a
+     * forward-only cursor. Each row is {@code [billId, date, hospitalId, patientId, patientFirstName, patientLastName,
+     * author, insurance, ipm, total, elementId, elementName, price, discountBp, quantity]}; the stream must be closed.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+        }
+    )
+    @Query(
+        "select b.id, b.date, p.hospitalId, p.id, p.firstName, p.lastName, b.author, b.insurance, b.ipm, b.total," +
+        " e.id, e.name, e.price, e.discountBp, e.quantity" +
+        " from Bill b left join b.patient p left join b.billElements e" +
+        " where b.date >= :from and b.date < :to" +
+        " and (:insurance is null or b.insurance = :insurance)" +
+        " and (:ipm is null or b.ipm = :ipm)" +
+        " and (:hospitalId is null or p.hospitalId = :hospitalId)" +
+        " order by b.date, b.id, e.id"
+    )
+    Stream<Object[]> streamForExport(
+        @Param("from") Instant from,
+        @Param("to") Instant to,
+        @Param("insurance") String insurance,
+        @Param("ipm") String ipm,
+        @Param("hospitalId") Long hospitalId
+    );
 }
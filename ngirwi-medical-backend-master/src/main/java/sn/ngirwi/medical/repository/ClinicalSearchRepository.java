@@ -0,0 +1,31 @@
+package sn.ngirwi.medical.repository;
+
+import java.util.List;
+
+/**
+ * Full-text search over the clinical text of the consultations (hypothesis, exams, treatment, comment) and of the
+ * hospitalisations (entry and final diagnosis).
+ */
+public interface ClinicalSearchRepository {
+    /** Marks the start of a matched word in a headline. */
+    char HIGHLIGHT_START = '\u0002';
+
+    /** Marks the end of a matched word in a headline. */
+    char HIGHLIGHT_END = '\u0003';
+
+    /**
+     * One page of hits, most relevant first.
+     *
+     * @param terms the words to find, all of them must match.
+     * @param hospitalId the hospital of the patients, or {@code null} for every hospital.
+     * @return rows of kind ({@code CONSULTATION} or {@code HOSPITALISATION}), id, patient id, patient first name,
+     * patient last name, date, headline (matched words between {@link #HIGHLIGHT_START} and {@link #HIGHLIGHT_END})
+     * and rank.
+     */
+    List<Object[]> searchClinical(List<String> terms, Long hospitalId, long offset, int limit);
+
+    /**
+     * @return the number of hits of {@link #searchClinical}.
+     */
+    long countClinical(List<String> terms, Long hospitalId);
+}
@@ -0,0 +1,233 @@
+package sn.ngirwi.medical.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.DoubleType;
+import org.hibernate.type.InstantType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+
+/**
+ * On PostgreSQL, matches the {@code search_vector} columns (french configuration, GIN indexes, kept up to date by
+ * triggers) and ranks with {@code ts_rank_cd}; the headlines are computed for the rows of the page only.
+ * <p>
+ * Other databases (H2 in development and tests) fall back to a case-insensitive {@code LIKE} on every word, ordered
+ * by date, with the headline cut around the first match.
+ */
+public class ClinicalSearchRepositoryImpl implements ClinicalSearchRepository {
+
+    private static final String CONSULTATION_TEXT = "c.hypothesis, c.exams, c.treatment, c.comment";
+
+    private static final String HOSPITALISATION_TEXT = "h.entry_diagnosis, h.final_diagnosis";
+
+    private static final String SEPARATOR = "' … '";
+
+    private static final String QUERY_CTE = "with q as (select plainto_tsquery('french', :query) as query) ";
+
+    private static final String ORDER = " order by rank desc, event_date desc nulls last, kind, id desc";
+
+    private static final String HEADLINE_OPTIONS =
+        "StartSel=\"" +
+        HIGHLIGHT_START +
+        "\", StopSel=\"" +
+        HIGHLIGHT_END +
+        "\", MaxFragments=2, MaxWords=25, MinWords=8, FragmentDelimiter=\" … \"";
+
+    static final int EXCERPT_BEFORE = 60;
+
+    static final int EXCERPT_LENGTH = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> searchClinical(List<String> terms, Long hospitalId, long offset, int limit) {
+        boolean fullText = fullText();
+        String page =
+            "select kind, id, patient_id, first_name, last_name, event_date, body, rank from (" +
+            hits(fullText, terms.size(), hospitalId) +
+            ") h" +
+            ORDER +
+            " limit :limit offset :offset";
+        String sql = fullText
+            ? QUERY_CTE +
+            "select p.kind as kind, p.id as id, p.patient_id as patient_id, p.first_name as first_name, " +
+            "p.last_name as last_name, p.event_date as event_date, " +
+            "ts_headline('french', p.body, q.query, :options) as body, p.rank as rank from (" +
+            page +
+            ") p cross join q" +
+            ORDER
+            : page;
+        NativeQuery<?> query = nativeQuery(sql, fullText, terms, hospitalId)
+            .addScalar("kind", StringType.INSTANCE)
+            .addScalar("id", LongType.INSTANCE)
+            .addScalar("patient_id", LongType.INSTANCE)
+            .addScalar("first_name", StringType.INSTANCE)
+            .addScalar("last_name", StringType.INSTANCE)
+            .addScalar("event_date", InstantType.INSTANCE)
+            .addScalar("body", StringType.INSTANCE)
+            .addScalar("rank", DoubleType.INSTANCE)
+            .setParameter("limit", limit)
+            .setParameter("offset", offset);
+        if (fullText) {
+            query.setParameter("options", HEADLINE_OPTIONS);
+        }
+        List<Object[]> rows = (List<Object[]>) query.getResultList();
+        if (!fullText) {
+            rows.forEach(row -> row[6] = highlight((String) row[6], terms));
+        }
+        return rows;
+    }
+
+    @Override
+    public long countClinical(List<String> terms, Long hospitalId) {
+        boolean fullText = fullText();
+        String sql = (fullText ? QUERY_CTE : "") + "select count(*) from (" + hits(fullText, terms.size(), hospitalId) + ") h";
+        return ((Number) nativeQuery(sql, fullText, terms, hospitalId).getSingleResult()).longValue();
+    }
+
+    private boolean fullText() {
+        return (
+            entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof
+            PostgreSQL81Dialect
+        );
+    }
+
+    private static String hits(boolean fullText, int terms, Long hospitalId) {
+        return (
+            branch("CONSULTATION", "c", "consultation", "c.date_time", CONSULTATION_TEXT, fullText, terms, hospitalId) +
+            " union all " +
+            branch("HOSPITALISATION", "h", "hospitalisation", "h.entry_date", HOSPITALISATION_TEXT, fullText, terms, hospitalId)
+        );
+    }
+
+    private static String branch(
+        String kind,
+        String alias,
+        String table,
+        String date,
+        String text,
+        boolean fullText,
+        int terms,
+        Long hospitalId
+    ) {
+        StringBuilder sql = new StringBuilder()
+            .append("select '")
+            .append(kind)
+            .append("' as kind, ")
+            .append(alias)
+            .append(".id as id, ")
+            .append(alias)
+            .append(".patient_id as patient_id, pa.first_name as first_name, pa.last_name as last_name, ")
+            .append(date)
+            .append(" as event_date, concat_ws(")
+            .append(SEPARATOR)
+            .append(", ")
+            .append(text)
+            .append(") as body, ");
+        if (fullText) {
+            sql
+                .append("ts_rank_cd(")
+                .append(alias)
+                .append(".search_vector, q.query) as rank from ")
+                .append(table)
+                .append(' ')
+                .append(alias)
+                .append(" join patient pa on pa.id = ")
+                .append(alias)
+                .append(".patient_id cross join q where ")
+                .append(alias)
+                .append(".search_vector @@ q.query");
+        } else {
+            sql
+                .append("cast(0 as double precision) as rank from ")
+                .append(table)
+                .append(' ')
+                .append(alias)
+                .append(" join patient pa on pa.id = ")
+                .append(alias)
+                .append(".patient_id where 1 = 1");
+            for (int i = 0; i < terms; i++) {
+                sql.append(" and lower(concat_ws(' ', ").append(text).append(")) like :term").append(i);
+            }
+        }
+        if (hospitalId != null) {
+            sql.append(" and pa.hospital_id = :hospitalId");
+        }
+        return sql.toString();
+    }
+
+    private NativeQuery<?> nativeQuery(String sql, boolean fullText, List<String> terms, Long hospitalId) {
+        NativeQuery<?> query = entityManager
+            .createNativeQuery(sql)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("consultation")
+            .addSynchronizedQuerySpace("hospitalisation")
+            .addSynchronizedQuerySpace("patient");
+        if (fullText) {
+            query.setParameter("query", String.join(" ", terms));
+        } else {
+            for (int i = 0; i < terms.size(); i++) {
+                query.setParameter("term" + i, "%" + terms.get(i) + "%");
+            }
+        }
+        if (hospitalId != null) {
+            query.setParameter("hospitalId", hospitalId);
+        }
+        return query;
+    }
+
+    /**
+     * Cuts the text around the first matched word and marks every match, like {@code ts_headline} does.
+     */
+    static String highlight(String body, List<String> terms) {
+        if (body == null) {
+            return null;
+        }
+        int first = body.length();
+        for (String term : terms) {
+            for (int i = 0; i < first; i++) {
+                if (body.regionMatches(true, i, term, 0, term.length())) {
+                    first = i;
+                    break;
+                }
+            }
+        }
+        int start = first == body.length() ? 0 : Math.max(0, first - EXCERPT_BEFORE);
+        int end = Math.min(body.length(), start + EXCERPT_LENGTH);
+        StringBuilder out = new StringBuilder();
+        if (start > 0) {
+            out.append("… ");
+        }
+        int i = start;
+        while (i < end) {
+            int matched = matchAt(body, i, terms);
+            if (matched > 0) {
+                out.append(HIGHLIGHT_START).append(body, i, i + matched).append(HIGHLIGHT_END);
+                i += matched;
+            } else {
+                out.append(body.charAt(i));
+                i++;
+            }
+        }
+        if (end < body.length()) {
+            out.append(" …");
+        }
+        return out.toString();
+    }
+
+    private static int matchAt(String body, int index, List<String> terms) {
+        int longest = 0;
+        for (String term : terms) {
+            if (term.length() > longest && body.regionMatches(true, index, term, 0, term.length())) {
+                longest = term.length();
+            }
+        }
+        return longest;
+    }
+}
@@ -2,6 +2,7 @@ package sn.ngirwi.medical.repository;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -25,13 +26,17 @@ public interface HospitalisationRepository extends JpaRepository<Hospitalisation
 
     Optional<Hospitalisation> findFirstByPatient_IdOrderByEntryDateDesc(Long patientId);
 
-    @Query(
-        "select h from Hospitalisation h where (cast(:patientId as long) is null or h.patient.id = :patientId) " +
+    @Query("select h from Hospitalisation h left join fetch h.patient where h.id in :ids")
+    List<Hospitalisation> findAllWithPatientByIdIn(@Param("ids") Collection<Long> ids);
+
+    String SEARCH =
+        " from Hospitalisation h where (cast(:patientId as long) is null or h.patient.id = :patientId) " +
         "and (cast(:status as string) is null or h.status = :status) " +
         "and (cast(:from as timestamp) is null or h.entryDate >= :from) " +
         "and (cast(:to as timestamp) is null or h.entryDate <= :to) " +
-        "and (cast(:hospitalId as long) is null or h.patient.hospitalId = :hospitalId)"
-    )
+        "and (cast(:hospitalId as long) is null or h.patient.hospitalId = :hospitalId)";
+
+    @Query("select h" + SEARCH)
     Page<Hospitalisation> search(
         @Param("patientId") Long patientId,
         @Param("status") HospitalisationStatus status,
@@ -40,4 +45,22 @@ public interface HospitalisationRepository extends JpaRepository<Hospitalisation
         @Param("hospitalId") Long hospitalId,
         Pageable pageable
     );
+
+    /**
+     * Same as {@link #search}, highest early warning score first and hospitalisations without score last, whatever
+     * the database default for NULLs; the sort of the pageable only breaks ties. The order is the one of the index
+     * {@code idx_hospitalisation_status_ews}, which serves it for a status.
+     */
+    @Query(
+        value = "select h" + SEARCH + " order by h.latestEarlyWarningScore desc nulls last",
+        countQuery = "select count(h)" + SEARCH
+    )
+    Page<Hospitalisation> searchByScore(
+        @Param("patientId") Long patientId,
+        @Param("status") HospitalisationStatus status,
+        @Param("from") Instant from,
+        @Param("to") Instant to,
+        @Param("hospitalId") Long hospitalId,
+        Pageable pageable
+    );
 }
@@ -1,7 +1,9 @@
 package sn.ngirwi.medical.repository;
 
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ngirwi.medical.domain.Medecine;
 
@@ -13,6 +15,20 @@ import sn.ngirwi.medical.domain.Medecine;
 public interface MedecineRepository extends JpaRepository<Medecine, Long> {
     List<Medecine> findByOrdonance_Id(Long id);
 
+    /**
+     * Deletes all the medicines of a prescription with a single statement.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Medecine m where m.ordonance.id = :prescriptionId")
+    int deleteByPrescriptionId(@Param("prescriptionId") Long prescriptionId);
+
+    /**
+     * Deletes, with a single statement, the medicines of a prescription that are not in {@code keptIds} (not empty).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Medecine m where m.ordonance.id = :prescriptionId and m.id not in :keptIds")
+    int deleteByPrescriptionIdAndIdNotIn(@Param("prescriptionId") Long prescriptionId, @Param("keptIds") Collection<Long> keptIds);
+
     boolean existsByNameAndDurationAndFrequencyAndOrdonance_Id(String name, Long duration, Double frequency, Long id);
 
     Medecine findByNameAndDurationAndFrequencyAndOrdonance_Id(String name, Long duration, Double frequency, Long id);
@@ -23,4 +39,14 @@ public interface MedecineRepository extends JpaRepository<Medecine, Long> {
     );
 
     java.util.Optional<Medecine> findByIdAndOrdonance_Consultation_Patient_HospitalId(Long id, Long hospitalId);
+
+    /**
+     * Number of prescriptions of each medicine name per hospital, as {@code [hospitalId, name, count]} rows,
+     * most prescribed first.
+     */
+    @Query(
+        "select p.hospitalId, m.name, count(m) from Medecine m join m.ordonance o join o.consultation c join c.patient p " +
+        "where m.name is not null and p.hospitalId is not null group by p.hospitalId, m.name order by count(m) desc"
+    )
+    List<Object[]> countNamesByHospital();
 }
@@ -0,0 +1,32 @@
+package sn.ngirwi.medical.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.ngirwi.medical.domain.PatientDuplicateCandidate;
+
+/**
+ * Spring Data JPA repository for the PatientDuplicateCandidate entity.
+ * <p>
+ * The report returns rows of {@code [patientId, patientFirstName, patientLastName, candidateId, candidateFirstName,
+ * candidateLastName, candidateBirthday, candidatePhone, score, reasons]}; a {@code null} hospital id reads every
+ * hospital. Pairs whose patients were deleted since the report are skipped.
+ */
+@Repository
+public interface PatientDuplicateCandidateRepository extends JpaRepository<PatientDuplicateCandidate, Long> {
+    @Query(
+        value = "select c.patientId, p.firstName, p.lastName, c.candidateId, q.firstName, q.lastName, q.birthday, q.phone, c.score, c.reasons" +
+        " from PatientDuplicateCandidate c, Patient p, Patient q" +
+        " where p.id = c.patientId and q.id = c.candidateId and (:hospitalId is null or c.hospitalId = :hospitalId)" +
+        " order by c.score desc, c.patientId desc, c.candidateId desc",
+        countQuery = "select count(c) from PatientDuplicateCandidate c, Patient p, Patient q" +
+        " where p.id = c.patientId and q.id = c.candidateId and (:hospitalId is null or c.hospitalId = :hospitalId)"
+    )
+    Page<Object[]> findReport(@Param("hospitalId") Long hospitalId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from PatientDuplicateCandidate c where c.hospitalId = :hospitalId")
+    int deleteByHospitalId(@Param("hospitalId") Long hospitalId);
+}
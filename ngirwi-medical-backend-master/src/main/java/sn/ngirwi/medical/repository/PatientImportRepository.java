@@ -0,0 +1,76 @@
+package sn.ngirwi.medical.repository;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Set-based bulk import of patients through a transaction-scoped staging table: the rows are staged (with
+ * {@code COPY} on PostgreSQL), rejected when they conflict with the file or the database, then merged into
+ * {@code patient} with one {@code UPDATE} and one {@code INSERT}. All the methods must run in the same transaction.
+ */
+public interface PatientImportRepository {
+    /** The staged row repeats the CNI of an earlier row of the file. */
+    String DUPLICATE_IN_FILE = "DUPLICATE_IN_FILE";
+
+    /** The CNI belongs to a patient of another hospital. */
+    String OTHER_HOSPITAL = "OTHER_HOSPITAL";
+
+    /**
+     * Columns of the staged rows, in order: {@code [lineNo (Long), firstName, lastName, birthday (LocalDate),
+     * birthplace, gender, adress, phone, cni, job, bloodType, maritialStatus, nameKey, phoneKey]}; enumerations are
+     * given by name.
+     */
+    String[] STAGING_COLUMNS = {
+        "line_no",
+        "first_name",
+        "last_name",
+        "birthday",
+        "birthplace",
+        "gender",
+        "adress",
+        "phone",
+        "cni",
+        "job",
+        "blood_type",
+        "maritial_status",
+        "name_key",
+        "phone_key",
+    };
+
+    /**
+     * Creates the staging table of the transaction and fills it, reading the rows as they come.
+     *
+     * @param rows the rows, see {@link #STAGING_COLUMNS}.
+     * @return the number of rows staged.
+     */
+    long stagePatientImport(Iterator<Object[]> rows);
+
+    /**
+     * Marks the staged rows that cannot be merged ({@link #DUPLICATE_IN_FILE}, {@link #OTHER_HOSPITAL}).
+     *
+     * @param hospitalId the hospital of the import, null for patients without hospital.
+     * @return the number of rows rejected.
+     */
+    int rejectStagedPatientConflicts(Long hospitalId);
+
+    /**
+     * Updates the patients of the hospital whose CNI is staged; optional columns left empty keep their value. The
+     * rows are stamped with the time the statement runs.
+     *
+     * @return the number of patients updated.
+     */
+    int updatePatientsFromStaging(Long hospitalId);
+
+    /**
+     * Creates the staged patients whose CNI is unknown, with ids taken from {@code sequence_generator} by blocks
+     * of its increment, as Hibernate's pooled optimizer does. The rows are stamped with the time the statement runs.
+     *
+     * @return the number of patients created.
+     */
+    int insertPatientsFromStaging(Long hospitalId, String author);
+
+    /**
+     * @return the rejected rows {@code [lineNo, cni, reason]}, by line.
+     */
+    List<Object[]> findStagedPatientRejections(int limit);
+}
@@ -0,0 +1,359 @@
+package sn.ngirwi.medical.repository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import sn.ngirwi.medical.domain.Patient;
+
+/**
+ * On PostgreSQL the staging table is a temporary table dropped on commit, filled with {@code COPY ... FROM STDIN}
+ * streamed from the rows, indexed on the CNI and analysed before the merge; the PostgreSQL driver is only on the
+ * production classpath, hence the reflective call to its copy API.
+ * <p>
+ * Other databases (H2 in development and tests) fill a transactional local temporary table with JDBC batches.
+ * <p>
+ * The merge statements are native: the {@link Patient} cache region is invalidated by declaring the entity as a
+ * synchronized space. They stamp the rows with the time they run: the PostgreSQL statement clock, converted to UTC like
+ * the dates written by Hibernate ({@code hibernate.jdbc.time_zone}); H2 converts its clock to the JVM time zone, the
+ * time is bound when the statement runs instead.
+ * <p>
+ * The ids of the created patients come from {@code sequence_generator} like those of Hibernate's pooled optimizer:
+ * each value {@code V} fetched reserves the ids {@code V - 49} to {@code V} for the caller, so one value is fetched
+ * per block of {@link #ID_BLOCK} new patients and the ids never collide with those handed out by Hibernate.
+ * <p>
+ * Both statements write the change id of the transaction ({@link SyncChangeIds}) like the entities flushed by
+ * Hibernate, so the delta synchronisation sees the imported patients once the import commits.
+ */
+public class PatientImportRepositoryImpl implements PatientImportRepository {
+
+    private static final String STAGING = "patient_import";
+
+    private static final String STAGING_DEFINITION =
+        " (line_no bigint not null, first_name varchar(255), last_name varchar(255), birthday date, birthplace varchar(255)," +
+        " gender varchar(255), adress varchar(255), phone varchar(255), cni varchar(255), job varchar(255)," +
+        " blood_type varchar(255), maritial_status varchar(255), name_key varchar(32), phone_key varchar(16)," +
+        " error varchar(32))";
+
+    private static final String ID_BLOCKS = "patient_import_id_block";
+
+    private static final String ID_BLOCKS_DEFINITION = " (block_no bigint not null, last_id bigint not null)";
+
+    /** Increment of {@code sequence_generator}, the allocation size of {@code @SequenceGenerator}. */
+    private static final int ID_BLOCK = 50;
+
+    private static final String INSERTABLE = " s where s.error is null and not exists (select 1 from patient p where p.cni = s.cni)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SyncChangeIds syncChangeIds;
+
+    public PatientImportRepositoryImpl(SyncChangeIds syncChangeIds) {
+        this.syncChangeIds = syncChangeIds;
+    }
+
+    @Override
+    public long stagePatientImport(Iterator<Object[]> rows) {
+        boolean postgres = postgres();
+        return entityManager
+            .unwrap(Session.class)
+            .doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    createTemporaryTable(statement, STAGING, STAGING_DEFINITION, postgres);
+                    createTemporaryTable(statement, ID_BLOCKS, ID_BLOCKS_DEFINITION, postgres);
+                    statement.execute("delete from " + STAGING);
+                    statement.execute("delete from " + ID_BLOCKS);
+                    long staged = postgres ? copy(connection, rows) : batch(connection, rows);
+                    if (postgres) {
+                        statement.execute("create index if not exists " + STAGING + "_cni on " + STAGING + " (cni, line_no)");
+                        statement.execute("analyze " + STAGING);
+                    }
+                    return staged;
+                }
+            });
+    }
+
+    @Override
+    public int rejectStagedPatientConflicts(Long hospitalId) {
+        int duplicates = stagingQuery(
+            "update " +
+            STAGING +
+            " s set error = '" +
+            DUPLICATE_IN_FILE +
+            "' where exists (select 1 from " +
+            STAGING +
+            " t where t.cni = s.cni and t.line_no < s.line_no)"
+        )
+            .executeUpdate();
+        int others = stagingQuery(
+            "update " +
+            STAGING +
+            " s set error = '" +
+            OTHER_HOSPITAL +
+            "' where s.error is null and exists" +
+            " (select 1 from patient p where p.cni = s.cni and coalesce(p.hospital_id, -1) <> :hospitalKey)"
+        )
+            .setParameter("hospitalKey", hospitalKey(hospitalId))
+            .executeUpdate();
+        return duplicates + others;
+    }
+
+    @Override
+    public int updatePatientsFromStaging(Long hospitalId) {
+        String now = writeTime();
+        String assignments =
+            "first_name = s.first_name, last_name = s.last_name, birthday = s.birthday," +
+            " birthplace = coalesce(s.birthplace, p.birthplace), gender = s.gender, adress = s.adress, phone = s.phone," +
+            " job = coalesce(s.job, p.job), blood_type = coalesce(s.blood_type, p.blood_type)," +
+            " maritial_status = coalesce(s.maritial_status, p.maritial_status), name_key = s.name_key," +
+            " phone_key = s.phone_key, date_updated = " +
+            now +
+            ", last_modified_date = " +
+            now +
+            ", change_id = :changeId";
+        String sql = postgres()
+            ? "update patient p set " +
+            assignments +
+            " from " +
+            STAGING +
+            " s where s.cni = p.cni and s.error is null and coalesce(p.hospital_id, -1) = :hospitalKey"
+            : "merge into patient p using " +
+            STAGING +
+            " s on (s.cni = p.cni and s.error is null and coalesce(p.hospital_id, -1) = :hospitalKey)" +
+            " when matched then update set " +
+            assignments;
+        return bindWriteTime(patientQuery(sql))
+            .setParameter("hospitalKey", hospitalKey(hospitalId))
+            .setParameter("changeId", changeId())
+            .executeUpdate();
+    }
+
+    @Override
+    public int insertPatientsFromStaging(Long hospitalId, String author) {
+        long count = ((Number) stagingQuery("select count(*) from " + STAGING + INSERTABLE).getSingleResult()).longValue();
+        if (count == 0) {
+            return 0;
+        }
+        // one sequence value per block of ID_BLOCK new patients, blocks numbered from 0
+        String blocks = postgres()
+            ? "select n - 1, nextval('sequence_generator') from generate_series(1, :blocks) n"
+            : "select x - 1, next value for sequence_generator from system_range(1, :blocks)";
+        stagingQuery("insert into " + ID_BLOCKS + " (block_no, last_id) " + blocks)
+            .setParameter("blocks", (count + ID_BLOCK - 1) / ID_BLOCK)
+            .executeUpdate();
+
+        String now = writeTime();
+        String sql =
+            "insert into patient (id, first_name, last_name, birthday, birthplace, gender, adress, phone, cni, job, blood_type," +
+            " maritial_status, date_created, author, hospital_id, name_key, phone_key, last_modified_date, change_id)" +
+            " select b.last_id - " +
+            (ID_BLOCK - 1) +
+            " + mod(s.rn - 1, " +
+            ID_BLOCK +
+            "), s.first_name, s.last_name, s.birthday, s.birthplace, s.gender, s.adress, s.phone, s.cni, s.job, s.blood_type," +
+            " s.maritial_status, " +
+            now +
+            ", :author, :hospitalId, s.name_key, s.phone_key, " +
+            now +
+            ", :changeId from (select row_number() over (order by s.line_no) as rn, s.* from " +
+            STAGING +
+            INSERTABLE +
+            ") s join " +
+            ID_BLOCKS +
+            " b on b.block_no = (s.rn - 1) / " +
+            ID_BLOCK;
+        return bindWriteTime(patientQuery(sql))
+            .setParameter("author", author, StringType.INSTANCE)
+            .setParameter("hospitalId", hospitalId, LongType.INSTANCE)
+            .setParameter("changeId", changeId())
+            .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findStagedPatientRejections(int limit) {
+        return (List<Object[]>) entityManager
+            .createNativeQuery("select line_no, cni, error from " + STAGING + " where error is not null order by line_no")
+            .unwrap(NativeQuery.class)
+            .addScalar("line_no", LongType.INSTANCE)
+            .addScalar("cni", StringType.INSTANCE)
+            .addScalar("error", StringType.INSTANCE)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    /** Sans espace synchronisé déclaré, Hibernate viderait tout le cache de second niveau. */
+    private NativeQuery<?> stagingQuery(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class).addSynchronizedQuerySpace(STAGING);
+    }
+
+    private NativeQuery<?> patientQuery(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class).addSynchronizedEntityClass(Patient.class);
+    }
+
+    /** SQL of the time a merge statement runs, see {@link #bindWriteTime}. */
+    private String writeTime() {
+        return postgres() ? "(statement_timestamp() at time zone 'UTC')" : ":now";
+    }
+
+    private long changeId() {
+        return syncChangeIds.current(entityManager.unwrap(Session.class));
+    }
+
+    private NativeQuery<?> bindWriteTime(NativeQuery<?> query) {
+        if (!postgres()) {
+            query.setParameter("now", Instant.now());
+        }
+        return query;
+    }
+
+    private static void createTemporaryTable(Statement statement, String table, String definition, boolean postgres) throws SQLException {
+        if (postgres) {
+            statement.execute("create temporary table if not exists " + table + definition + " on commit drop");
+        } else {
+            statement.execute("create local temporary table if not exists " + table + definition + " on commit drop transactional");
+        }
+    }
+
+    private static long hospitalKey(Long hospitalId) {
+        return hospitalId == null ? -1L : hospitalId;
+    }
+
+    private static long batch(Connection connection, Iterator<Object[]> rows) throws SQLException {
+        String sql =
+            "insert into " +
+            STAGING +
+            " (" +
+            String.join(", ", STAGING_COLUMNS) +
+            ") values (" +
+            "?, ".repeat(STAGING_COLUMNS.length - 1) +
+            "?)";
+        long staged = 0;
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                for (int i = 0; i < STAGING_COLUMNS.length; i++) {
+                    insert.setObject(i + 1, row[i]);
+                }
+                insert.addBatch();
+                if (++staged % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return staged;
+    }
+
+    private static long copy(Connection connection, Iterator<Object[]> rows) throws SQLException {
+        String sql = "copy " + STAGING + " (" + String.join(", ", STAGING_COLUMNS) + ") from stdin with (format csv)";
+        CsvRowReader reader = new CsvRowReader(rows);
+        try {
+            Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+            Object copyApi = pgConnection.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnection));
+            return (Long) copyApi.getClass().getMethod("copyIn", String.class, Reader.class).invoke(copyApi, sql, reader);
+        } catch (InvocationTargetException e) {
+            // l'erreur levée en lisant les lignes passe avant celle du driver qui a annulé la copie
+            if (reader.failure != null) {
+                throw reader.failure;
+            }
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("COPY into " + STAGING + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("The JDBC driver does not support COPY", e);
+        }
+    }
+
+    private boolean postgres() {
+        return dialect() instanceof PostgreSQL81Dialect;
+    }
+
+    private Dialect dialect() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    /**
+     * Rows formatted as {@code COPY} CSV on demand: an unquoted empty field is NULL, every text is quoted.
+     */
+    private static final class CsvRowReader extends Reader {
+
+        private final Iterator<Object[]> rows;
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private int position;
+
+        private RuntimeException failure;
+
+        CsvRowReader(Iterator<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(char[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == buffer.length()) {
+                buffer.setLength(0);
+                position = 0;
+                if (!next()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, buffer.length() - position);
+            buffer.getChars(position, position + count, target, offset);
+            position += count;
+            return count;
+        }
+
+        private boolean next() throws IOException {
+            Object[] row;
+            try {
+                if (!rows.hasNext()) {
+                    return false;
+                }
+                row = rows.next();
+            } catch (RuntimeException e) {
+                failure = e;
+                throw new IOException(e);
+            }
+            for (int i = 0; i < STAGING_COLUMNS.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Object value = row[i];
+                if (value instanceof Number) {
+                    buffer.append(value);
+                } else if (value != null) {
+                    buffer.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+                }
+            }
+            buffer.append('\n');
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
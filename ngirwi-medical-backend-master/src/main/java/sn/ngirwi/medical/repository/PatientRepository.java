@@ -1,18 +1,26 @@
 package sn.ngirwi.medical.repository;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ngirwi.medical.domain.Patient;
 
 /**
  * Spring Data JPA repository for the Patient entity.
+ * <p>
+ * The duplicate detection queries return rows of {@code [id, firstName, lastName, birthday, gender, phone, cni,
+ * nameKey, phoneKey]}.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientTimelineRepository, PatientImportRepository {
     Page<Patient> findByAuthorIn(Collection<String> authors, Pageable pageable);
 
     Page<Patient> findByHospitalId(Long hospitalId, Pageable pageable);
@@ -20,4 +28,37 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     boolean existsByCni(String cni);
 
     boolean existsByCniAndIdNot(String cni, Long id);
+
+    String MATCH_FIELDS = "select p.id, p.firstName, p.lastName, p.birthday, p.gender, p.phone, p.cni, p.nameKey, p.phoneKey from Patient p";
+
+    /**
+     * Patients sharing a blocking key, those sharing the name key first, then the birthday, then the phone: a
+     * placeholder birthday or phone shared by many patients does not push the namesakes out of the limit.
+     */
+    @Query(
+        MATCH_FIELDS +
+        " where p.hospitalId = :hospitalId and (p.nameKey = :nameKey or p.birthday = :birthday or p.phoneKey = :phoneKey)" +
+        " order by case when p.nameKey = :nameKey then 4 else 0 end + case when p.birthday = :birthday then 2 else 0 end" +
+        " + case when p.phoneKey = :phoneKey then 1 else 0 end desc, p.id desc"
+    )
+    List<Object[]> findInBlocks(
+        @Param("hospitalId") Long hospitalId,
+        @Param("nameKey") String nameKey,
+        @Param("birthday") LocalDate birthday,
+        @Param("phoneKey") String phoneKey,
+        Pageable limit
+    );
+
+    @Query(MATCH_FIELDS + " where p.hospitalId = :hospitalId order by p.id")
+    List<Object[]> findMatchFieldsByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    @Query("select distinct p.hospitalId from Patient p where p.hospitalId is not null")
+    List<Long> findHospitalIds();
+
+    @Query("select p.id, p.lastName, p.phone from Patient p where p.nameKey is null and p.phoneKey is null and p.id > :afterId order by p.id")
+    List<Object[]> findWithoutBlockingKeys(@Param("afterId") Long afterId, Pageable limit);
+
+    @Modifying
+    @Query("update Patient p set p.nameKey = :nameKey, p.phoneKey = :phoneKey where p.id = :id")
+    int updateBlockingKeys(@Param("id") Long id, @Param("nameKey") String nameKey, @Param("phoneKey") String phoneKey);
 }
@@ -0,0 +1,24 @@
+package sn.ngirwi.medical.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Merged, date-ordered events of a patient (consultations, prescriptions, bills, hospitalisations) read with a single
+ * {@code UNION ALL} query.
+ */
+public interface PatientTimelineRepository {
+    /**
+     * Events of a patient strictly after the keyset {@code (beforeDate, beforeKind, beforeId)}, most recent first,
+     * ties broken by kind then id (both descending), events without date last. Each row is
+     * {@code [kind, id, date, summary, author, amount]}, the date being null for an undated event.
+     *
+     * @param patientId the patient.
+     * @param beforeDate the date of the last event of the previous page, null if that event has no date.
+     * @param beforeKind the kind of the last event of the previous page.
+     * @param beforeId the id of the last event of the previous page.
+     * @param limit the maximum number of rows.
+     * @return the rows.
+     */
+    List<Object[]> findTimeline(Long patientId, Instant beforeDate, String beforeKind, Long beforeId, int limit);
+}
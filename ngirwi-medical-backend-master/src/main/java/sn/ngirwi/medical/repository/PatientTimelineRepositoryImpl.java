@@ -0,0 +1,148 @@
+package sn.ngirwi.medical.repository;
+
+import java.time.Instant;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BigDecimalType;
+import org.hibernate.type.InstantType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+
+public class PatientTimelineRepositoryImpl implements PatientTimelineRepository {
+
+    private static final String NO_AMOUNT = "cast(null as decimal(21,2))";
+
+    private static final String[][] KINDS = {
+        { "CONSULTATION", "c.id", "c.date_time", "c.hypothesis", "c.author", NO_AMOUNT, "consultation c where c.patient_id = :patientId" },
+        {
+            "PRESCRIPTION",
+            "p.id",
+            "p.creation_date",
+            "cast(null as varchar(255))",
+            "p.author",
+            NO_AMOUNT,
+            "prescription p join consultation pc on pc.id = p.consultation_id where pc.patient_id = :patientId",
+        },
+        { "BILL", "b.id", "b.date", "b.jhi_desc", "b.author", "b.total", "bill b where b.patient_id = :patientId" },
+        {
+            "HOSPITALISATION",
+            "h.id",
+            "h.entry_date",
+            "coalesce(h.admission_reason, h.service)",
+            "h.doctor_name",
+            "h.total_amount",
+            "hospitalisation h where h.patient_id = :patientId",
+        },
+    };
+
+    private static final String TIMELINE =
+        "select kind, id, event_date, summary, author, amount from (%s) e order by event_date desc nulls last, kind desc, id desc limit :limit";
+
+    // Each branch applies the keyset and the limit itself on the raw date column, so it reads only the first rows of
+    // the patient from the (patient_id, date desc, id desc) indexes, then the branches are merged and cut again.
+    // The undated events come after all the dated ones, as a last segment ordered by kind then id: a page of dated
+    // events reads the first undated ones too, a page after an undated event only the undated ones.
+    private static final String DATED_TIMELINE = timeline(true);
+
+    private static final String UNDATED_TIMELINE = timeline(false);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static String timeline(boolean dated) {
+        StringBuilder branches = new StringBuilder();
+        for (String[] kind : KINDS) {
+            if (dated) {
+                branches.append(dated(kind)).append(" union all ").append(undated(kind, false));
+            } else {
+                branches.append(undated(kind, true));
+            }
+            branches.append(" union all ");
+        }
+        branches.setLength(branches.length() - " union all ".length());
+        return String.format(TIMELINE, branches);
+    }
+
+    private static String select(String[] kind) {
+        return (
+            "(select '" +
+            kind[0] +
+            "' as kind, " +
+            kind[1] +
+            " as id, " +
+            kind[2] +
+            " as event_date, " +
+            kind[3] +
+            " as summary, " +
+            kind[4] +
+            " as author, " +
+            kind[5] +
+            " as amount from " +
+            kind[6]
+        );
+    }
+
+    private static String dated(String[] kind) {
+        String date = kind[2];
+        return (
+            select(kind) +
+            " and " +
+            date +
+            " <= :beforeDate and (" +
+            date +
+            " < :beforeDate or '" +
+            kind[0] +
+            "' < :beforeKind or ('" +
+            kind[0] +
+            "' = :beforeKind and " +
+            kind[1] +
+            " < :beforeId))" +
+            " order by " +
+            date +
+            " desc, " +
+            kind[1] +
+            " desc limit :limit)"
+        );
+    }
+
+    private static String undated(String[] kind, boolean keyed) {
+        return (
+            select(kind) +
+            " and " +
+            kind[2] +
+            " is null" +
+            (keyed ? " and ('" + kind[0] + "' < :beforeKind or ('" + kind[0] + "' = :beforeKind and " + kind[1] + " < :beforeId))" : "") +
+            " order by " +
+            kind[1] +
+            " desc limit :limit)"
+        );
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findTimeline(Long patientId, Instant beforeDate, String beforeKind, Long beforeId, int limit) {
+        NativeQuery<?> query = entityManager
+            .createNativeQuery(beforeDate != null ? DATED_TIMELINE : UNDATED_TIMELINE)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("consultation")
+            .addSynchronizedQuerySpace("prescription")
+            .addSynchronizedQuerySpace("bill")
+            .addSynchronizedQuerySpace("hospitalisation")
+            .addScalar("kind", StringType.INSTANCE)
+            .addScalar("id", LongType.INSTANCE)
+            .addScalar("event_date", InstantType.INSTANCE)
+            .addScalar("summary", StringType.INSTANCE)
+            .addScalar("author", StringType.INSTANCE)
+            .addScalar("amount", BigDecimalType.INSTANCE)
+            .setParameter("patientId", patientId)
+            .setParameter("beforeKind", beforeKind)
+            .setParameter("beforeId", beforeId)
+            .setParameter("limit", limit);
+        if (beforeDate != null) {
+            query.setParameter("beforeDate", beforeDate);
+        }
+        return (List<Object[]>) query.getResultList();
+    }
+}
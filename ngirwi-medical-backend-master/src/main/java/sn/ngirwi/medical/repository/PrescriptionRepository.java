@@ -1,9 +1,11 @@
 package sn.ngirwi.medical.repository;
 
 import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ngirwi.medical.domain.Prescription;
 
@@ -18,4 +20,13 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     Page<Prescription> findByConsultation_Patient_HospitalId(Long hospitalId, Pageable pageable);
 
     java.util.Optional<Prescription> findByIdAndConsultation_Patient_HospitalId(Long id, Long hospitalId);
+
+    /**
+     * Prescriptions with their patient and medicines, in one query (batch printing).
+     */
+    @Query(
+        "select distinct p from Prescription p left join fetch p.consultation c left join fetch c.patient " +
+        "left join fetch p.medecines where p.id in :ids"
+    )
+    List<Prescription> findAllWithMedecinesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,32 @@
+package sn.ngirwi.medical.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.ngirwi.medical.domain.RevenueDailyRollup;
+
+/**
+ * Spring Data JPA repository for the RevenueDailyRollup entity.
+ * <p>
+ * The sums return rows of {@code [key, amount, itemCount]}; a {@code null} hospital id sums every hospital, a missing
+ * service or insurer is returned as {@code null}.
+ */
+@Repository
+public interface RevenueDailyRollupRepository extends JpaRepository<RevenueDailyRollup, Long>, RevenueRollupRefreshRepository {
+    String IN_RANGE = " from RevenueDailyRollup r where r.revenueDate >= :from and r.revenueDate <= :to" +
+        " and (:hospitalId is null or r.hospitalId = :hospitalId)";
+
+    @Query("select r.revenueDate, sum(r.amount), sum(r.itemCount)" + IN_RANGE + " group by r.revenueDate order by r.revenueDate")
+    List<Object[]> sumByDate(@Param("hospitalId") Long hospitalId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select r.source, sum(r.amount), sum(r.itemCount)" + IN_RANGE + " group by r.source order by r.source")
+    List<Object[]> sumBySource(@Param("hospitalId") Long hospitalId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select nullif(r.service, ''), sum(r.amount), sum(r.itemCount)" + IN_RANGE + " group by r.service order by r.service")
+    List<Object[]> sumByService(@Param("hospitalId") Long hospitalId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select nullif(r.insurer, ''), sum(r.amount), sum(r.itemCount)" + IN_RANGE + " group by r.insurer order by r.insurer")
+    List<Object[]> sumByInsurer(@Param("hospitalId") Long hospitalId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,19 @@
+package sn.ngirwi.medical.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Set-based rebuild of the revenue daily rollup from the bills and finalised hospitalisations.
+ */
+public interface RevenueRollupRefreshRepository {
+    /**
+     * Replace the rollup rows of the given days with one {@code DELETE} and one aggregate {@code SELECT} per source,
+     * refreshes of the same day being serialised.
+     *
+     * @param hospitalId the hospital to refresh, or {@code null} for every hospital.
+     * @param from the first day to refresh.
+     * @param to the last day to refresh, inclusive.
+     * @return the number of rollup rows written.
+     */
+    int refresh(Long hospitalId, LocalDate from, LocalDate to);
+}
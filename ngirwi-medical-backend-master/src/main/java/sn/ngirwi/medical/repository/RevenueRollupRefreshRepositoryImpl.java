@@ -0,0 +1,153 @@
+package sn.ngirwi.medical.repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import sn.ngirwi.medical.domain.RevenueDailyRollup;
+
+/**
+ * On PostgreSQL the refreshed days are locked with transaction-level advisory locks, taken in date order, before
+ * their rows are deleted: two refreshes of the same day (after-commit refreshes of concurrent bills, nightly
+ * reconciliation) run one after the other instead of both inserting the day. The unique key of the rollup rejects a
+ * duplicate on the other databases.
+ * <p>
+ * The rows are aggregated by the database and persisted as entities, so their ids come from the pooled sequence
+ * like every other entity.
+ */
+public class RevenueRollupRefreshRepositoryImpl implements RevenueRollupRefreshRepository {
+
+    private static final String ROLLUP_TABLE = "revenue_daily_rollup";
+
+    /** First key of the advisory locks of the rollup, the second one is the epoch day. */
+    private static final int LOCK_NAMESPACE = 38;
+
+    private static final String LOCK_DAYS =
+        "select pg_advisory_xact_lock(" + LOCK_NAMESPACE + ", cast(d as integer)) from generate_series(?, ?) d order by d";
+
+    private static final String DELETE_DAYS = "delete from revenue_daily_rollup where revenue_date >= :from and revenue_date <= :to";
+
+    // Dates are stored in UTC (hibernate.jdbc.time_zone), which is also the Africa/Dakar time.
+    // Bills generated when closing a hospitalisation are already counted through hospitalisation.total_amount.
+    private static final String SELECT_BILLS =
+        "select coalesce(p.hospital_id, " +
+        RevenueDailyRollup.NO_HOSPITAL +
+        ") as hospital_id, cast(b.date as date) as revenue_date, '" +
+        RevenueDailyRollup.SOURCE_BILL +
+        "' as source, '' as service, coalesce(b.insurance, '') as insurer, cast(round(sum(b.total)) as bigint) as amount," +
+        " count(*) as item_count from bill b left join patient p on p.id = b.patient_id " +
+        "where b.total is not null and b.hospitalisation_id is null and b.date >= :fromTs and b.date < :toTs";
+
+    private static final String GROUP_BILLS = " group by coalesce(p.hospital_id, " +
+    RevenueDailyRollup.NO_HOSPITAL +
+    "), cast(b.date as date), coalesce(b.insurance, '')";
+
+    private static final String SELECT_HOSPITALISATIONS =
+        "select coalesce(p.hospital_id, " +
+        RevenueDailyRollup.NO_HOSPITAL +
+        ") as hospital_id, cast(h.release_date as date) as revenue_date, '" +
+        RevenueDailyRollup.SOURCE_HOSPITALISATION +
+        "' as source, coalesce(h.service, '') as service, '' as insurer, cast(round(sum(h.total_amount)) as bigint) as amount," +
+        " count(*) as item_count from hospitalisation h left join patient p on p.id = h.patient_id " +
+        "where h.total_amount is not null and h.release_date >= :fromTs and h.release_date < :toTs";
+
+    private static final String GROUP_HOSPITALISATIONS = " group by coalesce(p.hospital_id, " +
+    RevenueDailyRollup.NO_HOSPITAL +
+    "), cast(h.release_date as date), coalesce(h.service, '')";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int refresh(Long hospitalId, LocalDate from, LocalDate to) {
+        entityManager.flush();
+        if (postgres()) {
+            lockDays(from, to);
+        }
+        String delete = hospitalId == null ? DELETE_DAYS : DELETE_DAYS + " and hospital_id = :hospitalId";
+        nativeQuery(delete, hospitalId).setParameter("from", from).setParameter("to", to).executeUpdate();
+
+        String byHospital = hospitalId == null ? "" : " and p.hospital_id = :hospitalId";
+        int written = 0;
+        for (Object[] row : select(SELECT_BILLS + byHospital + GROUP_BILLS, hospitalId, from, to)) {
+            persist(row);
+            written++;
+        }
+        for (Object[] row : select(SELECT_HOSPITALISATIONS + byHospital + GROUP_HOSPITALISATIONS, hospitalId, from, to)) {
+            persist(row);
+            written++;
+        }
+        entityManager.flush();
+        return written;
+    }
+
+    private void lockDays(LocalDate from, LocalDate to) {
+        entityManager
+            .unwrap(Session.class)
+            .doWork(connection -> {
+                try (PreparedStatement lock = connection.prepareStatement(LOCK_DAYS)) {
+                    lock.setLong(1, from.toEpochDay());
+                    lock.setLong(2, to.toEpochDay());
+                    lock.executeQuery().close();
+                }
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> select(String sql, Long hospitalId, LocalDate from, LocalDate to) {
+        return (List<Object[]>) nativeQuery(sql, hospitalId)
+            .addScalar("hospital_id", LongType.INSTANCE)
+            .addScalar("revenue_date", LocalDateType.INSTANCE)
+            .addScalar("source", StringType.INSTANCE)
+            .addScalar("service", StringType.INSTANCE)
+            .addScalar("insurer", StringType.INSTANCE)
+            .addScalar("amount", LongType.INSTANCE)
+            .addScalar("item_count", IntegerType.INSTANCE)
+            .setParameter("fromTs", from.atStartOfDay().toInstant(ZoneOffset.UTC))
+            .setParameter("toTs", to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC))
+            .getResultList();
+    }
+
+    private void persist(Object[] row) {
+        entityManager.persist(
+            new RevenueDailyRollup(
+                (Long) row[0],
+                (LocalDate) row[1],
+                (String) row[2],
+                (String) row[3],
+                (String) row[4],
+                (Long) row[5],
+                (Integer) row[6]
+            )
+        );
+    }
+
+    private NativeQuery<?> nativeQuery(String sql, Long hospitalId) {
+        NativeQuery<?> query = entityManager
+            .createNativeQuery(sql)
+            .unwrap(NativeQuery.class)
+            // Only the rollup table is written: keeps the second-level cache
+            .addSynchronizedQuerySpace(ROLLUP_TABLE);
+        if (hospitalId != null) {
+            query.setParameter("hospitalId", hospitalId);
+        }
+        return query;
+    }
+
+    private boolean postgres() {
+        return (
+            entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof
+            PostgreSQL81Dialect
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package sn.ngirwi.medical.repository;
+
+/**
+ * Set-based copy of the medication and act lines between two surveillance sheets.
+ */
+public interface SurveillanceSheetLineCopyRepository {
+    /**
+     * Copy all medication and act lines of a sheet onto another sheet, keeping their positions,
+     * with one {@code INSERT ... SELECT} per collection table. The target sheet, when already loaded,
+     * is refreshed so that its collections contain the copied lines.
+     *
+     * @param sourceSheetId the sheet to copy the lines from.
+     * @param targetSheetId the sheet receiving the lines, which must not have any line yet.
+     * @return the number of copied lines.
+     */
+    int copyLines(Long sourceSheetId, Long targetSheetId);
+}
@@ -0,0 +1,47 @@
+package sn.ngirwi.medical.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import sn.ngirwi.medical.domain.SurveillanceSheet;
+
+public class SurveillanceSheetLineCopyRepositoryImpl implements SurveillanceSheetLineCopyRepository {
+
+    private static final String COPY_MEDICATIONS =
+        "insert into surveillance_sheet_medications " +
+        "(surveillance_sheet_id, med_position, med_name, med_unit_price, med_quantity) " +
+        "select :targetSheetId, med_position, med_name, med_unit_price, med_quantity " +
+        "from surveillance_sheet_medications where surveillance_sheet_id = :sourceSheetId";
+
+    private static final String COPY_ACTS =
+        "insert into surveillance_sheet_acts " +
+        "(surveillance_sheet_id, act_position, act_name, act_unit_price, act_quantity) " +
+        "select :targetSheetId, act_position, act_name, act_unit_price, act_quantity " +
+        "from surveillance_sheet_acts where surveillance_sheet_id = :sourceSheetId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int copyLines(Long sourceSheetId, Long targetSheetId) {
+        int copied =
+            copy(COPY_MEDICATIONS, "surveillance_sheet_medications", sourceSheetId, targetSheetId) +
+            copy(COPY_ACTS, "surveillance_sheet_acts", sourceSheetId, targetSheetId);
+        SurveillanceSheet target = entityManager.getReference(SurveillanceSheet.class, targetSheetId);
+        if (entityManager.contains(target)) {
+            entityManager.refresh(target);
+        }
+        return copied;
+    }
+
+    private int copy(String sql, String table, Long sourceSheetId, Long targetSheetId) {
+        return entityManager
+            .createNativeQuery(sql)
+            .setParameter("sourceSheetId", sourceSheetId)
+            .setParameter("targetSheetId", targetSheetId)
+            .unwrap(NativeQuery.class)
+            // Only the collection table is written: keeps the rest of the second-level cache
+            .addSynchronizedQuerySpace(table)
+            .executeUpdate();
+    }
+}
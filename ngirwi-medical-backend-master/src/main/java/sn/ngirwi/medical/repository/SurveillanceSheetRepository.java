@@ -1,11 +1,13 @@
 package sn.ngirwi.medical.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ngirwi.medical.domain.SurveillanceSheet;
 
@@ -14,10 +16,70 @@ import sn.ngirwi.medical.domain.SurveillanceSheet;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface SurveillanceSheetRepository extends JpaRepository<SurveillanceSheet, Long> {
+public interface SurveillanceSheetRepository extends JpaRepository<SurveillanceSheet, Long>, SurveillanceSheetLineCopyRepository {
     boolean existsByHospitalisationIdAndSheetDate(Long hospitalisationId, LocalDate sheetDate);
     Page<SurveillanceSheet> findByHospitalisationId(Long hospitalisationId, Pageable pageable);
     Page<SurveillanceSheet> findByHospitalisation_Patient_HospitalId(Long hospitalId, Pageable pageable);
     Optional<SurveillanceSheet> findByHospitalisationIdAndSheetDate(Long hospitalisationId, LocalDate sheetDate);
     List<SurveillanceSheet> findByHospitalisation_Id(Long id);
+    Optional<SurveillanceSheet> findFirstByHospitalisationIdAndSheetDateBeforeOrderBySheetDateDesc(Long hospitalisationId, LocalDate sheetDate);
+    Optional<SurveillanceSheet> findFirstByHospitalisationIdAndIdNotAndEarlyWarningScoreNotNullOrderBySheetDateDesc(
+        Long hospitalisationId,
+        Long id
+    );
+
+    /**
+     * Vitals of a hospitalisation ordered by date, as
+     * {@code [sheetDate, temperature, systolicBP, diastolicBP, pulseRate, respirationRate, spo2]} rows.
+     */
+    @Query(
+        "select s.sheetDate, s.temperature, s.systolicBP, s.diastolicBP, s.pulseRate, s.respirationRate, s.spo2 " +
+        "from SurveillanceSheet s where s.hospitalisation.id = :hospitalisationId order by s.sheetDate"
+    )
+    List<Object[]> findVitalsByHospitalisationId(@Param("hospitalisationId") Long hospitalisationId);
+
+    /**
+     * Couples (hospitalisationId, sheetDate) already taken among the given hospitalisations and dates,
+     * so that a whole batch is checked with a single query.
+     */
+    @Query(
+        "select s.hospitalisation.id, s.sheetDate from SurveillanceSheet s " +
+        "where s.hospitalisation.id in :hospitalisationIds and s.sheetDate in :sheetDates"
+    )
+    List<Object[]> findExistingHospitalisationDates(
+        @Param("hospitalisationIds") Collection<Long> hospitalisationIds,
+        @Param("sheetDates") Collection<LocalDate> sheetDates
+    );
+
+    String BILLABLE_MEDICATION = "MEDICATION";
+    String BILLABLE_ACT = "ACT";
+    String BILLABLE_MINI_CONSULTATION = "MINI_CONSULTATION";
+
+    /**
+     * Billable items of all the sheets of a hospitalisation, aggregated in a single query as
+     * {@code [kind, name, unitPrice, quantity]} rows: medications and acts grouped by name and unit price,
+     * mini consultations grouped by price (name is null, quantity is their count).
+     */
+    @Query(
+        value = "select '" +
+        BILLABLE_MEDICATION +
+        "' as kind, m.med_name as name, m.med_unit_price as unit_price, sum(m.med_quantity) as quantity " +
+        "from surveillance_sheet_medications m join surveillance_sheet s on s.id = m.surveillance_sheet_id " +
+        "where s.hospitalisation_id = :hospitalisationId group by m.med_name, m.med_unit_price " +
+        "union all " +
+        "select '" +
+        BILLABLE_ACT +
+        "', a.act_name, a.act_unit_price, sum(a.act_quantity) " +
+        "from surveillance_sheet_acts a join surveillance_sheet s on s.id = a.surveillance_sheet_id " +
+        "where s.hospitalisation_id = :hospitalisationId group by a.act_name, a.act_unit_price " +
+        "union all " +
+        "select '" +
+        BILLABLE_MINI_CONSULTATION +
+        "', cast(null as varchar(256)), mc.price, count(*) " +
+        "from mini_consultation mc join surveillance_sheet s on s.id = mc.surveillance_sheet_id " +
+        "where s.hospitalisation_id = :hospitalisationId and mc.price is not null group by mc.price " +
+        "order by 1, 2, 3",
+        nativeQuery = true
+    )
+    List<Object[]> findBillableItemsByHospitalisationId(@Param("hospitalisationId") Long hospitalisationId);
 }
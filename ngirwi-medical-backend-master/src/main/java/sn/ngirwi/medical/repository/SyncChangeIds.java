@@ -0,0 +1,134 @@
+package sn.ngirwi.medical.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.TreeSet;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Change ids of the delta synchronisation (see {@link sn.ngirwi.medical.domain.SyncTracked}): written by the
+ * transactions on the rows they flush, and bounded by the readers with a fence below which no transaction can still
+ * commit.
+ * <p>
+ * On PostgreSQL the change id is the id of the writing transaction ({@code txid_current()}), fetched once per
+ * transaction; the fence is the oldest transaction still running in the snapshot of the reader
+ * ({@code txid_snapshot_xmin}), which a replica knows as well.
+ * <p>
+ * Other databases (H2 in development and tests) take the next value of {@code sync_change_sequence} at each stamp;
+ * the first value of a transaction stays in flight in this JVM until the transaction ends, and the fence is the
+ * oldest value in flight.
+ */
+@Component
+public class SyncChangeIds {
+
+    private static final String TRANSACTION_ID = "select txid_current()";
+
+    private static final String OLDEST_TRANSACTION = "select txid_snapshot_xmin(txid_current_snapshot())";
+
+    private static final String NEXT_CHANGE_ID = "select next value for sync_change_sequence";
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    /**
+     * The change id of the rows written now by the transaction of the session.
+     *
+     * @param session the writing session.
+     * @return the change id.
+     */
+    public long current(Session session) {
+        boolean postgres = postgres(session);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return select(session, postgres ? TRANSACTION_ID : NEXT_CHANGE_ID);
+        }
+        Long held = (Long) TransactionSynchronizationManager.getResource(this);
+        if (held != null) {
+            return postgres ? held : select(session, NEXT_CHANGE_ID);
+        }
+        long changeId;
+        if (postgres) {
+            changeId = select(session, TRANSACTION_ID);
+        } else {
+            synchronized (inFlight) {
+                changeId = select(session, NEXT_CHANGE_ID);
+                inFlight.add(changeId);
+            }
+        }
+        TransactionSynchronizationManager.bindResource(this, changeId);
+        TransactionSynchronizationManager.registerSynchronization(new HeldChangeId(changeId, !postgres));
+        return changeId;
+    }
+
+    /**
+     * The exclusive upper bound of the change ids a reader may pass: every transaction that wrote a smaller change id
+     * has ended, so no row can still appear below it.
+     *
+     * @param session the reading session.
+     * @return the fence.
+     */
+    public long fence(Session session) {
+        if (postgres(session)) {
+            return select(session, OLDEST_TRANSACTION);
+        }
+        synchronized (inFlight) {
+            // the values taken after the fence are above it, whether or not their transaction is still running
+            long next = select(session, NEXT_CHANGE_ID);
+            return inFlight.isEmpty() ? next : Math.min(next, inFlight.first());
+        }
+    }
+
+    private static long select(Session session, String sql) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql); ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getLong(1);
+            }
+        });
+    }
+
+    private static boolean postgres(Session session) {
+        return (
+            session.getSessionFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof
+            PostgreSQL81Dialect
+        );
+    }
+
+    /**
+     * Keeps the change id with its transaction: unbound while a nested transaction runs, released when it ends.
+     */
+    private final class HeldChangeId implements TransactionSynchronization {
+
+        private final long changeId;
+
+        private final boolean tracked;
+
+        HeldChangeId(long changeId, boolean tracked) {
+            this.changeId = changeId;
+            this.tracked = tracked;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SyncChangeIds.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(SyncChangeIds.this, changeId);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SyncChangeIds.this);
+            if (tracked) {
+                synchronized (inFlight) {
+                    inFlight.remove(changeId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package sn.ngirwi.medical.repository;
+
+import java.util.List;
+
+/**
+ * Changes of the synchronised entities (patients, consultations, prescriptions, bills, hospitalisations) and their
+ * tombstones, merged in one {@code UNION ALL} query ordered by change id (see {@link SyncChangeIds}).
+ */
+public interface SyncChangeRepository {
+    /**
+     * Changes strictly after the keyset {@code (afterChangeId, afterKind, afterId)} and below the change id
+     * {@code upTo}, in change id order, ties broken by kind then id. Each row is {@code [kind, id, changeId, deleted]},
+     * {@code deleted} being 1 for a tombstone and 0 otherwise; the kinds are the types of
+     * {@link sn.ngirwi.medical.domain.SyncTombstone}.
+     *
+     * @param hospitalId the hospital of the patients, null for every hospital.
+     * @param afterChangeId the change id of the last change of the previous page.
+     * @param afterKind the kind of the last change of the previous page.
+     * @param afterId the id of the last change of the previous page.
+     * @param upTo the exclusive upper bound of the change ids, see {@link #findChangeFence()}.
+     * @param limit the maximum number of rows.
+     * @return the rows.
+     */
+    List<Object[]> findChanges(Long hospitalId, long afterChangeId, String afterKind, Long afterId, long upTo, int limit);
+
+    /**
+     * The change id below which every change is committed or abandoned, the bound of a read made now.
+     *
+     * @return the exclusive upper bound of the change ids to read.
+     */
+    long findChangeFence();
+}
@@ -0,0 +1,139 @@
+package sn.ngirwi.medical.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import sn.ngirwi.medical.domain.SyncTombstone;
+
+public class SyncChangeRepositoryImpl implements SyncChangeRepository {
+
+    // Each branch applies the keyset and the limit itself, so it reads only the first rows after the watermark
+    // (change_id indexes), then the branches are merged and cut again.
+    private static final String CHANGES = "select kind, id, change_id, deleted from (%s) c order by change_id, kind, id limit :limit";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SyncChangeIds syncChangeIds;
+
+    public SyncChangeRepositoryImpl(SyncChangeIds syncChangeIds) {
+        this.syncChangeIds = syncChangeIds;
+    }
+
+    private static String branch(String kind, String id, String change, boolean deleted, String from, String hospital) {
+        return (
+            "(select " +
+            kind +
+            " as kind, " +
+            id +
+            " as id, " +
+            change +
+            " as change_id, " +
+            (deleted ? 1 : 0) +
+            " as deleted from " +
+            from +
+            " where " +
+            (hospital != null ? hospital + " = :hospitalId and " : "") +
+            change +
+            " < :upTo and (" +
+            change +
+            " > :afterChangeId or (" +
+            change +
+            " = :afterChangeId and (" +
+            kind +
+            " > :afterKind or (" +
+            kind +
+            " = :afterKind and " +
+            id +
+            " > :afterId))))" +
+            " order by change_id, kind, id limit :limit)"
+        );
+    }
+
+    private static String changes(boolean byHospital) {
+        String branches = String.join(
+            " union all ",
+            branch(
+                "'" + SyncTombstone.PATIENT + "'",
+                "p.id",
+                "p.change_id",
+                false,
+                "patient p",
+                byHospital ? "p.hospital_id" : null
+            ),
+            branch(
+                "'" + SyncTombstone.CONSULTATION + "'",
+                "c.id",
+                "c.change_id",
+                false,
+                byHospital ? "consultation c join patient cp on cp.id = c.patient_id" : "consultation c",
+                byHospital ? "cp.hospital_id" : null
+            ),
+            branch(
+                "'" + SyncTombstone.PRESCRIPTION + "'",
+                "r.id",
+                "r.change_id",
+                false,
+                byHospital
+                    ? "prescription r join consultation rc on rc.id = r.consultation_id join patient rp on rp.id = rc.patient_id"
+                    : "prescription r",
+                byHospital ? "rp.hospital_id" : null
+            ),
+            branch(
+                "'" + SyncTombstone.BILL + "'",
+                "b.id",
+                "b.change_id",
+                false,
+                byHospital ? "bill b join patient bp on bp.id = b.patient_id" : "bill b",
+                byHospital ? "bp.hospital_id" : null
+            ),
+            branch(
+                "'" + SyncTombstone.HOSPITALISATION + "'",
+                "h.id",
+                "h.change_id",
+                false,
+                byHospital ? "hospitalisation h join patient hp on hp.id = h.patient_id" : "hospitalisation h",
+                byHospital ? "hp.hospital_id" : null
+            ),
+            branch("t.entity_type", "t.entity_id", "t.change_id", true, "sync_tombstone t", byHospital ? "t.hospital_id" : null)
+        );
+        return String.format(CHANGES, branches);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findChanges(Long hospitalId, long afterChangeId, String afterKind, Long afterId, long upTo, int limit) {
+        NativeQuery<?> query = entityManager
+            .createNativeQuery(changes(hospitalId != null))
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("patient")
+            .addSynchronizedQuerySpace("consultation")
+            .addSynchronizedQuerySpace("prescription")
+            .addSynchronizedQuerySpace("bill")
+            .addSynchronizedQuerySpace("hospitalisation")
+            .addSynchronizedQuerySpace("sync_tombstone")
+            .addScalar("kind", StringType.INSTANCE)
+            .addScalar("id", LongType.INSTANCE)
+            .addScalar("change_id", LongType.INSTANCE)
+            .addScalar("deleted", IntegerType.INSTANCE)
+            .setParameter("afterChangeId", afterChangeId)
+            .setParameter("afterKind", afterKind)
+            .setParameter("afterId", afterId)
+            .setParameter("upTo", upTo)
+            .setParameter("limit", limit);
+        if (hospitalId != null) {
+            query.setParameter("hospitalId", hospitalId);
+        }
+        return (List<Object[]>) query.getResultList();
+    }
+
+    @Override
+    public long findChangeFence() {
+        return syncChangeIds.fence(entityManager.unwrap(Session.class));
+    }
+}
@@ -0,0 +1,19 @@
+package sn.ngirwi.medical.repository;
+
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.ngirwi.medical.domain.SyncTombstone;
+
+/**
+ * Spring Data JPA repository for the SyncTombstone entity, and the change scan of the delta synchronisation.
+ */
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long>, SyncChangeRepository {
+    @Modifying
+    @Query("delete from SyncTombstone t where t.deletedAt < :before")
+    int deleteByDeletedAtBefore(@Param("before") Instant before);
+}
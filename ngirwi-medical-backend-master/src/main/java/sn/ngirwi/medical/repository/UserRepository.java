@@ -7,6 +7,8 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.ngirwi.medical.domain.User;
 
@@ -35,4 +37,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
 
     List<User> findByHospitalId(Long hospitalId);
+
+    @Query(
+        "select u from User u join u.authorities a " +
+        "where u.hospitalId = :hospitalId and a.name = :authority order by u.lastName, u.firstName"
+    )
+    List<User> findAllByHospitalIdAndAuthority(@Param("hospitalId") Long hospitalId, @Param("authority") String authority);
 }
@@ -0,0 +1,27 @@
+package sn.ngirwi.medical.security;
+
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Spring Security principal carrying the hospital the user belongs to.
+ * <p>
+ * The hospital id is written in the JWT so that request-scoped consumers (metrics, tenant tagging) can read it
+ * without a database lookup. It is {@code null} for users without hospital (e.g. the bootstrap admin).
+ */
+public class HospitalUserDetails extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long hospitalId;
+
+    public HospitalUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities, Long hospitalId) {
+        super(username, password, authorities);
+        this.hospitalId = hospitalId;
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+}
@@ -38,6 +38,19 @@ public final class SecurityUtils {
         return null;
     }
 
+    /**
+     * Get the hospital id carried by the current user's token.
+     *
+     * @return the hospital id of the current user, empty if the user has none or the token predates the claim.
+     */
+    public static Optional<Long> getCurrentUserHospitalId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof HospitalUserDetails) {
+            return Optional.ofNullable(((HospitalUserDetails) authentication.getPrincipal()).getHospitalId());
+        }
+        return Optional.empty();
+    }
+
     /**
      * Get the JWT of the current user.
      *
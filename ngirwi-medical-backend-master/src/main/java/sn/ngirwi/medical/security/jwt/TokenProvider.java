@@ -14,10 +14,10 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import sn.ngirwi.medical.management.SecurityMetersService;
+import sn.ngirwi.medical.security.HospitalUserDetails;
 import tech.jhipster.config.JHipsterProperties;
 
 @Component
@@ -27,6 +27,8 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    private static final String HOSPITAL_KEY = "hospital";
+
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
     private final Key key;
@@ -73,13 +75,14 @@ public class TokenProvider {
             validity = new Date(now + this.tokenValidityInMilliseconds);
         }
 
-        return Jwts
-            .builder()
-            .setSubject(authentication.getName())
-            .claim(AUTHORITIES_KEY, authorities)
-            .signWith(key, SignatureAlgorithm.HS512)
-            .setExpiration(validity)
-            .compact();
+        JwtBuilder builder = Jwts.builder().setSubject(authentication.getName()).claim(AUTHORITIES_KEY, authorities);
+        if (authentication.getPrincipal() instanceof HospitalUserDetails) {
+            Long hospitalId = ((HospitalUserDetails) authentication.getPrincipal()).getHospitalId();
+            if (hospitalId != null) {
+                builder.claim(HOSPITAL_KEY, hospitalId);
+            }
+        }
+        return builder.signWith(key, SignatureAlgorithm.HS512).setExpiration(validity).compact();
     }
 
     public Authentication getAuthentication(String token) {
@@ -91,7 +94,13 @@ public class TokenProvider {
             .map(SimpleGrantedAuthority::new)
             .collect(Collectors.toList());
 
-        User principal = new User(claims.getSubject(), "", authorities);
+        Number hospitalId = claims.get(HOSPITAL_KEY, Number.class);
+        HospitalUserDetails principal = new HospitalUserDetails(
+            claims.getSubject(),
+            "",
+            authorities,
+            hospitalId != null ? hospitalId.longValue() : null
+        );
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
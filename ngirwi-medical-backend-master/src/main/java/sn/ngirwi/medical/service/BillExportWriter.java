@@ -0,0 +1,163 @@
+package sn.ngirwi.medical.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Écrit les lignes d'export des factures ({@link sn.ngirwi.medical.repository.BillRepository#streamForExport})
+ * au fil de l'eau : chaque ligne est écrite puis oubliée, la mémoire utilisée ne dépend pas du nombre de lignes.
+ */
+public final class BillExportWriter {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param value {@code csv} or {@code ndjson}, case-insensitive; {@code null} means CSV.
+         */
+        public static Format of(String value) {
+            if (value == null) {
+                return CSV;
+            }
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be csv or ndjson (was '" + value + "')");
+            }
+        }
+    }
+
+    static final String[] COLUMNS = {
+        "billId",
+        "date",
+        "hospitalId",
+        "patientId",
+        "patientFirstName",
+        "patientLastName",
+        "author",
+        "insurance",
+        "ipm",
+        "total",
+        "elementId",
+        "elementName",
+        "price",
+        "discountBp",
+        "quantity",
+    };
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private BillExportWriter() {}
+
+    /**
+     * @return the number of rows written, header excluded.
+     */
+    public static long write(Stream<Object[]> rows, Format format, OutputStream out) throws IOException {
+        Iterator<Object[]> iterator = rows.iterator();
+        return format == Format.NDJSON ? writeNdjson(iterator, out) : writeCsv(iterator, out);
+    }
+
+    private static long writeCsv(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, row[i]);
+            }
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number) {
+            writer.write(number(value));
+            return;
+        }
+        String text = value.toString();
+        // Pas de formule interprétée par le tableur à l'ouverture du fichier
+        boolean formula = !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0;
+        boolean quoted = formula || text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quoted) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static long writeNdjson(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                json.writeStartObject();
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    Object value = row[i];
+                    if (value == null) {
+                        continue;
+                    }
+                    json.writeFieldName(COLUMNS[i]);
+                    if (value instanceof Number) {
+                        json.writeNumber(number(value));
+                    } else {
+                        json.writeString(value.toString());
+                    }
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String number(Object value) {
+        return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+    }
+}
@@ -1,9 +1,16 @@
 package sn.ngirwi.medical.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
@@ -12,10 +19,12 @@ import org.springframework.transaction.annotation.Transactional;
 import sn.ngirwi.medical.domain.Bill;
 import sn.ngirwi.medical.domain.BillElement;
 import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.SyncTombstone;
 import sn.ngirwi.medical.domain.User;
 import sn.ngirwi.medical.repository.BillElementRepository;
 import sn.ngirwi.medical.repository.BillRepository;
 import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.SyncTombstoneRepository;
 import sn.ngirwi.medical.repository.UserRepository;
 import sn.ngirwi.medical.service.dto.BillDTO;
 import sn.ngirwi.medical.service.dto.BillElementDTO;
@@ -29,6 +38,8 @@ import sn.ngirwi.medical.service.mapper.BillMapper;
 @Transactional
 public class BillService {
 
+    private static final ZoneId ZONE_DAKAR = ZoneId.of("Africa/Dakar");
+
     private final Logger log = LoggerFactory.getLogger(BillService.class);
 
     private final BillRepository billRepository;
@@ -42,6 +53,8 @@ public class BillService {
     private final BillElementMapper billElementMapper;
     private final CurrentHospitalProvider currentHospitalProvider;
     private final PatientRepository patientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncTombstoneRepository syncTombstoneRepository;
 
     public BillService(
         BillRepository billRepository,
@@ -50,7 +63,9 @@ public class BillService {
         BillMapper billMapper,
         BillElementMapper billElementMapper,
         CurrentHospitalProvider currentHospitalProvider,
-        PatientRepository patientRepository
+        PatientRepository patientRepository,
+        ApplicationEventPublisher eventPublisher,
+        SyncTombstoneRepository syncTombstoneRepository
     ) {
         this.billRepository = billRepository;
         this.billElementRepository = billElementRepository;
@@ -59,6 +74,8 @@ public class BillService {
         this.billElementMapper = billElementMapper;
         this.currentHospitalProvider = currentHospitalProvider;
         this.patientRepository = patientRepository;
+        this.eventPublisher = eventPublisher;
+        this.syncTombstoneRepository = syncTombstoneRepository;
     }
 
     /**
@@ -77,6 +94,7 @@ public class BillService {
         assertSameHospital(p.getHospitalId());
         Bill bill = billMapper.toEntity(billDTO);
         bill = billRepository.save(bill);
+        publishRevenueChange(p.getHospitalId(), bill);
         return billMapper.toDto(bill);
     }
 
@@ -93,6 +111,10 @@ public class BillService {
         return bill;
     }
 
+    /**
+     * Crée une facture et ses lignes. Les lignes sont persistées en cascade avec la facture :
+     * un seul flush, INSERT groupés selon {@code hibernate.jdbc.batch_size}.
+     */
     @Transactional
     public BillDTO saveBis(BillDTO billDTO) {
         log.debug("Request to save bill : {}", billDTO);
@@ -106,24 +128,12 @@ public class BillService {
         Bill bill = billMapper.toEntity(billDTO);
         bill = mapElements(billDTO, bill);
 
-        // Save the Bill entity
         if (bill.getTotal() == null) {
             bill.setTotal(calculateTotal(bill));
         }
         bill = billRepository.save(bill);
-
-        // Ensure bill.getBillElements() is not null and iterate over elements
-        if (bill.getBillElements() != null) {
-            for (BillElement element : bill.getBillElements()) {
-                element.setBill(bill);
-                element = billElementRepository.save(element);
-                log.debug("Saved BillElement: {}", element);
-            }
-        } else {
-            log.debug("No BillElements found in bill");
-        }
-
-        log.debug("Saved Bill entity: {}", bill);
+        log.debug("Saved Bill entity: {} with {} elements", bill.getId(), bill.getBillElements().size());
+        publishRevenueChange(p.getHospitalId(), bill);
 
         billDTO.setId(bill.getId());
 
@@ -137,23 +147,14 @@ public class BillService {
      * pour éviter les problèmes de timing transactionnel (la requête native pourrait
      * ne pas voir les éléments tout juste sauvegardés dans la même transaction).
      * 
-     * Formule: Σ(prix × quantité × (1 - remise/100))
+     * Formule: Σ(prix × quantité × (1 - remise)), en FCFA entiers via {@link BillTotals}.
      */
     public BigDecimal calculateTotal(Bill bill) {
-        BigDecimal total = BigDecimal.ZERO;
         if (bill.getBillElements() == null || bill.getBillElements().isEmpty()) {
             log.debug("No BillElements found in bill");
-            return total;
-        }
-        for (BillElement element : bill.getBillElements()) {
-            BigDecimal unit = element.getPrice() == null ? BigDecimal.ZERO : BigDecimal.valueOf(element.getPrice());
-            int qty = element.getQuantity() == null ? 0 : element.getQuantity();
-            BigDecimal pct = element.getPercentage() == null ? BigDecimal.ZERO : BigDecimal.valueOf(element.getPercentage());
-            BigDecimal gross = unit.multiply(BigDecimal.valueOf(qty));
-            BigDecimal net = gross.subtract(gross.multiply(pct).divide(BigDecimal.valueOf(100), 6, java.math.RoundingMode.HALF_UP));
-            total = total.add(net);
+            return BigDecimal.ZERO;
         }
-        return total.setScale(0, java.math.RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(BillTotals.total(bill.getBillElements()));
     }
 
     /**
@@ -167,69 +168,78 @@ public class BillService {
         if (billDTO.getId() == null) {
             throw new IllegalArgumentException("id is required");
         }
-        billRepository
-            .findById(billDTO.getId())
-            .ifPresent(existing -> assertSameHospital(existing.getPatient() != null ? existing.getPatient().getHospitalId() : null));
+        Optional<Bill> existing = billRepository.findById(billDTO.getId());
+        Long hospitalId = existing.map(Bill::getPatient).map(Patient::getHospitalId).orElse(null);
+        existing.ifPresent(e -> assertSameHospital(hospitalId));
+        Instant previousDate = existing.map(Bill::getDate).orElse(null);
         Bill bill = billMapper.toEntity(billDTO);
         bill = billRepository.save(bill);
+        publishRevenueUpdate(hospitalId, bill, previousDate);
         return billMapper.toDto(bill);
     }
 
+    /**
+     * Met à jour une facture et ses lignes en une passe : les lignes de la facture chargée sont comparées une fois
+     * à celles soumises, puis les lignes retirées, modifiées et nouvelles sont écrites au flush
+     * (DELETE/UPDATE/INSERT groupés selon {@code hibernate.jdbc.batch_size}, sans relecture ligne par ligne).
+     */
     public BillDTO updateBis(BillDTO billDTO) {
         log.debug("Request to update bill : {}", billDTO);
         if (billDTO.getId() == null) {
             throw new IllegalArgumentException("id is required");
         }
-        billRepository
-            .findById(billDTO.getId())
-            .ifPresent(existing -> assertSameHospital(existing.getPatient() != null ? existing.getPatient().getHospitalId() : null));
-
-        // Get existing elements from DB
-        List<BillElement> existingElements = billElementRepository.findByBill_Id(billDTO.getId());
-        
-        // Map the bill and its elements (preserves IDs from DTO)
-        Bill bill = billMapper.toEntity(billDTO);
-        bill = mapElements(billDTO, bill);
-        
-        // Collect IDs of submitted elements (for deletion check)
-        Set<Long> submittedIds = new HashSet<>();
-        if (bill.getBillElements() != null) {
-            for (BillElement el : bill.getBillElements()) {
-                if (el.getId() != null) {
-                    submittedIds.add(el.getId());
-                }
-            }
-        }
-        
-        // Smart update: DELETE elements that were removed by user
-        for (BillElement existing : existingElements) {
-            if (!submittedIds.contains(existing.getId())) {
-                log.debug("Deleting removed bill element: {}", existing.getId());
-                billElementRepository.deleteById(existing.getId());
-            }
+        Bill bill = billRepository.findById(billDTO.getId()).orElseThrow(() -> new IllegalArgumentException("Bill not found id=" + billDTO.getId()));
+        Long hospitalId = bill.getPatient() != null ? bill.getPatient().getHospitalId() : null;
+        assertSameHospital(hospitalId);
+
+        Instant previousDate = bill.getDate();
+        Bill submitted = billMapper.toEntity(billDTO);
+        bill.setDate(submitted.getDate());
+        bill.setAuthor(submitted.getAuthor());
+        bill.setInsurance(submitted.getInsurance());
+        bill.setDesc(submitted.getDesc());
+        bill.setIpm(submitted.getIpm());
+        Long patientId = billDTO.getPatient() != null ? billDTO.getPatient().getId() : null;
+        if (patientId == null) {
+            bill.setPatient(null);
+        } else if (bill.getPatient() == null || !Objects.equals(bill.getPatient().getId(), patientId)) {
+            bill.setPatient(patientRepository.getReferenceById(patientId));
         }
 
-        // Save bill first
-        bill = billRepository.save(bill);
-
-        // Smart update: UPDATE existing or CREATE new elements
-        if (bill.getBillElements() != null) {
-            for (BillElement element : bill.getBillElements()) {
-                element.setBill(bill);
-                if (element.getId() != null) {
-                    log.debug("Updating existing bill element: {}", element.getId());
-                } else {
-                    log.debug("Creating new bill element: {}", element.getName());
+        // Diff des lignes : une seule lecture de la collection existante
+        Map<Long, BillElement> current = new HashMap<>();
+        for (BillElement element : bill.getBillElements()) {
+            current.put(element.getId(), element);
+        }
+        Set<Long> kept = new HashSet<>();
+        List<BillElement> added = new ArrayList<>();
+        if (billDTO.getBillElements() != null) {
+            for (BillElementDTO elementDTO : billDTO.getBillElements()) {
+                if (elementDTO.getId() == null) {
+                    BillElement element = billElementMapper.toEntity(elementDTO);
+                    element.setBill(bill);
+                    added.add(element);
+                    continue;
+                }
+                BillElement element = current.get(elementDTO.getId());
+                if (element == null) {
+                    throw new IllegalArgumentException("BillElement id=" + elementDTO.getId() + " does not belong to bill id=" + bill.getId());
                 }
-                billElementRepository.save(element);
+                // Modifié en place : Hibernate n'émet un UPDATE que si une valeur a changé
+                element.setName(elementDTO.getName());
+                element.setPrice(elementDTO.getPrice());
+                element.setDiscountBp(BillTotals.toBasisPoints(elementDTO.getPercentage()));
+                element.setQuantity(elementDTO.getQuantity());
+                kept.add(element.getId());
             }
         }
-        
-        // Recalculate total after all elements are saved
-        bill.setTotal(calculateTotal(bill));
-        bill = billRepository.save(bill);
+        // orphanRemoval supprime les lignes retirées, addAll persiste les nouvelles en cascade
+        bill.getBillElements().removeIf(element -> !kept.contains(element.getId()));
+        bill.getBillElements().addAll(added);
 
-        log.debug(bill.toString());
+        bill.setTotal(calculateTotal(bill));
+        log.debug("Updated Bill entity: {} ({} kept, {} added)", bill.getId(), kept.size(), added.size());
+        publishRevenueUpdate(hospitalId, bill, previousDate);
 
         billDTO.setId(bill.getId());
 
@@ -248,8 +258,11 @@ public class BillService {
         return billRepository
             .findById(billDTO.getId())
             .map(existingBill -> {
-                assertSameHospital(existingBill.getPatient() != null ? existingBill.getPatient().getHospitalId() : null);
+                Long hospitalId = existingBill.getPatient() != null ? existingBill.getPatient().getHospitalId() : null;
+                assertSameHospital(hospitalId);
+                Instant previousDate = existingBill.getDate();
                 billMapper.partialUpdate(existingBill, billDTO);
+                publishRevenueChange(hospitalId, existingBill, previousDate);
 
                 return existingBill;
             })
@@ -306,6 +319,39 @@ public class BillService {
             .orElseGet(() -> billRepository.findById(id));
     }
 
+    /**
+     * Exporte les factures d'une période (bornes incluses) et leurs lignes, en CSV ou NDJSON, via un curseur JDBC
+     * en lecture seule : les lignes sont écrites au fur et à mesure de leur lecture, sans être chargées en mémoire.
+     * Un utilisateur rattaché à un hôpital n'exporte que les factures de cet hôpital.
+     *
+     * @param hospitalId filtre hôpital pour un administrateur, ignoré pour les autres utilisateurs.
+     * @return le nombre de lignes exportées.
+     */
+    @Transactional(readOnly = true)
+    public long export(
+        LocalDate from,
+        LocalDate to,
+        String insurance,
+        String ipm,
+        Long hospitalId,
+        BillExportWriter.Format format,
+        OutputStream out
+    ) throws IOException {
+        Long scope = currentHospitalProvider.getCurrentHospitalId().orElse(hospitalId);
+        log.debug("Request to export Bills from {} to {} (hospital {})", from, to, scope);
+        try (
+            Stream<Object[]> rows = billRepository.streamForExport(
+                from.atStartOfDay(ZONE_DAKAR).toInstant(),
+                to.plusDays(1).atStartOfDay(ZONE_DAKAR).toInstant(),
+                insurance,
+                ipm,
+                scope
+            )
+        ) {
+            return BillExportWriter.write(rows, format, out);
+        }
+    }
+
     /**
      * Delete the bill by id.
      * cascade = ALL + orphanRemoval = true on Bill.billElements ensures
@@ -317,10 +363,39 @@ public class BillService {
         log.debug("Request to delete Bill : {}", id);
         billRepository
             .findById(id)
-            .ifPresent(existing -> assertSameHospital(existing.getPatient() != null ? existing.getPatient().getHospitalId() : null));
+            .ifPresent(existing -> {
+                Long hospitalId = existing.getPatient() != null ? existing.getPatient().getHospitalId() : null;
+                assertSameHospital(hospitalId);
+                publishRevenueChange(hospitalId, existing);
+                syncTombstoneRepository.save(new SyncTombstone(SyncTombstone.BILL, id, hospitalId));
+            });
         billRepository.deleteById(id);
     }
 
+    /**
+     * Demande le recalcul du cumul des recettes pour le jour de la facture (et son ancien jour s'il a changé),
+     * exécuté après le commit par {@link RevenueReportService}.
+     */
+    private void publishRevenueChange(Long hospitalId, Bill bill, Instant... previousDates) {
+        Instant[] dates = Arrays.copyOf(previousDates, previousDates.length + 1);
+        dates[previousDates.length] = bill.getDate();
+        eventPublisher.publishEvent(RevenueChangedEvent.of(hospitalId, dates));
+    }
+
+    /**
+     * Comme {@link #publishRevenueChange}, pour l'ancien et le nouvel hôpital si la facture a changé de patient et
+     * d'hôpital.
+     *
+     * @param previousHospitalId l'hôpital de la facture avant modification.
+     */
+    private void publishRevenueUpdate(Long previousHospitalId, Bill bill, Instant previousDate) {
+        publishRevenueChange(previousHospitalId, bill, previousDate);
+        Long hospitalId = bill.getPatient() != null ? bill.getPatient().getHospitalId() : null;
+        if (!Objects.equals(hospitalId, previousHospitalId)) {
+            publishRevenueChange(hospitalId, bill, previousDate);
+        }
+    }
+
     private void assertSameHospital(Long entityHospitalId) {
         currentHospitalProvider
             .getCurrentHospitalId()
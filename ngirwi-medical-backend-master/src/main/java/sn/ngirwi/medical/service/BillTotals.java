@@ -0,0 +1,97 @@
+package sn.ngirwi.medical.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import sn.ngirwi.medical.domain.BillElement;
+
+/**
+ * Calcul des montants de facturation en FCFA entiers (le franc CFA n'a pas de sous-unité).
+ * <p>
+ * Les remises et couvertures sont exprimées en points de base (1 % = 100 bp). Les sommes sont cumulées en
+ * dix-millièmes de franc puis arrondies une seule fois (HALF_UP), ce qui donne le même résultat que l'ancien
+ * calcul en {@link BigDecimal} sans allouer d'objet par ligne.
+ */
+public final class BillTotals {
+
+    /** 100 % en points de base. */
+    public static final int FULL_BP = 10_000;
+
+    private BillTotals() {}
+
+    /**
+     * Montant net d'une ligne en dix-millièmes de franc : prix × quantité × (1 - remise).
+     */
+    public static long netScaled(long unitPrice, int quantity, int discountBp) {
+        return Math.multiplyExact(Math.multiplyExact(unitPrice, (long) quantity), (long) FULL_BP - discountBp);
+    }
+
+    /**
+     * Montant net d'une ligne arrondi au franc.
+     */
+    public static long net(long unitPrice, int quantity, int discountBp) {
+        return round(netScaled(unitPrice, quantity, discountBp));
+    }
+
+    /**
+     * Total des lignes d'une facture : Σ(prix × quantité × (1 - remise)), arrondi au franc.
+     * Une valeur absente compte pour 0.
+     */
+    public static long total(Collection<BillElement> elements) {
+        if (elements == null) {
+            return 0L;
+        }
+        long scaled = 0L;
+        for (BillElement element : elements) {
+            long price = element.getPrice() == null ? 0L : element.getPrice();
+            int qty = element.getQuantity() == null ? 0 : element.getQuantity();
+            int bp = element.getDiscountBp() == null ? 0 : element.getDiscountBp();
+            scaled = Math.addExact(scaled, netScaled(price, qty, bp));
+        }
+        return round(scaled);
+    }
+
+    /**
+     * Part restant à la charge du patient après une couverture de {@code coverageBp}, arrondie au franc.
+     */
+    public static long afterCoverage(long amount, int coverageBp) {
+        return net(amount, 1, coverageBp);
+    }
+
+    /**
+     * Arrondi HALF_UP d'un montant en dix-millièmes de franc.
+     */
+    static long round(long scaled) {
+        long quotient = scaled / FULL_BP;
+        long remainder = scaled % FULL_BP;
+        if (Math.abs(remainder) * 2 >= FULL_BP) {
+            quotient += Long.signum(scaled);
+        }
+        return quotient;
+    }
+
+    /**
+     * Convertit un montant décimal (saisie, colonnes numeric) en francs entiers, null compte pour 0.
+     */
+    public static long toAmount(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Convertit un pourcentage (ex. 12.5) en points de base (1250), null compte pour 0.
+     */
+    public static int toBasisPoints(BigDecimal percent) {
+        return percent == null ? 0 : percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    public static Integer toBasisPoints(Double percent) {
+        return percent == null ? null : toBasisPoints(BigDecimal.valueOf(percent));
+    }
+
+    /**
+     * Convertit des points de base en pourcentage (1250 -> 12.5).
+     */
+    public static Double toPercent(Integer basisPoints) {
+        return basisPoints == null ? null : basisPoints / 100.0;
+    }
+}
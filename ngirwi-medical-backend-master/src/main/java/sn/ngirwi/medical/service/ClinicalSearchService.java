@@ -0,0 +1,110 @@
+package sn.ngirwi.medical.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+import sn.ngirwi.medical.repository.ClinicalSearchRepository;
+import sn.ngirwi.medical.repository.ConsultationRepository;
+import sn.ngirwi.medical.service.dto.ClinicalSearchResultDTO;
+
+/**
+ * Recherche plein texte dans le texte clinique des consultations et des hospitalisations, limitée aux patients de
+ * l'hôpital de l'utilisateur (tous les hôpitaux pour un admin).
+ */
+@Service
+@Transactional(readOnly = true)
+public class ClinicalSearchService {
+
+    public static final int MAX_QUERY_LENGTH = 200;
+
+    public static final int MAX_PAGE_SIZE = 50;
+
+    /** Au-delà, les mots suivants de la requête sont ignorés. */
+    static final int MAX_TERMS = 8;
+
+    private final Logger log = LoggerFactory.getLogger(ClinicalSearchService.class);
+
+    private final ConsultationRepository consultationRepository;
+
+    private final CurrentHospitalProvider currentHospitalProvider;
+
+    public ClinicalSearchService(ConsultationRepository consultationRepository, CurrentHospitalProvider currentHospitalProvider) {
+        this.consultationRepository = consultationRepository;
+        this.currentHospitalProvider = currentHospitalProvider;
+    }
+
+    /**
+     * Consultations et hospitalisations dont le texte contient tous les mots de la requête, les plus pertinentes
+     * d'abord, avec un extrait où les mots trouvés sont entourés de {@code <mark>}.
+     *
+     * @param q les mots cherchés (la ponctuation est ignorée).
+     * @param pageable la page demandée, au plus {@link #MAX_PAGE_SIZE} résultats ; le tri est ignoré.
+     */
+    public Page<ClinicalSearchResultDTO> search(String q, Pageable pageable) {
+        log.debug("Request to search clinical text : {}", q);
+        List<String> terms = terms(q);
+        if (pageable.getPageSize() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must not exceed " + MAX_PAGE_SIZE);
+        }
+        Long hospitalId = currentHospitalProvider.getCurrentHospitalId().orElse(null);
+        List<Object[]> rows = consultationRepository.searchClinical(terms, hospitalId, pageable.getOffset(), pageable.getPageSize());
+        List<ClinicalSearchResultDTO> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            hits.add(
+                new ClinicalSearchResultDTO(
+                    ClinicalSearchResultDTO.Type.valueOf((String) row[0]),
+                    (Long) row[1],
+                    (Long) row[2],
+                    (String) row[3],
+                    (String) row[4],
+                    (Instant) row[5],
+                    headline((String) row[6]),
+                    row[7] == null ? 0d : (Double) row[7]
+                )
+            );
+        }
+        // le comptage n'est fait que si la page est pleine
+        return PageableExecutionUtils.getPage(hits, pageable, () -> consultationRepository.countClinical(terms, hospitalId));
+    }
+
+    static List<String> terms(String q) {
+        if (q == null || q.isBlank()) {
+            throw new IllegalArgumentException("q is required");
+        }
+        if (q.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("q must not exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : q.toLowerCase(Locale.FRENCH).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && terms.size() < MAX_TERMS) {
+                terms.add(word);
+            }
+        }
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("q must contain at least one word");
+        }
+        return new ArrayList<>(terms);
+    }
+
+    // Le texte saisi par les soignants est échappé : seuls les <mark> sont du HTML
+    private static String headline(String marked) {
+        if (marked == null) {
+            return null;
+        }
+        return HtmlUtils
+            .htmlEscape(marked, "UTF-8")
+            .replace(String.valueOf(ClinicalSearchRepository.HIGHLIGHT_START), "<mark>")
+            .replace(String.valueOf(ClinicalSearchRepository.HIGHLIGHT_END), "</mark>");
+    }
+}
@@ -16,8 +16,10 @@ import org.springframework.transaction.annotation.Transactional;
 import sn.ngirwi.medical.domain.Consultation;
 import sn.ngirwi.medical.domain.User;
 import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.SyncTombstone;
 import sn.ngirwi.medical.repository.ConsultationRepository;
 import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.SyncTombstoneRepository;
 import sn.ngirwi.medical.repository.UserRepository;
 import sn.ngirwi.medical.service.dto.ConsultationDTO;
 import sn.ngirwi.medical.service.mapper.ConsultationMapper;
@@ -37,19 +39,22 @@ public class ConsultationService {
     private final UserRepository userRepository;
     private final CurrentHospitalProvider currentHospitalProvider;
     private final PatientRepository patientRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
 
     public ConsultationService(
         ConsultationRepository consultationRepository,
         ConsultationMapper consultationMapper,
         UserRepository userRepository,
         CurrentHospitalProvider currentHospitalProvider,
-        PatientRepository patientRepository
+        PatientRepository patientRepository,
+        SyncTombstoneRepository syncTombstoneRepository
     ) {
         this.consultationRepository = consultationRepository;
         this.consultationMapper = consultationMapper;
         this.userRepository = userRepository;
         this.currentHospitalProvider = currentHospitalProvider;
         this.patientRepository = patientRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
     }
 
     /**
@@ -199,7 +204,11 @@ public class ConsultationService {
         log.debug("Request to delete Consultation : {}", id);
         consultationRepository
             .findById(id)
-            .ifPresent(existing -> assertSameHospital(existing.getPatient() != null ? existing.getPatient().getHospitalId() : null));
+            .ifPresent(existing -> {
+                Long hospitalId = existing.getPatient() != null ? existing.getPatient().getHospitalId() : null;
+                assertSameHospital(hospitalId);
+                syncTombstoneRepository.save(new SyncTombstone(SyncTombstone.CONSULTATION, id, hospitalId));
+            });
         consultationRepository.deleteById(id);
     }
 }
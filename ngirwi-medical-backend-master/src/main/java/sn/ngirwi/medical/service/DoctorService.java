@@ -0,0 +1,48 @@
+package sn.ngirwi.medical.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.repository.UserRepository;
+import sn.ngirwi.medical.security.AuthoritiesConstants;
+import sn.ngirwi.medical.service.dto.DoctorDTO;
+
+/**
+ * Service providing the per-hospital doctor directory used by the forms' doctor dropdowns.
+ * <p>
+ * Results are cached per hospital; {@link UserService} evicts the entry whenever a user of that hospital changes.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DoctorService {
+
+    public static final String DOCTORS_BY_HOSPITAL_CACHE = "doctorsByHospital";
+
+    private final Logger log = LoggerFactory.getLogger(DoctorService.class);
+
+    private final UserRepository userRepository;
+
+    public DoctorService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Get the doctors ({@link AuthoritiesConstants#DOCTOR}) of a hospital.
+     *
+     * @param hospitalId the id of the hospital.
+     * @return the list of doctors, ordered by last name then first name.
+     */
+    @Cacheable(cacheNames = DOCTORS_BY_HOSPITAL_CACHE)
+    public List<DoctorDTO> findAllByHospital(Long hospitalId) {
+        log.debug("Request to get doctors of hospital : {}", hospitalId);
+        return userRepository
+            .findAllByHospitalIdAndAuthority(hospitalId, AuthoritiesConstants.DOCTOR)
+            .stream()
+            .map(DoctorDTO::new)
+            .collect(Collectors.toList());
+    }
+}
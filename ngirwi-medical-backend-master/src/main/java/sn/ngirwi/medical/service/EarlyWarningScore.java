@@ -0,0 +1,87 @@
+package sn.ngirwi.medical.service;
+
+import java.math.BigDecimal;
+import sn.ngirwi.medical.domain.SurveillanceSheet;
+
+/**
+ * NEWS2-style early warning score computed from the vitals of a {@link SurveillanceSheet}.
+ * <p>
+ * Consciousness and supplemental oxygen are not recorded on the sheet and score 0, as does any vital left empty;
+ * the score is {@code null} when no vital is recorded at all.
+ */
+public final class EarlyWarningScore {
+
+    private static final BigDecimal TEMPERATURE_35_0 = new BigDecimal("35.0");
+    private static final BigDecimal TEMPERATURE_36_0 = new BigDecimal("36.0");
+    private static final BigDecimal TEMPERATURE_38_0 = new BigDecimal("38.0");
+    private static final BigDecimal TEMPERATURE_39_0 = new BigDecimal("39.0");
+
+    private EarlyWarningScore() {}
+
+    public static Integer of(SurveillanceSheet sheet) {
+        return compute(sheet.getTemperature(), sheet.getSystolicBP(), sheet.getPulseRate(), sheet.getRespirationRate(), sheet.getSpo2());
+    }
+
+    public static Integer compute(BigDecimal temperature, Integer systolicBP, Integer pulseRate, Integer respirationRate, Integer spo2) {
+        if (temperature == null && systolicBP == null && pulseRate == null && respirationRate == null && spo2 == null) {
+            return null;
+        }
+        int score = 0;
+        if (respirationRate != null) {
+            score += respirationRate(respirationRate);
+        }
+        if (spo2 != null) {
+            score += spo2(spo2);
+        }
+        if (systolicBP != null) {
+            score += systolicBP(systolicBP);
+        }
+        if (pulseRate != null) {
+            score += pulseRate(pulseRate);
+        }
+        if (temperature != null) {
+            score += temperature(temperature);
+        }
+        return score;
+    }
+
+    static int respirationRate(int rate) {
+        if (rate <= 8) return 3;
+        if (rate <= 11) return 1;
+        if (rate <= 20) return 0;
+        if (rate <= 24) return 2;
+        return 3;
+    }
+
+    static int spo2(int saturation) {
+        if (saturation <= 91) return 3;
+        if (saturation <= 93) return 2;
+        if (saturation <= 95) return 1;
+        return 0;
+    }
+
+    static int systolicBP(int systolic) {
+        if (systolic <= 90) return 3;
+        if (systolic <= 100) return 2;
+        if (systolic <= 110) return 1;
+        if (systolic <= 219) return 0;
+        return 3;
+    }
+
+    static int pulseRate(int pulse) {
+        if (pulse <= 40) return 3;
+        if (pulse <= 50) return 1;
+        if (pulse <= 90) return 0;
+        if (pulse <= 110) return 1;
+        if (pulse <= 130) return 2;
+        return 3;
+    }
+
+    static int temperature(BigDecimal temperature) {
+        if (temperature.compareTo(TEMPERATURE_35_0) <= 0) return 3;
+        if (temperature.compareTo(TEMPERATURE_36_0) <= 0) return 1;
+        if (temperature.compareTo(TEMPERATURE_38_0) <= 0) return 0;
+        if (temperature.compareTo(TEMPERATURE_39_0) <= 0) return 1;
+        return 2;
+    }
+}
@@ -1,7 +1,6 @@
 package sn.ngirwi.medical.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.*;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -9,10 +8,13 @@ import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sn.ngirwi.medical.domain.*;
@@ -26,6 +28,8 @@ import sn.ngirwi.medical.service.mapper.HospitalisationMapper;
 @Transactional
 public class HospitalisationService {
 
+    private static final String SCORE_SORT = "score";
+
     private final Logger log = LoggerFactory.getLogger(HospitalisationService.class);
 
     private final HospitalisationRepository hospitalisationRepository;
@@ -35,6 +39,8 @@ public class HospitalisationService {
     private final BillRepository billRepository;
     private final HospitalisationMapper hospitalisationMapper;
     private final CurrentHospitalProvider currentHospitalProvider;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncTombstoneRepository syncTombstoneRepository;
 
     public HospitalisationService(
         HospitalisationRepository hospitalisationRepository,
@@ -43,7 +49,9 @@ public class HospitalisationService {
         DossierMedicalRepository dossierMedicalRepository,
         BillRepository billRepository,
         HospitalisationMapper hospitalisationMapper,
-        CurrentHospitalProvider currentHospitalProvider
+        CurrentHospitalProvider currentHospitalProvider,
+        ApplicationEventPublisher eventPublisher,
+        SyncTombstoneRepository syncTombstoneRepository
     ) {
         this.hospitalisationRepository = hospitalisationRepository;
         this.surveillanceSheetRepository = surveillanceSheetRepository;
@@ -52,6 +60,8 @@ public class HospitalisationService {
         this.billRepository = billRepository;
         this.hospitalisationMapper = hospitalisationMapper;
         this.currentHospitalProvider = currentHospitalProvider;
+        this.eventPublisher = eventPublisher;
+        this.syncTombstoneRepository = syncTombstoneRepository;
     }
 
     // -------------------------
@@ -194,6 +204,9 @@ public class HospitalisationService {
         // Map DTO -> entity (mapper ignores surveillanceSheets; we'll handle them)
         Hospitalisation toSave = hospitalisationMapper.toEntity(dto);
         toSave.setId(existing.getId());
+        // Score d'alerte précoce : maintenu par l'enregistrement des fiches de surveillance
+        toSave.setLatestEarlyWarningScore(existing.getLatestEarlyWarningScore());
+        toSave.setLatestEarlyWarningScoreDate(existing.getLatestEarlyWarningScoreDate());
 
         // Preserve patient object reference
         if (existing.getPatient() != null) {
@@ -347,11 +360,17 @@ public class HospitalisationService {
         return hospitalisationRepository.search(patientId, status, null, null, hid, pageable).map(hospitalisationMapper::toDto);
     }
 
+    /**
+     * Hospitalisations en cours. Le tri {@code score} classe les patients du plus au moins à risque
+     * (dernier score d'alerte précoce, patients sans mesure en dernier).
+     */
     @Transactional(readOnly = true)
     public Page<HospitalisationDTO> findActive(String service, Pageable pageable) {
         HospitalisationStatus started = HospitalisationStatus.STARTED;
         Long hid = currentHospitalProvider.getCurrentHospitalId().orElse(null);
-        Page<Hospitalisation> page = hospitalisationRepository.search(null, started, null, null, hid, pageable);
+        Page<Hospitalisation> page = isScoreSorted(pageable)
+            ? hospitalisationRepository.searchByScore(null, started, null, null, hid, withoutScoreSort(pageable))
+            : hospitalisationRepository.search(null, started, null, null, hid, pageable);
         if (service == null) {
             return page.map(hospitalisationMapper::toDto);
         } else {
@@ -364,6 +383,16 @@ public class HospitalisationService {
         }
     }
 
+    private static boolean isScoreSorted(Pageable pageable) {
+        return pageable.isPaged() && pageable.getSort().getOrderFor(SCORE_SORT) != null;
+    }
+
+    // Le tri par score est écrit dans la requête : Spring Data ignore nullsLast() sur une @Query
+    private static Pageable withoutScoreSort(Pageable pageable) {
+        Sort sort = Sort.by(pageable.getSort().filter(order -> !SCORE_SORT.equals(order.getProperty())).toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
     @Transactional(readOnly = true)
     public Page<HospitalisationDTO> search(Long patientId, String statusStr, Instant from, Instant to, String service, Pageable pageable) {
         HospitalisationStatus status = null;
@@ -415,19 +444,22 @@ public class HospitalisationService {
 
         Hospitalisation saved = hospitalisationRepository.save(existing);
 
-        // Calculate and persist totalAmount when closing
-        try {
-            HospitalisationResumeDTO resume = calculateResume(saved.getId());
-            saved.setTotalAmount(resume.getTotalAmount());
-            saved = hospitalisationRepository.save(saved);
-        } catch (Exception e) {
-            log.warn("Failed to calculate totalAmount on close for hospitalisation id={}: {}", saved.getId(), e.getMessage());
-            // Continue without totalAmount if calculation fails
-        }
-
         if (generateBill) {
-            createBillForHospitalisation(saved);
+            // La facture détaillée porte le même total que le résumé, calculé en une seule requête
+            Bill bill = createBillForHospitalisation(saved);
+            saved.setTotalAmount(bill.getTotal());
+        } else {
+            // Calculate and persist totalAmount when closing
+            try {
+                HospitalisationResumeDTO resume = calculateResume(saved.getId());
+                saved.setTotalAmount(resume.getTotalAmount());
+            } catch (Exception e) {
+                log.warn("Failed to calculate totalAmount on close for hospitalisation id={}: {}", saved.getId(), e.getMessage());
+                // Continue without totalAmount if calculation fails
+            }
         }
+        saved = hospitalisationRepository.save(saved);
+        eventPublisher.publishEvent(RevenueChangedEvent.of(existingHospId, saved.getReleaseDate()));
 
         return hospitalisationMapper.toDto(saved);
     }
@@ -441,6 +473,7 @@ public class HospitalisationService {
             .orElseThrow(() -> new NoSuchElementException("Hospitalisation not found id=" + id));
         Long existingHospId = existing.getPatient() != null ? existing.getPatient().getHospitalId() : null;
         assertSameHospital(existingHospId);
+        syncTombstoneRepository.save(new SyncTombstone(SyncTombstone.HOSPITALISATION, id, existingHospId));
         hospitalisationRepository.deleteById(id);
     }
 
@@ -486,20 +519,60 @@ public class HospitalisationService {
         return sheets;
     }
 
-    private void createBillForHospitalisation(Hospitalisation hospitalisation) {
+    /**
+     * Crée la facture détaillée de l'hospitalisation : forfait séjour, confort, dépassement, puis médicaments,
+     * actes et mini-consultations agrégés sur toutes les fiches en une seule requête. La couverture d'assurance
+     * est appliquée comme remise sur chaque ligne, le total est donc celui de {@link #calculateResume(Long)}.
+     * Les lignes sont insérées par lots avec la facture (cascade), dans la transaction de clôture.
+     */
+    private Bill createBillForHospitalisation(Hospitalisation hospitalisation) {
         if (hospitalisation.getPatient() == null || hospitalisation.getPatient().getId() == null) {
             throw new IllegalArgumentException("Cannot create bill: hospitalisation has no associated patient");
         }
 
+        int coverageBp = BillTotals.toBasisPoints(hospitalisation.getInsuranceCoveragePercent());
+        int days = computeDaysBetween(hospitalisation.getEntryDate(), hospitalisation.getReleaseDate());
+
         Bill bill = new Bill();
         bill.setDate(Instant.now());
         bill.setAuthor(hospitalisation.getDoctorName());
         bill.setPatient(hospitalisation.getPatient());
+        bill.setHospitalisationId(hospitalisation.getId());
         bill.setDesc("Facturation pour hospitalisation id=" + hospitalisation.getId());
-        bill.setTotal(BigDecimal.ZERO);
+
+        addBillLine(bill, "Forfait séjour", BillTotals.toAmount(hospitalisation.getDailyRate()), days, coverageBp);
+        addBillLine(bill, "Frais de confort", BillTotals.toAmount(hospitalisation.getComfortFees()), 1, coverageBp);
+        addBillLine(bill, "Dépassement d'honoraires", BillTotals.toAmount(hospitalisation.getFeeOverrun()), 1, coverageBp);
+        for (Object[] row : surveillanceSheetRepository.findBillableItemsByHospitalisationId(hospitalisation.getId())) {
+            String kind = (String) row[0];
+            String name;
+            if (SurveillanceSheetRepository.BILLABLE_MEDICATION.equals(kind)) {
+                name = "Médicament : " + row[1];
+            } else if (SurveillanceSheetRepository.BILLABLE_ACT.equals(kind)) {
+                name = "Acte : " + row[1];
+            } else {
+                name = "Mini-consultation";
+            }
+            int quantity = Math.toIntExact(((Number) row[3]).longValue());
+            addBillLine(bill, name, BillTotals.toAmount((BigDecimal) row[2]), quantity, coverageBp);
+        }
+        bill.setTotal(BigDecimal.valueOf(BillTotals.total(bill.getBillElements())));
 
         billRepository.save(bill);
-        log.debug("Created Bill id={} for hospitalisation id={}", bill.getId(), hospitalisation.getId());
+        log.debug(
+            "Created Bill id={} with {} lines for hospitalisation id={}",
+            bill.getId(),
+            bill.getBillElements().size(),
+            hospitalisation.getId()
+        );
+        return bill;
+    }
+
+    private static void addBillLine(Bill bill, String name, long unitPrice, int quantity, int discountBp) {
+        if (unitPrice == 0L || quantity == 0) {
+            return;
+        }
+        bill.addBillElement(new BillElement().name(name).price(unitPrice).quantity(quantity).discountBp(discountBp));
     }
 
     // -------------------------
@@ -507,9 +580,6 @@ public class HospitalisationService {
     // -------------------------
 
     private static final ZoneId ZONE_DAKAR = ZoneId.of("Africa/Dakar");
-    private static final int SCALE_INTERNAL = 2;
-    private static final int SCALE_FINAL = 0;
-    private static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
 
     /**
      * Calcule le résumé de facturation d'une hospitalisation SANS persister.
@@ -531,60 +601,53 @@ public class HospitalisationService {
 
         int days = computeDaysBetween(h.getEntryDate(), h.getReleaseDate());
 
-        BigDecimal dailyRate = nvl(h.getDailyRate());
-        BigDecimal forfait = dailyRate.multiply(BigDecimal.valueOf(days)).setScale(SCALE_INTERNAL, ROUNDING);
+        // Montants en FCFA entiers (pas de sous-unité), cf. BillTotals
+        long dailyRate = BillTotals.toAmount(h.getDailyRate());
+        long forfait = Math.multiplyExact(dailyRate, (long) days);
 
-        BigDecimal confort = nvl(h.getComfortFees());
-        BigDecimal depassement = nvl(h.getFeeOverrun());
+        long confort = BillTotals.toAmount(h.getComfortFees());
+        long depassement = BillTotals.toAmount(h.getFeeOverrun());
 
         java.util.List<SurveillanceSheet> sheets = surveillanceSheetRepository.findByHospitalisation_Id(hospitalisationId);
 
-        BigDecimal medsTotal = BigDecimal.ZERO;
-        BigDecimal actsTotal = BigDecimal.ZERO;
-        BigDecimal miniConsultsTotal = BigDecimal.ZERO;
+        long medsTotal = 0L;
+        long actsTotal = 0L;
+        long miniConsultsTotal = 0L;
         for (SurveillanceSheet s : sheets) {
-            medsTotal = medsTotal.add(s.getMedications().stream().map(MedicationEntry::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add));
-            actsTotal = actsTotal.add(s.getActs().stream().map(ActEntry::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+            for (MedicationEntry m : s.getMedications()) {
+                medsTotal += BillTotals.net(BillTotals.toAmount(m.getPrixUnitaire()), m.getQuantite() == null ? 0 : m.getQuantite(), 0);
+            }
+            for (ActEntry a : s.getActs()) {
+                actsTotal += BillTotals.net(BillTotals.toAmount(a.getPrixUnitaire()), a.getQuantite() == null ? 0 : a.getQuantite(), 0);
+            }
             // Mini consultations
             if (s.getMiniConsultations() != null) {
                 for (MiniConsultation mc : s.getMiniConsultations()) {
-                    java.math.BigDecimal p = mc.getPrice() == null ? BigDecimal.ZERO : mc.getPrice();
-                    miniConsultsTotal = miniConsultsTotal.add(p);
+                    miniConsultsTotal += BillTotals.toAmount(mc.getPrice());
                 }
             }
         }
-        medsTotal = medsTotal.setScale(SCALE_INTERNAL, ROUNDING);
-        actsTotal = actsTotal.setScale(SCALE_INTERNAL, ROUNDING);
-        miniConsultsTotal = miniConsultsTotal.setScale(SCALE_INTERNAL, ROUNDING);
 
-        BigDecimal subtotal = forfait
-            .add(confort)
-            .add(depassement)
-            .add(medsTotal)
-            .add(actsTotal)
-            .add(miniConsultsTotal)
-            .setScale(SCALE_INTERNAL, ROUNDING);
+        long subtotal = forfait + confort + depassement + medsTotal + actsTotal + miniConsultsTotal;
 
         BigDecimal pct = nvl(h.getInsuranceCoveragePercent());
-        BigDecimal total = subtotal
-            .multiply(BigDecimal.ONE.subtract(pct.divide(BigDecimal.valueOf(100), 6, ROUNDING)))
-            .setScale(SCALE_FINAL, ROUNDING);
+        long total = BillTotals.afterCoverage(subtotal, BillTotals.toBasisPoints(pct));
 
         HospitalisationResumeDTO dto = new HospitalisationResumeDTO();
         dto.setHospitalisationId(h.getId());
         dto.setEntryDate(h.getEntryDate());
         dto.setReleaseDate(h.getReleaseDate());
         dto.setNumberOfDays(days);
-        dto.setDailyRate(dailyRate);
-        dto.setForfaitSejour(forfait);
-        dto.setComfortFees(confort);
-        dto.setFeeOverrun(depassement);
-        dto.setMedsTotal(medsTotal);
-        dto.setActsTotal(actsTotal);
+        dto.setDailyRate(BigDecimal.valueOf(dailyRate));
+        dto.setForfaitSejour(BigDecimal.valueOf(forfait));
+        dto.setComfortFees(BigDecimal.valueOf(confort));
+        dto.setFeeOverrun(BigDecimal.valueOf(depassement));
+        dto.setMedsTotal(BigDecimal.valueOf(medsTotal));
+        dto.setActsTotal(BigDecimal.valueOf(actsTotal));
         // We reuse medsTotal/actsTotal fields; no dedicated field for mini consultations in Resume DTO; subtotal includes it.
-        dto.setSubtotal(subtotal);
+        dto.setSubtotal(BigDecimal.valueOf(subtotal));
         dto.setInsuranceCoveragePercent(pct);
-        dto.setTotalAmount(total);
+        dto.setTotalAmount(BigDecimal.valueOf(total));
         return dto;
     }
 
@@ -601,6 +664,7 @@ public class HospitalisationService {
 
         h.setTotalAmount(dto.getTotalAmount());
         hospitalisationRepository.save(h);
+        eventPublisher.publishEvent(RevenueChangedEvent.of(hid, h.getReleaseDate()));
         return dto;
     }
 
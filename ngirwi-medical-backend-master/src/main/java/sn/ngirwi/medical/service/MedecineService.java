@@ -30,17 +30,20 @@ public class MedecineService {
     private final MedecineMapper medecineMapper;
     private final CurrentHospitalProvider currentHospitalProvider;
     private final PrescriptionRepository prescriptionRepository;
+    private final MedecineSuggestionIndex medecineSuggestionIndex;
 
     public MedecineService(
         MedecineRepository medecineRepository,
         MedecineMapper medecineMapper,
         CurrentHospitalProvider currentHospitalProvider,
-        PrescriptionRepository prescriptionRepository
+        PrescriptionRepository prescriptionRepository,
+        MedecineSuggestionIndex medecineSuggestionIndex
     ) {
         this.medecineRepository = medecineRepository;
         this.medecineMapper = medecineMapper;
         this.currentHospitalProvider = currentHospitalProvider;
         this.prescriptionRepository = prescriptionRepository;
+        this.medecineSuggestionIndex = medecineSuggestionIndex;
     }
 
     /**
@@ -153,6 +156,24 @@ public class MedecineService {
         return medecineMapper.toDto(medecineRepository.findByOrdonance_Id(id));
     }
 
+    /**
+     * Suggest medicine names already prescribed in the hospital, starting with the given text.
+     *
+     * @param query the beginning of the name, case and accents are ignored.
+     * @param limit the maximum number of names, {@link MedecineSuggestionIndex#DEFAULT_LIMIT} when null.
+     * @param hospitalId the hospital to search, only used by an admin without hospital.
+     * @return the names, most prescribed first.
+     */
+    @Transactional(readOnly = true)
+    public List<String> suggest(String query, Integer limit, Long hospitalId) {
+        int size = limit == null ? MedecineSuggestionIndex.DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MedecineSuggestionIndex.MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MedecineSuggestionIndex.MAX_LIMIT);
+        }
+        Long hid = currentHospitalProvider.getCurrentHospitalId().orElse(hospitalId);
+        return medecineSuggestionIndex.suggest(hid, query, size);
+    }
+
     /**
      * Get one medecine by id.
      *
@@ -0,0 +1,208 @@
+package sn.ngirwi.medical.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sn.ngirwi.medical.repository.MedecineRepository;
+
+/**
+ * Index en mémoire des noms de médicaments déjà prescrits, par hôpital, pour l'autocomplétion.
+ * <p>
+ * Les noms sont normalisés (casse, accents, espaces) et rangés dans une table triée : une recherche par préfixe
+ * parcourt seulement la plage des noms qui commencent par la saisie et garde les plus prescrits. L'index est
+ * construit au démarrage puis complété après chaque prescription commitée ({@link MedecinesPrescribedEvent}).
+ * Chaque hôpital garde au plus {@link #MAX_NAMES_PER_HOSPITAL} noms : le chargement initial retient les plus
+ * prescrits, les nouveaux noms sont ignorés une fois la limite atteinte.
+ */
+@Service
+public class MedecineSuggestionIndex {
+
+    static final int MAX_NAMES_PER_HOSPITAL = 5_000;
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+        .comparingLong(Suggestion::getCount)
+        .reversed()
+        .thenComparing(Suggestion::getName);
+
+    private final Logger log = LoggerFactory.getLogger(MedecineSuggestionIndex.class);
+
+    private final MedecineRepository medecineRepository;
+
+    private volatile Map<Long, HospitalNames> hospitals = new ConcurrentHashMap<>();
+
+    public MedecineSuggestionIndex(MedecineRepository medecineRepository) {
+        this.medecineRepository = medecineRepository;
+    }
+
+    /**
+     * (Re)construit l'index à partir des médicaments en base, les plus prescrits d'abord.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<Long, HospitalNames> rebuilt = new ConcurrentHashMap<>();
+        int rows = 0;
+        for (Object[] row : medecineRepository.countNamesByHospital()) {
+            rebuilt.computeIfAbsent((Long) row[0], id -> new HospitalNames()).add((String) row[1], ((Number) row[2]).longValue());
+            rows++;
+        }
+        hospitals = rebuilt;
+        log.info("Medecine suggestion index built, {} hospitals, {} names", rebuilt.size(), rows);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedecinesPrescribed(MedecinesPrescribedEvent event) {
+        record(event.getHospitalId(), event.getNames());
+    }
+
+    /**
+     * Compte une prescription de chacun des noms pour l'hôpital donné.
+     */
+    public void record(Long hospitalId, Collection<String> names) {
+        if (hospitalId == null || names == null || names.isEmpty()) {
+            return;
+        }
+        HospitalNames index = hospitals.computeIfAbsent(hospitalId, id -> new HospitalNames());
+        for (String name : names) {
+            index.add(name, 1L);
+        }
+    }
+
+    /**
+     * Noms commençant par {@code query} (sans tenir compte de la casse ni des accents), du plus au moins prescrit.
+     */
+    public List<String> suggest(Long hospitalId, String query, int limit) {
+        HospitalNames index = hospitalId == null ? null : hospitals.get(hospitalId);
+        String prefix = query == null ? "" : normalize(query);
+        if (index == null || prefix.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // tas des "limit" meilleurs, le moins bien classé en tête
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Entry entry : index.startingWith(prefix)) {
+            long count = entry.getCount();
+            if (best.size() < limit || count > best.peek().getCount()) {
+                best.add(new Suggestion(entry.getName(), count));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Suggestion> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<String> names = new ArrayList<>(ranked.size());
+        for (Suggestion suggestion : ranked) {
+            names.add(suggestion.getName());
+        }
+        return names;
+    }
+
+    static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name.trim(), Normalizer.Form.NFD);
+        String plain = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(plain).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class HospitalNames {
+
+        private final ConcurrentSkipListMap<String, Entry> names = new ConcurrentSkipListMap<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(String name, long count) {
+            if (name == null || name.isBlank()) {
+                return;
+            }
+            String key = normalize(name);
+            Entry entry = names.get(key);
+            if (entry == null) {
+                if (size.get() >= MAX_NAMES_PER_HOSPITAL) {
+                    return;
+                }
+                Entry created = new Entry(WHITESPACE.matcher(name.trim()).replaceAll(" "));
+                entry = names.putIfAbsent(key, created);
+                if (entry == null) {
+                    size.incrementAndGet();
+                    entry = created;
+                }
+            }
+            entry.add(count);
+        }
+
+        Collection<Entry> startingWith(String prefix) {
+            NavigableMap<String, Entry> range = names.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            return range.values();
+        }
+    }
+
+    /** Nom indexé et son nombre de prescriptions, incrémenté sur place. */
+    private static final class Entry {
+
+        private final String name;
+
+        private volatile long count;
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        synchronized void add(long delta) {
+            count += delta;
+        }
+    }
+
+    /** Copie figée d'une entrée pendant le classement. */
+    private static final class Suggestion {
+
+        private final String name;
+
+        private final long count;
+
+        Suggestion(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package sn.ngirwi.medical.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when medicine lines are added to a prescription, so that the autocomplete index of the hospital
+ * counts them once the transaction has committed.
+ */
+public final class MedecinesPrescribedEvent {
+
+    private final Long hospitalId;
+
+    private final List<String> names;
+
+    public MedecinesPrescribedEvent(Long hospitalId, List<String> names) {
+        this.hospitalId = hospitalId;
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return "MedecinesPrescribedEvent{" + "hospitalId=" + hospitalId + ", names=" + names + "}";
+    }
+}
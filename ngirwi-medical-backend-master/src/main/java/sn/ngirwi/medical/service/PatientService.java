@@ -1,6 +1,11 @@
 package sn.ngirwi.medical.service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -14,11 +19,16 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.SyncTombstone;
 import sn.ngirwi.medical.domain.User;
 import sn.ngirwi.medical.repository.DossierMedicalRepository;
 import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.SyncTombstoneRepository;
 import sn.ngirwi.medical.repository.UserRepository;
 import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.service.dto.PatientTimelineDTO;
+import sn.ngirwi.medical.service.dto.TimelineEventDTO;
+import sn.ngirwi.medical.service.duplicate.PatientBlockingKeys;
 import sn.ngirwi.medical.service.mapper.PatientMapper;
 import sn.ngirwi.medical.service.CurrentHospitalProvider;
 
@@ -38,19 +48,29 @@ public class PatientService {
     private final PatientMapper patientMapper;
     private final DossierMedicalRepository dossierMedicalRepository;
     private final CurrentHospitalProvider currentHospitalProvider;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+
+    public static final int DEFAULT_TIMELINE_SIZE = 20;
+
+    public static final int MAX_TIMELINE_SIZE = 100;
+
+    /** Borne de la première page : après tout événement enregistré. */
+    private static final Instant TIMELINE_START = Instant.parse("9999-12-31T23:59:59Z");
 
     public PatientService(
         PatientRepository patientRepository,
         UserRepository userRepository,
         PatientMapper patientMapper,
         DossierMedicalRepository dossierMedicalRepository,
-        CurrentHospitalProvider currentHospitalProvider
+        CurrentHospitalProvider currentHospitalProvider,
+        SyncTombstoneRepository syncTombstoneRepository
     ) {
         this.patientRepository = patientRepository;
         this.userRepository = userRepository;
         this.patientMapper = patientMapper;
         this.dossierMedicalRepository = dossierMedicalRepository;
         this.currentHospitalProvider = currentHospitalProvider;
+        this.syncTombstoneRepository = syncTombstoneRepository;
     }
 
     /**
@@ -65,6 +85,7 @@ public class PatientService {
         Patient patient = patientMapper.toEntity(patientDTO);
         User user = userRepository.findOneByLogin(patient.getAuthor()).get();
         patient.setHospitalId(user.getHospitalId());
+        PatientBlockingKeys.apply(patient);
         patient = patientRepository.save(patient);
         return patientMapper.toDto(patient);
     }
@@ -91,6 +112,7 @@ public class PatientService {
 
         Patient patient = patientMapper.toEntity(patientDTO);
         patient.setHospitalId(existing.getHospitalId());
+        PatientBlockingKeys.apply(patient);
         patient = patientRepository.save(patient);
         return patientMapper.toDto(patient);
     }
@@ -109,6 +131,7 @@ public class PatientService {
             .map(existingPatient -> {
                 assertSameHospital(existingPatient.getHospitalId());
                 patientMapper.partialUpdate(existingPatient, patientDTO);
+                PatientBlockingKeys.apply(existingPatient);
 
                 return existingPatient;
             })
@@ -176,6 +199,85 @@ public class PatientService {
             .map(patientMapper::toDto);
     }
 
+    /**
+     * Page of the timeline of a patient (consultations, prescriptions, bills and hospitalisations), most recent first,
+     * read with one query.
+     *
+     * @param id the id of the patient.
+     * @param cursor the {@code nextCursor} of the previous page, null for the first page.
+     * @param size the number of events, between 1 and {@link #MAX_TIMELINE_SIZE}.
+     * @return the page, or empty if the patient does not exist in the current hospital.
+     * @throws IllegalArgumentException if the size is out of range or the cursor is malformed.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PatientTimelineDTO> timeline(Long id, String cursor, int size) {
+        log.debug("Request to get the timeline of Patient : {}", id);
+        if (size < 1 || size > MAX_TIMELINE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_TIMELINE_SIZE);
+        }
+        Optional<Long> hospitalId = currentHospitalProvider.getCurrentHospitalId();
+        boolean visible = patientRepository
+            .findById(id)
+            .filter(p -> hospitalId.isEmpty() || hospitalId.get().equals(p.getHospitalId()))
+            .isPresent();
+        if (!visible) {
+            return Optional.empty();
+        }
+
+        Instant beforeDate = TIMELINE_START;
+        String beforeKind = "";
+        Long beforeId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            // date vide : le dernier événement transmis n'était pas daté
+            beforeDate = parts[0].isEmpty() ? null : Instant.parse(parts[0]);
+            beforeKind = parts[1];
+            beforeId = Long.valueOf(parts[2]);
+        }
+        // une ligne de plus pour savoir s'il reste une page
+        List<Object[]> rows = patientRepository.findTimeline(id, beforeDate, beforeKind, beforeId, size + 1);
+        List<TimelineEventDTO> events = new ArrayList<>(Math.min(rows.size(), size));
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), size))) {
+            events.add(
+                new TimelineEventDTO(
+                    TimelineEventDTO.Type.valueOf((String) row[0]),
+                    (Long) row[1],
+                    (Instant) row[2],
+                    (String) row[3],
+                    (String) row[4],
+                    (BigDecimal) row[5]
+                )
+            );
+        }
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Object[] last = rows.get(size - 1);
+            nextCursor = encodeCursor((Instant) last[2], (String) last[0], (Long) last[1]);
+        }
+        return Optional.of(new PatientTimelineDTO(events, nextCursor));
+    }
+
+    private static String encodeCursor(Instant date, String kind, Long id) {
+        String raw = (date != null ? date.toString() : "") + "|" + kind + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid timeline cursor");
+            }
+            if (!parts[0].isEmpty()) {
+                Instant.parse(parts[0]);
+            }
+            Long.parseLong(parts[2]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timeline cursor", e);
+        }
+    }
+
     /**
      * Delete the patient by id.
      *
@@ -183,16 +285,25 @@ public class PatientService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Patient : {}", id);
-        patientRepository.findById(id).ifPresent(existing -> assertSameHospital(existing.getHospitalId()));
+        patientRepository
+            .findById(id)
+            .ifPresent(existing -> {
+                assertSameHospital(existing.getHospitalId());
+                syncTombstoneRepository.save(new SyncTombstone(SyncTombstone.PATIENT, id, existing.getHospitalId()));
+            });
         dossierMedicalRepository.deleteByPatient_Id(id);
         patientRepository.deleteById(id);
     }
 
     private void normalizeCni(PatientDTO dto) {
-        if (dto.getCni() != null) {
-            String normalized = dto.getCni().replaceAll("\\s+", "");
-            dto.setCni(normalized);
-        }
+        dto.setCni(normalizeCni(dto.getCni()));
+    }
+
+    /**
+     * @return the CNI without its spaces, or null.
+     */
+    public static String normalizeCni(String cni) {
+        return cni != null ? cni.replaceAll("\\s+", "") : null;
     }
 
     private void assertSameHospital(Long entityHospitalId) {
@@ -124,7 +124,7 @@ public class PdfGenerator {
                             td(medsTable, safe(m.getNom()));
                             td(medsTable, m.getQuantite() != null ? String.valueOf(m.getQuantite()) : "-");
                             td(medsTable, formatFcfa(m.getPrixUnitaire()));
-                            td(medsTable, formatFcfa(m.getTotal()));
+                            td(medsTable, formatFcfa(lineTotal(m.getPrixUnitaire(), m.getQuantite())));
                             td(medsTable, sheet.getSheetDate() != null ? sheet.getSheetDate().toString() : "-");
                         }
                     }
@@ -164,7 +164,7 @@ public class PdfGenerator {
                             td(actsTable, safe(a.getNom()));
                             td(actsTable, a.getQuantite() != null ? String.valueOf(a.getQuantite()) : "-");
                             td(actsTable, formatFcfa(a.getPrixUnitaire()));
-                            td(actsTable, formatFcfa(a.getTotal()));
+                            td(actsTable, formatFcfa(lineTotal(a.getPrixUnitaire(), a.getQuantite())));
                             td(actsTable, sheet.getSheetDate() != null ? sheet.getSheetDate().toString() : "-");
                         }
                     }
@@ -342,8 +342,18 @@ public class PdfGenerator {
         return DATE_FORMAT.format(instant);
     }
 
+    /**
+     * Line total in whole FCFA, computed like the billing resume (see {@link BillTotals}).
+     */
+    private static long lineTotal(BigDecimal unitPrice, Integer quantity) {
+        return BillTotals.net(BillTotals.toAmount(unitPrice), quantity == null ? 0 : quantity, 0);
+    }
+
     private static String formatFcfa(BigDecimal amount) {
-        if (amount == null) return "0 FCFA";
-        return FCFA_FORMAT.format(amount.longValue()) + " FCFA";
+        return formatFcfa(BillTotals.toAmount(amount));
+    }
+
+    private static String formatFcfa(long amount) {
+        return FCFA_FORMAT.format(amount) + " FCFA";
     }
 }
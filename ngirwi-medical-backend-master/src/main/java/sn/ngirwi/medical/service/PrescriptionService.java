@@ -3,6 +3,7 @@ package sn.ngirwi.medical.service;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
@@ -12,6 +13,7 @@ import sn.ngirwi.medical.domain.*;
 import sn.ngirwi.medical.repository.ConsultationRepository;
 import sn.ngirwi.medical.repository.MedecineRepository;
 import sn.ngirwi.medical.repository.PrescriptionRepository;
+import sn.ngirwi.medical.repository.SyncTombstoneRepository;
 import sn.ngirwi.medical.repository.UserRepository;
 import sn.ngirwi.medical.service.dto.PrescriptionDTO;
 import sn.ngirwi.medical.service.mapper.ConsultationMapper;
@@ -38,6 +40,8 @@ public class PrescriptionService {
     private final MedecineRepository medecineRepository;
     private final CurrentHospitalProvider currentHospitalProvider;
     private final ConsultationRepository consultationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncTombstoneRepository syncTombstoneRepository;
 
     public PrescriptionService(
         PrescriptionRepository prescriptionRepository,
@@ -46,7 +50,9 @@ public class PrescriptionService {
         ConsultationMapper consultationMapper,
         MedecineRepository medecineRepository,
         CurrentHospitalProvider currentHospitalProvider,
-        ConsultationRepository consultationRepository
+        ConsultationRepository consultationRepository,
+        ApplicationEventPublisher eventPublisher,
+        SyncTombstoneRepository syncTombstoneRepository
     ) {
         this.prescriptionRepository = prescriptionRepository;
         this.prescriptionMapper = prescriptionMapper;
@@ -55,6 +61,8 @@ public class PrescriptionService {
         this.medecineRepository = medecineRepository;
         this.currentHospitalProvider = currentHospitalProvider;
         this.consultationRepository = consultationRepository;
+        this.eventPublisher = eventPublisher;
+        this.syncTombstoneRepository = syncTombstoneRepository;
     }
 
     /**
@@ -195,13 +203,10 @@ public class PrescriptionService {
                     ? existing.getConsultation().getPatient().getHospitalId()
                     : null;
                 assertSameHospital(hid);
+                syncTombstoneRepository.save(new SyncTombstone(SyncTombstone.PRESCRIPTION, id, hid));
             });
 
-        List<Medecine> medecines = medecineRepository.findByOrdonance_Id(id);
-
-        for (Medecine m : medecines) {
-            medecineRepository.deleteById(m.getId());
-        }
+        medecineRepository.deleteByPrescriptionId(id);
         prescriptionRepository.deleteById(id);
     }
 
@@ -237,79 +242,102 @@ public class PrescriptionService {
     public PrescriptionDTO saveBis(PrescriptionDTO prescriptionDTO) {
         log.debug("Request to save Prescription : {}", prescriptionDTO);
 
-        Prescription prescription = map(prescriptionDTO); // Map DTO to entity
+        Long consultationId = prescriptionDTO.getConsultation() != null ? prescriptionDTO.getConsultation().getId() : null;
+        Consultation consultation = consultationId == null ? null : consultationRepository.findById(consultationId).orElse(null);
+        assertSameHospital(consultation != null && consultation.getPatient() != null ? consultation.getPatient().getHospitalId() : null);
 
-        // Assuming prescriptionDTO has medicines mapped correctly
-        for (Medecine medecine : prescription.getMedecines()) {
-            medecine.setOrdonance(prescription); // Associate medicine with prescription
-            // Remove manual save if cascade persist is configured
-            medecineRepository.save(medecine); // Remove this line if cascade persist is configured
-        }
+        Prescription prescription = map(prescriptionDTO);
 
-        // Save prescription (and associated medicines if cascade persist is configured)
+        // La prescription d'abord, puis toutes ses lignes insérées par lots (hibernate.jdbc.batch_size)
         prescription = prescriptionRepository.save(prescription);
+        List<String> names = new ArrayList<>();
+        for (Medecine medecine : prescription.getMedecines()) {
+            medecine.setId(null); // nouvelle prescription : toujours de nouvelles lignes
+            names.add(medecine.getName());
+        }
+        medecineRepository.saveAll(prescription.getMedecines());
+        publishPrescribed(consultation, names);
 
-        log.debug(prescription.toString());
-
+        log.debug("Saved Prescription id={} with {} medecines", prescription.getId(), names.size());
         prescriptionDTO.setId(prescription.getId());
 
-        //return prescriptionMapper.toDto(prescription); // Map entity back to DTO
-        return prescriptionDTO; // Map entity back to DTO
+        return prescriptionDTO;
     }
 
     public PrescriptionDTO updateBis(PrescriptionDTO prescriptionDTO) {
         log.debug("Request to update Prescription : {}", prescriptionDTO);
-        
+
         if (prescriptionDTO.getId() == null) {
             throw new IllegalArgumentException("Prescription ID cannot be null for update");
         }
-        
-        // 1. Load existing prescription from DB (attached to Hibernate session)
-        Prescription prescription = prescriptionRepository.findById(prescriptionDTO.getId())
+
+        Prescription prescription = prescriptionRepository
+            .findById(prescriptionDTO.getId())
             .orElseThrow(() -> new IllegalArgumentException("Prescription not found id=" + prescriptionDTO.getId()));
-        
-        // 2. Update scalar fields only (medecines managed separately below)
+        Consultation consultation = prescription.getConsultation();
+        assertSameHospital(consultation != null && consultation.getPatient() != null ? consultation.getPatient().getHospitalId() : null);
+
+        // Champs simples uniquement, les médicaments sont traités par différence ci-dessous
         prescription.setAuthor(prescriptionDTO.getAuthor());
         prescription.setCreationDate(prescriptionDTO.getCreationDate());
-        prescription = prescriptionRepository.save(prescription);
-        
-        // 3. Get existing medicines from DB
-        List<Medecine> existingMedecines = medecineRepository.findByOrdonance_Id(prescriptionDTO.getId());
-        
-        // 4. Map submitted medicines from DTO (preserves IDs for existing ones)
-        Set<Medecine> submittedMedecines = medecineMapper(prescriptionDTO);
-        
-        // 5. Collect IDs of submitted medicines (for deletion check)
-        Set<Long> submittedIds = new HashSet<>();
-        for (Medecine m : submittedMedecines) {
-            if (m.getId() != null) {
-                submittedIds.add(m.getId());
-            }
+
+        // Diff des médicaments : une seule lecture des lignes existantes
+        Map<Long, Medecine> current = new HashMap<>();
+        for (Medecine existing : medecineRepository.findByOrdonance_Id(prescription.getId())) {
+            current.put(existing.getId(), existing);
         }
-        
-        // 6. DELETE medicines that were removed by user
-        for (Medecine existing : existingMedecines) {
-            if (!submittedIds.contains(existing.getId())) {
-                log.debug("Deleting removed medicine: {}", existing.getId());
-                medecineRepository.deleteById(existing.getId());
+        Set<Long> kept = new HashSet<>();
+        List<Medecine> added = new ArrayList<>();
+        List<String> prescribedNames = new ArrayList<>();
+        for (Medecine submitted : medecineMapper(prescriptionDTO)) {
+            if (submitted.getId() == null) {
+                submitted.setOrdonance(prescription);
+                added.add(submitted);
+                prescribedNames.add(submitted.getName());
+                continue;
             }
-        }
-        
-        // 7. UPDATE existing or CREATE new medicines
-        for (Medecine medecine : submittedMedecines) {
-            medecine.setOrdonance(prescription);
-            if (medecine.getId() != null) {
-                log.debug("Updating existing medicine: {}", medecine.getId());
-            } else {
-                log.debug("Creating new medicine: {}", medecine.getName());
+            Medecine existing = current.get(submitted.getId());
+            if (existing == null) {
+                throw new IllegalArgumentException(
+                    "Medecine id=" + submitted.getId() + " does not belong to prescription id=" + prescription.getId()
+                );
+            }
+            if (!Objects.equals(existing.getName(), submitted.getName())) {
+                prescribedNames.add(submitted.getName());
             }
-            medecineRepository.save(medecine);
+            // Modifié en place : Hibernate n'émet un UPDATE (par lots) que si une valeur a changé
+            existing.setName(submitted.getName());
+            existing.setDuration(submitted.getDuration());
+            existing.setFrequency(submitted.getFrequency());
+            kept.add(existing.getId());
         }
 
+        // Un seul DELETE pour toutes les lignes retirées, puis les nouvelles lignes insérées par lots
+        int deleted = 0;
+        if (kept.size() < current.size()) {
+            deleted =
+                kept.isEmpty()
+                    ? medecineRepository.deleteByPrescriptionId(prescription.getId())
+                    : medecineRepository.deleteByPrescriptionIdAndIdNotIn(prescription.getId(), kept);
+        }
+        medecineRepository.saveAll(added);
+        publishPrescribed(consultation, prescribedNames);
+        log.debug("Updated Prescription id={} ({} kept, {} added, {} deleted)", prescription.getId(), kept.size(), added.size(), deleted);
+
         prescriptionDTO.setId(prescription.getId());
         return prescriptionDTO;
     }
 
+    /**
+     * Fait compter les médicaments prescrits par l'index d'autocomplétion de l'hôpital, après le commit.
+     */
+    private void publishPrescribed(Consultation consultation, List<String> names) {
+        Long hid = consultation != null && consultation.getPatient() != null ? consultation.getPatient().getHospitalId() : null;
+        if (hid != null && !names.isEmpty()) {
+            eventPublisher.publishEvent(new MedecinesPrescribedEvent(hid, names));
+        }
+    }
+
     /**
      * Parse a string to Long, returning null if the input is null, empty, or not a valid number.
      */
@@ -0,0 +1,53 @@
+package sn.ngirwi.medical.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Published when a bill or a hospitalisation total changes, so that the revenue rollup of the affected days is
+ * rebuilt once the transaction has committed.
+ */
+public final class RevenueChangedEvent {
+
+    private static final ZoneId ZONE_DAKAR = ZoneId.of("Africa/Dakar");
+
+    private final Long hospitalId;
+
+    private final Set<LocalDate> dates;
+
+    private RevenueChangedEvent(Long hospitalId, Set<LocalDate> dates) {
+        this.hospitalId = hospitalId;
+        this.dates = Collections.unmodifiableSet(dates);
+    }
+
+    /**
+     * @param hospitalId the hospital of the bill or hospitalisation, {@code null} when unknown.
+     * @param instants the revenue dates (bill date, release date) before and after the change; nulls are ignored.
+     */
+    public static RevenueChangedEvent of(Long hospitalId, Instant... instants) {
+        Set<LocalDate> dates = new TreeSet<>();
+        for (Instant instant : instants) {
+            if (instant != null) {
+                dates.add(LocalDate.ofInstant(instant, ZONE_DAKAR));
+            }
+        }
+        return new RevenueChangedEvent(hospitalId, dates);
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public Set<LocalDate> getDates() {
+        return dates;
+    }
+
+    @Override
+    public String toString() {
+        return "RevenueChangedEvent{" + "hospitalId=" + hospitalId + ", dates=" + dates + "}";
+    }
+}
@@ -0,0 +1,140 @@
+package sn.ngirwi.medical.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sn.ngirwi.medical.domain.RevenueDailyRollup;
+import sn.ngirwi.medical.repository.RevenueDailyRollupRepository;
+import sn.ngirwi.medical.service.dto.RevenueReportRowDTO;
+
+/**
+ * Rapports de recettes lus dans la table pré-agrégée {@link RevenueDailyRollup}.
+ * <p>
+ * Les jours touchés par une facture ou une clôture d'hospitalisation sont recalculés après le commit
+ * ({@link RevenueChangedEvent}) ; une réconciliation nocturne recalcule les dernières semaines pour rattraper
+ * un recalcul qui aurait échoué ou une modification faite hors de l'application.
+ */
+@Service
+@Transactional
+public class RevenueReportService {
+
+    public static final String GROUP_BY_DAY = "day";
+    public static final String GROUP_BY_MONTH = "month";
+    public static final String GROUP_BY_SOURCE = "source";
+    public static final String GROUP_BY_SERVICE = "service";
+    public static final String GROUP_BY_INSURER = "insurer";
+
+    /** Nombre de jours recalculés par la réconciliation nocturne. */
+    static final int RECONCILE_DAYS = 35;
+
+    private static final ZoneId ZONE_DAKAR = ZoneId.of("Africa/Dakar");
+
+    private final Logger log = LoggerFactory.getLogger(RevenueReportService.class);
+
+    private final RevenueDailyRollupRepository revenueDailyRollupRepository;
+
+    private final CurrentHospitalProvider currentHospitalProvider;
+
+    public RevenueReportService(RevenueDailyRollupRepository revenueDailyRollupRepository, CurrentHospitalProvider currentHospitalProvider) {
+        this.revenueDailyRollupRepository = revenueDailyRollupRepository;
+        this.currentHospitalProvider = currentHospitalProvider;
+    }
+
+    /**
+     * Recalcule les jours touchés une fois la facture ou l'hospitalisation commitée. En cas d'échec, l'erreur est
+     * journalisée par Spring et la réconciliation nocturne corrige le cumul.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onRevenueChanged(RevenueChangedEvent event) {
+        log.debug("Refreshing revenue rollup : {}", event);
+        for (LocalDate date : event.getDates()) {
+            revenueDailyRollupRepository.refresh(event.getHospitalId(), date, date);
+        }
+    }
+
+    /**
+     * Réconciliation nocturne des {@link #RECONCILE_DAYS} derniers jours, tous hôpitaux confondus.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:30 (am).
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void reconcile() {
+        LocalDate today = LocalDate.now(ZONE_DAKAR);
+        int rows = reconcile(today.minusDays(RECONCILE_DAYS), today);
+        log.info("Revenue rollup reconciled, {} rows", rows);
+    }
+
+    /**
+     * Recalcule le cumul de tous les hôpitaux entre deux dates incluses.
+     *
+     * @return le nombre de lignes de cumul écrites.
+     */
+    public int reconcile(LocalDate from, LocalDate to) {
+        return revenueDailyRollupRepository.refresh(null, from, to);
+    }
+
+    /**
+     * Recettes entre deux dates incluses, pour l'hôpital de l'utilisateur (ou tous les hôpitaux pour un admin),
+     * regroupées par jour, mois, source, service ou assureur.
+     */
+    @Transactional(readOnly = true)
+    public List<RevenueReportRowDTO> report(LocalDate from, LocalDate to, String groupBy) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from and to are required and from must not be after to");
+        }
+        Long hospitalId = currentHospitalProvider.getCurrentHospitalId().orElse(null);
+        String group = groupBy == null ? GROUP_BY_DAY : groupBy;
+        switch (group) {
+            case GROUP_BY_DAY:
+                return toRows(revenueDailyRollupRepository.sumByDate(hospitalId, from, to));
+            case GROUP_BY_MONTH:
+                return byMonth(revenueDailyRollupRepository.sumByDate(hospitalId, from, to));
+            case GROUP_BY_SOURCE:
+                return toRows(revenueDailyRollupRepository.sumBySource(hospitalId, from, to));
+            case GROUP_BY_SERVICE:
+                return toRows(revenueDailyRollupRepository.sumByService(hospitalId, from, to));
+            case GROUP_BY_INSURER:
+                return toRows(revenueDailyRollupRepository.sumByInsurer(hospitalId, from, to));
+            default:
+                throw new IllegalArgumentException(
+                    "groupBy must be one of day, month, source, service, insurer (was '" + groupBy + "')"
+                );
+        }
+    }
+
+    private static List<RevenueReportRowDTO> toRows(List<Object[]> sums) {
+        List<RevenueReportRowDTO> rows = new ArrayList<>(sums.size());
+        for (Object[] sum : sums) {
+            rows.add(new RevenueReportRowDTO(sum[0] == null ? null : sum[0].toString(), asLong(sum[1]), asLong(sum[2])));
+        }
+        return rows;
+    }
+
+    // Au plus quelques centaines de jours par an : le regroupement par mois se fait en mémoire
+    private static List<RevenueReportRowDTO> byMonth(List<Object[]> sumsByDate) {
+        Map<YearMonth, RevenueReportRowDTO> months = new LinkedHashMap<>();
+        for (Object[] sum : sumsByDate) {
+            YearMonth month = YearMonth.from((LocalDate) sum[0]);
+            RevenueReportRowDTO row = months.computeIfAbsent(month, m -> new RevenueReportRowDTO(m.toString(), 0L, 0L));
+            row.setAmount(row.getAmount() + asLong(sum[1]));
+            row.setCount(row.getCount() + asLong(sum[2]));
+        }
+        return new ArrayList<>(months.values());
+    }
+
+    private static long asLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+}
@@ -1,9 +1,21 @@
 package sn.ngirwi.medical.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -18,7 +30,11 @@ import sn.ngirwi.medical.repository.HospitalisationRepository;
 import sn.ngirwi.medical.domain.MiniConsultation;
 import sn.ngirwi.medical.domain.SurveillanceSheet;
 import sn.ngirwi.medical.repository.SurveillanceSheetRepository;
+import sn.ngirwi.medical.service.dto.SurveillanceSheetBatchResultDTO;
 import sn.ngirwi.medical.service.dto.SurveillanceSheetDTO;
+import sn.ngirwi.medical.service.dto.VitalsSeriesDTO;
+import sn.ngirwi.medical.service.mapper.ActEntryMapper;
+import sn.ngirwi.medical.service.mapper.MedicationEntryMapper;
 import sn.ngirwi.medical.service.mapper.SurveillanceSheetMapper;
 import sn.ngirwi.medical.service.CurrentHospitalProvider;
 
@@ -35,17 +51,26 @@ public class SurveillanceSheetService {
     private final HospitalisationRepository hospitalisationRepository;
     private final SurveillanceSheetMapper surveillanceSheetMapper;
     private final CurrentHospitalProvider currentHospitalProvider;
+    private final MedicationEntryMapper medicationEntryMapper;
+    private final ActEntryMapper actEntryMapper;
+    private final Validator validator;
 
     public SurveillanceSheetService(
         SurveillanceSheetRepository surveillanceSheetRepository,
         SurveillanceSheetMapper surveillanceSheetMapper,
         HospitalisationRepository hospitalisationRepository,
-        CurrentHospitalProvider currentHospitalProvider
+        CurrentHospitalProvider currentHospitalProvider,
+        MedicationEntryMapper medicationEntryMapper,
+        ActEntryMapper actEntryMapper,
+        Validator validator
     ) {
         this.surveillanceSheetRepository = surveillanceSheetRepository;
         this.surveillanceSheetMapper = surveillanceSheetMapper;
         this.hospitalisationRepository = hospitalisationRepository;
         this.currentHospitalProvider = currentHospitalProvider;
+        this.medicationEntryMapper = medicationEntryMapper;
+        this.actEntryMapper = actEntryMapper;
+        this.validator = validator;
     }
 
     /**
@@ -86,6 +111,7 @@ public class SurveillanceSheetService {
 
         SurveillanceSheet entity = surveillanceSheetMapper.toEntity(dto);
         // Le mapper positionne uniquement l'hospitalisation via l'ID.
+        applyEarlyWarningScore(entity, hosp, null);
 
         log.debug("Saving SurveillanceSheet (hospitalisationId={}, sheetDate={})", dto.getHospitalisationId(), dto.getSheetDate());
 
@@ -98,6 +124,171 @@ public class SurveillanceSheetService {
         return surveillanceSheetMapper.toDto(entity);
     }
 
+    /**
+     * Saisie groupée des fiches du jour (tout un service en une requête).
+     * Les hospitalisations et les couples (hospitalisationId, sheetDate) déjà pris sont chargés en une requête chacun
+     * pour tout le lot ; les fiches valides sont insérées dans la même transaction (batch JDBC), les autres sont
+     * rejetées individuellement avec la même clé d'erreur que la création unitaire.
+     *
+     * @param dtos fiches à créer.
+     * @return un résultat par fiche, dans l'ordre du lot.
+     */
+    public List<SurveillanceSheetBatchResultDTO> saveBatch(List<SurveillanceSheetDTO> dtos) {
+        Objects.requireNonNull(dtos, "dtos must not be null");
+        log.debug("Request to save a batch of {} SurveillanceSheets", dtos.size());
+
+        Set<Long> hospitalisationIds = new HashSet<>();
+        Set<LocalDate> sheetDates = new HashSet<>();
+        for (SurveillanceSheetDTO dto : dtos) {
+            if (dto != null && dto.getHospitalisationId() != null && dto.getSheetDate() != null) {
+                hospitalisationIds.add(dto.getHospitalisationId());
+                sheetDates.add(dto.getSheetDate());
+            }
+        }
+
+        Map<Long, Hospitalisation> hospitalisations = hospitalisationIds.isEmpty()
+            ? Collections.emptyMap()
+            : hospitalisationRepository
+                .findAllWithPatientByIdIn(hospitalisationIds)
+                .stream()
+                .collect(Collectors.toMap(Hospitalisation::getId, Function.identity()));
+        Map<Long, Set<LocalDate>> takenDates = new HashMap<>();
+        if (!hospitalisationIds.isEmpty()) {
+            for (Object[] row : surveillanceSheetRepository.findExistingHospitalisationDates(hospitalisationIds, sheetDates)) {
+                takenDates.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((LocalDate) row[1]);
+            }
+        }
+        Optional<Long> currentHospitalId = currentHospitalProvider.getCurrentHospitalId();
+
+        List<SurveillanceSheetBatchResultDTO> results = new ArrayList<>(dtos.size());
+        Map<SurveillanceSheetBatchResultDTO, SurveillanceSheet> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            SurveillanceSheetDTO dto = dtos.get(i);
+            SurveillanceSheetBatchResultDTO result = dto == null
+                ? new SurveillanceSheetBatchResultDTO(i, null, null)
+                : new SurveillanceSheetBatchResultDTO(i, dto.getHospitalisationId(), dto.getSheetDate());
+            results.add(result);
+
+            if (rejectBatchItem(result, dto, hospitalisations, takenDates, currentHospitalId)) {
+                continue;
+            }
+            SurveillanceSheet entity = surveillanceSheetMapper.toEntity(dto);
+            entity.setHospitalisation(hospitalisations.get(dto.getHospitalisationId()));
+            applyEarlyWarningScore(entity, entity.getHospitalisation(), null);
+            accepted.put(result, entity);
+            // Deux fiches du même lot pour la même hospitalisation et la même date : seule la première est retenue
+            takenDates.computeIfAbsent(dto.getHospitalisationId(), id -> new HashSet<>()).add(dto.getSheetDate());
+        }
+
+        try {
+            surveillanceSheetRepository.saveAll(accepted.values());
+            surveillanceSheetRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // Filet de sécurité : une saisie concurrente a pris un couple entre la vérification et l'insertion
+            throw new IllegalStateException("Contrainte d'unicité violée (hospitalisationId, sheetDate)", e);
+        }
+        accepted.forEach((result, entity) -> result.setId(entity.getId()));
+        return results;
+    }
+
+    private boolean rejectBatchItem(
+        SurveillanceSheetBatchResultDTO result,
+        SurveillanceSheetDTO dto,
+        Map<Long, Hospitalisation> hospitalisations,
+        Map<Long, Set<LocalDate>> takenDates,
+        Optional<Long> currentHospitalId
+    ) {
+        if (dto == null) {
+            return reject(result, "invalid", "Fiche vide");
+        }
+        if (dto.getId() != null) {
+            return reject(result, "idexists", "A new surveillanceSheet cannot already have an ID");
+        }
+        if (dto.getHospitalisationId() == null) {
+            return reject(result, "hospitalisationidnull", "hospitalisationId est obligatoire");
+        }
+        if (dto.getSheetDate() == null) {
+            return reject(result, "sheetdatenull", "sheetDate est obligatoire");
+        }
+        Set<ConstraintViolation<SurveillanceSheetDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<SurveillanceSheetDTO> violation = violations.iterator().next();
+            return reject(result, "invalid", violation.getPropertyPath() + " : " + violation.getMessage());
+        }
+        Hospitalisation hosp = hospitalisations.get(dto.getHospitalisationId());
+        if (hosp == null) {
+            return reject(result, "hospitalisationnotfound", "Hospitalisation introuvable: id=" + dto.getHospitalisationId());
+        }
+        Long hospHospitalId = hosp.getPatient() != null ? hosp.getPatient().getHospitalId() : null;
+        if (currentHospitalId.isPresent() && hospHospitalId != null && !Objects.equals(hospHospitalId, currentHospitalId.get())) {
+            return reject(result, "accessdenied", "Access denied: resource not in your hospital");
+        }
+        if (hosp.getStatus() == HospitalisationStatus.DONE) {
+            return reject(result, "business_rule_violation", "Impossible d'ajouter une fiche: hospitalisation clôturée");
+        }
+        if (takenDates.getOrDefault(dto.getHospitalisationId(), Collections.emptySet()).contains(dto.getSheetDate())) {
+            return reject(result, "duplicate_hosp_date", "Une fiche existe déjà pour cette hospitalisation et cette date");
+        }
+        if (dto.getSystolicBP() != null && dto.getDiastolicBP() != null && dto.getSystolicBP() < dto.getDiastolicBP()) {
+            return reject(
+                result,
+                "business_rule_violation",
+                "La tension systolique (" +
+                dto.getSystolicBP() +
+                " mmHg) ne peut pas être inférieure à la tension diastolique (" +
+                dto.getDiastolicBP() +
+                " mmHg)"
+            );
+        }
+        return false;
+    }
+
+    private static boolean reject(SurveillanceSheetBatchResultDTO result, String errorKey, String message) {
+        result.setErrorKey(errorKey);
+        result.setMessage(message);
+        return true;
+    }
+
+    /**
+     * Recopie les lignes médicaments/actes (pas les paramètres vitaux) de la dernière fiche antérieure à {@code sheetDate}
+     * sur la fiche de ce jour, créée si besoin. La copie est faite en base (INSERT ... SELECT) : les lignes ne transitent
+     * ni par le client ni par le serveur.
+     *
+     * @param hospitalisationId l'hospitalisation.
+     * @param sheetDate le jour de la fiche à compléter.
+     * @return la fiche du jour avec les lignes recopiées.
+     */
+    public SurveillanceSheetDTO copyForward(Long hospitalisationId, LocalDate sheetDate) {
+        Objects.requireNonNull(hospitalisationId, "hospitalisationId must not be null");
+        Objects.requireNonNull(sheetDate, "sheetDate must not be null");
+
+        Hospitalisation hosp = hospitalisationRepository
+            .findById(hospitalisationId)
+            .orElseThrow(() -> new NoSuchElementException("Hospitalisation introuvable: id=" + hospitalisationId));
+        assertSameHospital(hosp.getPatient() != null ? hosp.getPatient().getHospitalId() : null);
+        if (hosp.getStatus() == HospitalisationStatus.DONE) {
+            throw new IllegalStateException("Impossible d'ajouter une fiche: hospitalisation clôturée");
+        }
+
+        SurveillanceSheet source = surveillanceSheetRepository
+            .findFirstByHospitalisationIdAndSheetDateBeforeOrderBySheetDateDesc(hospitalisationId, sheetDate)
+            .orElseThrow(() -> new NoSuchElementException("Aucune fiche antérieure au " + sheetDate + " à recopier"));
+
+        SurveillanceSheet target = surveillanceSheetRepository.findByHospitalisationIdAndSheetDate(hospitalisationId, sheetDate).orElse(null);
+        if (target == null) {
+            target = new SurveillanceSheet();
+            target.setSheetDate(sheetDate);
+            target.setHospitalisation(hosp);
+        } else if (!target.getMedications().isEmpty() || !target.getActs().isEmpty()) {
+            throw new IllegalStateException("La fiche du " + sheetDate + " contient déjà des médicaments ou des actes");
+        }
+        target = surveillanceSheetRepository.saveAndFlush(target);
+
+        int copied = surveillanceSheetRepository.copyLines(source.getId(), target.getId());
+        log.debug("Copied {} lines from SurveillanceSheet id={} to id={}", copied, source.getId(), target.getId());
+        return surveillanceSheetMapper.toDto(target);
+    }
+
     /**
      * Full update.
      * Vérifie conflit d'unicité si hospitalisationId/sheetDate changent.
@@ -148,6 +339,9 @@ public class SurveillanceSheetService {
 
         SurveillanceSheet toSave = surveillanceSheetMapper.toEntity(dto);
         // Important : le DTO ne transporte plus les mini-consultations ni les prescriptions.
+        // Le merge reporte médicaments/actes position par position sur les listes indexées existantes :
+        // seules les lignes ajoutées, modifiées ou retirées sont écrites.
+        applyEarlyWarningScore(toSave, existing.getHospitalisation(), existing.getSheetDate());
 
         log.debug("Updating SurveillanceSheet id={}, hospitalisationId={}, sheetDate={}", dto.getId(), newHospId, newDate);
 
@@ -204,6 +398,8 @@ public class SurveillanceSheetService {
                     );
                 }
 
+                LocalDate previousDate = existing.getSheetDate();
+
                 // Appliquer les champs non-nuls
                 if (dto.getSheetDate() != null) existing.setSheetDate(dto.getSheetDate());
                 if (dto.getTemperature() != null) existing.setTemperature(dto.getTemperature());
@@ -216,6 +412,17 @@ public class SurveillanceSheetService {
                 if (dto.getMedicalObservations() != null) existing.setMedicalObservations(dto.getMedicalObservations());
                 if (dto.getActsPerformed() != null) existing.setActsPerformed(dto.getActsPerformed());
                 if (dto.getAdministeredMedication() != null) existing.setAdministeredMedication(dto.getAdministeredMedication());
+                if (dto.getMedications() != null) {
+                    applyEntries(
+                        existing.getMedications(),
+                        dto.getMedications().stream().map(medicationEntryMapper::toEntity).collect(Collectors.toList())
+                    );
+                }
+                if (dto.getActs() != null) {
+                    applyEntries(existing.getActs(), dto.getActs().stream().map(actEntryMapper::toEntity).collect(Collectors.toList()));
+                }
+
+                applyEarlyWarningScore(existing, existing.getHospitalisation(), previousDate);
 
                 if (dto.getHospitalisationId() != null) {
                     Hospitalisation h = new Hospitalisation();
@@ -278,6 +485,67 @@ public class SurveillanceSheetService {
             .map(surveillanceSheetMapper::toDto);
     }
 
+    /**
+     * Courbes des paramètres vitaux d'une hospitalisation, en colonnes, lues par une projection sur surveillance_sheet
+     * (sans notes ni lignes médicaments/actes).
+     *
+     * @param hospitalisationId l'hospitalisation.
+     * @param maxPoints nombre maximal de points ; au-delà, les fiches consécutives sont regroupées et moyennées. Null : pas de limite.
+     * @return les séries, ou vide si l'hospitalisation n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public Optional<VitalsSeriesDTO> findVitals(Long hospitalisationId, Integer maxPoints) {
+        Objects.requireNonNull(hospitalisationId, "hospitalisationId must not be null");
+        if (maxPoints != null && maxPoints < 1) {
+            throw new IllegalArgumentException("maxPoints doit être supérieur ou égal à 1");
+        }
+        log.debug("Request to get vitals of hospitalisationId={} (maxPoints={})", hospitalisationId, maxPoints);
+
+        Optional<Hospitalisation> hosp = hospitalisationRepository.findById(hospitalisationId);
+        if (hosp.isEmpty()) {
+            return Optional.empty();
+        }
+        assertSameHospital(hosp.get().getPatient() != null ? hosp.get().getPatient().getHospitalId() : null);
+
+        List<Object[]> rows = surveillanceSheetRepository.findVitalsByHospitalisationId(hospitalisationId);
+        int points = maxPoints == null ? rows.size() : Math.min(rows.size(), maxPoints);
+        VitalsSeriesDTO series = new VitalsSeriesDTO(hospitalisationId, points);
+        series.setDownsampled(points < rows.size());
+        for (int i = 0; i < points; i++) {
+            // Chaque point couvre les fiches [from, to) ; une seule fiche par point sans sous-échantillonnage
+            int from = (int) ((long) i * rows.size() / points);
+            int to = (int) ((long) (i + 1) * rows.size() / points);
+            series.getDates()[i] = (LocalDate) rows.get(from)[0];
+            Double temperature = average(rows, from, to, 1);
+            series.getTemperature()[i] = temperature == null ? null : Math.round(temperature * 10) / 10.0;
+            series.getSystolicBP()[i] = roundedAverage(rows, from, to, 2);
+            series.getDiastolicBP()[i] = roundedAverage(rows, from, to, 3);
+            series.getPulseRate()[i] = roundedAverage(rows, from, to, 4);
+            series.getRespirationRate()[i] = roundedAverage(rows, from, to, 5);
+            series.getSpo2()[i] = roundedAverage(rows, from, to, 6);
+        }
+        return Optional.of(series);
+    }
+
+    private static Integer roundedAverage(List<Object[]> rows, int from, int to, int column) {
+        Double average = average(rows, from, to, column);
+        return average == null ? null : (int) Math.round(average);
+    }
+
+    /** Moyenne des valeurs renseignées de la colonne, null si aucune. */
+    private static Double average(List<Object[]> rows, int from, int to, int column) {
+        double sum = 0;
+        int count = 0;
+        for (int k = from; k < to; k++) {
+            Object value = rows.get(k)[column];
+            if (value != null) {
+                sum += ((Number) value).doubleValue();
+                count++;
+            }
+        }
+        return count == 0 ? null : sum / count;
+    }
+
     // ----------- Delete ------------
 
     public void delete(Long id) {
@@ -296,10 +564,72 @@ public class SurveillanceSheetService {
                     throw new AccessDeniedException("Access denied: resource not in your hospital");
                 }
             });
+        // La fiche supprimée portait peut-être le dernier score de l'hospitalisation
+        surveillanceSheetRepository
+            .findById(id)
+            .filter(ss -> ss.getHospitalisation() != null)
+            .filter(ss -> Objects.equals(ss.getSheetDate(), ss.getHospitalisation().getLatestEarlyWarningScoreDate()))
+            .ifPresent(ss -> setLatestEarlyWarningScore(ss.getHospitalisation(), newestOtherScoredSheet(ss.getHospitalisation(), ss)));
         surveillanceSheetRepository.deleteById(id);
         // orphanRemoval=true supprime MiniConsultation; ManyToMany nettoie la table de jointure.
     }
 
+    /**
+     * Calcule le score d'alerte précoce de la fiche et le reporte sur l'hospitalisation lorsqu'il s'agit de la mesure
+     * la plus récente : la vue du service trie ainsi les patients sans relire leurs fiches.
+     * <p>
+     * Si la fiche modifiée portait ce dernier score et ne le porte plus (paramètres effacés, date reculée), il est
+     * repris de la fiche notée la plus récente, ou effacé.
+     *
+     * @param previousDate la date de la fiche avant modification, null pour une création.
+     */
+    private void applyEarlyWarningScore(SurveillanceSheet sheet, Hospitalisation hosp, LocalDate previousDate) {
+        Integer score = EarlyWarningScore.of(sheet);
+        sheet.setEarlyWarningScore(score);
+        if (hosp == null || sheet.getSheetDate() == null) {
+            return;
+        }
+        LocalDate latest = hosp.getLatestEarlyWarningScoreDate();
+        if (score != null && (latest == null || !sheet.getSheetDate().isBefore(latest))) {
+            setLatestEarlyWarningScore(hosp, sheet);
+        } else if (latest != null && latest.equals(previousDate)) {
+            SurveillanceSheet newest = newestOtherScoredSheet(hosp, sheet);
+            if (score != null && (newest == null || sheet.getSheetDate().isAfter(newest.getSheetDate()))) {
+                newest = sheet;
+            }
+            setLatestEarlyWarningScore(hosp, newest);
+        }
+    }
+
+    /** Fiche notée la plus récente de l'hospitalisation, hors la fiche donnée. */
+    private SurveillanceSheet newestOtherScoredSheet(Hospitalisation hosp, SurveillanceSheet sheet) {
+        return surveillanceSheetRepository
+            .findFirstByHospitalisationIdAndIdNotAndEarlyWarningScoreNotNullOrderBySheetDateDesc(hosp.getId(), sheet.getId())
+            .orElse(null);
+    }
+
+    private static void setLatestEarlyWarningScore(Hospitalisation hosp, SurveillanceSheet sheet) {
+        hosp.setLatestEarlyWarningScore(sheet != null ? sheet.getEarlyWarningScore() : null);
+        hosp.setLatestEarlyWarningScoreDate(sheet != null ? sheet.getSheetDate() : null);
+    }
+
+    /**
+     * Reporte les lignes saisies sur la collection gérée, position par position, sans remplacer la liste :
+     * Hibernate n'émet alors qu'un UPDATE par ligne modifiée, un INSERT par ligne ajoutée et un DELETE par ligne retirée.
+     */
+    private static <T> void applyEntries(List<T> target, List<T> source) {
+        for (int i = 0; i < source.size(); i++) {
+            if (i < target.size()) {
+                target.set(i, source.get(i));
+            } else {
+                target.add(source.get(i));
+            }
+        }
+        while (target.size() > source.size()) {
+            target.remove(target.size() - 1);
+        }
+    }
+
     private void assertSameHospital(Long entityHospitalId) {
         currentHospitalProvider
             .getCurrentHospitalId()
@@ -344,5 +344,8 @@ public class UserService {
         if (user.getEmail() != null) {
             Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
         }
+        if (user.getHospitalId() != null) {
+            Objects.requireNonNull(cacheManager.getCache(DoctorService.DOCTORS_BY_HOSPITAL_CACHE)).evict(user.getHospitalId());
+        }
     }
 }
@@ -0,0 +1,119 @@
+package sn.ngirwi.medical.service.document;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fusionne une liste de documents en un seul PDF écrit au fil de l'eau.
+ * <p>
+ * Les rendus s'exécutent sur un pool borné ({@link #THREADS} threads, file de {@link #QUEUE_CAPACITY} tâches ; au-delà
+ * le thread appelant rend lui-même). Chaque impression garde au plus {@link #WINDOW} rendus en cours : les pages d'un
+ * document sont copiées dans la sortie dès qu'il est prêt, dans l'ordre de la demande, et sa mémoire est libérée
+ * aussitôt.
+ */
+@Service
+public class DocumentBatchPrinter {
+
+    static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    static final int WINDOW = THREADS * 2;
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final Logger log = LoggerFactory.getLogger(DocumentBatchPrinter.class);
+
+    private final ThreadPoolExecutor executor;
+
+    public DocumentBatchPrinter() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor =
+            new ThreadPoolExecutor(
+                THREADS,
+                THREADS,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "document-render-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Rend les documents et écrit leurs pages, dans l'ordre, dans un unique PDF.
+     *
+     * @param documents les rendus à effectuer, chacun produisant un PDF complet.
+     * @param out la sortie, laissée ouverte.
+     */
+    public void print(List<Callable<byte[]>> documents, OutputStream out) throws IOException {
+        Document merged = new Document();
+        PdfCopy copy = new PdfCopy(merged, out);
+        copy.setCloseStream(false);
+        merged.open();
+        Deque<Future<byte[]>> pending = new ArrayDeque<>(WINDOW);
+        Iterator<Callable<byte[]>> next = documents.iterator();
+        int pages = 0;
+        try {
+            while (pending.size() < WINDOW && next.hasNext()) {
+                pending.add(executor.submit(next.next()));
+            }
+            while (!pending.isEmpty()) {
+                byte[] pdf = pending.poll().get();
+                if (next.hasNext()) {
+                    pending.add(executor.submit(next.next()));
+                }
+                pages += append(copy, pdf);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch print interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Document rendering failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        merged.close();
+        log.debug("Printed {} documents, {} pages", documents.size(), pages);
+    }
+
+    private static int append(PdfCopy copy, byte[] pdf) throws IOException {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            int pages = reader.getNumberOfPages();
+            for (int page = 1; page <= pages; page++) {
+                copy.addPage(copy.getImportedPage(reader, page));
+            }
+            copy.freeReader(reader);
+            return pages;
+        } finally {
+            reader.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,209 @@
+package sn.ngirwi.medical.service.document;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfGState;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.draw.LineSeparator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import sn.ngirwi.medical.domain.Hospital;
+
+/**
+ * Rendu PDF côté serveur des documents à gabarit (ordonnance, facture, certificat), à côté de
+ * {@link sn.ngirwi.medical.service.PdfGenerator}.
+ * <p>
+ * Les gabarits ({@code templates/pdf/<nom>.txt}) sont compilés une seule fois ; le logo de chaque hôpital et le
+ * filigrane sont décodés une seule fois puis copiés (sans nouveau décodage) dans chaque document. Le logo d'un
+ * hôpital est décodé à nouveau seulement si son contenu change.
+ */
+@Service
+public class DocumentRenderer {
+
+    public static final String PRESCRIPTION = "prescription";
+    public static final String BILL = "bill";
+    public static final String CERTIFICATE = "certificate";
+
+    private static final String TEMPLATE_LOCATION = "/templates/pdf/";
+    private static final String DEFAULT_LOGO = "/static/images/logo.jpg";
+    private static final String WATERMARK = "/static/images/NgirwiLogo.png";
+
+    private static final Font HEADER_FONT = new Font(Font.HELVETICA, 14, Font.BOLD);
+    private static final Font NORMAL_FONT = new Font(Font.HELVETICA, 9);
+    private static final Font SMALL_FONT = new Font(Font.HELVETICA, 8);
+
+    private final Logger log = LoggerFactory.getLogger(DocumentRenderer.class);
+
+    private final Map<String, DocumentTemplate> templates = new ConcurrentHashMap<>();
+
+    private final Map<Long, HospitalLogo> logos = new ConcurrentHashMap<>();
+
+    private volatile Optional<Image> defaultLogo;
+
+    private volatile Optional<Image> watermark;
+
+    /**
+     * Rend un document.
+     *
+     * @param templateName le gabarit, ex. {@link #PRESCRIPTION}.
+     * @param model les valeurs du gabarit.
+     * @param hospital l'hôpital émetteur (en-tête et logo), peut être null.
+     * @return le PDF.
+     */
+    public byte[] render(String templateName, Map<String, ?> model, Hospital hospital) {
+        DocumentTemplate template = template(templateName);
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024)) {
+            Document document = new Document(PageSize.A4, 25, 25, 20, 20);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            document.open();
+            addWatermark(writer);
+            addHeader(document, hospital);
+            document.add(new LineSeparator());
+            template.render(document, model);
+            addFooter(document);
+            document.close();
+            return out.toByteArray();
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("PDF rendering failed for template " + templateName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gabarit compilé, chargé au premier usage.
+     */
+    DocumentTemplate template(String name) {
+        return templates.computeIfAbsent(name, this::load);
+    }
+
+    private DocumentTemplate load(String name) {
+        try (InputStream in = DocumentRenderer.class.getResourceAsStream(TEMPLATE_LOCATION + name + ".txt")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown document template: " + name);
+            }
+            log.debug("Compiling document template {}", name);
+            return DocumentTemplate.compile(name, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read document template " + name, e);
+        }
+    }
+
+    /**
+     * Logo décodé de l'hôpital, réutilisé tant que son contenu ne change pas.
+     */
+    Image logo(Hospital hospital) {
+        if (hospital == null || hospital.getLogo() == null || hospital.getLogo().length == 0) {
+            return null;
+        }
+        byte[] bytes = hospital.getLogo();
+        int checksum = Arrays.hashCode(bytes);
+        Long key = hospital.getId() != null ? hospital.getId() : -1L;
+        HospitalLogo cached = logos.get(key);
+        if (cached == null || cached.checksum != checksum) {
+            cached = new HospitalLogo(checksum, decode(bytes, "logo of hospital " + hospital.getId()));
+            logos.put(key, cached);
+        }
+        return cached.image;
+    }
+
+    private void addHeader(Document document, Hospital hospital) throws DocumentException {
+        Image logo = logo(hospital);
+        if (logo == null) {
+            if (defaultLogo == null) {
+                defaultLogo = Optional.ofNullable(resource(DEFAULT_LOGO));
+            }
+            logo = defaultLogo.orElse(null);
+        }
+        if (logo != null) {
+            Image copy = Image.getInstance(logo);
+            copy.scaleToFit(120, 60);
+            copy.setAlignment(Image.ALIGN_CENTER);
+            copy.setSpacingAfter(8f);
+            document.add(copy);
+        }
+
+        Paragraph info = new Paragraph();
+        info.setAlignment(Element.ALIGN_CENTER);
+        info.add(new Chunk((hospital != null && hospital.getName() != null ? hospital.getName() : "Établissement Médical") + "\n", HEADER_FONT));
+        if (hospital != null && hospital.getPhone() != null) {
+            info.add(new Chunk("Tél : " + hospital.getPhone() + "\n", NORMAL_FONT));
+        }
+        if (hospital != null && hospital.getAdress() != null) {
+            info.add(new Chunk(hospital.getAdress() + "\n", NORMAL_FONT));
+        }
+        document.add(info);
+    }
+
+    private void addWatermark(PdfWriter writer) throws DocumentException {
+        if (watermark == null) {
+            watermark = Optional.ofNullable(resource(WATERMARK));
+        }
+        if (watermark.isEmpty()) {
+            return;
+        }
+        Image image = Image.getInstance(watermark.get());
+        image.scaleAbsolute(PageSize.A4.getWidth(), PageSize.A4.getHeight());
+        image.setAbsolutePosition(0, 0);
+        PdfContentByte under = writer.getDirectContentUnder();
+        PdfGState state = new PdfGState();
+        state.setFillOpacity(0.08f);
+        under.saveState();
+        under.setGState(state);
+        under.addImage(image);
+        under.restoreState();
+    }
+
+    private static void addFooter(Document document) throws DocumentException {
+        Paragraph footer = new Paragraph();
+        footer.setSpacingBefore(20f);
+        footer.setAlignment(Element.ALIGN_CENTER);
+        footer.add(new Chunk("Document généré automatiquement - Propulsé par NGIRWI S.A.R.L\n", SMALL_FONT));
+        footer.add(new Chunk("www.ngirwisarl.com", SMALL_FONT));
+        document.add(footer);
+    }
+
+    private Image resource(String path) {
+        try (InputStream in = DocumentRenderer.class.getResourceAsStream(path)) {
+            return in == null ? null : decode(in.readAllBytes(), path);
+        } catch (IOException e) {
+            log.warn("Could not read {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private Image decode(byte[] bytes, String description) {
+        try {
+            return Image.getInstance(bytes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not decode {}: {}", description, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class HospitalLogo {
+
+        private final int checksum;
+
+        private final Image image;
+
+        HospitalLogo(int checksum, Image image) {
+            this.checksum = checksum;
+            this.image = image;
+        }
+    }
+}
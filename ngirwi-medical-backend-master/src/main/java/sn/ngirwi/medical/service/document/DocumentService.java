@@ -0,0 +1,419 @@
+package sn.ngirwi.medical.service.document;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.BillElement;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Hospital;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.Medecine;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.domain.SurveillanceSheet;
+import sn.ngirwi.medical.domain.User;
+import sn.ngirwi.medical.repository.BillRepository;
+import sn.ngirwi.medical.repository.ConsultationRepository;
+import sn.ngirwi.medical.repository.HospitalRepository;
+import sn.ngirwi.medical.repository.HospitalisationRepository;
+import sn.ngirwi.medical.repository.PrescriptionRepository;
+import sn.ngirwi.medical.repository.UserRepository;
+import sn.ngirwi.medical.service.BillTotals;
+import sn.ngirwi.medical.service.CurrentHospitalProvider;
+import sn.ngirwi.medical.service.HospitalisationService;
+import sn.ngirwi.medical.service.PdfGenerator;
+import sn.ngirwi.medical.service.dto.DocumentReferenceDTO;
+import sn.ngirwi.medical.service.dto.HospitalisationResumeDTO;
+
+/**
+ * Construit le modèle des documents imprimables (ordonnance, facture, certificat) et les rend en PDF via
+ * {@link DocumentRenderer}. Les lectures sont limitées à l'hôpital courant, comme les {@code findOne} des services.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DocumentService {
+
+    public static final int MAX_REST_DAYS = 365;
+
+    public static final int MAX_BATCH_SIZE = 200;
+
+    private static final ZoneId ZONE = ZoneId.of("Africa/Dakar");
+
+    private final Logger log = LoggerFactory.getLogger(DocumentService.class);
+
+    private final DocumentRenderer documentRenderer;
+
+    private final PrescriptionRepository prescriptionRepository;
+
+    private final BillRepository billRepository;
+
+    private final ConsultationRepository consultationRepository;
+
+    private final HospitalRepository hospitalRepository;
+
+    private final UserRepository userRepository;
+
+    private final HospitalisationRepository hospitalisationRepository;
+
+    private final HospitalisationService hospitalisationService;
+
+    private final CurrentHospitalProvider currentHospitalProvider;
+
+    public DocumentService(
+        DocumentRenderer documentRenderer,
+        PrescriptionRepository prescriptionRepository,
+        BillRepository billRepository,
+        ConsultationRepository consultationRepository,
+        HospitalRepository hospitalRepository,
+        UserRepository userRepository,
+        HospitalisationRepository hospitalisationRepository,
+        HospitalisationService hospitalisationService,
+        CurrentHospitalProvider currentHospitalProvider
+    ) {
+        this.documentRenderer = documentRenderer;
+        this.prescriptionRepository = prescriptionRepository;
+        this.billRepository = billRepository;
+        this.consultationRepository = consultationRepository;
+        this.hospitalRepository = hospitalRepository;
+        this.userRepository = userRepository;
+        this.hospitalisationRepository = hospitalisationRepository;
+        this.hospitalisationService = hospitalisationService;
+        this.currentHospitalProvider = currentHospitalProvider;
+    }
+
+    /**
+     * PDF de l'ordonnance {@code id}, vide si elle n'existe pas dans l'hôpital courant.
+     */
+    public Optional<byte[]> prescriptionPdf(Long id) {
+        log.debug("Request to render Prescription PDF : {}", id);
+        return currentHospitalProvider
+            .getCurrentHospitalId()
+            .map(hid -> prescriptionRepository.findByIdAndConsultation_Patient_HospitalId(id, hid))
+            .orElseGet(() -> prescriptionRepository.findById(id))
+            .map(this::renderPrescription);
+    }
+
+    /**
+     * PDF de la facture {@code id}, vide si elle n'existe pas dans l'hôpital courant.
+     */
+    public Optional<byte[]> billPdf(Long id) {
+        log.debug("Request to render Bill PDF : {}", id);
+        return currentHospitalProvider
+            .getCurrentHospitalId()
+            .map(hid -> billRepository.findByIdAndPatient_HospitalId(id, hid))
+            .orElseGet(() -> billRepository.findById(id))
+            .map(this::renderBill);
+    }
+
+    /**
+     * PDF du certificat médical de la consultation {@code consultationId}, vide si elle n'existe pas dans
+     * l'hôpital courant.
+     *
+     * @param restDays jours de repos prescrits, 0 ou null pour un certificat sans arrêt.
+     * @param startDate premier jour de repos, par défaut le jour de la consultation.
+     * @param comment mention libre, peut être null.
+     * @throws IllegalArgumentException si {@code restDays} est hors de [0, {@link #MAX_REST_DAYS}].
+     */
+    public Optional<byte[]> certificatePdf(Long consultationId, Integer restDays, LocalDate startDate, String comment) {
+        log.debug("Request to render certificate PDF for Consultation : {}", consultationId);
+        if (restDays != null && (restDays < 0 || restDays > MAX_REST_DAYS)) {
+            throw new IllegalArgumentException("restDays must be between 0 and " + MAX_REST_DAYS);
+        }
+        return currentHospitalProvider
+            .getCurrentHospitalId()
+            .map(hid -> consultationRepository.findByIdAndPatient_HospitalId(consultationId, hid))
+            .orElseGet(() -> consultationRepository.findById(consultationId))
+            .map(consultation -> renderCertificate(consultation, restDays, startDate, comment));
+    }
+
+    /**
+     * Charge les documents d'une impression groupée, avec une requête IN par type plus une pour les hôpitaux, et
+     * prépare leur rendu dans l'ordre de la demande. Les rendus n'accèdent plus à la base : ils peuvent s'exécuter
+     * hors transaction, sur un autre thread (cf. {@link DocumentBatchPrinter}).
+     *
+     * @throws IllegalArgumentException si la liste est vide ou dépasse {@link #MAX_BATCH_SIZE} documents, ou si un
+     *     document n'existe pas dans l'hôpital courant.
+     */
+    public List<Callable<byte[]>> prepareBatch(List<DocumentReferenceDTO> references) {
+        log.debug("Request to prepare a batch print of {} documents", references == null ? 0 : references.size());
+        if (references == null || references.isEmpty() || references.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BATCH_SIZE + " documents can be printed at once");
+        }
+        Map<DocumentReferenceDTO.Type, Set<Long>> ids = new EnumMap<>(DocumentReferenceDTO.Type.class);
+        for (DocumentReferenceDTO reference : references) {
+            if (reference == null || reference.getType() == null || reference.getId() == null) {
+                throw new IllegalArgumentException("Each document needs a type and an id");
+            }
+            ids.computeIfAbsent(reference.getType(), type -> new HashSet<>()).add(reference.getId());
+        }
+
+        Optional<Long> hospitalId = currentHospitalProvider.getCurrentHospitalId();
+        Map<Long, Bill> bills = visible(
+            load(ids, DocumentReferenceDTO.Type.BILL, billRepository::findAllWithElementsByIdIn),
+            Bill::getId,
+            Bill::getPatient,
+            hospitalId
+        );
+        Map<Long, Prescription> prescriptions = visible(
+            load(ids, DocumentReferenceDTO.Type.PRESCRIPTION, prescriptionRepository::findAllWithMedecinesByIdIn),
+            Prescription::getId,
+            DocumentService::patient,
+            hospitalId
+        );
+        Map<Long, Hospitalisation> hospitalisations = visible(
+            load(ids, DocumentReferenceDTO.Type.HOSPITALISATION, hospitalisationRepository::findAllWithPatientByIdIn),
+            Hospitalisation::getId,
+            Hospitalisation::getPatient,
+            hospitalId
+        );
+
+        Set<Long> hospitalIds = new HashSet<>();
+        bills.values().forEach(bill -> addHospitalId(hospitalIds, bill.getPatient()));
+        prescriptions.values().forEach(prescription -> addHospitalId(hospitalIds, patient(prescription)));
+        hospitalisations.values().forEach(h -> addHospitalId(hospitalIds, h.getPatient()));
+        Map<Long, Hospital> hospitals = new HashMap<>();
+        if (!hospitalIds.isEmpty()) {
+            hospitalRepository.findAllById(hospitalIds).forEach(hospital -> hospitals.put(hospital.getId(), hospital));
+        }
+
+        List<Callable<byte[]>> documents = new ArrayList<>(references.size());
+        for (DocumentReferenceDTO reference : references) {
+            switch (reference.getType()) {
+                case BILL:
+                    {
+                        Bill bill = required(bills, reference);
+                        Map<String, Object> model = billModel(bill);
+                        Hospital hospital = hospitalOf(hospitals, bill.getPatient());
+                        documents.add(() -> documentRenderer.render(DocumentRenderer.BILL, model, hospital));
+                        break;
+                    }
+                case PRESCRIPTION:
+                    {
+                        Prescription prescription = required(prescriptions, reference);
+                        Map<String, Object> model = prescriptionModel(prescription);
+                        Hospital hospital = hospitalOf(hospitals, patient(prescription));
+                        documents.add(() -> documentRenderer.render(DocumentRenderer.PRESCRIPTION, model, hospital));
+                        break;
+                    }
+                case HOSPITALISATION:
+                    {
+                        Hospitalisation h = required(hospitalisations, reference);
+                        // Résumé de facturation seulement pour une hospitalisation terminée, comme le PDF unitaire
+                        HospitalisationResumeDTO resume = h.getReleaseDate() != null ? hospitalisationService.calculateResume(h.getId()) : null;
+                        initializeSheets(h);
+                        Hospital hospital = hospitalOf(hospitals, h.getPatient());
+                        documents.add(() -> PdfGenerator.generate(h, hospital, resume));
+                        break;
+                    }
+                default:
+                    throw new IllegalArgumentException("Unsupported document type " + reference.getType());
+            }
+        }
+        return documents;
+    }
+
+    private static <T> List<T> load(
+        Map<DocumentReferenceDTO.Type, Set<Long>> ids,
+        DocumentReferenceDTO.Type type,
+        Function<Collection<Long>, List<T>> query
+    ) {
+        Set<Long> typeIds = ids.get(type);
+        return typeIds == null ? List.of() : query.apply(typeIds);
+    }
+
+    /**
+     * Index par id des entités lisibles dans l'hôpital courant (toutes pour un administrateur).
+     */
+    private static <T> Map<Long, T> visible(
+        List<T> entities,
+        Function<T, Long> id,
+        Function<T, Patient> patient,
+        Optional<Long> hospitalId
+    ) {
+        Map<Long, T> visible = new HashMap<>();
+        for (T entity : entities) {
+            Patient p = patient.apply(entity);
+            if (hospitalId.isEmpty() || (p != null && hospitalId.get().equals(p.getHospitalId()))) {
+                visible.put(id.apply(entity), entity);
+            }
+        }
+        return visible;
+    }
+
+    private static <T> T required(Map<Long, T> entities, DocumentReferenceDTO reference) {
+        T entity = entities.get(reference.getId());
+        if (entity == null) {
+            throw new IllegalArgumentException("Document not found: " + reference.getType() + " " + reference.getId());
+        }
+        return entity;
+    }
+
+    private static void addHospitalId(Set<Long> hospitalIds, Patient patient) {
+        if (patient != null && patient.getHospitalId() != null) {
+            hospitalIds.add(patient.getHospitalId());
+        }
+    }
+
+    private static Hospital hospitalOf(Map<Long, Hospital> hospitals, Patient patient) {
+        return patient == null || patient.getHospitalId() == null ? null : hospitals.get(patient.getHospitalId());
+    }
+
+    /**
+     * Charge les fiches de surveillance lues par {@link PdfGenerator}, pour un rendu hors session.
+     */
+    private static void initializeSheets(Hospitalisation h) {
+        Hibernate.initialize(h.getSurveillanceSheets());
+        for (SurveillanceSheet sheet : h.getSurveillanceSheets()) {
+            Hibernate.initialize(sheet.getMedications());
+            Hibernate.initialize(sheet.getActs());
+        }
+    }
+
+    private byte[] renderPrescription(Prescription prescription) {
+        return documentRenderer.render(DocumentRenderer.PRESCRIPTION, prescriptionModel(prescription), hospital(patient(prescription)));
+    }
+
+    private byte[] renderBill(Bill bill) {
+        return documentRenderer.render(DocumentRenderer.BILL, billModel(bill), hospital(bill.getPatient()));
+    }
+
+    private static Map<String, Object> prescriptionModel(Prescription prescription) {
+        Map<String, Object> model = patientModel(patient(prescription));
+        model.put("prescription.id", prescription.getId());
+        model.put("prescription.date", prescription.getCreationDate());
+        model.put("prescription.author", prescription.getAuthor());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<Medecine> medecines = new ArrayList<>(prescription.getMedecines());
+        medecines.sort(Comparator.comparing(Medecine::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (Medecine medecine : medecines) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", medecine.getName());
+            row.put("duration", medecine.getDuration());
+            row.put("frequency", medecine.getFrequency());
+            rows.add(row);
+        }
+        model.put("medecines", rows);
+        return model;
+    }
+
+    private static Map<String, Object> billModel(Bill bill) {
+        NumberFormat amounts = amountFormat();
+        Map<String, Object> model = patientModel(bill.getPatient());
+        model.put("bill.id", bill.getId());
+        model.put("bill.date", bill.getDate());
+        model.put("bill.author", bill.getAuthor());
+        model.put("bill.insurance", bill.getInsurance());
+        model.put("bill.ipm", bill.getIpm());
+        model.put("bill.desc", bill.getDesc());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<BillElement> elements = new ArrayList<>(bill.getBillElements());
+        elements.sort(Comparator.comparing(BillElement::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (BillElement element : elements) {
+            long price = element.getPrice() == null ? 0L : element.getPrice();
+            int quantity = element.getQuantity() == null ? 0 : element.getQuantity();
+            int discountBp = element.getDiscountBp() == null ? 0 : element.getDiscountBp();
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", element.getName());
+            row.put("quantity", quantity);
+            row.put("price", fcfa(amounts, price));
+            row.put("discount", discountBp == 0 ? null : BigDecimal.valueOf(discountBp, 2).stripTrailingZeros().toPlainString().replace('.', ',') + " %");
+            row.put("amount", fcfa(amounts, BillTotals.net(price, quantity, discountBp)));
+            rows.add(row);
+        }
+        model.put("lines", rows);
+        model.put("bill.total", fcfa(amounts, BillTotals.total(bill.getBillElements())));
+        return model;
+    }
+
+    private byte[] renderCertificate(Consultation consultation, Integer restDays, LocalDate startDate, String comment) {
+        Patient patient = consultation.getPatient();
+        Map<String, Object> model = patientModel(patient);
+        LocalDate consultationDay = consultation.getDateTime() != null
+            ? LocalDate.ofInstant(consultation.getDateTime(), ZONE)
+            : LocalDate.now(ZONE);
+        model.put("consultation.date", consultationDay);
+        model.put("doctor", doctorName(consultation.getAuthor()));
+        if (restDays != null && restDays > 0) {
+            LocalDate start = startDate != null ? startDate : consultationDay;
+            model.put("certificate.restDays", restDays);
+            model.put("certificate.startDate", start);
+            model.put("certificate.endDate", start.plusDays(restDays - 1L));
+        }
+        model.put("certificate.comment", comment);
+        model.put("certificate.date", LocalDate.now(ZONE));
+        return documentRenderer.render(DocumentRenderer.CERTIFICATE, model, hospital(patient));
+    }
+
+    private static Patient patient(Prescription prescription) {
+        return prescription.getConsultation() != null ? prescription.getConsultation().getPatient() : null;
+    }
+
+    private static Map<String, Object> patientModel(Patient patient) {
+        Map<String, Object> model = new HashMap<>();
+        if (patient != null) {
+            model.put("patient.firstName", patient.getFirstName());
+            model.put("patient.lastName", patient.getLastName());
+            model.put("patient.birthday", patient.getBirthday());
+            model.put("patient.phone", patient.getPhone());
+        }
+        return model;
+    }
+
+    private Hospital hospital(Patient patient) {
+        if (patient == null || patient.getHospitalId() == null) {
+            return null;
+        }
+        return hospitalRepository.findById(patient.getHospitalId()).orElse(null);
+    }
+
+    private String doctorName(String login) {
+        if (login == null) {
+            return null;
+        }
+        return userRepository
+            .findOneByLogin(login)
+            .filter(user -> user.getLastName() != null)
+            .map(DocumentService::fullName)
+            .orElse(login);
+    }
+
+    private static String fullName(User user) {
+        return user.getFirstName() != null ? user.getFirstName() + " " + user.getLastName() : user.getLastName();
+    }
+
+    /**
+     * Montants à la française avec une espace simple comme séparateur de milliers : l'espace fine insécable de
+     * {@link Locale#FRANCE} n'existe pas dans les polices standard des PDF.
+     */
+    private static NumberFormat amountFormat() {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.FRANCE);
+        symbols.setGroupingSeparator(' ');
+        return new DecimalFormat("#,##0", symbols);
+    }
+
+    private static String fcfa(NumberFormat amounts, long amount) {
+        return amounts.format(amount) + " FCFA";
+    }
+}
@@ -0,0 +1,374 @@
+package sn.ngirwi.medical.service.document;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.draw.LineSeparator;
+import java.awt.Color;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gabarit de document compilé une fois puis rendu autant de fois que nécessaire.
+ * <p>
+ * Le source est un texte d'une directive par ligne ({@code #} pour un commentaire) :
+ * <pre>
+ * title ORDONNANCE
+ * section PATIENT
+ * field Nom : | ${patient.lastName}
+ * paragraph Texte libre avec ${variables}
+ * table medecines | Médicament:50:${name} | Durée:25:${duration} | Prix:25:&gt;${price}
+ * total Total : | ${bill.total}
+ * signature Signature du médecin
+ * rule
+ * space
+ * </pre>
+ * Une ligne préfixée par {@code ?clé } n'est rendue que si la valeur de la clé n'est pas vide. Les colonnes dont
+ * l'expression commence par {@code >} sont alignées à droite. Les variables {@code ${...}} sont lues dans le modèle
+ * (clés à plat, ex. {@code patient.lastName}) ou, dans un tableau, dans la ligne courante ; une valeur absente
+ * s'affiche {@code -}.
+ */
+public final class DocumentTemplate {
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm").withZone(ZoneId.of("Africa/Dakar"));
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Font TITLE_FONT = new Font(Font.HELVETICA, 14, Font.BOLD);
+    private static final Font SECTION_FONT = new Font(Font.HELVETICA, 11, Font.BOLD);
+    private static final Font NORMAL_FONT = new Font(Font.HELVETICA, 9);
+    private static final Font HEADER_CELL_FONT = new Font(Font.HELVETICA, 9, Font.BOLD);
+    private static final Font CELL_FONT = new Font(Font.HELVETICA, 8);
+    private static final Font TOTAL_FONT = new Font(Font.HELVETICA, 12, Font.BOLD);
+
+    private static final Color HEADER_BACKGROUND = new Color(220, 220, 220);
+
+    private final String name;
+
+    private final List<Block> blocks;
+
+    private DocumentTemplate(String name, List<Block> blocks) {
+        this.name = name;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Analyse le source d'un gabarit.
+     *
+     * @throws IllegalArgumentException si une directive est inconnue ou mal formée.
+     */
+    public static DocumentTemplate compile(String name, String source) {
+        List<Block> blocks = new ArrayList<>();
+        String[] lines = source.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                blocks.add(block(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Template " + name + ", line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return new DocumentTemplate(name, blocks);
+    }
+
+    /**
+     * Ajoute le corps du document (sans en-tête ni pied de page) pour le modèle donné.
+     */
+    public void render(Document document, Map<String, ?> model) throws DocumentException {
+        for (Block block : blocks) {
+            if (block.condition == null || !isEmpty(model.get(block.condition))) {
+                block.render(document, model);
+            }
+        }
+    }
+
+    private static Block block(String line) {
+        String condition = null;
+        if (line.startsWith("?")) {
+            int end = line.indexOf(' ');
+            if (end < 0) {
+                throw new IllegalArgumentException("missing directive after condition");
+            }
+            condition = line.substring(1, end);
+            line = line.substring(end + 1).strip();
+        }
+        int space = line.indexOf(' ');
+        String directive = space < 0 ? line : line.substring(0, space);
+        String args = space < 0 ? "" : line.substring(space + 1).strip();
+        Block block;
+        switch (directive) {
+            case "title":
+                block = new TextBlock(Text.compile(args), TITLE_FONT, Element.ALIGN_CENTER, 10f);
+                break;
+            case "section":
+                block = new TextBlock(Text.compile(args), SECTION_FONT, Element.ALIGN_LEFT, 4f);
+                break;
+            case "paragraph":
+                block = new TextBlock(Text.compile(args), NORMAL_FONT, Element.ALIGN_JUSTIFIED, 6f);
+                break;
+            case "signature":
+                block = new TextBlock(Text.compile(args), NORMAL_FONT, Element.ALIGN_RIGHT, 30f);
+                break;
+            case "field":
+            case "total":
+                String[] parts = split(args, 2, directive);
+                block = new FieldBlock(Text.compile(parts[0]), Text.compile(parts[1]), "total".equals(directive));
+                break;
+            case "table":
+                block = table(args);
+                break;
+            case "rule":
+                block = new RuleBlock();
+                break;
+            case "space":
+                block = new TextBlock(Text.compile(" "), NORMAL_FONT, Element.ALIGN_LEFT, 0f);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown directive '" + directive + "'");
+        }
+        block.condition = condition;
+        return block;
+    }
+
+    private static TableBlock table(String args) {
+        String[] parts = args.split("\\s*\\|\\s*");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("table needs a list key and at least one column");
+        }
+        List<Column> columns = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            String[] spec = parts[i].split(":", 3);
+            if (spec.length != 3) {
+                throw new IllegalArgumentException("column must be Header:width:expression, was '" + parts[i] + "'");
+            }
+            boolean right = spec[2].startsWith(">");
+            columns.add(new Column(spec[0], Float.parseFloat(spec[1]), Text.compile(right ? spec[2].substring(1) : spec[2]), right));
+        }
+        return new TableBlock(parts[0], columns);
+    }
+
+    private static String[] split(String args, int count, String directive) {
+        String[] parts = args.split("\\s*\\|\\s*", count);
+        if (parts.length != count) {
+            throw new IllegalArgumentException(directive + " needs " + count + " parts separated by '|'");
+        }
+        return parts;
+    }
+
+    private static boolean isEmpty(Object value) {
+        return (
+            value == null ||
+            (value instanceof String && ((String) value).isBlank()) ||
+            (value instanceof Collection && ((Collection<?>) value).isEmpty())
+        );
+    }
+
+    static String format(Object value) {
+        if (isEmpty(value)) {
+            return "-";
+        }
+        if (value instanceof Instant) {
+            return DATE_TIME_FORMAT.format((Instant) value);
+        }
+        if (value instanceof LocalDate) {
+            return DATE_FORMAT.format((LocalDate) value);
+        }
+        return value.toString();
+    }
+
+    /** Texte avec variables, découpé une fois en morceaux littéraux et clés. */
+    static final class Text {
+
+        private final String[] literals;
+
+        private final String[] keys;
+
+        private Text(String[] literals, String[] keys) {
+            this.literals = literals;
+            this.keys = keys;
+        }
+
+        static Text compile(String source) {
+            List<String> literals = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            int from = 0;
+            int start;
+            while ((start = source.indexOf("${", from)) >= 0) {
+                int end = source.indexOf('}', start);
+                if (end < 0) {
+                    throw new IllegalArgumentException("unclosed variable in '" + source + "'");
+                }
+                literals.add(source.substring(from, start));
+                keys.add(source.substring(start + 2, end).strip());
+                from = end + 1;
+            }
+            literals.add(source.substring(from));
+            return new Text(literals.toArray(new String[0]), keys.toArray(new String[0]));
+        }
+
+        String render(Map<String, ?> values) {
+            if (keys.length == 0) {
+                return literals[0];
+            }
+            StringBuilder text = new StringBuilder(literals[0]);
+            for (int i = 0; i < keys.length; i++) {
+                text.append(format(values.get(keys[i]))).append(literals[i + 1]);
+            }
+            return text.toString();
+        }
+    }
+
+    private abstract static class Block {
+
+        String condition;
+
+        abstract void render(Document document, Map<String, ?> model) throws DocumentException;
+    }
+
+    private static final class TextBlock extends Block {
+
+        private final Text text;
+        private final Font font;
+        private final int alignment;
+        private final float spacingBefore;
+
+        TextBlock(Text text, Font font, int alignment, float spacingBefore) {
+            this.text = text;
+            this.font = font;
+            this.alignment = alignment;
+            this.spacingBefore = spacingBefore;
+        }
+
+        @Override
+        void render(Document document, Map<String, ?> model) throws DocumentException {
+            Paragraph paragraph = new Paragraph(text.render(model), font);
+            paragraph.setAlignment(alignment);
+            paragraph.setSpacingBefore(spacingBefore);
+            paragraph.setSpacingAfter(4f);
+            document.add(paragraph);
+        }
+    }
+
+    private static final class FieldBlock extends Block {
+
+        private final Text label;
+        private final Text value;
+        private final boolean total;
+
+        FieldBlock(Text label, Text value, boolean total) {
+            this.label = label;
+            this.value = value;
+            this.total = total;
+        }
+
+        @Override
+        void render(Document document, Map<String, ?> model) throws DocumentException {
+            Paragraph paragraph = new Paragraph();
+            paragraph.add(new Chunk(label.render(model) + " ", total ? SECTION_FONT : NORMAL_FONT));
+            paragraph.add(new Chunk(value.render(model), total ? TOTAL_FONT : NORMAL_FONT));
+            if (total) {
+                paragraph.setSpacingBefore(10f);
+            }
+            document.add(paragraph);
+        }
+    }
+
+    private static final class RuleBlock extends Block {
+
+        @Override
+        void render(Document document, Map<String, ?> model) throws DocumentException {
+            document.add(new LineSeparator());
+        }
+    }
+
+    private static final class Column {
+
+        private final String header;
+        private final float width;
+        private final Text value;
+        private final boolean right;
+
+        Column(String header, float width, Text value, boolean right) {
+            this.header = header;
+            this.width = width;
+            this.value = value;
+            this.right = right;
+        }
+    }
+
+    private static final class TableBlock extends Block {
+
+        private final String rowsKey;
+        private final List<Column> columns;
+        private final float[] widths;
+
+        TableBlock(String rowsKey, List<Column> columns) {
+            this.rowsKey = rowsKey;
+            this.columns = columns;
+            this.widths = new float[columns.size()];
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = columns.get(i).width;
+            }
+        }
+
+        @Override
+        void render(Document document, Map<String, ?> model) throws DocumentException {
+            PdfPTable table = new PdfPTable(widths.length);
+            table.setWidthPercentage(100);
+            table.setWidths(widths);
+            table.setSpacingBefore(5);
+            table.setSpacingAfter(10);
+            table.setHeaderRows(1);
+            for (Column column : columns) {
+                PdfPCell cell = new PdfPCell(new Phrase(column.header, HEADER_CELL_FONT));
+                cell.setBackgroundColor(HEADER_BACKGROUND);
+                cell.setPadding(5);
+                table.addCell(cell);
+            }
+            Object rows = model.get(rowsKey);
+            if (isEmpty(rows)) {
+                PdfPCell empty = new PdfPCell(new Phrase("Aucune ligne", CELL_FONT));
+                empty.setColspan(widths.length);
+                empty.setHorizontalAlignment(Element.ALIGN_CENTER);
+                empty.setPadding(8);
+                table.addCell(empty);
+            } else {
+                for (Object row : (Collection<?>) rows) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, ?> values = (Map<String, ?>) row;
+                    for (Column column : columns) {
+                        PdfPCell cell = new PdfPCell(new Phrase(column.value.render(values), CELL_FONT));
+                        cell.setPadding(4);
+                        cell.setBorder(Rectangle.BOX);
+                        if (column.right) {
+                            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+                        }
+                        table.addCell(cell);
+                    }
+                }
+            }
+            document.add(table);
+        }
+    }
+}
@@ -28,6 +28,8 @@ public class BillDTO implements Serializable {
 
     private BigDecimal total;
 
+    private Long hospitalisationId;
+
     private PatientDTO patient;
 
     private Set<BillElementDTO> billElements;
@@ -88,6 +90,14 @@ public class BillDTO implements Serializable {
         this.total = total;
     }
 
+    public Long getHospitalisationId() {
+        return hospitalisationId;
+    }
+
+    public void setHospitalisationId(Long hospitalisationId) {
+        this.hospitalisationId = hospitalisationId;
+    }
+
     public PatientDTO getPatient() {
         return patient;
     }
@@ -147,6 +157,8 @@ public class BillDTO implements Serializable {
             '\'' +
             ", total=" +
             total +
+            ", hospitalisationId=" +
+            hospitalisationId +
             ", patient=" +
             patient +
             ", elements=" +
@@ -13,8 +13,14 @@ public class BillElementDTO implements Serializable {
 
     private String name;
 
-    private Double price;
-
+    /**
+     * Prix unitaire en FCFA.
+     */
+    private Long price;
+
+    /**
+     * Remise en pourcentage (stockée en points de base).
+     */
     private Double percentage;
 
     private Integer quantity;
@@ -37,11 +43,11 @@ public class BillElementDTO implements Serializable {
         this.name = name;
     }
 
-    public Double getPrice() {
+    public Long getPrice() {
         return price;
     }
 
-    public void setPrice(Double price) {
+    public void setPrice(Long price) {
         this.price = price;
     }
 
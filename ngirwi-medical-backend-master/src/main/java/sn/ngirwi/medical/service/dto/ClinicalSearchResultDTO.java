@@ -0,0 +1,153 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One hit of the clinical full-text search: a consultation or hospitalisation whose clinical text matches the
+ * query, with its patient and a highlighted excerpt.
+ */
+public class ClinicalSearchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        CONSULTATION,
+        HOSPITALISATION,
+    }
+
+    private Type type;
+
+    private Long id;
+
+    private Long patientId;
+
+    private String patientFirstName;
+
+    private String patientLastName;
+
+    /** Consultation date or hospitalisation entry date. */
+    private Instant date;
+
+    /** HTML-escaped excerpt of the matching text, the matched words wrapped in {@code <mark>}. */
+    private String headline;
+
+    /** Relevance, higher is better; only comparable between hits of the same search. */
+    private double rank;
+
+    public ClinicalSearchResultDTO() {}
+
+    public ClinicalSearchResultDTO(
+        Type type,
+        Long id,
+        Long patientId,
+        String patientFirstName,
+        String patientLastName,
+        Instant date,
+        String headline,
+        double rank
+    ) {
+        this.type = type;
+        this.id = id;
+        this.patientId = patientId;
+        this.patientFirstName = patientFirstName;
+        this.patientLastName = patientLastName;
+        this.date = date;
+        this.headline = headline;
+        this.rank = rank;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public String getPatientFirstName() {
+        return patientFirstName;
+    }
+
+    public void setPatientFirstName(String patientFirstName) {
+        this.patientFirstName = patientFirstName;
+    }
+
+    public String getPatientLastName() {
+        return patientLastName;
+    }
+
+    public void setPatientLastName(String patientLastName) {
+        this.patientLastName = patientLastName;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public void setDate(Instant date) {
+        this.date = date;
+    }
+
+    public String getHeadline() {
+        return headline;
+    }
+
+    public void setHeadline(String headline) {
+        this.headline = headline;
+    }
+
+    public double getRank() {
+        return rank;
+    }
+
+    public void setRank(double rank) {
+        this.rank = rank;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClinicalSearchResultDTO)) {
+            return false;
+        }
+        ClinicalSearchResultDTO other = (ClinicalSearchResultDTO) o;
+        return type == other.type && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ClinicalSearchResultDTO{" +
+            "type=" + getType() +
+            ", id=" + getId() +
+            ", patientId=" + getPatientId() +
+            ", date='" + getDate() + "'" +
+            ", rank=" + getRank() +
+            "}";
+    }
+}
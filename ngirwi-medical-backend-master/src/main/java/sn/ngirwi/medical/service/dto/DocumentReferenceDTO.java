@@ -0,0 +1,71 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A document to include in a batch print: its type and the id of the underlying entity.
+ */
+public class DocumentReferenceDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        BILL,
+        PRESCRIPTION,
+        HOSPITALISATION,
+    }
+
+    private Type type;
+
+    private Long id;
+
+    public DocumentReferenceDTO() {}
+
+    public DocumentReferenceDTO(Type type, Long id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DocumentReferenceDTO)) {
+            return false;
+        }
+        DocumentReferenceDTO other = (DocumentReferenceDTO) o;
+        return type == other.type && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DocumentReferenceDTO{" +
+            "type=" + getType() +
+            ", id=" + getId() +
+            "}";
+    }
+}
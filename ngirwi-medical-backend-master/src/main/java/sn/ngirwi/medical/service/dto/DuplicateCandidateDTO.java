@@ -0,0 +1,174 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An existing patient that probably is the same person as another patient, with the score (0 to 100) and the
+ * criteria that matched ({@code LAST_NAME}, {@code FIRST_NAME}, {@code BIRTHDAY}, {@code PHONE}, {@code CNI}).
+ */
+public class DuplicateCandidateDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The patient checked; null when checking a patient before its creation. */
+    private Long patientId;
+
+    private String patientFirstName;
+
+    private String patientLastName;
+
+    private Long candidateId;
+
+    private String candidateFirstName;
+
+    private String candidateLastName;
+
+    private LocalDate candidateBirthday;
+
+    private String candidatePhone;
+
+    private int score;
+
+    private List<String> reasons = new ArrayList<>();
+
+    public DuplicateCandidateDTO() {}
+
+    public DuplicateCandidateDTO(
+        Long patientId,
+        String patientFirstName,
+        String patientLastName,
+        Long candidateId,
+        String candidateFirstName,
+        String candidateLastName,
+        LocalDate candidateBirthday,
+        String candidatePhone,
+        Integer score,
+        String reasons
+    ) {
+        this.patientId = patientId;
+        this.patientFirstName = patientFirstName;
+        this.patientLastName = patientLastName;
+        this.candidateId = candidateId;
+        this.candidateFirstName = candidateFirstName;
+        this.candidateLastName = candidateLastName;
+        this.candidateBirthday = candidateBirthday;
+        this.candidatePhone = candidatePhone;
+        this.score = score;
+        if (reasons != null && !reasons.isEmpty()) {
+            this.reasons = new ArrayList<>(Arrays.asList(reasons.split(",")));
+        }
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public String getPatientFirstName() {
+        return patientFirstName;
+    }
+
+    public void setPatientFirstName(String patientFirstName) {
+        this.patientFirstName = patientFirstName;
+    }
+
+    public String getPatientLastName() {
+        return patientLastName;
+    }
+
+    public void setPatientLastName(String patientLastName) {
+        this.patientLastName = patientLastName;
+    }
+
+    public Long getCandidateId() {
+        return candidateId;
+    }
+
+    public void setCandidateId(Long candidateId) {
+        this.candidateId = candidateId;
+    }
+
+    public String getCandidateFirstName() {
+        return candidateFirstName;
+    }
+
+    public void setCandidateFirstName(String candidateFirstName) {
+        this.candidateFirstName = candidateFirstName;
+    }
+
+    public String getCandidateLastName() {
+        return candidateLastName;
+    }
+
+    public void setCandidateLastName(String candidateLastName) {
+        this.candidateLastName = candidateLastName;
+    }
+
+    public LocalDate getCandidateBirthday() {
+        return candidateBirthday;
+    }
+
+    public void setCandidateBirthday(LocalDate candidateBirthday) {
+        this.candidateBirthday = candidateBirthday;
+    }
+
+    public String getCandidatePhone() {
+        return candidatePhone;
+    }
+
+    public void setCandidatePhone(String candidatePhone) {
+        this.candidatePhone = candidatePhone;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public List<String> getReasons() {
+        return reasons;
+    }
+
+    public void setReasons(List<String> reasons) {
+        this.reasons = reasons;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DuplicateCandidateDTO)) {
+            return false;
+        }
+        DuplicateCandidateDTO other = (DuplicateCandidateDTO) o;
+        return Objects.equals(patientId, other.patientId) && Objects.equals(candidateId, other.candidateId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(patientId, candidateId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DuplicateCandidateDTO{" +
+            "patientId=" + getPatientId() +
+            ", candidateId=" + getCandidateId() +
+            ", score=" + getScore() +
+            ", reasons=" + getReasons() +
+            "}";
+    }
+}
@@ -1,7 +1,9 @@
 package sn.ngirwi.medical.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Set;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
@@ -53,6 +55,12 @@ public class HospitalisationDTO implements Serializable {
 
     private java.math.BigDecimal totalAmount; // read-only pour l'UI
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer latestEarlyWarningScore; // calculé à l'enregistrement des fiches
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate latestEarlyWarningScoreDate;
+
     public HospitalisationDTO() {}
 
     // =========================
@@ -195,6 +203,22 @@ public class HospitalisationDTO implements Serializable {
         this.totalAmount = totalAmount;
     }
 
+    public Integer getLatestEarlyWarningScore() {
+        return latestEarlyWarningScore;
+    }
+
+    public void setLatestEarlyWarningScore(Integer latestEarlyWarningScore) {
+        this.latestEarlyWarningScore = latestEarlyWarningScore;
+    }
+
+    public LocalDate getLatestEarlyWarningScoreDate() {
+        return latestEarlyWarningScoreDate;
+    }
+
+    public void setLatestEarlyWarningScoreDate(LocalDate latestEarlyWarningScoreDate) {
+        this.latestEarlyWarningScoreDate = latestEarlyWarningScoreDate;
+    }
+
     @Override
     public String toString() {
         return (
@@ -0,0 +1,131 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a CSV patient import: the counts and the rejected rows, by line of the file (the first
+ * {@code errors} only when there are many).
+ */
+public class PatientImportReportDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Data rows read, header excluded. */
+    private long received;
+
+    private long created;
+
+    private long updated;
+
+    private long rejected;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PatientImportReportDTO{" +
+            "received=" + getReceived() +
+            ", created=" + getCreated() +
+            ", updated=" + getUpdated() +
+            ", rejected=" + getRejected() +
+            "}";
+    }
+
+    /**
+     * A rejected row.
+     */
+    public static class RowError implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long line;
+
+        private String cni;
+
+        private String message;
+
+        public RowError() {}
+
+        public RowError(long line, String cni, String message) {
+            this.line = line;
+            this.cni = cni;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getCni() {
+            return cni;
+        }
+
+        public void setCni(String cni) {
+            this.cni = cni;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "RowError{" +
+                "line=" + getLine() +
+                ", message='" + getMessage() + "'" +
+                "}";
+        }
+    }
+}
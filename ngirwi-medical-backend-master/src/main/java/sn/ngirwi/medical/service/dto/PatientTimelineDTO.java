@@ -0,0 +1,49 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of a patient timeline, most recent first, and the cursor of the next page (null on the last page).
+ */
+public class PatientTimelineDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<TimelineEventDTO> events = new ArrayList<>();
+
+    private String nextCursor;
+
+    public PatientTimelineDTO() {}
+
+    public PatientTimelineDTO(List<TimelineEventDTO> events, String nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TimelineEventDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<TimelineEventDTO> events) {
+        this.events = events;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PatientTimelineDTO{" +
+            "events=" + getEvents().size() +
+            ", nextCursor='" + getNextCursor() + "'" +
+            "}";
+    }
+}
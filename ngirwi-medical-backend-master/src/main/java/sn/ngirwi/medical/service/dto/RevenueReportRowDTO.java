@@ -0,0 +1,56 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * One line of the revenue report: the group key (day, month, source, service or insurer), the amount in FCFA
+ * and the number of bills or hospitalisations it covers.
+ */
+public class RevenueReportRowDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Group key, null when the bills or hospitalisations have no value for the grouped field. */
+    private String key;
+
+    private long amount;
+
+    private long count;
+
+    public RevenueReportRowDTO() {}
+
+    public RevenueReportRowDTO(String key, long amount, long count) {
+        this.key = key;
+        this.amount = amount;
+        this.count = count;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "RevenueReportRowDTO{" + "key='" + key + "'" + ", amount=" + amount + ", count=" + count + "}";
+    }
+}
@@ -0,0 +1,106 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Outcome of one sheet of a batch entry: the created sheet id, or the reason it was rejected.
+ */
+public class SurveillanceSheetBatchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Position of the sheet in the submitted batch. */
+    private int index;
+
+    private Long hospitalisationId;
+
+    private LocalDate sheetDate;
+
+    /** Id of the created sheet, null when rejected. */
+    private Long id;
+
+    /** Error key (same keys as the single-sheet endpoint), null when created. */
+    private String errorKey;
+
+    private String message;
+
+    public SurveillanceSheetBatchResultDTO() {}
+
+    public SurveillanceSheetBatchResultDTO(int index, Long hospitalisationId, LocalDate sheetDate) {
+        this.index = index;
+        this.hospitalisationId = hospitalisationId;
+        this.sheetDate = sheetDate;
+    }
+
+    public boolean isCreated() {
+        return id != null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getHospitalisationId() {
+        return hospitalisationId;
+    }
+
+    public void setHospitalisationId(Long hospitalisationId) {
+        this.hospitalisationId = hospitalisationId;
+    }
+
+    public LocalDate getSheetDate() {
+        return sheetDate;
+    }
+
+    public void setSheetDate(LocalDate sheetDate) {
+        this.sheetDate = sheetDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getErrorKey() {
+        return errorKey;
+    }
+
+    public void setErrorKey(String errorKey) {
+        this.errorKey = errorKey;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "SurveillanceSheetBatchResultDTO{" +
+            "index=" +
+            index +
+            ", hospitalisationId=" +
+            hospitalisationId +
+            ", sheetDate=" +
+            sheetDate +
+            ", id=" +
+            id +
+            ", errorKey='" +
+            errorKey +
+            "'" +
+            "}"
+        );
+    }
+}
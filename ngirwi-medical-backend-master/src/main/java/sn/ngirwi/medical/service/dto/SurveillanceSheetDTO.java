@@ -51,6 +51,9 @@ public class SurveillanceSheetDTO implements Serializable {
 
     private String administeredMedication;
 
+    // Score d'alerte précoce (NEWS2), calculé côté backend — read-only
+    private Integer earlyWarningScore;
+
     @NotNull
     private Long hospitalisationId;
 
@@ -159,6 +162,14 @@ public class SurveillanceSheetDTO implements Serializable {
         this.administeredMedication = administeredMedication;
     }
 
+    public Integer getEarlyWarningScore() {
+        return earlyWarningScore;
+    }
+
+    public void setEarlyWarningScore(Integer earlyWarningScore) {
+        this.earlyWarningScore = earlyWarningScore;
+    }
+
     public Long getHospitalisationId() {
         return hospitalisationId;
     }
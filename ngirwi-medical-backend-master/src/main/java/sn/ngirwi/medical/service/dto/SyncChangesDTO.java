@@ -0,0 +1,128 @@
+package sn.ngirwi.medical.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of the changes of a hospital since a watermark: the created or updated records, the ids of the deleted ones
+ * by type ({@code PATIENT}, {@code CONSULTATION}, {@code PRESCRIPTION}, {@code BILL}, {@code HOSPITALISATION}), and
+ * the watermark to send for the next call. Empty lists are left out of the JSON.
+ * <p>
+ * {@code full} is set when the changes start from the beginning (no watermark, or one of a client that has not been up
+ * to date for longer than the retention of the deletions): the client must then drop the records it does not receive.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class SyncChangesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String watermark;
+
+    private boolean hasMore;
+
+    private boolean full;
+
+    private List<PatientDTO> patients = new ArrayList<>();
+
+    private List<ConsultationDTO> consultations = new ArrayList<>();
+
+    private List<PrescriptionDTO> prescriptions = new ArrayList<>();
+
+    private List<BillDTO> bills = new ArrayList<>();
+
+    private List<HospitalisationDTO> hospitalisations = new ArrayList<>();
+
+    private Map<String, List<Long>> deleted = new LinkedHashMap<>();
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<PatientDTO> getPatients() {
+        return patients;
+    }
+
+    public void setPatients(List<PatientDTO> patients) {
+        this.patients = patients;
+    }
+
+    public List<ConsultationDTO> getConsultations() {
+        return consultations;
+    }
+
+    public void setConsultations(List<ConsultationDTO> consultations) {
+        this.consultations = consultations;
+    }
+
+    public List<PrescriptionDTO> getPrescriptions() {
+        return prescriptions;
+    }
+
+    public void setPrescriptions(List<PrescriptionDTO> prescriptions) {
+        this.prescriptions = prescriptions;
+    }
+
+    public List<BillDTO> getBills() {
+        return bills;
+    }
+
+    public void setBills(List<BillDTO> bills) {
+        this.bills = bills;
+    }
+
+    public List<HospitalisationDTO> getHospitalisations() {
+        return hospitalisations;
+    }
+
+    public void setHospitalisations(List<HospitalisationDTO> hospitalisations) {
+        this.hospitalisations = hospitalisations;
+    }
+
+    public Map<String, List<Long>> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Map<String, List<Long>> deleted) {
+        this.deleted = deleted;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncChangesDTO{" +
+            "watermark='" + getWatermark() + "'" +
+            ", hasMore=" + isHasMore() +
+            ", full=" + isFull() +
+            ", patients=" + getPatients().size() +
+            ", consultations=" + getConsultations().size() +
+            ", prescriptions=" + getPrescriptions().size() +
+            ", bills=" + getBills().size() +
+            ", hospitalisations=" + getHospitalisations().size() +
+            ", deleted=" + getDeleted() +
+            "}";
+    }
+}
@@ -0,0 +1,126 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One entry of a patient timeline: a consultation, prescription, bill or hospitalisation, with just enough to
+ * display it and open the full record by its id.
+ */
+public class TimelineEventDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        BILL,
+        CONSULTATION,
+        HOSPITALISATION,
+        PRESCRIPTION,
+    }
+
+    private Type type;
+
+    private Long id;
+
+    /** Consultation, prescription or bill date, or hospitalisation entry date; null when not recorded. */
+    private Instant date;
+
+    /** Hypothesis of a consultation, description of a bill, admission reason (or service) of a hospitalisation. */
+    private String summary;
+
+    private String author;
+
+    /** Total of a bill or of a closed hospitalisation. */
+    private BigDecimal amount;
+
+    public TimelineEventDTO() {}
+
+    public TimelineEventDTO(Type type, Long id, Instant date, String summary, String author, BigDecimal amount) {
+        this.type = type;
+        this.id = id;
+        this.date = date;
+        this.summary = summary;
+        this.author = author;
+        this.amount = amount;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public void setDate(Instant date) {
+        this.date = date;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TimelineEventDTO)) {
+            return false;
+        }
+        TimelineEventDTO other = (TimelineEventDTO) o;
+        return type == other.type && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TimelineEventDTO{" +
+            "type=" + getType() +
+            ", id=" + getId() +
+            ", date='" + getDate() + "'" +
+            ", summary='" + getSummary() + "'" +
+            ", author='" + getAuthor() + "'" +
+            ", amount=" + getAmount() +
+            "}";
+    }
+}
@@ -0,0 +1,136 @@
+package sn.ngirwi.medical.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Vitals of a hospitalisation as parallel arrays, one entry per surveillance sheet (or per bucket of sheets when
+ * downsampled), ordered by date. A null entry means the value was not recorded.
+ */
+public class VitalsSeriesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long hospitalisationId;
+
+    /** True when several sheets were averaged into each point. */
+    private boolean downsampled;
+
+    private LocalDate[] dates;
+
+    private Double[] temperature;
+
+    private Integer[] systolicBP;
+
+    private Integer[] diastolicBP;
+
+    private Integer[] pulseRate;
+
+    private Integer[] respirationRate;
+
+    private Integer[] spo2;
+
+    public VitalsSeriesDTO() {}
+
+    public VitalsSeriesDTO(Long hospitalisationId, int size) {
+        this.hospitalisationId = hospitalisationId;
+        this.dates = new LocalDate[size];
+        this.temperature = new Double[size];
+        this.systolicBP = new Integer[size];
+        this.diastolicBP = new Integer[size];
+        this.pulseRate = new Integer[size];
+        this.respirationRate = new Integer[size];
+        this.spo2 = new Integer[size];
+    }
+
+    public int size() {
+        return dates == null ? 0 : dates.length;
+    }
+
+    public Long getHospitalisationId() {
+        return hospitalisationId;
+    }
+
+    public void setHospitalisationId(Long hospitalisationId) {
+        this.hospitalisationId = hospitalisationId;
+    }
+
+    public boolean isDownsampled() {
+        return downsampled;
+    }
+
+    public void setDownsampled(boolean downsampled) {
+        this.downsampled = downsampled;
+    }
+
+    public LocalDate[] getDates() {
+        return dates;
+    }
+
+    public void setDates(LocalDate[] dates) {
+        this.dates = dates;
+    }
+
+    public Double[] getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(Double[] temperature) {
+        this.temperature = temperature;
+    }
+
+    public Integer[] getSystolicBP() {
+        return systolicBP;
+    }
+
+    public void setSystolicBP(Integer[] systolicBP) {
+        this.systolicBP = systolicBP;
+    }
+
+    public Integer[] getDiastolicBP() {
+        return diastolicBP;
+    }
+
+    public void setDiastolicBP(Integer[] diastolicBP) {
+        this.diastolicBP = diastolicBP;
+    }
+
+    public Integer[] getPulseRate() {
+        return pulseRate;
+    }
+
+    public void setPulseRate(Integer[] pulseRate) {
+        this.pulseRate = pulseRate;
+    }
+
+    public Integer[] getRespirationRate() {
+        return respirationRate;
+    }
+
+    public void setRespirationRate(Integer[] respirationRate) {
+        this.respirationRate = respirationRate;
+    }
+
+    public Integer[] getSpo2() {
+        return spo2;
+    }
+
+    public void setSpo2(Integer[] spo2) {
+        this.spo2 = spo2;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "VitalsSeriesDTO{" +
+            "hospitalisationId=" +
+            hospitalisationId +
+            ", downsampled=" +
+            downsampled +
+            ", dates=" +
+            Arrays.toString(dates) +
+            "}"
+        );
+    }
+}
@@ -0,0 +1,482 @@
+package sn.ngirwi.medical.service.duplicate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.PatientDuplicateCandidate;
+import sn.ngirwi.medical.domain.enumeration.GENDER;
+import sn.ngirwi.medical.repository.PatientDuplicateCandidateRepository;
+import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.service.CurrentHospitalProvider;
+import sn.ngirwi.medical.service.dto.DuplicateCandidateDTO;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+
+/**
+ * Détection des patients enregistrés plusieurs fois (NIN absent ou mal saisi, orthographe du nom différente).
+ * <p>
+ * Un patient n'est comparé qu'aux patients du même hôpital qui partagent une de ses clés de blocage
+ * ({@link PatientBlockingKeys} : nom phonétique, date de naissance, fin du téléphone), lues par index ; chaque paire
+ * reçoit ensuite un score de 0 à 100. Le rapport nocturne procède de même, bloc par bloc, sans jamais comparer toute
+ * la table à elle-même.
+ */
+@Service
+@Transactional
+public class DuplicatePatientService {
+
+    /** Score à partir duquel une paire est signalée. */
+    public static final int MIN_SCORE = 70;
+
+    static final int MAX_CANDIDATES = 10;
+
+    /** Patients lus au plus pour une vérification (noms très courants), les homonymes phonétiques d'abord. */
+    static final int MAX_BLOCK_READ = 500;
+
+    /**
+     * Au-delà, un bloc du rapport est redécoupé par année de naissance (nom très courant) ou ignoré (date de naissance
+     * ou téléphone de remplissage).
+     */
+    static final int MAX_BLOCK_SIZE = 500;
+
+    static final int BACKFILL_BATCH = 500;
+
+    private static final double NAME_SIMILARITY = 0.9;
+
+    /** Similarité en dessous de laquelle deux noms sans rapport ne rapportent aucun point. */
+    private static final double NAME_FLOOR = 0.7;
+
+    private final Logger log = LoggerFactory.getLogger(DuplicatePatientService.class);
+
+    private final PatientRepository patientRepository;
+
+    private final PatientDuplicateCandidateRepository patientDuplicateCandidateRepository;
+
+    private final CurrentHospitalProvider currentHospitalProvider;
+
+    public DuplicatePatientService(
+        PatientRepository patientRepository,
+        PatientDuplicateCandidateRepository patientDuplicateCandidateRepository,
+        CurrentHospitalProvider currentHospitalProvider
+    ) {
+        this.patientRepository = patientRepository;
+        this.patientDuplicateCandidateRepository = patientDuplicateCandidateRepository;
+        this.currentHospitalProvider = currentHospitalProvider;
+    }
+
+    /**
+     * Patients existants de l'hôpital de l'utilisateur qui sont probablement la même personne que {@code patient}
+     * (vide pour un admin sans hôpital).
+     */
+    @Transactional(readOnly = true)
+    public List<DuplicateCandidateDTO> findCandidates(PatientDTO patient) {
+        return currentHospitalProvider.getCurrentHospitalId().map(hospitalId -> findCandidates(patient, hospitalId)).orElseGet(List::of);
+    }
+
+    /**
+     * Patients existants de l'hôpital qui sont probablement la même personne que {@code patient}, le meilleur score
+     * d'abord (au plus {@link #MAX_CANDIDATES}).
+     */
+    @Transactional(readOnly = true)
+    public List<DuplicateCandidateDTO> findCandidates(PatientDTO patient, Long hospitalId) {
+        log.debug("Request to find duplicate candidates of Patient : {}", patient);
+        Person person = new Person(
+            patient.getId(),
+            patient.getFirstName(),
+            patient.getLastName(),
+            patient.getBirthday(),
+            patient.getGender(),
+            patient.getPhone(),
+            patient.getCni(),
+            PatientBlockingKeys.nameKey(patient.getLastName()),
+            PatientBlockingKeys.phoneKey(patient.getPhone())
+        );
+        List<Object[]> rows = patientRepository.findInBlocks(
+            hospitalId,
+            person.nameKey,
+            person.birthday,
+            person.phoneKey,
+            PageRequest.of(0, MAX_BLOCK_READ)
+        );
+        List<DuplicateCandidateDTO> candidates = new ArrayList<>();
+        for (Object[] row : rows) {
+            Person other = Person.of(row);
+            if (other.id.equals(person.id)) {
+                continue;
+            }
+            Match match = match(person, other);
+            if (match.score >= MIN_SCORE) {
+                candidates.add(
+                    new DuplicateCandidateDTO(
+                        person.id,
+                        person.firstName,
+                        person.lastName,
+                        other.id,
+                        other.firstName,
+                        other.lastName,
+                        other.birthday,
+                        other.phone,
+                        match.score,
+                        match.reasons
+                    )
+                );
+            }
+        }
+        candidates.sort(Comparator.comparingInt(DuplicateCandidateDTO::getScore).reversed());
+        return candidates.size() > MAX_CANDIDATES ? new ArrayList<>(candidates.subList(0, MAX_CANDIDATES)) : candidates;
+    }
+
+    /**
+     * Dernier rapport de doublons de l'hôpital de l'utilisateur (tous les hôpitaux pour un admin), le meilleur
+     * score d'abord.
+     */
+    @Transactional(readOnly = true)
+    public Page<DuplicateCandidateDTO> report(Pageable pageable) {
+        Long hospitalId = currentHospitalProvider.getCurrentHospitalId().orElse(null);
+        return patientDuplicateCandidateRepository
+            .findReport(hospitalId, pageable)
+            .map(row ->
+                new DuplicateCandidateDTO(
+                    (Long) row[0],
+                    (String) row[1],
+                    (String) row[2],
+                    (Long) row[3],
+                    (String) row[4],
+                    (String) row[5],
+                    (LocalDate) row[6],
+                    (String) row[7],
+                    (Integer) row[8],
+                    (String) row[9]
+                )
+            );
+    }
+
+    /**
+     * Rapport nocturne : complète les clés des patients enregistrés avant leur introduction, puis recalcule les
+     * paires de chaque hôpital.
+     * <p>
+     * This is scheduled to get fired everyday, at 02:00 (am).
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void nightlyReport() {
+        int keyed = backfillBlockingKeys();
+        int pairs = 0;
+        for (Long hospitalId : patientRepository.findHospitalIds()) {
+            pairs += refreshReport(hospitalId);
+        }
+        log.info("Duplicate patient report computed, {} patients keyed, {} pairs", keyed, pairs);
+    }
+
+    /**
+     * Au démarrage, calcule les clés des patients enregistrés avant leur introduction : la vérification à la création
+     * les trouve sans attendre le premier rapport nocturne.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillBlockingKeysOnStartup() {
+        int keyed = backfillBlockingKeys();
+        log.info("Duplicate patient blocking keys computed for {} patients", keyed);
+    }
+
+    /**
+     * Calcule les clés de blocage des patients qui n'en ont pas, par lots de {@link #BACKFILL_BATCH}.
+     *
+     * @return le nombre de patients traités.
+     */
+    public int backfillBlockingKeys() {
+        int count = 0;
+        Long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = patientRepository.findWithoutBlockingKeys(afterId, PageRequest.of(0, BACKFILL_BATCH));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                patientRepository.updateBlockingKeys(
+                    afterId,
+                    PatientBlockingKeys.nameKey((String) row[1]),
+                    PatientBlockingKeys.phoneKey((String) row[2])
+                );
+                count++;
+            }
+        } while (rows.size() == BACKFILL_BATCH);
+        return count;
+    }
+
+    /**
+     * Remplace le rapport d'un hôpital : les patients ne sont comparés qu'à l'intérieur de leurs blocs.
+     *
+     * @return le nombre de paires signalées.
+     */
+    public int refreshReport(Long hospitalId) {
+        patientDuplicateCandidateRepository.deleteByHospitalId(hospitalId);
+        List<Person> patients = patientRepository
+            .findMatchFieldsByHospitalId(hospitalId)
+            .stream()
+            .map(Person::of)
+            .collect(Collectors.toList());
+        Map<String, PatientDuplicateCandidate> pairs = new LinkedHashMap<>();
+        Instant now = Instant.now();
+
+        for (List<Person> block : blocks(patients, p -> p.nameKey).values()) {
+            if (block.size() > MAX_BLOCK_SIZE) {
+                // nom très courant : les homonymes ne sont comparés qu'à année de naissance égale
+                blocks(block, p -> p.birthday == null ? null : p.birthday.getYear()).values().forEach(b -> compare(b, hospitalId, now, pairs));
+            } else {
+                compare(block, hospitalId, now, pairs);
+            }
+        }
+        for (List<Person> block : blocks(patients, p -> p.birthday).values()) {
+            compare(block, hospitalId, now, pairs);
+        }
+        for (List<Person> block : blocks(patients, p -> p.phoneKey).values()) {
+            compare(block, hospitalId, now, pairs);
+        }
+        patientDuplicateCandidateRepository.saveAll(pairs.values());
+        log.debug("Duplicate patient report of hospital {} : {} patients, {} pairs", hospitalId, patients.size(), pairs.size());
+        return pairs.size();
+    }
+
+    private static <K> Map<K, List<Person>> blocks(List<Person> patients, Function<Person, K> key) {
+        Map<K, List<Person>> blocks = new HashMap<>();
+        for (Person patient : patients) {
+            K value = key.apply(patient);
+            if (value != null) {
+                blocks.computeIfAbsent(value, k -> new ArrayList<>()).add(patient);
+            }
+        }
+        return blocks;
+    }
+
+    private void compare(List<Person> block, Long hospitalId, Instant now, Map<String, PatientDuplicateCandidate> pairs) {
+        if (block.size() > MAX_BLOCK_SIZE) {
+            log.warn("Duplicate patient block of {} patients skipped in hospital {}", block.size(), hospitalId);
+            return;
+        }
+        for (int i = 0; i < block.size(); i++) {
+            for (int j = i + 1; j < block.size(); j++) {
+                Person a = block.get(i);
+                Person b = block.get(j);
+                Person newer = a.id > b.id ? a : b;
+                Person older = newer == a ? b : a;
+                String pair = newer.id + ":" + older.id;
+                if (pairs.containsKey(pair)) {
+                    continue;
+                }
+                Match match = match(newer, older);
+                if (match.score >= MIN_SCORE) {
+                    pairs.put(pair, new PatientDuplicateCandidate(hospitalId, newer.id, older.id, match.score, match.reasons, now));
+                }
+            }
+        }
+    }
+
+    static Match match(Person a, Person b) {
+        double last = jaroWinkler(a.normalizedLastName, b.normalizedLastName);
+        if (a.nameKey != null && a.nameKey.equals(b.nameKey)) {
+            // même nom phonétique : Ndiaye et Njaay sont loin en caractères
+            last = Math.max(last, NAME_SIMILARITY);
+        }
+        double first = jaroWinkler(a.normalizedFirstName, b.normalizedFirstName);
+        double points = 30 * nameWeight(last) + 25 * nameWeight(first);
+        List<String> reasons = new ArrayList<>();
+        if (last >= NAME_SIMILARITY) {
+            reasons.add("LAST_NAME");
+        }
+        if (first >= NAME_SIMILARITY) {
+            reasons.add("FIRST_NAME");
+        }
+        if (a.birthday != null && a.birthday.equals(b.birthday)) {
+            points += 25;
+            reasons.add("BIRTHDAY");
+        } else if (closeBirthdays(a.birthday, b.birthday)) {
+            points += 10;
+        }
+        if (a.phoneKey != null && a.phoneKey.equals(b.phoneKey)) {
+            points += 15;
+            reasons.add("PHONE");
+        }
+        if (oneTypo(a.cni, b.cni)) {
+            points += 15;
+            reasons.add("CNI");
+        }
+        if (a.gender != null && b.gender != null && a.gender != b.gender) {
+            points -= 15;
+        }
+        return new Match((int) Math.round(Math.max(0, Math.min(100, points))), String.join(",", reasons));
+    }
+
+    private static double nameWeight(double similarity) {
+        return Math.max(0, (similarity - NAME_FLOOR) / (1 - NAME_FLOOR));
+    }
+
+    /**
+     * Même date à une saisie près : un seul des jour, mois et année diffère, ou jour et mois inversés.
+     */
+    static boolean closeBirthdays(LocalDate a, LocalDate b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        int differences =
+            (a.getYear() != b.getYear() ? 1 : 0) + (a.getMonthValue() != b.getMonthValue() ? 1 : 0) + (a.getDayOfMonth() != b.getDayOfMonth() ? 1 : 0);
+        boolean swapped = a.getYear() == b.getYear() && a.getMonthValue() == b.getDayOfMonth() && a.getDayOfMonth() == b.getMonthValue();
+        return differences == 1 || swapped;
+    }
+
+    /**
+     * Deux NIN qui ne diffèrent que d'un chiffre ou de deux chiffres voisins inversés.
+     */
+    static boolean oneTypo(String a, String b) {
+        if (a == null || b == null || a.length() != b.length() || a.equals(b)) {
+            return false;
+        }
+        int first = -1;
+        int differences = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                if (first < 0) {
+                    first = i;
+                }
+                differences++;
+            }
+        }
+        if (differences == 1) {
+            return true;
+        }
+        return (
+            differences == 2 &&
+            first + 1 < a.length() &&
+            a.charAt(first) == b.charAt(first + 1) &&
+            a.charAt(first + 1) == b.charAt(first)
+        );
+    }
+
+    /**
+     * Similarité de Jaro-Winkler, de 0 (rien en commun) à 1 (identiques).
+     */
+    static double jaroWinkler(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a.equals(b) ? 1d : 0d;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] matchedA = new boolean[a.length()];
+        boolean[] matchedB = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0d;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (matchedA[i]) {
+                while (!matchedB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2d) / m) / 3d;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    static final class Match {
+
+        final int score;
+
+        final String reasons;
+
+        Match(int score, String reasons) {
+            this.score = score;
+            this.reasons = reasons;
+        }
+    }
+
+    /**
+     * Les champs comparés d'un patient, noms déjà normalisés.
+     */
+    static final class Person {
+
+        final Long id;
+        final String firstName;
+        final String lastName;
+        final String normalizedFirstName;
+        final String normalizedLastName;
+        final LocalDate birthday;
+        final GENDER gender;
+        final String phone;
+        final String cni;
+        final String nameKey;
+        final String phoneKey;
+
+        Person(
+            Long id,
+            String firstName,
+            String lastName,
+            LocalDate birthday,
+            GENDER gender,
+            String phone,
+            String cni,
+            String nameKey,
+            String phoneKey
+        ) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.normalizedFirstName = PatientBlockingKeys.normalizeName(firstName);
+            this.normalizedLastName = PatientBlockingKeys.normalizeName(lastName);
+            this.birthday = birthday;
+            this.gender = gender;
+            this.phone = phone;
+            this.cni = cni == null ? null : cni.replaceAll("\\s+", "");
+            this.nameKey = nameKey;
+            this.phoneKey = phoneKey;
+        }
+
+        /** D'une ligne de {@link PatientRepository#MATCH_FIELDS}. */
+        static Person of(Object[] row) {
+            return new Person(
+                (Long) row[0],
+                (String) row[1],
+                (String) row[2],
+                (LocalDate) row[3],
+                (GENDER) row[4],
+                (String) row[5],
+                (String) row[6],
+                (String) row[7],
+                (String) row[8]
+            );
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package sn.ngirwi.medical.service.duplicate;
+
+import java.util.Locale;
+import org.apache.commons.lang3.StringUtils;
+import sn.ngirwi.medical.domain.Patient;
+
+/**
+ * Clés de blocage des patients : seuls les patients d'un même hôpital qui partagent le nom phonétique, la date de
+ * naissance ou la fin du numéro de téléphone sont comparés entre eux.
+ * <p>
+ * Le code phonétique est volontairement grossier (orthographes françaises et wolof des noms courants : Ndiaye, Ndiay
+ * et Njaay ou Gueye et Gaye donnent la même clé) ; la comparaison fine est faite par {@link DuplicatePatientService}.
+ */
+public final class PatientBlockingKeys {
+
+    /** Nombre de chiffres gardés à la fin du téléphone : tolère l'indicatif +221 et une erreur sur l'opérateur. */
+    static final int PHONE_KEY_DIGITS = 7;
+
+    static final int NAME_KEY_LENGTH = 32;
+
+    private static final String[][] REWRITES = {
+        { "SCH", "S" },
+        { "CH", "S" },
+        { "SH", "S" },
+        { "PH", "F" },
+        { "TH", "T" },
+        { "DJ", "J" },
+        { "GN", "N" },
+        { "QU", "K" },
+        { "CK", "K" },
+        { "Q", "K" },
+        { "X", "KS" },
+        { "Z", "S" },
+        { "W", "U" },
+        { "Y", "I" },
+    };
+
+    private PatientBlockingKeys() {}
+
+    /**
+     * Recalcule les clés d'un patient avant son enregistrement.
+     */
+    public static void apply(Patient patient) {
+        patient.setNameKey(nameKey(patient.getLastName()));
+        patient.setPhoneKey(phoneKey(patient.getPhone()));
+    }
+
+    /**
+     * Nom en majuscules sans accents ni séparateurs.
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        return StringUtils.stripAccents(name).toUpperCase(Locale.ROOT).replaceAll("[^A-Z]", "");
+    }
+
+    /**
+     * Code phonétique du nom : la première lettre puis les consonnes prononcées, sans lettre doublée.
+     *
+     * @return le code, ou {@code null} si le nom ne contient aucune lettre.
+     */
+    public static String nameKey(String lastName) {
+        String name = normalizeName(lastName);
+        if (name.isEmpty()) {
+            return null;
+        }
+        // Di/Gu devant une voyelle : Ndiaye/Njaay, Gueye/Geye
+        name = name.replaceAll("DI(?=[AEIOUY])", "J").replaceAll("GU(?=[EIY])", "G");
+        for (String[] rewrite : REWRITES) {
+            name = name.replace(rewrite[0], rewrite[1]);
+        }
+        name = name.replaceAll("C(?=[EI])", "S").replace('C', 'K');
+        StringBuilder key = new StringBuilder().append(name.charAt(0));
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != key.charAt(key.length() - 1) && "AEIOUH".indexOf(c) < 0) {
+                key.append(c);
+            }
+        }
+        // s, t ou x final muet : Dubois et Duboi
+        if (key.length() > 1 && "STX".indexOf(key.charAt(key.length() - 1)) >= 0) {
+            key.setLength(key.length() - 1);
+        }
+        return key.length() > NAME_KEY_LENGTH ? key.substring(0, NAME_KEY_LENGTH) : key.toString();
+    }
+
+    /**
+     * Les {@link #PHONE_KEY_DIGITS} derniers chiffres du téléphone.
+     *
+     * @return la clé, ou {@code null} si le numéro est trop court ou n'est qu'une répétition du même chiffre.
+     */
+    public static String phoneKey(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("\\D", "");
+        if (digits.length() < PHONE_KEY_DIGITS) {
+            return null;
+        }
+        String key = digits.substring(digits.length() - PHONE_KEY_DIGITS);
+        return key.chars().distinct().count() == 1 ? null : key;
+    }
+}
@@ -0,0 +1,120 @@
+package sn.ngirwi.medical.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture au fil de l'eau d'un CSV (RFC 4180 : champs entre guillemets pouvant contenir le séparateur, des guillemets
+ * doublés et des sauts de ligne). Le séparateur est la virgule, ou le point-virgule des tableurs en français s'il
+ * apparaît seul dans la ligne d'en-tête ; un BOM UTF-8 en tête de fichier est ignoré.
+ */
+public final class CsvRecordReader {
+
+    private static final int HEADER_LIMIT = 8192;
+
+    private final BufferedReader in;
+
+    private char separator = ',';
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private boolean first = true;
+
+    public CsvRecordReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input; blank lines are skipped.
+     * @throws IllegalArgumentException if a quoted field is not terminated.
+     */
+    public List<String> next() throws IOException {
+        if (first) {
+            first = false;
+            detectSeparator();
+        }
+        List<String> fields;
+        do {
+            fields = read();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+        return fields;
+    }
+
+    /**
+     * @return the line of the file (from 1) where the last record read starts.
+     */
+    public long getLine() {
+        return recordLine;
+    }
+
+    private void detectSeparator() throws IOException {
+        in.mark(1);
+        if (in.read() != '\uFEFF') {
+            in.reset();
+        }
+        in.mark(HEADER_LIMIT);
+        String header = in.readLine();
+        in.reset();
+        if (header != null && header.indexOf(';') >= 0 && header.indexOf(',') < 0) {
+            separator = ';';
+        }
+    }
+
+    private List<String> read() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting line " + recordLine);
+                }
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package sn.ngirwi.medical.service.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.User;
+import sn.ngirwi.medical.domain.enumeration.BLOODTYPE;
+import sn.ngirwi.medical.domain.enumeration.GENDER;
+import sn.ngirwi.medical.domain.enumeration.MARITALSTATUS;
+import sn.ngirwi.medical.repository.PatientImportRepository;
+import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.UserRepository;
+import sn.ngirwi.medical.security.SecurityUtils;
+import sn.ngirwi.medical.service.PatientService;
+import sn.ngirwi.medical.service.dto.PatientImportReportDTO;
+import sn.ngirwi.medical.service.dto.PatientImportReportDTO.RowError;
+import sn.ngirwi.medical.service.duplicate.PatientBlockingKeys;
+
+/**
+ * Import en masse des patients d'un hôpital depuis un CSV.
+ * <p>
+ * Le fichier est lu et validé ligne à ligne (mêmes règles que {@link sn.ngirwi.medical.domain.Patient}) pendant que
+ * les lignes valides sont chargées dans la table de travail ; la fusion avec les patients existants se fait ensuite
+ * en quelques requêtes ensemblistes (voir {@link PatientImportRepository}). Les lignes rejetées n'empêchent pas
+ * l'import des autres et sont listées dans le rapport.
+ * <p>
+ * Un NIN déjà connu dans l'hôpital met à jour le patient ; un NIN d'un autre hôpital est rejeté.
+ */
+@Service
+@Transactional
+public class PatientImportService {
+
+    private final Logger log = LoggerFactory.getLogger(PatientImportService.class);
+
+    public static final int MAX_ROWS = 200_000;
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    static final int MAX_LENGTH = 255;
+
+    /** Colonnes acceptées, dans l'ordre des {@link PatientImportRepository#STAGING_COLUMNS} qui suivent le numéro de ligne. */
+    static final String[] COLUMNS = {
+        "firstName",
+        "lastName",
+        "birthday",
+        "birthplace",
+        "gender",
+        "adress",
+        "phone",
+        "cni",
+        "job",
+        "bloodType",
+        "maritialStatus",
+    };
+
+    private static final boolean[] REQUIRED = { true, true, true, false, true, true, true, true, false, false, false };
+
+    private static final int BIRTHDAY = 2;
+
+    private static final int GENDER_COLUMN = 4;
+
+    private static final int PHONE = 6;
+
+    private static final int CNI = 7;
+
+    private static final int BLOOD_TYPE = 9;
+
+    private static final int MARITAL_STATUS = 10;
+
+    private static final Pattern CNI_PATTERN = Pattern.compile("^[0-9]{13}$");
+
+    private static final DateTimeFormatter FRENCH_DATE = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+
+    private final PatientRepository patientRepository;
+
+    private final UserRepository userRepository;
+
+    public PatientImportService(PatientRepository patientRepository, UserRepository userRepository) {
+        this.patientRepository = patientRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Imports the patients of the CSV into the hospital of the current user, who becomes their author.
+     *
+     * @param csv the UTF-8 CSV, with a header naming the columns ({@link #COLUMNS}, any order, case-insensitive).
+     * @return the report.
+     * @throws IllegalArgumentException if the header is invalid, the file malformed or too large.
+     */
+    public PatientImportReportDTO importCsv(InputStream csv) throws IOException {
+        User user = SecurityUtils
+            .getCurrentUserLogin()
+            .flatMap(userRepository::findOneByLogin)
+            .orElseThrow(() -> new AccessDeniedException("No current user"));
+        return importCsv(csv, user.getHospitalId(), user.getLogin());
+    }
+
+    /**
+     * Imports the patients of the CSV into a hospital.
+     *
+     * @param csv the UTF-8 CSV.
+     * @param hospitalId the hospital, null for patients without hospital.
+     * @param author the author of the created patients.
+     * @return the report.
+     */
+    public PatientImportReportDTO importCsv(InputStream csv, Long hospitalId, String author) throws IOException {
+        log.debug("Request to import Patients into hospital {}", hospitalId);
+        CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        ValidRows rows = new ValidRows(reader, header);
+        try {
+            patientRepository.stagePatientImport(rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int conflicts = patientRepository.rejectStagedPatientConflicts(hospitalId);
+
+        PatientImportReportDTO report = new PatientImportReportDTO();
+        report.setReceived(rows.received);
+        report.setUpdated(patientRepository.updatePatientsFromStaging(hospitalId));
+        report.setCreated(patientRepository.insertPatientsFromStaging(hospitalId, author));
+        report.setRejected(rows.errors + conflicts);
+        List<RowError> errors = rows.reported;
+        if (conflicts > 0) {
+            for (Object[] row : patientRepository.findStagedPatientRejections(MAX_REPORTED_ERRORS)) {
+                errors.add(new RowError((Long) row[0], (String) row[1], conflictMessage((String) row[2])));
+            }
+            errors.sort(Comparator.comparingLong(RowError::getLine));
+        }
+        report.setErrors(new ArrayList<>(errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS))));
+        log.debug("Imported Patients into hospital {}: {}", hospitalId, report);
+        return report;
+    }
+
+    /**
+     * @return for each column of {@link #COLUMNS}, its position in the file, or -1.
+     */
+    private static int[] positions(List<String> header) {
+        int[] positions = new int[COLUMNS.length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            int column = column(name);
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown column '" + name + "', expected " + String.join(", ", COLUMNS));
+            }
+            if (positions[column] >= 0) {
+                throw new IllegalArgumentException("Column '" + name + "' appears twice");
+            }
+            positions[column] = i;
+        }
+        for (int column = 0; column < COLUMNS.length; column++) {
+            if (REQUIRED[column] && positions[column] < 0) {
+                throw new IllegalArgumentException("Missing column '" + COLUMNS[column] + "'");
+            }
+        }
+        return positions;
+    }
+
+    private static int column(String name) {
+        for (int column = 0; column < COLUMNS.length; column++) {
+            if (COLUMNS[column].equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private static String conflictMessage(String reason) {
+        if (PatientImportRepository.DUPLICATE_IN_FILE.equals(reason)) {
+            return "NIN déjà présent plus haut dans le fichier";
+        }
+        return "Un patient avec ce NIN existe déjà dans un autre hôpital";
+    }
+
+    /**
+     * Lignes valides du fichier au format de la table de travail, lues à la demande ; les lignes invalides sont
+     * comptées et les premières gardées pour le rapport.
+     */
+    private static final class ValidRows implements Iterator<Object[]> {
+
+        private final CsvRecordReader reader;
+
+        private final int[] positions;
+
+        /** Nombre de colonnes de l'en-tête. */
+        private final int columns;
+
+        private final List<RowError> reported = new ArrayList<>();
+
+        private long received;
+
+        private long errors;
+
+        private Object[] next;
+
+        ValidRows(CsvRecordReader reader, List<String> header) {
+            this.reader = reader;
+            this.positions = positions(header);
+            this.columns = header.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    List<String> fields = reader.next();
+                    if (fields == null) {
+                        return false;
+                    }
+                    if (++received > MAX_ROWS) {
+                        throw new IllegalArgumentException("The file has more than " + MAX_ROWS + " rows");
+                    }
+                    next = validate(reader.getLine(), fields);
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = next;
+            next = null;
+            return row;
+        }
+
+        private Object[] validate(long line, List<String> fields) {
+            String[] values = new String[COLUMNS.length];
+            for (int column = 0; column < COLUMNS.length; column++) {
+                int position = positions[column];
+                String value = position >= 0 && position < fields.size() ? fields.get(position).trim() : "";
+                values[column] = value.isEmpty() ? null : value;
+            }
+            values[CNI] = PatientService.normalizeCni(values[CNI]);
+            if (fields.size() > columns) {
+                return reject(line, values[CNI], "Nombre de colonnes supérieur à celui de l'en-tête");
+            }
+            for (int column = 0; column < COLUMNS.length; column++) {
+                if (values[column] == null && REQUIRED[column]) {
+                    return reject(line, values[CNI], "Champ obligatoire manquant : " + COLUMNS[column]);
+                }
+                if (values[column] != null && values[column].length() > MAX_LENGTH) {
+                    return reject(
+                        line,
+                        values[CNI],
+                        "Valeur trop longue pour " + COLUMNS[column] + " (" + MAX_LENGTH + " caractères au plus)"
+                    );
+                }
+            }
+            if (!CNI_PATTERN.matcher(values[CNI]).matches()) {
+                return reject(line, values[CNI], "Le NIN doit être exactement 13 chiffres");
+            }
+            LocalDate birthday = date(values[BIRTHDAY]);
+            if (birthday == null) {
+                return reject(
+                    line,
+                    values[CNI],
+                    "Date de naissance invalide : " + values[BIRTHDAY] + " (AAAA-MM-JJ ou JJ/MM/AAAA)"
+                );
+            }
+            if (birthday.isAfter(LocalDate.now())) {
+                return reject(line, values[CNI], "Date de naissance dans le futur : " + values[BIRTHDAY]);
+            }
+            String gender = enumName(GENDER.class, values[GENDER_COLUMN]);
+            if (gender == null) {
+                return invalid(line, values, GENDER_COLUMN);
+            }
+            String bloodType = enumName(BLOODTYPE.class, values[BLOOD_TYPE]);
+            if (values[BLOOD_TYPE] != null && bloodType == null) {
+                return invalid(line, values, BLOOD_TYPE);
+            }
+            String maritalStatus = enumName(MARITALSTATUS.class, values[MARITAL_STATUS]);
+            if (values[MARITAL_STATUS] != null && maritalStatus == null) {
+                return invalid(line, values, MARITAL_STATUS);
+            }
+            return new Object[] {
+                line,
+                values[0],
+                values[1],
+                birthday,
+                values[3],
+                gender,
+                values[5],
+                values[PHONE],
+                values[CNI],
+                values[8],
+                bloodType,
+                maritalStatus,
+                PatientBlockingKeys.nameKey(values[1]),
+                PatientBlockingKeys.phoneKey(values[PHONE]),
+            };
+        }
+
+        private Object[] invalid(long line, String[] values, int column) {
+            return reject(line, values[CNI], "Valeur invalide pour " + COLUMNS[column] + " : " + values[column]);
+        }
+
+        private Object[] reject(long line, String cni, String message) {
+            errors++;
+            if (reported.size() < MAX_REPORTED_ERRORS) {
+                reported.add(new RowError(line, cni, message));
+            }
+            return null;
+        }
+
+        private static LocalDate date(String value) {
+            try {
+                return value.indexOf('/') >= 0 ? LocalDate.parse(value, FRENCH_DATE) : LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        private static <E extends Enum<E>> String enumName(Class<E> type, String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(type, value.toUpperCase(Locale.ROOT)).name();
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -3,19 +3,40 @@ package sn.ngirwi.medical.service.mapper;
 import org.mapstruct.*;
 import sn.ngirwi.medical.domain.Bill;
 import sn.ngirwi.medical.domain.BillElement;
+import sn.ngirwi.medical.service.BillTotals;
 import sn.ngirwi.medical.service.dto.BillDTO;
 import sn.ngirwi.medical.service.dto.BillElementDTO;
 
 /**
  * Mapper for the entity {@link BillElement} and its DTO {@link BillElementDTO}.
+ * The discount is exposed as a percentage and stored in basis points.
  */
 @Mapper(componentModel = "spring")
 public interface BillElementMapper extends EntityMapper<BillElementDTO, BillElement> {
     @Mapping(target = "bill", source = "bill", qualifiedByName = "billId")
+    @Mapping(target = "percentage", source = "discountBp", qualifiedByName = "basisPointsToPercent")
     BillElementDTO toDto(BillElement s);
 
+    @Mapping(target = "discountBp", source = "percentage", qualifiedByName = "percentToBasisPoints")
+    BillElement toEntity(BillElementDTO dto);
+
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "discountBp", source = "percentage", qualifiedByName = "percentToBasisPoints")
+    void partialUpdate(@MappingTarget BillElement entity, BillElementDTO dto);
+
     @Named("billId")
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     BillDTO toDtoBillId(Bill bill);
+
+    @Named("percentToBasisPoints")
+    default Integer percentToBasisPoints(Double percent) {
+        return BillTotals.toBasisPoints(percent);
+    }
+
+    @Named("basisPointsToPercent")
+    default Double basisPointsToPercent(Integer basisPoints) {
+        return BillTotals.toPercent(basisPoints);
+    }
 }
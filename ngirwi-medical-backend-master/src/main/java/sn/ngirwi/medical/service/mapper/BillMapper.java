@@ -9,7 +9,7 @@ import sn.ngirwi.medical.service.dto.PatientDTO;
 /**
  * Mapper for the entity {@link Bill} and its DTO {@link BillDTO}.
  */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = BillElementMapper.class)
 public interface BillMapper extends EntityMapper<BillDTO, Bill> {
     @Mapping(target = "patient", source = "patient", qualifiedByName = "patientId")
     BillDTO toDto(Bill s);
@@ -33,6 +33,8 @@ public interface HospitalisationMapper {
     @Mapping(target = "feeOverrun", source = "feeOverrun")
     @Mapping(target = "insuranceCoveragePercent", source = "insuranceCoveragePercent")
     @Mapping(target = "totalAmount", source = "totalAmount")
+    @Mapping(target = "latestEarlyWarningScore", ignore = true)
+    @Mapping(target = "latestEarlyWarningScoreDate", ignore = true)
     Hospitalisation toEntity(HospitalisationDTO dto);
 
     // Helper Methods
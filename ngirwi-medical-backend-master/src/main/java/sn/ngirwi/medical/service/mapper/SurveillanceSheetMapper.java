@@ -17,6 +17,7 @@ public interface SurveillanceSheetMapper extends EntityMapper<SurveillanceSheetD
     @Mapping(source = "hospitalisationId", target = "hospitalisation")
     @Mapping(source = "medications", target = "medications")
     @Mapping(source = "acts", target = "acts")
+    @Mapping(target = "earlyWarningScore", ignore = true)
     SurveillanceSheet toEntity(SurveillanceSheetDTO dto);
 
     default Hospitalisation fromHospitalisationId(Long id) {
@@ -0,0 +1,229 @@
+package sn.ngirwi.medical.service.sync;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.SyncTombstone;
+import sn.ngirwi.medical.repository.BillRepository;
+import sn.ngirwi.medical.repository.ConsultationRepository;
+import sn.ngirwi.medical.repository.HospitalisationRepository;
+import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.PrescriptionRepository;
+import sn.ngirwi.medical.repository.SyncTombstoneRepository;
+import sn.ngirwi.medical.service.CurrentHospitalProvider;
+import sn.ngirwi.medical.service.dto.SyncChangesDTO;
+import sn.ngirwi.medical.service.mapper.BillMapper;
+import sn.ngirwi.medical.service.mapper.ConsultationMapper;
+import sn.ngirwi.medical.service.mapper.HospitalisationMapper;
+import sn.ngirwi.medical.service.mapper.PatientMapper;
+import sn.ngirwi.medical.service.mapper.PrescriptionMapper;
+
+/**
+ * Synchronisation différentielle des cliniques à connexion intermittente.
+ * <p>
+ * Les modifications (identifiant de changement {@code change_id} de chaque entité, voir
+ * {@link sn.ngirwi.medical.domain.SyncTracked}) et les suppressions ({@link SyncTombstone}) de l'hôpital de
+ * l'utilisateur sont lues en une requête, dans l'ordre {@code (change_id, type, id)} ; le filigrane rendu au client est
+ * la position de la dernière modification transmise, la page suivante reprend strictement après.
+ * <p>
+ * L'identifiant de changement suit l'ordre des transactions et non l'horloge : la lecture s'arrête sous la plus
+ * ancienne transaction encore en cours, si bien qu'une transaction lente, un import ou un lot validé après une lecture
+ * ne se retrouve jamais derrière le filigrane.
+ * <p>
+ * Le filigrane porte aussi la date à laquelle le client a été à jour pour la dernière fois ; passé la durée de
+ * conservation des suppressions, le client repart de zéro.
+ */
+@Service
+@Transactional
+public class SyncService {
+
+    private final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    public static final int DEFAULT_SIZE = 500;
+
+    public static final int MAX_SIZE = 2000;
+
+    /** Durée de conservation des suppressions ; un client qui n'a pas été à jour depuis repart de zéro. */
+    public static final Duration RETENTION = Duration.ofDays(90);
+
+    /**
+     * Marge de la purge sur la durée de conservation : une suppression est datée avant la validation de sa
+     * transaction.
+     */
+    static final Duration PURGE_MARGIN = Duration.ofDays(1);
+
+    private final SyncTombstoneRepository syncTombstoneRepository;
+
+    private final PatientRepository patientRepository;
+
+    private final ConsultationRepository consultationRepository;
+
+    private final PrescriptionRepository prescriptionRepository;
+
+    private final BillRepository billRepository;
+
+    private final HospitalisationRepository hospitalisationRepository;
+
+    private final PatientMapper patientMapper;
+
+    private final ConsultationMapper consultationMapper;
+
+    private final PrescriptionMapper prescriptionMapper;
+
+    private final BillMapper billMapper;
+
+    private final HospitalisationMapper hospitalisationMapper;
+
+    private final CurrentHospitalProvider currentHospitalProvider;
+
+    public SyncService(
+        SyncTombstoneRepository syncTombstoneRepository,
+        PatientRepository patientRepository,
+        ConsultationRepository consultationRepository,
+        PrescriptionRepository prescriptionRepository,
+        BillRepository billRepository,
+        HospitalisationRepository hospitalisationRepository,
+        PatientMapper patientMapper,
+        ConsultationMapper consultationMapper,
+        PrescriptionMapper prescriptionMapper,
+        BillMapper billMapper,
+        HospitalisationMapper hospitalisationMapper,
+        CurrentHospitalProvider currentHospitalProvider
+    ) {
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.patientRepository = patientRepository;
+        this.consultationRepository = consultationRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.billRepository = billRepository;
+        this.hospitalisationRepository = hospitalisationRepository;
+        this.patientMapper = patientMapper;
+        this.consultationMapper = consultationMapper;
+        this.prescriptionMapper = prescriptionMapper;
+        this.billMapper = billMapper;
+        this.hospitalisationMapper = hospitalisationMapper;
+        this.currentHospitalProvider = currentHospitalProvider;
+    }
+
+    /**
+     * Modifications de l'hôpital courant (de tous les hôpitaux pour un administrateur) après un filigrane, les plus
+     * anciennes d'abord.
+     *
+     * @param since le {@code watermark} de la réponse précédente, vide pour tout recevoir.
+     * @param size le nombre de modifications, entre 1 et {@link #MAX_SIZE}.
+     * @return les modifications et le filigrane suivant.
+     * @throws IllegalArgumentException si la taille est hors bornes ou le filigrane mal formé.
+     */
+    @Transactional(readOnly = true)
+    public SyncChangesDTO changes(String since, int size) {
+        return changes(since, size, syncTombstoneRepository.findChangeFence());
+    }
+
+    @Transactional(readOnly = true)
+    SyncChangesDTO changes(String since, int size, long upTo) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE);
+        }
+        Long hospitalId = currentHospitalProvider.getCurrentHospitalId().orElse(null);
+        log.debug("Request to get the changes of hospital {} since {}", hospitalId, since);
+
+        Instant now = Instant.now();
+        long afterChangeId = -1L;
+        String afterKind = "";
+        Long afterId = 0L;
+        Instant upToDate = now;
+        boolean full = true;
+        if (since != null && !since.isBlank()) {
+            String[] parts = decodeWatermark(since);
+            Instant date = Instant.parse(parts[3]);
+            // les suppressions plus anciennes ont été purgées : le client repart de zéro
+            if (!date.isBefore(now.minus(RETENTION))) {
+                afterChangeId = Long.parseLong(parts[0]);
+                afterKind = parts[1];
+                afterId = Long.valueOf(parts[2]);
+                upToDate = date;
+                full = false;
+            }
+        }
+
+        // une ligne de plus pour savoir s'il reste une page
+        List<Object[]> rows = syncTombstoneRepository.findChanges(hospitalId, afterChangeId, afterKind, afterId, upTo, size + 1);
+        List<Object[]> page = rows.subList(0, Math.min(rows.size(), size));
+        Map<String, List<Long>> changed = new LinkedHashMap<>();
+        Map<String, List<Long>> deleted = new LinkedHashMap<>();
+        for (Object[] row : page) {
+            Map<String, List<Long>> target = ((Integer) row[3]) == 1 ? deleted : changed;
+            target.computeIfAbsent((String) row[0], kind -> new ArrayList<>()).add((Long) row[1]);
+        }
+
+        SyncChangesDTO changes = new SyncChangesDTO();
+        changes.setFull(full);
+        changes.setHasMore(rows.size() > size);
+        // le client est à jour quand il a reçu la dernière page
+        if (!changes.isHasMore()) {
+            upToDate = now;
+        }
+        if (page.isEmpty()) {
+            changes.setWatermark(encodeWatermark(afterChangeId, afterKind, afterId, upToDate));
+        } else {
+            Object[] last = page.get(page.size() - 1);
+            changes.setWatermark(encodeWatermark((Long) last[2], (String) last[0], (Long) last[1], upToDate));
+        }
+        changes.setPatients(patientMapper.toDto(patientRepository.findAllById(ids(changed, SyncTombstone.PATIENT))));
+        changes.setConsultations(consultationMapper.toDto(consultationRepository.findAllById(ids(changed, SyncTombstone.CONSULTATION))));
+        changes.setPrescriptions(prescriptionMapper.toDto(prescriptionRepository.findAllById(ids(changed, SyncTombstone.PRESCRIPTION))));
+        changes.setBills(billMapper.toDto(billRepository.findAllById(ids(changed, SyncTombstone.BILL))));
+        List<Long> hospitalisations = ids(changed, SyncTombstone.HOSPITALISATION);
+        if (!hospitalisations.isEmpty()) {
+            hospitalisationRepository.findAllById(hospitalisations).forEach(h -> changes.getHospitalisations().add(hospitalisationMapper.toDto(h)));
+        }
+        changes.setDeleted(deleted);
+        return changes;
+    }
+
+    /**
+     * Purge chaque nuit les suppressions plus anciennes que la durée de conservation et sa marge.
+     *
+     * @return le nombre de suppressions purgées.
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public int purgeTombstones() {
+        int purged = syncTombstoneRepository.deleteByDeletedAtBefore(Instant.now().minus(RETENTION).minus(PURGE_MARGIN));
+        log.debug("Purged {} synchronisation tombstones", purged);
+        return purged;
+    }
+
+    private static List<Long> ids(Map<String, List<Long>> changed, String kind) {
+        return changed.getOrDefault(kind, List.of());
+    }
+
+    private static String encodeWatermark(long changeId, String kind, Long id, Instant upToDate) {
+        String raw = changeId + "|" + kind + "|" + id + "|" + upToDate;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeWatermark(String watermark) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid watermark");
+            }
+            Long.parseLong(parts[0]);
+            Long.parseLong(parts[2]);
+            Instant.parse(parts[3]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid watermark", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package sn.ngirwi.medical.web.filter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import sn.ngirwi.medical.management.HospitalMeterTags;
+import sn.ngirwi.medical.management.RequestSqlStatistics;
+import sn.ngirwi.medical.management.SlowRequest;
+import sn.ngirwi.medical.management.SlowRequestRecorder;
+import sn.ngirwi.medical.security.SecurityUtils;
+
+/**
+ * Filter installed right after the JWT filter which:
+ * <ul>
+ *     <li>exposes the bounded hospital tag of the authenticated user as the {@link #HOSPITAL_TAG_ATTRIBUTE} request
+ *     attribute, added to {@code http.server.requests} by the metrics configuration;</li>
+ *     <li>hands requests slower than the configured threshold, with their SQL statement count and database time,
+ *     to the {@link SlowRequestRecorder}.</li>
+ * </ul>
+ */
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    public static final String HOSPITAL_TAG_ATTRIBUTE = RequestMetricsFilter.class.getName() + ".hospital";
+
+    private final HospitalMeterTags hospitalMeterTags;
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    public RequestMetricsFilter(HospitalMeterTags hospitalMeterTags, SlowRequestRecorder slowRequestRecorder) {
+        this.hospitalMeterTags = hospitalMeterTags;
+        this.slowRequestRecorder = slowRequestRecorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String hospital = hospitalMeterTags.hospital(SecurityUtils.getCurrentUserHospitalId().orElse(null));
+        request.setAttribute(HOSPITAL_TAG_ATTRIBUTE, hospital);
+
+        RequestSqlStatistics sqlStatistics = RequestSqlStatistics.start();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlStatistics.clear();
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            if (slowRequestRecorder.isSlow(duration)) {
+                slowRequestRecorder.record(
+                    new SlowRequest(
+                        Instant.now(),
+                        request.getMethod() + " " + endpoint(request),
+                        hospital,
+                        response.getStatus(),
+                        duration.toMillis(),
+                        sqlStatistics.getStatementCount(),
+                        TimeUnit.NANOSECONDS.toMillis(sqlStatistics.getDatabaseNanos())
+                    )
+                );
+            }
+        }
+    }
+
+    private String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
@@ -0,0 +1,57 @@
+package sn.ngirwi.medical.web.rest;
+
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import sn.ngirwi.medical.web.rest.batch.BatchDispatcher;
+import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
+import sn.ngirwi.medical.web.rest.vm.BatchOperationVM;
+import sn.ngirwi.medical.web.rest.vm.BatchResultVM;
+
+/**
+ * REST controller for executing several API calls in one round trip.
+ */
+@RestController
+@RequestMapping("/api")
+public class BatchResource {
+
+    private static final String ENTITY_NAME = "batch";
+
+    private final Logger log = LoggerFactory.getLogger(BatchResource.class);
+
+    private final BatchDispatcher batchDispatcher;
+
+    public BatchResource(BatchDispatcher batchDispatcher) {
+        this.batchDispatcher = batchDispatcher;
+    }
+
+    /**
+     * POST /batch : executes the operations in order and in one transaction (at most
+     * {@link BatchDispatcher#MAX_OPERATIONS}), an operation referencing the response of an earlier one as
+     * {@code ${ref.field}}, for instance a consultation, then its prescription and its bill.
+     *
+     * @return status 200 (OK) with the result of each operation, or the status of the first failed operation with
+     * the results up to it, in which case nothing was saved.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchResultVM>> executeBatch(
+        @RequestBody List<BatchOperationVM> operations,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) {
+        log.debug("REST request to execute a batch of {} operations", operations.size());
+        List<BatchResultVM> results;
+        try {
+            results = batchDispatcher.execute(request, response, operations);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "batchinvalid");
+        }
+        int status = results.get(results.size() - 1).getStatus();
+        return ResponseEntity.status(status >= HttpStatus.BAD_REQUEST.value() ? status : HttpStatus.OK.value()).body(results);
+    }
+}
@@ -2,6 +2,7 @@ package sn.ngirwi.medical.web.rest;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -10,14 +11,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ngirwi.medical.domain.Bill;
 import sn.ngirwi.medical.repository.BillRepository;
+import sn.ngirwi.medical.service.BillExportWriter;
 import sn.ngirwi.medical.service.BillService;
+import sn.ngirwi.medical.service.document.DocumentService;
 import sn.ngirwi.medical.service.dto.BillDTO;
 import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
 import tech.jhipster.web.util.HeaderUtil;
@@ -42,9 +48,12 @@ public class BillResource {
 
     private final BillRepository billRepository;
 
-    public BillResource(BillService billService, BillRepository billRepository) {
+    private final DocumentService documentService;
+
+    public BillResource(BillService billService, BillRepository billRepository, DocumentService documentService) {
         this.billService = billService;
         this.billRepository = billRepository;
+        this.documentService = documentService;
     }
 
     /**
@@ -170,6 +179,48 @@ public class BillResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /bills/export} : export the bills of a period and their lines as CSV (default) or NDJSON,
+     * streamed while they are read from the database.
+     *
+     * @param from first day of the period.
+     * @param to last day of the period, inclusive.
+     * @param insurance optional insurer filter.
+     * @param ipm optional IPM filter.
+     * @param hospitalId optional hospital filter for administrators; other users only export their hospital.
+     * @param format {@code csv} or {@code ndjson}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the rows streamed in body.
+     */
+    @GetMapping("/bills/export")
+    public ResponseEntity<StreamingResponseBody> exportBills(
+        @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(value = "insurance", required = false) String insurance,
+        @RequestParam(value = "ipm", required = false) String ipm,
+        @RequestParam(value = "hospitalId", required = false) Long hospitalId,
+        @RequestParam(value = "format", required = false) String format
+    ) {
+        log.debug("REST request to export Bills from {} to {}", from, to);
+        if (from.isAfter(to)) {
+            throw new BadRequestAlertException("from must not be after to", ENTITY_NAME, "daterangeinvalid");
+        }
+        BillExportWriter.Format exportFormat;
+        try {
+            exportFormat = BillExportWriter.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "formatinvalid");
+        }
+        StreamingResponseBody body = out -> billService.export(from, to, insurance, ipm, hospitalId, exportFormat, out);
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"bills-" + from + "-" + to + "." + exportFormat.getExtension() + "\""
+            )
+            .body(body);
+    }
+
     /**
      * {@code GET  /bills/:id} : get the "id" bill.
      *
@@ -183,6 +234,27 @@ public class BillResource {
         return ResponseUtil.wrapOrNotFound(billDTO);
     }
 
+    /**
+     * {@code GET  /bills/:id.pdf} : get the "id" bill as a printable PDF.
+     *
+     * @param id the id of the bill to print.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the PDF in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/bills/{id}.pdf")
+    public ResponseEntity<byte[]> getBillPdf(@PathVariable Long id) {
+        log.debug("REST request to print Bill : {}", id);
+        return documentService
+            .billPdf(id)
+            .map(pdf -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_PDF);
+                headers.setContentDispositionFormData("inline", "facture_" + id + ".pdf");
+                headers.setContentLength(pdf.length);
+                return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * {@code DELETE  /bills/:id} : delete the "id" bill.
      *
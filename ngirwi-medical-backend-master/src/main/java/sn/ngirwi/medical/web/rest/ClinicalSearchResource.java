@@ -0,0 +1,54 @@
+package sn.ngirwi.medical.web.rest;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import sn.ngirwi.medical.service.ClinicalSearchService;
+import sn.ngirwi.medical.service.dto.ClinicalSearchResultDTO;
+import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for the full-text search over the clinical text.
+ */
+@RestController
+@RequestMapping("/api")
+public class ClinicalSearchResource {
+
+    private static final String ENTITY_NAME = "clinicalSearch";
+
+    private final Logger log = LoggerFactory.getLogger(ClinicalSearchResource.class);
+
+    private final ClinicalSearchService clinicalSearchService;
+
+    public ClinicalSearchResource(ClinicalSearchService clinicalSearchService) {
+        this.clinicalSearchService = clinicalSearchService;
+    }
+
+    /**
+     * GET /_search/clinical?q= : consultations and hospitalisations whose clinical text contains every word of
+     * {@code q}, most relevant first, with a highlighted excerpt (at most
+     * {@link ClinicalSearchService#MAX_PAGE_SIZE} hits per page).
+     */
+    @GetMapping("/_search/clinical")
+    public ResponseEntity<List<ClinicalSearchResultDTO>> searchClinical(
+        @RequestParam("q") String q,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search clinical text : {}", q);
+        Page<ClinicalSearchResultDTO> page;
+        try {
+            page = clinicalSearchService.search(q, pageable);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "searchinvalid");
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+}
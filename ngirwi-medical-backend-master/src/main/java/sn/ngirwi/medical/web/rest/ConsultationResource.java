@@ -2,6 +2,7 @@ package sn.ngirwi.medical.web.rest;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -13,8 +14,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.parameters.P;
@@ -23,6 +26,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ngirwi.medical.repository.ConsultationRepository;
 import sn.ngirwi.medical.security.AuthoritiesConstants;
 import sn.ngirwi.medical.service.ConsultationService;
+import sn.ngirwi.medical.service.document.DocumentService;
 import sn.ngirwi.medical.service.dto.ConsultationDTO;
 import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
 import tech.jhipster.web.util.HeaderUtil;
@@ -48,9 +52,16 @@ public class ConsultationResource {
 
     private final ConsultationRepository consultationRepository;
 
-    public ConsultationResource(ConsultationService consultationService, ConsultationRepository consultationRepository) {
+    private final DocumentService documentService;
+
+    public ConsultationResource(
+        ConsultationService consultationService,
+        ConsultationRepository consultationRepository,
+        DocumentService documentService
+    ) {
         this.consultationService = consultationService;
         this.consultationRepository = consultationRepository;
+        this.documentService = documentService;
     }
 
     /**
@@ -200,6 +211,40 @@ public class ConsultationResource {
         return ResponseUtil.wrapOrNotFound(consultationDTO);
     }
 
+    /**
+     * {@code GET  /consultations/:id/certificate.pdf} : get a medical certificate for the "id" consultation.
+     *
+     * @param id the id of the consultation.
+     * @param restDays the number of rest days to certify, none if omitted.
+     * @param startDate the first rest day, the consultation day if omitted.
+     * @param comment an optional free-text statement.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the PDF in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/consultations/{id}/certificate.pdf")
+    public ResponseEntity<byte[]> getCertificatePdf(
+        @PathVariable Long id,
+        @RequestParam(required = false) Integer restDays,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) String comment
+    ) {
+        log.debug("REST request to print a certificate for Consultation : {}", id);
+        Optional<byte[]> certificate;
+        try {
+            certificate = documentService.certificatePdf(id, restDays, startDate, comment);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidrestdays");
+        }
+        return certificate
+            .map(pdf -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_PDF);
+                headers.setContentDispositionFormData("inline", "certificat_" + id + ".pdf");
+                headers.setContentLength(pdf.length);
+                return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * {@code DELETE  /consultations/:id} : delete the "id" consultation.
      *
@@ -1,7 +1,6 @@
 package sn.ngirwi.medical.web.rest;
 
 import java.util.List;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +10,7 @@ import sn.ngirwi.medical.domain.User;
 import sn.ngirwi.medical.repository.UserRepository;
 import sn.ngirwi.medical.security.AuthoritiesConstants;
 import sn.ngirwi.medical.security.SecurityUtils;
+import sn.ngirwi.medical.service.DoctorService;
 import sn.ngirwi.medical.service.dto.DoctorDTO;
 
 /**
@@ -25,8 +25,11 @@ public class DoctorResource {
 
     private final UserRepository userRepository;
 
-    public DoctorResource(UserRepository userRepository) {
+    private final DoctorService doctorService;
+
+    public DoctorResource(UserRepository userRepository, DoctorService doctorService) {
         this.userRepository = userRepository;
+        this.doctorService = doctorService;
     }
 
     /**
@@ -50,17 +53,7 @@ public class DoctorResource {
             return ResponseEntity.ok(List.of());
         }
 
-        // Get all users from the same hospital with ROLE_DOCTOR authority
-        List<User> doctors = userRepository.findByHospitalId(currentUserHospitalId)
-            .stream()
-            .filter(user -> user.getAuthorities().stream()
-                .anyMatch(auth -> AuthoritiesConstants.DOCTOR.equals(auth.getName())))
-            .collect(Collectors.toList());
-
-        // Convert to DTOs
-        List<DoctorDTO> doctorDTOs = doctors.stream()
-            .map(DoctorDTO::new)
-            .collect(Collectors.toList());
+        List<DoctorDTO> doctorDTOs = doctorService.findAllByHospital(currentUserHospitalId);
 
         log.debug("Found {} doctors in hospital {}", doctorDTOs.size(), currentUserHospitalId);
         return ResponseEntity.ok(doctorDTOs);
@@ -0,0 +1,57 @@
+package sn.ngirwi.medical.web.rest;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sn.ngirwi.medical.service.document.DocumentBatchPrinter;
+import sn.ngirwi.medical.service.document.DocumentService;
+import sn.ngirwi.medical.service.dto.DocumentReferenceDTO;
+import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
+
+/**
+ * REST controller for printable documents.
+ */
+@RestController
+@RequestMapping("/api/documents")
+public class DocumentResource {
+
+    private static final String ENTITY_NAME = "document";
+
+    private final Logger log = LoggerFactory.getLogger(DocumentResource.class);
+
+    private final DocumentService documentService;
+
+    private final DocumentBatchPrinter documentBatchPrinter;
+
+    public DocumentResource(DocumentService documentService, DocumentBatchPrinter documentBatchPrinter) {
+        this.documentService = documentService;
+        this.documentBatchPrinter = documentBatchPrinter;
+    }
+
+    /**
+     * POST /documents/print-batch : bills, prescriptions and hospitalisation resumes merged into one PDF, in the
+     * order of the request (at most {@link DocumentService#MAX_BATCH_SIZE} documents).
+     */
+    @PostMapping("/print-batch")
+    public ResponseEntity<StreamingResponseBody> printBatch(@RequestBody List<DocumentReferenceDTO> references) {
+        log.debug("REST request to print a batch of documents : {}", references);
+        List<Callable<byte[]>> documents;
+        try {
+            documents = documentService.prepareBatch(references);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "batchinvalid");
+        }
+        StreamingResponseBody body = out -> documentBatchPrinter.print(documents, out);
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_PDF)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"documents.pdf\"")
+            .body(body);
+    }
+}
@@ -248,7 +248,8 @@ public class HospitalisationResource {
     }
 
     /**
-     * GET /hospitalisations/active
+     * GET /hospitalisations/active : hospitalisations in progress.
+     * With {@code sort=score}, the patients most at risk (latest early warning score) come first.
      */
     @GetMapping("/hospitalisations/active")
     public ResponseEntity<List<HospitalisationDTO>> getActive(
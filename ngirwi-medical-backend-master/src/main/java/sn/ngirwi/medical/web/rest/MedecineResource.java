@@ -149,6 +149,28 @@ public class MedecineResource {
         return medecineService.findAll(id);
     }
 
+    /**
+     * {@code GET  /medecines/suggest?q=} : suggest medicine names already prescribed in the current hospital.
+     *
+     * @param q the beginning of the name.
+     * @param limit the maximum number of names (1 to 50, default 10).
+     * @param hospitalId the hospital, for an admin without hospital.
+     * @return the names, most prescribed first.
+     */
+    @GetMapping("/medecines/suggest")
+    public List<String> suggestMedecineNames(
+        @RequestParam("q") String q,
+        @RequestParam(value = "limit", required = false) Integer limit,
+        @RequestParam(value = "hospitalId", required = false) Long hospitalId
+    ) {
+        log.debug("REST request to suggest Medecine names : {}", q);
+        try {
+            return medecineService.suggest(q, limit, hospitalId);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidlimit");
+        }
+    }
+
     @GetMapping("/medecines")
     public ResponseEntity<List<MedecineDTO>> getAllMedecines(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
         log.debug("REST request to get a page of Medecines");
@@ -1,10 +1,13 @@
 package sn.ngirwi.medical.web.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -14,12 +17,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ngirwi.medical.repository.PatientRepository;
 import sn.ngirwi.medical.service.PatientService;
+import sn.ngirwi.medical.service.dto.DuplicateCandidateDTO;
 import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.service.dto.PatientImportReportDTO;
+import sn.ngirwi.medical.service.dto.PatientTimelineDTO;
+import sn.ngirwi.medical.service.duplicate.DuplicatePatientService;
+import sn.ngirwi.medical.service.importer.PatientImportService;
 //import tech.jhipster.web.util.HeaderUtil;
 import sn.ngirwi.medical.utils.HeaderUtil;
 import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
@@ -44,9 +53,20 @@ public class PatientResource {
 
     private final PatientRepository patientRepository;
 
-    public PatientResource(PatientService patientService, PatientRepository patientRepository) {
+    private final DuplicatePatientService duplicatePatientService;
+
+    private final PatientImportService patientImportService;
+
+    public PatientResource(
+        PatientService patientService,
+        PatientRepository patientRepository,
+        DuplicatePatientService duplicatePatientService,
+        PatientImportService patientImportService
+    ) {
         this.patientService = patientService;
         this.patientRepository = patientRepository;
+        this.duplicatePatientService = duplicatePatientService;
+        this.patientImportService = patientImportService;
     }
 
     /**
@@ -54,6 +74,8 @@ public class PatientResource {
      *
      * @param patientDTO the patientDTO to create.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new patientDTO, or with status {@code 400 (Bad Request)} if the patient has already an ID.
+     * The ids of the existing patients that probably are the same person, if any, are listed in the
+     * {@code X-<app>-duplicate-candidates} header.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/patients")
@@ -66,11 +88,16 @@ public class PatientResource {
         if (normalizedCni != null && patientRepository.existsByCni(normalizedCni)) {
             throw new BadRequestAlertException("Un patient avec ce NIN existe déjà", ENTITY_NAME, "cniduplicate");
         }
+        List<DuplicateCandidateDTO> candidates = duplicatePatientService.findCandidates(patientDTO);
         PatientDTO result = patientService.save(patientDTO);
-        return ResponseEntity
-            .created(new URI("/api/patients/" + result.getId()))
-            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+        HttpHeaders headers = HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString());
+        if (!candidates.isEmpty()) {
+            headers.add(
+                "X-" + applicationName + "-duplicate-candidates",
+                candidates.stream().map(c -> c.getCandidateId().toString()).collect(Collectors.joining(","))
+            );
+        }
+        return ResponseEntity.created(new URI("/api/patients/" + result.getId())).headers(headers).body(result);
     }
 
     /**
@@ -168,6 +195,26 @@ public class PatientResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code POST  /patients/import} : import the patients of a UTF-8 CSV file, sent as the request body, into the
+     * hospital of the current user. The header names the columns (the fields of {@link PatientDTO}, any order); a
+     * known CNI of the hospital updates the patient. Invalid rows are skipped and listed in the report.
+     *
+     * @param csv the CSV.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the import report in body,
+     * or with status {@code 400 (Bad Request)} if the header is invalid or the file malformed.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/patients/import", consumes = { "text/csv", MediaType.TEXT_PLAIN_VALUE })
+    public ResponseEntity<PatientImportReportDTO> importPatients(InputStream csv) throws IOException {
+        log.debug("REST request to import Patients");
+        try {
+            return ResponseEntity.ok(patientImportService.importCsv(csv));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "importinvalid");
+        }
+    }
+
     @GetMapping("/patientsbis/{id}")
     public ResponseEntity<List<PatientDTO>> getAllPatientsBis(
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
@@ -197,6 +244,57 @@ public class PatientResource {
         return ResponseUtil.wrapOrNotFound(patientDTO);
     }
 
+    /**
+     * {@code GET  /patients/:id/timeline} : get the consultations, prescriptions, bills and hospitalisations of the
+     * "id" patient as one list of events, most recent first.
+     *
+     * @param id the id of the patient.
+     * @param cursor the {@code nextCursor} of the previous page, omitted for the first page.
+     * @param size the number of events per page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the page of events, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/patients/{id}/timeline")
+    public ResponseEntity<PatientTimelineDTO> getPatientTimeline(
+        @PathVariable Long id,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + PatientService.DEFAULT_TIMELINE_SIZE) int size
+    ) {
+        log.debug("REST request to get the timeline of Patient : {}", id);
+        try {
+            return ResponseUtil.wrapOrNotFound(patientService.timeline(id, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "timelineinvalid");
+        }
+    }
+
+    /**
+     * {@code POST  /patients/duplicate-candidates} : existing patients of the current hospital that probably are the
+     * same person as the patient about to be created (or updated), best score first.
+     *
+     * @param patientDTO the patient to check, saved or not.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the candidates in body.
+     */
+    @PostMapping("/patients/duplicate-candidates")
+    public ResponseEntity<List<DuplicateCandidateDTO>> getDuplicateCandidates(@RequestBody PatientDTO patientDTO) {
+        log.debug("REST request to get the duplicate candidates of Patient : {}", patientDTO);
+        return ResponseEntity.ok(duplicatePatientService.findCandidates(patientDTO));
+    }
+
+    /**
+     * {@code GET  /patients/duplicate-report} : the pairs of probable duplicates of the current hospital found by the
+     * last nightly report, best score first.
+     *
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pairs in body.
+     */
+    @GetMapping("/patients/duplicate-report")
+    public ResponseEntity<List<DuplicateCandidateDTO>> getDuplicateReport(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get a page of the duplicate patient report");
+        Page<DuplicateCandidateDTO> page = duplicatePatientService.report(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code DELETE  /patients/:id} : delete the "id" patient.
      *
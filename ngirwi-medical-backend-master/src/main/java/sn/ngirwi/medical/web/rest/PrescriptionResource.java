@@ -12,6 +12,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +20,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ngirwi.medical.repository.PrescriptionRepository;
 import sn.ngirwi.medical.service.PrescriptionService;
 import sn.ngirwi.medical.service.dto.PrescriptionDTO;
+import sn.ngirwi.medical.service.document.DocumentService;
 import sn.ngirwi.medical.utils.HeaderUtil;
 import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
 //import tech.jhipster.web.util.HeaderUtil;
@@ -43,9 +45,16 @@ public class PrescriptionResource {
 
     private final PrescriptionRepository prescriptionRepository;
 
-    public PrescriptionResource(PrescriptionService prescriptionService, PrescriptionRepository prescriptionRepository) {
+    private final DocumentService documentService;
+
+    public PrescriptionResource(
+        PrescriptionService prescriptionService,
+        PrescriptionRepository prescriptionRepository,
+        DocumentService documentService
+    ) {
         this.prescriptionService = prescriptionService;
         this.prescriptionRepository = prescriptionRepository;
+        this.documentService = documentService;
     }
 
     /**
@@ -190,6 +199,27 @@ public class PrescriptionResource {
         return ResponseUtil.wrapOrNotFound(prescriptionDTO);
     }
 
+    /**
+     * {@code GET  /prescriptions/:id.pdf} : get the "id" prescription as a printable PDF.
+     *
+     * @param id the id of the prescription to print.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the PDF in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/prescriptions/{id}.pdf")
+    public ResponseEntity<byte[]> getPrescriptionPdf(@PathVariable Long id) {
+        log.debug("REST request to print Prescription : {}", id);
+        return documentService
+            .prescriptionPdf(id)
+            .map(pdf -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_PDF);
+                headers.setContentDispositionFormData("inline", "ordonnance_" + id + ".pdf");
+                headers.setContentLength(pdf.length);
+                return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
+            })
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * {@code DELETE  /prescriptions/:id} : delete the "id" prescription.
      *
@@ -0,0 +1,51 @@
+package sn.ngirwi.medical.web.rest;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import sn.ngirwi.medical.security.AuthoritiesConstants;
+import sn.ngirwi.medical.service.RevenueReportService;
+import sn.ngirwi.medical.service.dto.RevenueReportRowDTO;
+import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
+
+/**
+ * REST controller for the activity reports.
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ReportResource {
+
+    private static final String ENTITY_NAME = "report";
+
+    private final Logger log = LoggerFactory.getLogger(ReportResource.class);
+
+    private final RevenueReportService revenueReportService;
+
+    public ReportResource(RevenueReportService revenueReportService) {
+        this.revenueReportService = revenueReportService;
+    }
+
+    /**
+     * GET /reports/revenue?from=&to=&groupBy= : revenue between two days (inclusive) grouped by
+     * {@code day} (default), {@code month}, {@code source}, {@code service} or {@code insurer}.
+     */
+    @GetMapping("/revenue")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<List<RevenueReportRowDTO>> getRevenue(
+        @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(value = "groupBy", defaultValue = RevenueReportService.GROUP_BY_DAY) String groupBy
+    ) {
+        log.debug("REST request to get revenue from {} to {} by {}", from, to, groupBy);
+        try {
+            return ResponseEntity.ok(revenueReportService.report(from, to, groupBy));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "reportinvalid");
+        }
+    }
+}
@@ -3,12 +3,15 @@ package sn.ngirwi.medical.web.rest;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.*;
@@ -17,7 +20,9 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.ngirwi.medical.repository.HospitalisationRepository;
 import sn.ngirwi.medical.repository.SurveillanceSheetRepository;
 import sn.ngirwi.medical.service.SurveillanceSheetService;
+import sn.ngirwi.medical.service.dto.SurveillanceSheetBatchResultDTO;
 import sn.ngirwi.medical.service.dto.SurveillanceSheetDTO;
+import sn.ngirwi.medical.service.dto.VitalsSeriesDTO;
 import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -35,6 +40,7 @@ import tech.jhipster.web.util.ResponseUtil;
 public class SurveillanceSheetResource {
 
     private static final String ENTITY_NAME = "surveillanceSheet";
+    private static final int MAX_BATCH_SIZE = 500;
     private final Logger log = LoggerFactory.getLogger(SurveillanceSheetResource.class);
 
     @Value("${jhipster.clientApp.name}")
@@ -94,6 +100,62 @@ public class SurveillanceSheetResource {
         }
     }
 
+    // --------------------------------------------------------------------------------------------
+    // BATCH CREATE : saisie du matin pour tout un service
+    // --------------------------------------------------------------------------------------------
+
+    /**
+     * POST /surveillance-sheets/batch : create many sheets in one transaction.
+     * Invalid sheets are reported individually and do not prevent the others from being created.
+     */
+    @PostMapping("/surveillance-sheets/batch")
+    public ResponseEntity<List<SurveillanceSheetBatchResultDTO>> createBatch(@RequestBody List<SurveillanceSheetDTO> dtos) {
+        log.debug("REST to create a batch of SurveillanceSheets : {}", dtos == null ? 0 : dtos.size());
+
+        if (dtos == null || dtos.isEmpty()) {
+            throw new BadRequestAlertException("The batch is empty", ENTITY_NAME, "batchempty");
+        }
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestAlertException("A batch cannot contain more than " + MAX_BATCH_SIZE + " sheets", ENTITY_NAME, "batchtoolarge");
+        }
+
+        try {
+            List<SurveillanceSheetBatchResultDTO> results = surveillanceSheetService.saveBatch(dtos);
+            long created = results.stream().filter(SurveillanceSheetBatchResultDTO::isCreated).count();
+            return ResponseEntity
+                .ok()
+                .headers(HeaderUtil.createAlert(applicationName, created + " surveillance sheets created", String.valueOf(created)))
+                .body(results);
+        } catch (IllegalStateException ex) {
+            throw new BadRequestAlertException(ex.getMessage(), ENTITY_NAME, "business_rule_violation");
+        }
+    }
+
+    /**
+     * POST /hospitalisations/{hospitalisationId}/surveillance-sheets/{date}/copy-forward :
+     * copy the medication and act lines (not the vitals) of the latest previous sheet onto the sheet of {@code date},
+     * creating it when needed.
+     */
+    @PostMapping("/hospitalisations/{hospitalisationId}/surveillance-sheets/{date}/copy-forward")
+    public ResponseEntity<SurveillanceSheetDTO> copyForward(
+        @PathVariable Long hospitalisationId,
+        @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        log.debug("REST to copy forward SurveillanceSheet lines (hospitalisationId={}, date={})", hospitalisationId, date);
+
+        try {
+            final SurveillanceSheetDTO result = surveillanceSheetService.copyForward(hospitalisationId, date);
+            return ResponseEntity
+                .ok()
+                .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, String.valueOf(result.getId())))
+                .body(result);
+        } catch (NoSuchElementException ex) {
+            throw new BadRequestAlertException(ex.getMessage(), ENTITY_NAME, "idnotfound");
+        } catch (IllegalStateException ex) {
+            throw new BadRequestAlertException(ex.getMessage(), ENTITY_NAME, "business_rule_violation");
+        }
+    }
+
     // --------------------------------------------------------------------------------------------
     // UPDATE (PUT): full update except hospitalisationId (immutable)
     // --------------------------------------------------------------------------------------------
@@ -248,6 +310,22 @@ public class SurveillanceSheetResource {
         return ResponseUtil.wrapOrNotFound(dto);
     }
 
+    /**
+     * GET /hospitalisations/{hospitalisationId}/vitals?maxPoints=N : vitals of the stay as parallel arrays for charts,
+     * averaged over consecutive sheets when there are more than {@code maxPoints} sheets.
+     */
+    @GetMapping("/hospitalisations/{hospitalisationId}/vitals")
+    public ResponseEntity<VitalsSeriesDTO> getVitals(
+        @PathVariable Long hospitalisationId,
+        @RequestParam(value = "maxPoints", required = false) Integer maxPoints
+    ) {
+        log.debug("REST to get vitals of hospitalisation {} (maxPoints={})", hospitalisationId, maxPoints);
+        if (maxPoints != null && maxPoints < 1) {
+            throw new BadRequestAlertException("maxPoints must be at least 1", ENTITY_NAME, "maxpointsinvalid");
+        }
+        return ResponseUtil.wrapOrNotFound(surveillanceSheetService.findVitals(hospitalisationId, maxPoints));
+    }
+
     // --------------------------------------------------------------------------------------------
     // GET ONE
     // --------------------------------------------------------------------------------------------
@@ -0,0 +1,46 @@
+package sn.ngirwi.medical.web.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import sn.ngirwi.medical.service.dto.SyncChangesDTO;
+import sn.ngirwi.medical.service.sync.SyncService;
+import sn.ngirwi.medical.web.rest.errors.BadRequestAlertException;
+
+/**
+ * REST controller for the delta synchronisation of the offline clients.
+ */
+@RestController
+@RequestMapping("/api")
+public class SyncResource {
+
+    private static final String ENTITY_NAME = "sync";
+
+    private final Logger log = LoggerFactory.getLogger(SyncResource.class);
+
+    private final SyncService syncService;
+
+    public SyncResource(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * GET /sync/changes?since= : the patients, consultations, prescriptions, bills and hospitalisations of the
+     * current hospital created, updated or deleted after the watermark {@code since}, in commit order (at most
+     * {@link SyncService#MAX_SIZE} changes per call). Call again with the returned {@code watermark} while
+     * {@code hasMore} is set.
+     */
+    @GetMapping("/sync/changes")
+    public ResponseEntity<SyncChangesDTO> getChanges(
+        @RequestParam(value = "since", required = false) String since,
+        @RequestParam(value = "size", defaultValue = "" + SyncService.DEFAULT_SIZE) int size
+    ) {
+        log.debug("REST request to get the changes since : {}", since);
+        try {
+            return ResponseEntity.ok(syncService.changes(since, size));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "syncinvalid");
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package sn.ngirwi.medical.web.rest.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import sn.ngirwi.medical.web.rest.vm.BatchOperationVM;
+import sn.ngirwi.medical.web.rest.vm.BatchResultVM;
+
+/**
+ * Executes the operations of a batch, in order and in one transaction, with the {@code @RestController} handlers of
+ * the API: each operation goes through the same handler mapping, argument conversion, validation and exception
+ * translation as a standalone request, and through the URL rules of the security configuration.
+ * <p>
+ * The first operation answered with an error status stops the batch and rolls the transaction back. So does an
+ * operation answered with a success status after a service it called failed: the handler caught the exception, but the
+ * transaction can only be rolled back, and the operation is reported as failed with status 500.
+ */
+@Component
+public class BatchDispatcher {
+
+    public static final int MAX_OPERATIONS = 50;
+
+    private static final String API = "/api/";
+
+    private static final String BATCH_PATH = "/api/batch";
+
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+
+    private static final Pattern REF = Pattern.compile("[A-Za-z0-9_-]{1,50}");
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\{([A-Za-z0-9_-]{1,50})((?:\\.[A-Za-z0-9_]+)+)}");
+
+    private final Logger log = LoggerFactory.getLogger(BatchDispatcher.class);
+
+    private final RequestMappingHandlerMapping handlerMapping;
+
+    private final RequestMappingHandlerAdapter handlerAdapter;
+
+    private final HandlerExceptionResolver exceptionResolver;
+
+    private final WebInvocationPrivilegeEvaluator privilegeEvaluator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    public BatchDispatcher(
+        @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+        RequestMappingHandlerAdapter handlerAdapter,
+        @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+        WebInvocationPrivilegeEvaluator privilegeEvaluator,
+        PlatformTransactionManager transactionManager,
+        ObjectMapper objectMapper
+    ) {
+        this.handlerMapping = handlerMapping;
+        this.handlerAdapter = handlerAdapter;
+        this.exceptionResolver = exceptionResolver;
+        this.privilegeEvaluator = privilegeEvaluator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Executes the operations in order, stopping at the first one answered with an error status.
+     *
+     * @param request the batch request, which provides the authentication and the server of the operations.
+     * @param response the batch response, untouched.
+     * @param operations the operations.
+     * @return the results of the executed operations; the last one is the failure when the batch was rolled back.
+     * @throws IllegalArgumentException if an operation is malformed or references an unknown value.
+     */
+    public List<BatchResultVM> execute(HttpServletRequest request, HttpServletResponse response, List<BatchOperationVM> operations) {
+        validate(operations);
+        return transactionTemplate.execute(status -> {
+            Map<String, JsonNode> references = new HashMap<>();
+            List<BatchResultVM> results = new ArrayList<>();
+            for (BatchOperationVM operation : operations) {
+                BatchResultVM result = dispatch(request, response, operation, references);
+                if (result.getStatus() < HttpStatus.BAD_REQUEST.value() && status.isRollbackOnly()) {
+                    log.warn("Batch operation {} {} succeeded after a failure of its transaction", operation.getMethod(), operation.getUrl());
+                    result = new BatchResultVM(operation.getRef(), HttpStatus.INTERNAL_SERVER_ERROR.value());
+                }
+                results.add(result);
+                if (result.getStatus() >= HttpStatus.BAD_REQUEST.value()) {
+                    log.debug("Batch rolled back at operation {} : {}", results.size(), result.getStatus());
+                    status.setRollbackOnly();
+                    break;
+                }
+                if (operation.getRef() != null) {
+                    references.put(operation.getRef(), result.getBody() != null ? result.getBody() : NullNode.getInstance());
+                }
+            }
+            return results;
+        });
+    }
+
+    private void validate(List<BatchOperationVM> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("A batch must have between 1 and " + MAX_OPERATIONS + " operations");
+        }
+        Set<String> refs = new HashSet<>();
+        for (BatchOperationVM operation : operations) {
+            if (operation == null || operation.getMethod() == null || !METHODS.contains(operation.getMethod().toUpperCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("The method of an operation must be one of " + METHODS);
+            }
+            if (operation.getUrl() == null || operation.getUrl().isBlank()) {
+                throw new IllegalArgumentException("An operation must have a url");
+            }
+            if (operation.getRef() != null && (!REF.matcher(operation.getRef()).matches() || !refs.add(operation.getRef()))) {
+                throw new IllegalArgumentException("Invalid or duplicate ref: " + operation.getRef());
+            }
+        }
+    }
+
+    private BatchResultVM dispatch(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        BatchOperationVM operation,
+        Map<String, JsonNode> references
+    ) {
+        String method = operation.getMethod().toUpperCase(Locale.ROOT);
+        UriComponents url = UriComponentsBuilder.fromUriString(substitute(operation.getUrl(), references)).build();
+        String path = url.getPath();
+        if (
+            path == null ||
+            !path.startsWith(API) ||
+            path.contains("..") ||
+            path.contains("//") ||
+            path.contains(";") ||
+            path.equals(BATCH_PATH) ||
+            path.startsWith(BATCH_PATH + "/")
+        ) {
+            throw new IllegalArgumentException("Invalid operation url: " + operation.getUrl());
+        }
+        if (!privilegeEvaluator.isAllowed(request.getContextPath(), path, method, SecurityContextHolder.getContext().getAuthentication())) {
+            return new BatchResultVM(operation.getRef(), HttpStatus.FORBIDDEN.value());
+        }
+
+        byte[] body = null;
+        if (operation.getBody() != null && !operation.getBody().isNull()) {
+            try {
+                body = objectMapper.writeValueAsBytes(substitute(operation.getBody(), references));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid operation body", e);
+            }
+        }
+
+        BatchSubRequest subRequest = new BatchSubRequest(request, method, url, body);
+        BatchSubResponse subResponse = new BatchSubResponse(response);
+        RequestAttributes batchAttributes = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(subRequest, subResponse));
+        try {
+            handle(subRequest, subResponse);
+        } finally {
+            RequestContextHolder.setRequestAttributes(batchAttributes);
+        }
+        return result(operation.getRef(), subResponse);
+    }
+
+    private void handle(BatchSubRequest subRequest, BatchSubResponse subResponse) {
+        Object handler = null;
+        try {
+            HandlerExecutionChain chain = handlerMapping.getHandler(subRequest);
+            if (chain == null) {
+                subResponse.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            handler = chain.getHandler();
+            handlerAdapter.handle(subRequest, subResponse, handler);
+        } catch (Exception e) {
+            subResponse.resetBuffer();
+            if (exceptionResolver.resolveException(subRequest, subResponse, handler, e) == null) {
+                log.error("Unresolved exception in batch operation {} {}", subRequest.getMethod(), subRequest.getRequestURI(), e);
+                subResponse.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    private BatchResultVM result(String ref, BatchSubResponse subResponse) {
+        BatchResultVM result = new BatchResultVM(ref, subResponse.getStatus());
+        subResponse
+            .getHeaderMap()
+            .forEach((name, values) -> {
+                if (!BatchSubRequest.isContentHeader(name)) {
+                    result.getHeaders().put(name, String.join(", ", values));
+                }
+            });
+        byte[] content = subResponse.getContent();
+        if (content.length == 0) {
+            return result;
+        }
+        MediaType contentType = subResponse.getContentType() != null
+            ? MediaType.parseMediaType(subResponse.getContentType())
+            : MediaType.APPLICATION_OCTET_STREAM;
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType) || contentType.getSubtype().endsWith("+json")) {
+            try {
+                result.setBody(objectMapper.readTree(content));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else if ("text".equals(contentType.getType())) {
+            Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+            result.setBody(TextNode.valueOf(new String(content, charset)));
+        } else {
+            // documents (PDF) are returned in base64
+            result.setBody(BinaryNode.valueOf(content));
+        }
+        return result;
+    }
+
+    private JsonNode substitute(JsonNode node, Map<String, JsonNode> references) {
+        if (node.isTextual()) {
+            Matcher reference = REFERENCE.matcher(node.textValue());
+            return reference.matches() ? resolve(reference, references) : TextNode.valueOf(substitute(node.textValue(), references));
+        }
+        if (node.isObject()) {
+            ObjectNode copy = objectMapper.createObjectNode();
+            node.fields().forEachRemaining(field -> copy.set(field.getKey(), substitute(field.getValue(), references)));
+            return copy;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = objectMapper.createArrayNode();
+            node.forEach(element -> copy.add(substitute(element, references)));
+            return copy;
+        }
+        return node;
+    }
+
+    private String substitute(String text, Map<String, JsonNode> references) {
+        Matcher reference = REFERENCE.matcher(text);
+        StringBuilder substituted = new StringBuilder();
+        while (reference.find()) {
+            reference.appendReplacement(substituted, Matcher.quoteReplacement(resolve(reference, references).asText()));
+        }
+        reference.appendTail(substituted);
+        return substituted.toString();
+    }
+
+    private JsonNode resolve(Matcher reference, Map<String, JsonNode> references) {
+        JsonNode value = references.get(reference.group(1));
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown reference: " + reference.group());
+        }
+        for (String field : reference.group(2).substring(1).split("\\.")) {
+            value = value.path(field);
+        }
+        if (!value.isValueNode() || value.isNull()) {
+            throw new IllegalArgumentException("Reference without value: " + reference.group());
+        }
+        return value;
+    }
+}
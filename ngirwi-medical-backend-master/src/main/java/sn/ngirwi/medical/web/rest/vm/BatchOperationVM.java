@@ -0,0 +1,63 @@
+package sn.ngirwi.medical.web.rest.vm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * View Model object for one sub-request of a batch: an HTTP method, an {@code /api/...} url and an optional JSON body.
+ * <p>
+ * The url and the string values of the body may reference the response body of an earlier sub-request by its
+ * {@code ref}, as {@code ${ref.field}} (for instance {@code ${consultation.id}}). A string made only of a reference
+ * is replaced by the referenced value itself, keeping its JSON type.
+ */
+public class BatchOperationVM {
+
+    private String ref;
+
+    private String method;
+
+    private String url;
+
+    private JsonNode body;
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchOperationVM{" +
+            "ref='" + ref + "'" +
+            ", method='" + method + "'" +
+            ", url='" + url + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,72 @@
+package sn.ngirwi.medical.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * View Model object for the response of one sub-request of a batch: its status, its headers (without the content
+ * headers) and its body, JSON or base64 for a binary document.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class BatchResultVM {
+
+    private String ref;
+
+    private int status;
+
+    private Map<String, String> headers = new LinkedHashMap<>();
+
+    private JsonNode body;
+
+    public BatchResultVM() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BatchResultVM(String ref, int status) {
+        this.ref = ref;
+        this.status = status;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchResultVM{" +
+            "ref='" + ref + "'" +
+            ", status=" + status +
+            "}";
+    }
+}
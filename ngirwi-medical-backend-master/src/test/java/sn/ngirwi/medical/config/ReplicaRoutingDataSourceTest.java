@@ -0,0 +1,71 @@
+package sn.ngirwi.medical.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(10);
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        dataSource.close();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() throws Exception {
+        createDataSource("SELECT 0");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(connectedDatabase()).contains("replica");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertThat(connectedDatabase()).contains("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToPrimaryWhenReplicaLags() throws Exception {
+        createDataSource("SELECT 60");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(dataSource.isReplicaUsable()).isFalse();
+        assertThat(connectedDatabase()).contains("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToPrimaryWhenLagCheckFails() throws Exception {
+        createDataSource("SELECT missing_column FROM missing_table");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(connectedDatabase()).contains("primary");
+    }
+
+    private void createDataSource(String lagQuery) {
+        dataSource = new ReplicaRoutingDataSource(pool("primary"), pool("replica"), lagQuery, MAX_LAG, Duration.ofHours(1));
+        // the first scheduled check runs asynchronously, run it synchronously as well
+        dataSource.checkLag(lagQuery, MAX_LAG);
+    }
+
+    private String connectedDatabase() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+}
@@ -0,0 +1,87 @@
+package sn.ngirwi.medical.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Saturates a small pool and checks the pool meters and the readiness health indicator.
+ */
+class ConnectionPoolHealthIndicatorTests {
+
+    private static final int POOL_SIZE = 2;
+
+    private static final int WAITING_THREADS = 5;
+
+    private MeterRegistry meterRegistry;
+
+    private HikariDataSource pool;
+
+    private ConnectionPoolHealthIndicator healthIndicator;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:pool-saturation;DB_CLOSE_DELAY=-1");
+        pool.setPoolName("test-pool");
+        pool.setMaximumPoolSize(POOL_SIZE);
+        pool.setConnectionTimeout(2000);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        healthIndicator = new ConnectionPoolHealthIndicator(List.of(pool), 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testSaturatedPoolIsOutOfServiceAndTimeoutsAreCounted() throws Exception {
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        ExecutorService executor = Executors.newFixedThreadPool(WAITING_THREADS);
+        for (int i = 0; i < WAITING_THREADS; i++) {
+            executor.submit(() -> {
+                try (Connection connection = pool.getConnection()) {
+                    return connection.isValid(1);
+                } catch (SQLException e) {
+                    return false;
+                }
+            });
+        }
+
+        long deadline = System.currentTimeMillis() + 1500;
+        while (pool.getHikariPoolMXBean().getThreadsAwaitingConnection() < WAITING_THREADS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("hikaricp.connections.pending").gauge().value()).isEqualTo(WAITING_THREADS);
+        assertThat(meterRegistry.get("hikaricp.connections.active").gauge().value()).isEqualTo(POOL_SIZE);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("hikaricp.connections.timeout").counter().count()).isEqualTo(WAITING_THREADS);
+        assertThat(meterRegistry.get("hikaricp.connections.acquire").timer().count()).isGreaterThanOrEqualTo(POOL_SIZE);
+
+        first.close();
+        second.close();
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
@@ -0,0 +1,40 @@
+package sn.ngirwi.medical.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sn.ngirwi.medical.config.ApplicationProperties;
+
+class SlowRequestRecorderTests {
+
+    private SlowRequestRecorder slowRequestRecorder;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMetrics().getSlowRequests().setThreshold(Duration.ofMillis(500));
+        applicationProperties.getMetrics().getSlowRequests().setCapacity(3);
+
+        slowRequestRecorder = new SlowRequestRecorder(applicationProperties);
+    }
+
+    @Test
+    void testOnlyRequestsAboveThresholdAreSlow() {
+        assertThat(slowRequestRecorder.isSlow(Duration.ofMillis(499))).isFalse();
+        assertThat(slowRequestRecorder.isSlow(Duration.ofMillis(500))).isTrue();
+    }
+
+    @Test
+    void testRingBufferKeepsMostRecentRequestsFirst() {
+        for (int i = 1; i <= 5; i++) {
+            slowRequestRecorder.record(new SlowRequest(Instant.now(), "GET /api/r" + i, "1", 200, 600, i, 10));
+        }
+
+        assertThat(slowRequestRecorder.getSlowRequests())
+            .extracting(SlowRequest::getEndpoint)
+            .containsExactly("GET /api/r5", "GET /api/r4", "GET /api/r3");
+    }
+}
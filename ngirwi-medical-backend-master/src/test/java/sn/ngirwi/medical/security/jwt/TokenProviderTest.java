@@ -19,6 +19,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.util.ReflectionTestUtils;
 import sn.ngirwi.medical.management.SecurityMetersService;
 import sn.ngirwi.medical.security.AuthoritiesConstants;
+import sn.ngirwi.medical.security.HospitalUserDetails;
 import tech.jhipster.config.JHipsterProperties;
 
 class TokenProviderTest {
@@ -88,6 +89,27 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testHospitalIdIsCarriedByToken() {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+        HospitalUserDetails principal = new HospitalUserDetails("user", "", authorities, 42L);
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken(principal, "", authorities), false);
+
+        Authentication authentication = tokenProvider.getAuthentication(token);
+
+        assertThat(authentication.getPrincipal()).isInstanceOf(HospitalUserDetails.class);
+        assertThat(((HospitalUserDetails) authentication.getPrincipal()).getHospitalId()).isEqualTo(42L);
+    }
+
+    @Test
+    void testHospitalIdIsNullWhenTokenHasNoHospital() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.getAuthentication(token);
+
+        assertThat(((HospitalUserDetails) authentication.getPrincipal()).getHospitalId()).isNull();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
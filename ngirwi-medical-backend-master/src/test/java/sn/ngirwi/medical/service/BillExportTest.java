@@ -0,0 +1,174 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.service.dto.BillDTO;
+import sn.ngirwi.medical.service.dto.BillElementDTO;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+@SpringBootTest
+@Transactional
+class BillExportTest {
+
+    private static final LocalDate FROM = LocalDate.of(2032, 4, 1);
+    private static final LocalDate TO = LocalDate.of(2032, 4, 30);
+
+    private static final long SYNTHETIC_ROWS = 1_000_000;
+
+    // The retained heap must not grow with the number of exported rows
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Patient patient;
+
+    @BeforeEach
+    void init() {
+        patient = PatientResourceIT.createEntity(em, "3900000000001", 9039L).lastName("Fall");
+        em.persist(patient);
+
+        billService.saveBis(bill("2032-04-02T10:00:00Z", "IPM Sonatel", "Consultation", "Radio, thorax"));
+        billService.saveBis(bill("2032-04-30T23:00:00Z", "IPM Sonatel", "=HYPERLINK(\"x\")"));
+        billService.saveBis(bill("2032-04-10T10:00:00Z", "AXA", "Consultation"));
+        billService.saveBis(bill("2032-05-01T00:00:00Z", "IPM Sonatel", "Consultation"));
+        em.flush();
+    }
+
+    @Test
+    void exportsOneCsvRowPerBillLineOfThePeriod() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = billService.export(FROM, TO, "IPM Sonatel", null, null, BillExportWriter.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).isEqualTo(String.join(",", BillExportWriter.COLUMNS));
+        assertThat(lines[1]).contains(",Fall,tester,IPM Sonatel,");
+        assertThat(lines[1] + lines[2]).contains("\"Radio, thorax\"");
+        assertThat(lines[3]).contains("\"'=HYPERLINK(\"\"x\"\")\"");
+    }
+
+    @Test
+    void exportsNdjsonFilteredByHospital() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = billService.export(FROM, TO, null, null, 9039L, BillExportWriter.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(4);
+        assertThat(lines).hasSize(4);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("patientLastName").asText()).isEqualTo("Fall");
+        assertThat(first.get("price").asLong()).isEqualTo(1000L);
+        assertThat(first.get("date").asText()).isEqualTo("2032-04-02T10:00:00Z");
+
+        out.reset();
+        assertThat(billService.export(FROM, TO, null, null, 1L, BillExportWriter.Format.NDJSON, out)).isZero();
+    }
+
+    @Test
+    void writesAMillionRowsInConstantMemory() throws Exception {
+        for (BillExportWriter.Format format : BillExportWriter.Format.values()) {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            long[] heap = new long[2];
+            CountingOutputStream out = new CountingOutputStream();
+            Stream<Object[]> rows = LongStream
+                .range(0, SYNTHETIC_ROWS)
+                .mapToObj(i -> {
+                    if (i == 1_000 || i == SYNTHETIC_ROWS - 1) {
+                        System.gc();
+                        heap[i == 1_000 ? 0 : 1] = memory.getHeapMemoryUsage().getUsed();
+                    }
+                    return syntheticRow(i);
+                });
+
+            assertThat(BillExportWriter.write(rows, format, out)).isEqualTo(SYNTHETIC_ROWS);
+            assertThat(out.count.get()).isGreaterThan(SYNTHETIC_ROWS * 100);
+            assertThat(heap[1] - heap[0]).isLessThan(MAX_HEAP_GROWTH);
+        }
+    }
+
+    private static Object[] syntheticRow(long i) {
+        return new Object[] {
+            i / 10,
+            Instant.ofEpochSecond(1_900_000_000L + i),
+            1L,
+            i / 10,
+            "Awa",
+            "Diop",
+            "tester",
+            "IPM Sonatel",
+            null,
+            new BigDecimal("15000.00"),
+            i,
+            "Acte " + i,
+            1500L,
+            0,
+            1,
+        };
+    }
+
+    private BillDTO bill(String date, String insurance, String... lines) {
+        BillDTO bill = new BillDTO();
+        bill.setDate(Instant.parse(date));
+        bill.setAuthor("tester");
+        bill.setInsurance(insurance);
+        PatientDTO patientDTO = new PatientDTO();
+        patientDTO.setId(patient.getId());
+        bill.setPatient(patientDTO);
+        Set<BillElementDTO> elements = new HashSet<>();
+        for (String name : lines) {
+            BillElementDTO line = new BillElementDTO();
+            line.setName(name);
+            line.setPrice(1000L);
+            line.setQuantity(1);
+            elements.add(line);
+        }
+        bill.setBillElements(elements);
+        return bill;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void write(int b) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count.addAndGet(len);
+        }
+    }
+}
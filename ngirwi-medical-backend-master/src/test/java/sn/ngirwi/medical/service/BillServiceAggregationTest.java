@@ -36,15 +36,15 @@ class BillServiceAggregationTest {
 
         BillElement e1 = new BillElement();
         e1.setName("Act A");
-        e1.setPrice(1000.0);
+        e1.setPrice(1000L);
         e1.setQuantity(2);
-        e1.setPercentage(10.0);
+        e1.setDiscountBp(1000);
         e1.setBill(bill);
         BillElement e2 = new BillElement();
         e2.setName("Act B");
-        e2.setPrice(500.0);
+        e2.setPrice(500L);
         e2.setQuantity(3);
-        e2.setPercentage(0.0);
+        e2.setDiscountBp(0);
         e2.setBill(bill);
         billElementRepository.saveAll(Arrays.asList(e1, e2));
 
@@ -0,0 +1,134 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.BillElement;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.service.dto.BillDTO;
+import sn.ngirwi.medical.service.dto.BillElementDTO;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks that writing a 100-line bill uses batched statements.
+ */
+@SpringBootTest
+@Transactional
+class BillServiceBatchWriteTest {
+
+    private static final int LINES = 100;
+
+    // hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 25;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private PatientDTO patient;
+
+    @BeforeEach
+    void init() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Patient entity = PatientResourceIT.createEntity(em, "2000000000001", null);
+        em.persist(entity);
+        em.flush();
+        patient = new PatientDTO();
+        patient.setId(entity.getId());
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void saveBisInsertsTheLinesInBatches() {
+        statistics.clear();
+        BillDTO saved = billService.saveBis(newBill());
+        em.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(LINES + 1);
+        // patient lookup, sequence, bill insert and at most one statement per batch of lines, instead of one per line
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 + LINES / BATCH_SIZE);
+        em.clear();
+        assertThat(em.find(Bill.class, saved.getId()).getBillElements()).hasSize(LINES);
+    }
+
+    @Test
+    void updateBisWritesOnlyTheDiff() {
+        BillDTO saved = billService.saveBis(newBill());
+        em.flush();
+        em.clear();
+
+        Bill bill = em.find(Bill.class, saved.getId());
+        BillDTO update = newBill();
+        update.setId(saved.getId());
+        update.setBillElements(new HashSet<>());
+        int index = 0;
+        for (BillElement element : bill.getBillElements()) {
+            if (index++ % 2 == 0) {
+                // keep every other line, changing the quantity of one of them
+                BillElementDTO line = line(element.getName());
+                line.setId(element.getId());
+                line.setQuantity(element.getName().equals("Acte 0") ? 5 : 1);
+                update.getBillElements().add(line);
+            }
+        }
+        update.getBillElements().add(line("Acte ajouté"));
+        em.clear();
+
+        statistics.clear();
+        billService.updateBis(update);
+        em.flush();
+
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(LINES / 2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isLessThanOrEqualTo(2);
+        // bill and lines reads, then the batched deletes, insert and update: no per-line SELECT or DELETE
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        em.clear();
+        assertThat(em.find(Bill.class, saved.getId()).getBillElements()).hasSize(LINES / 2 + 1);
+    }
+
+    private BillDTO newBill() {
+        BillDTO bill = new BillDTO();
+        bill.setDate(Instant.now());
+        bill.setAuthor("tester");
+        bill.setPatient(patient);
+        Set<BillElementDTO> lines = new HashSet<>();
+        for (int i = 0; i < LINES; i++) {
+            lines.add(line("Acte " + i));
+        }
+        bill.setBillElements(lines);
+        return bill;
+    }
+
+    private static BillElementDTO line(String name) {
+        BillElementDTO line = new BillElementDTO();
+        line.setName(name);
+        line.setPrice(1000L);
+        line.setPercentage(0.0);
+        line.setQuantity(1);
+        return line;
+    }
+}
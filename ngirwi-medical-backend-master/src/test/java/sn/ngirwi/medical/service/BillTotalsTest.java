@@ -0,0 +1,68 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import sn.ngirwi.medical.domain.BillElement;
+
+class BillTotalsTest {
+
+    @Test
+    void appliesDiscountInBasisPoints() {
+        // 1000 * 2 * (1 - 10 %) = 1800
+        assertThat(BillTotals.net(1000L, 2, 1000)).isEqualTo(1800L);
+        assertThat(BillTotals.net(1000L, 2, 0)).isEqualTo(2000L);
+        assertThat(BillTotals.net(1000L, 2, BillTotals.FULL_BP)).isZero();
+    }
+
+    @Test
+    void roundsHalfUpOnceOverTheWholeBill() {
+        // three lines of 5.5 FCFA: rounded per line it would be 18, summed first 16.5 rounds to 17
+        List<BillElement> elements = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            elements.add(new BillElement().price(11L).quantity(1).discountBp(5000));
+        }
+        assertThat(BillTotals.total(elements)).isEqualTo(17L);
+        assertThat(BillTotals.afterCoverage(15L, 5000)).isEqualTo(8L);
+    }
+
+    @Test
+    void missingValuesCountAsZero() {
+        List<BillElement> elements = List.of(new BillElement().price(500L), new BillElement().quantity(3), new BillElement().price(500L).quantity(3));
+        assertThat(BillTotals.total(elements)).isEqualTo(1500L);
+        assertThat(BillTotals.total(null)).isZero();
+    }
+
+    @Test
+    void convertsPercentagesToBasisPoints() {
+        assertThat(BillTotals.toBasisPoints(new BigDecimal("12.5"))).isEqualTo(1250);
+        assertThat(BillTotals.toBasisPoints(12.345)).isEqualTo(1235);
+        assertThat(BillTotals.toBasisPoints((Double) null)).isNull();
+        assertThat(BillTotals.toPercent(1250)).isEqualTo(12.5);
+    }
+
+    @Test
+    void matchesTheBigDecimalFormula() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<BillElement> elements = new ArrayList<>();
+            BigDecimal expected = BigDecimal.ZERO;
+            for (int i = 0; i < 1 + random.nextInt(30); i++) {
+                long price = random.nextInt(500_000);
+                int qty = random.nextInt(20);
+                int bp = random.nextInt(BillTotals.FULL_BP + 1);
+                elements.add(new BillElement().price(price).quantity(qty).discountBp(bp));
+
+                BigDecimal gross = BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(qty));
+                BigDecimal pct = BigDecimal.valueOf(bp).movePointLeft(2);
+                expected = expected.add(gross.subtract(gross.multiply(pct).divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP)));
+            }
+            assertThat(BillTotals.total(elements)).isEqualTo(expected.setScale(0, RoundingMode.HALF_UP).longValueExact());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.repository.ConsultationRepository;
+import sn.ngirwi.medical.service.dto.ClinicalSearchResultDTO;
+import sn.ngirwi.medical.service.dto.ClinicalSearchResultDTO.Type;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks the clinical full-text search. The tests run on H2, i.e. on the LIKE fallback of the repository; the
+ * PostgreSQL ranking and headlines are not exercised here.
+ */
+@SpringBootTest
+@Transactional
+class ClinicalSearchTest {
+
+    private static final long HOSPITAL = 9460L;
+
+    private static final long OTHER_HOSPITAL = 9461L;
+
+    @Autowired
+    private ClinicalSearchService clinicalSearchService;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Consultation recent;
+
+    private Consultation older;
+
+    private Hospitalisation hospitalisation;
+
+    private Consultation otherHospital;
+
+    @BeforeEach
+    void init() {
+        Patient patient = PatientResourceIT.createEntity(em, "4600000000001", HOSPITAL).lastName("Ba");
+        em.persist(patient);
+        Patient other = PatientResourceIT.createEntity(em, "4600000000002", OTHER_HOSPITAL);
+        em.persist(other);
+
+        older = consultation(patient, Instant.parse("2034-01-10T09:00:00Z"), "Leptospirose probable", "Doxycycline <script>");
+        recent = consultation(patient, Instant.parse("2034-03-10T09:00:00Z"), "Fièvre, suspicion de LEPTOSPIROSE sévère", "Repos");
+        consultation(patient, Instant.parse("2034-03-11T09:00:00Z"), "Paludisme", "Artéméther");
+        hospitalisation =
+            new Hospitalisation()
+                .entryDate(Instant.parse("2034-02-10T09:00:00Z"))
+                .doctorName("Dr Ba")
+                .entryDiagnosis("Fièvre")
+                .finalDiagnosis("Leptospirose sévère")
+                .patient(patient);
+        em.persist(hospitalisation);
+        otherHospital = consultation(other, Instant.parse("2034-04-10T09:00:00Z"), "Leptospirose", "Repos");
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findsConsultationsAndHospitalisationsContainingEveryWord() {
+        Page<ClinicalSearchResultDTO> page = clinicalSearchService.search("leptospirose", PageRequest.of(0, 10));
+        assertThat(page.getContent())
+            .extracting(ClinicalSearchResultDTO::getType, ClinicalSearchResultDTO::getId)
+            .containsExactly(
+                tuple(Type.CONSULTATION, otherHospital.getId()),
+                tuple(Type.CONSULTATION, recent.getId()),
+                tuple(Type.HOSPITALISATION, hospitalisation.getId()),
+                tuple(Type.CONSULTATION, older.getId())
+            );
+
+        List<ClinicalSearchResultDTO> severe = clinicalSearchService.search("Leptospirose, sévère !", PageRequest.of(0, 10)).getContent();
+        assertThat(severe)
+            .extracting(ClinicalSearchResultDTO::getType, ClinicalSearchResultDTO::getId)
+            .containsExactly(tuple(Type.CONSULTATION, recent.getId()), tuple(Type.HOSPITALISATION, hospitalisation.getId()));
+        assertThat(severe.get(0).getHeadline()).contains("<mark>LEPTOSPIROSE</mark> <mark>sévère</mark>");
+        assertThat(severe.get(0).getPatientLastName()).isEqualTo("Ba");
+    }
+
+    @Test
+    void escapesTheClinicalTextAroundTheMarks() {
+        ClinicalSearchResultDTO hit = clinicalSearchService.search("doxycycline", PageRequest.of(0, 10)).getContent().get(0);
+        assertThat(hit.getId()).isEqualTo(older.getId());
+        assertThat(hit.getHeadline()).contains("<mark>Doxycycline</mark> &lt;script&gt;").doesNotContain("<script>");
+    }
+
+    @Test
+    void restrictsTheSearchToTheHospital() {
+        List<String> terms = List.of("leptospirose");
+        assertThat(consultationRepository.searchClinical(terms, OTHER_HOSPITAL, 0, 10))
+            .extracting(row -> row[1])
+            .containsExactly(otherHospital.getId());
+        assertThat(consultationRepository.countClinical(terms, HOSPITAL)).isEqualTo(3);
+    }
+
+    @Test
+    void paginatesTheHits() {
+        Page<ClinicalSearchResultDTO> first = clinicalSearchService.search("leptospirose", PageRequest.of(0, 3));
+        Page<ClinicalSearchResultDTO> second = clinicalSearchService.search("leptospirose", PageRequest.of(1, 3));
+        assertThat(first.getTotalElements()).isEqualTo(4);
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(second.getContent()).extracting(ClinicalSearchResultDTO::getId).containsExactly(older.getId());
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThatThrownBy(() -> clinicalSearchService.search(" ", PageRequest.of(0, 10))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> clinicalSearchService.search("?!", PageRequest.of(0, 10))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> clinicalSearchService.search("x".repeat(ClinicalSearchService.MAX_QUERY_LENGTH + 1), PageRequest.of(0, 10)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> clinicalSearchService.search("fièvre", PageRequest.of(0, ClinicalSearchService.MAX_PAGE_SIZE + 1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Consultation consultation(Patient p, Instant date, String hypothesis, String treatment) {
+        Consultation consultation = new Consultation()
+            .dateTime(date)
+            .temperature(38.5)
+            .weight(70.0)
+            .tension("12/8")
+            .hypothesis(hypothesis)
+            .exams("NFS")
+            .treatment(treatment)
+            .author("dr.ba")
+            .patient(p);
+        em.persist(consultation);
+        return consultation;
+    }
+}
@@ -0,0 +1,62 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Authority;
+import sn.ngirwi.medical.repository.AuthorityRepository;
+import sn.ngirwi.medical.security.AuthoritiesConstants;
+import sn.ngirwi.medical.service.dto.AdminUserDTO;
+import sn.ngirwi.medical.service.dto.DoctorDTO;
+
+@SpringBootTest
+class DoctorServiceTest {
+
+    private static final Long HOSPITAL_ID = 987_654L;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Test
+    @Transactional
+    void findAllByHospital_onlyReturnsDoctors_andIsRefreshedOnUserChanges() {
+        Authority doctor = new Authority();
+        doctor.setName(AuthoritiesConstants.DOCTOR);
+        authorityRepository.saveAndFlush(doctor);
+
+        userService.createUser(newUser("doctor.one@localhost", AuthoritiesConstants.DOCTOR));
+        userService.createUser(newUser("secretary@localhost", AuthoritiesConstants.USER));
+
+        assertThat(doctorService.findAllByHospital(HOSPITAL_ID)).extracting(DoctorDTO::getLogin).containsExactly("doctor.one@localhost");
+
+        userService.createUser(newUser("doctor.two@localhost", AuthoritiesConstants.DOCTOR));
+
+        assertThat(doctorService.findAllByHospital(HOSPITAL_ID))
+            .extracting(DoctorDTO::getLogin)
+            .containsExactlyInAnyOrder("doctor.one@localhost", "doctor.two@localhost");
+
+        userService.deleteUser("doctor.one@localhost");
+
+        assertThat(doctorService.findAllByHospital(HOSPITAL_ID)).extracting(DoctorDTO::getLogin).containsExactly("doctor.two@localhost");
+    }
+
+    private AdminUserDTO newUser(String email, String authority) {
+        AdminUserDTO dto = new AdminUserDTO();
+        dto.setEmail(email);
+        dto.setFirstName("first");
+        dto.setLastName(email);
+        dto.setHospitalId(HOSPITAL_ID);
+        dto.setAuthorities(Set.of(authority));
+        return dto;
+    }
+}
@@ -0,0 +1,46 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class EarlyWarningScoreTest {
+
+    @Test
+    void noVitalsHasNoScore() {
+        assertThat(EarlyWarningScore.compute(null, null, null, null, null)).isNull();
+    }
+
+    @Test
+    void normalVitalsScoreZero() {
+        assertThat(EarlyWarningScore.compute(new BigDecimal("37.0"), 120, 70, 16, 98)).isZero();
+    }
+
+    @Test
+    void missingVitalsScoreZero() {
+        assertThat(EarlyWarningScore.compute(null, null, 135, null, null)).isEqualTo(3);
+    }
+
+    @Test
+    void sumsTheBandsOfEachVital() {
+        // temperature 38.5 -> 1, systolic 95 -> 2, pulse 115 -> 2, respiration 22 -> 2, SpO2 93 -> 2
+        assertThat(EarlyWarningScore.compute(new BigDecimal("38.5"), 95, 115, 22, 93)).isEqualTo(9);
+    }
+
+    @Test
+    void bandLimitsAreInclusive() {
+        assertThat(EarlyWarningScore.respirationRate(8)).isEqualTo(3);
+        assertThat(EarlyWarningScore.respirationRate(9)).isEqualTo(1);
+        assertThat(EarlyWarningScore.respirationRate(25)).isEqualTo(3);
+        assertThat(EarlyWarningScore.spo2(91)).isEqualTo(3);
+        assertThat(EarlyWarningScore.spo2(96)).isZero();
+        assertThat(EarlyWarningScore.systolicBP(110)).isEqualTo(1);
+        assertThat(EarlyWarningScore.systolicBP(220)).isEqualTo(3);
+        assertThat(EarlyWarningScore.pulseRate(40)).isEqualTo(3);
+        assertThat(EarlyWarningScore.pulseRate(91)).isEqualTo(1);
+        assertThat(EarlyWarningScore.temperature(new BigDecimal("35.0"))).isEqualTo(3);
+        assertThat(EarlyWarningScore.temperature(new BigDecimal("36.1"))).isZero();
+        assertThat(EarlyWarningScore.temperature(new BigDecimal("39.1"))).isEqualTo(2);
+    }
+}
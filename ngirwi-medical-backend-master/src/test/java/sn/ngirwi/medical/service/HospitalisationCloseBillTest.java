@@ -0,0 +1,150 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.ActEntry;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.BillElement;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.MedicationEntry;
+import sn.ngirwi.medical.domain.MiniConsultation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.SurveillanceSheet;
+import sn.ngirwi.medical.service.dto.RevenueReportRowDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks that closing a hospitalisation with {@code generateBill} produces a fully itemised bill.
+ */
+@SpringBootTest
+@Transactional
+class HospitalisationCloseBillTest {
+
+    private static final Instant RELEASE = Instant.parse("2033-05-04T10:00:00Z");
+
+    @Autowired
+    private HospitalisationService hospitalisationService;
+
+    @Autowired
+    private RevenueReportService revenueReportService;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private Hospitalisation hospitalisation;
+
+    @BeforeEach
+    void init() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Patient patient = PatientResourceIT.createEntity(em, "4000000000001", 9040L);
+        em.persist(patient);
+
+        hospitalisation = new Hospitalisation()
+            .entryDate(Instant.parse("2033-05-01T08:00:00Z"))
+            .doctorName("Dr Test")
+            .patient(patient);
+        hospitalisation.setService("Médecine interne");
+        hospitalisation.setDailyRate(new BigDecimal("10000"));
+        hospitalisation.setComfortFees(new BigDecimal("2000"));
+        hospitalisation.setInsuranceCoveragePercent(new BigDecimal("20"));
+        em.persist(hospitalisation);
+
+        sheet(LocalDate.of(2033, 5, 1), List.of(medication("Paracétamol", "500", 2)), List.of(act("ECG", "5000", 1)));
+        sheet(LocalDate.of(2033, 5, 2), List.of(medication("Paracétamol", "500", 3), medication("Amoxicilline", "1500", 1)), List.of());
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void closeItemisesTheBill() {
+        statistics.clear();
+        hospitalisationService.close(hospitalisation.getId(), RELEASE, "Guéri", true);
+        em.flush();
+
+        // 6 lines and the bill; reads, aggregate query, sequence, updates and batched inserts do not depend on the line count
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(7);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        em.clear();
+
+        Bill bill = em
+            .createQuery("select b from Bill b where b.hospitalisationId = :id", Bill.class)
+            .setParameter("id", hospitalisation.getId())
+            .getSingleResult();
+        assertThat(bill.getBillElements())
+            .extracting(BillElement::getName, BillElement::getPrice, BillElement::getQuantity, BillElement::getDiscountBp)
+            .containsExactlyInAnyOrder(
+                tuple("Forfait séjour", 10000L, 3, 2000),
+                tuple("Frais de confort", 2000L, 1, 2000),
+                tuple("Médicament : Paracétamol", 500L, 5, 2000),
+                tuple("Médicament : Amoxicilline", 1500L, 1, 2000),
+                tuple("Acte : ECG", 5000L, 1, 2000),
+                tuple("Mini-consultation", 3000L, 2, 2000)
+            );
+        // (30000 + 2000 + 2500 + 1500 + 5000 + 6000) * 80 %
+        assertThat(bill.getTotal()).isEqualByComparingTo("37600");
+        assertThat(em.find(Hospitalisation.class, hospitalisation.getId()).getTotalAmount()).isEqualByComparingTo("37600");
+        assertThat(hospitalisationService.calculateResume(hospitalisation.getId()).getTotalAmount()).isEqualByComparingTo("37600");
+    }
+
+    @Test
+    void theGeneratedBillIsNotCountedTwiceInTheRevenue() {
+        hospitalisationService.close(hospitalisation.getId(), RELEASE, null, true);
+        LocalDate day = LocalDate.of(2033, 5, 4);
+        revenueReportService.reconcile(LocalDate.of(2033, 5, 1), day);
+
+        assertThat(revenueReportService.report(day, day, "source"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount)
+            .containsExactly(tuple("HOSPITALISATION", 37600L));
+    }
+
+    private void sheet(LocalDate date, List<MedicationEntry> medications, List<ActEntry> acts) {
+        SurveillanceSheet sheet = new SurveillanceSheet().sheetDate(date).hospitalisation(hospitalisation);
+        sheet.setMedications(new ArrayList<>(medications));
+        sheet.setActs(new ArrayList<>(acts));
+        MiniConsultation miniConsultation = new MiniConsultation();
+        miniConsultation.setPrice(new BigDecimal("3000"));
+        miniConsultation.setSurveillanceSheet(sheet);
+        sheet.setMiniConsultations(new ArrayList<>(List.of(miniConsultation)));
+        em.persist(sheet);
+    }
+
+    private static MedicationEntry medication(String name, String unitPrice, int quantity) {
+        MedicationEntry medication = new MedicationEntry();
+        medication.setNom(name);
+        medication.setPrixUnitaire(new BigDecimal(unitPrice));
+        medication.setQuantite(quantity);
+        return medication;
+    }
+
+    private static ActEntry act(String name, String unitPrice, int quantity) {
+        ActEntry act = new ActEntry();
+        act.setNom(name);
+        act.setPrixUnitaire(new BigDecimal(unitPrice));
+        act.setQuantite(quantity);
+        return act;
+    }
+}
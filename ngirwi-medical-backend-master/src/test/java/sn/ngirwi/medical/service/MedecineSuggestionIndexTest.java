@@ -0,0 +1,138 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Medecine;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.service.dto.ConsultationDTO;
+import sn.ngirwi.medical.service.dto.PrescriptionDTO;
+import sn.ngirwi.medical.service.model.PrescriptionForm;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+@SpringBootTest
+@Transactional
+@RecordApplicationEvents
+class MedecineSuggestionIndexTest {
+
+    @Autowired
+    private MedecineSuggestionIndex index;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void suggestsByPrefixIgnoringCaseAndAccentsMostPrescribedFirst() {
+        index.record(9410L, List.of("Paracétamol 500mg", "Paracétamol 500mg", "Paracetamol 1g", "Pénicilline", "Amoxicilline"));
+        index.record(9410L, List.of("paracétamol  500MG", "Paracetamol 1g", "Paracetamol 1g"));
+        index.record(9411L, List.of("Paroxétine"));
+
+        assertThat(index.suggest(9410L, "PARA", 10)).containsExactly("Paracetamol 1g", "Paracétamol 500mg");
+        assertThat(index.suggest(9410L, "pe", 10)).containsExactly("Pénicilline");
+        assertThat(index.suggest(9410L, "para", 1)).containsExactly("Paracetamol 1g");
+        assertThat(index.suggest(9410L, "parox", 10)).isEmpty();
+        assertThat(index.suggest(9411L, "par", 10)).containsExactly("Paroxétine");
+        assertThat(index.suggest(9410L, "  ", 10)).isEmpty();
+        assertThat(index.suggest(null, "para", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsABoundedNumberOfNamesPerHospital() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < MedecineSuggestionIndex.MAX_NAMES_PER_HOSPITAL; i++) {
+            names.add("Produit " + i);
+        }
+        index.record(9412L, names);
+        index.record(9412L, List.of("Extra", "Produit 1"));
+
+        assertThat(index.suggest(9412L, "extra", 10)).isEmpty();
+        assertThat(index.suggest(9412L, "produit 1", 1)).containsExactly("Produit 1");
+    }
+
+    @Test
+    void looksUpInLessThanAMillisecond() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < MedecineSuggestionIndex.MAX_NAMES_PER_HOSPITAL; i++) {
+            names.add((char) ('a' + i % 26) + "médicament " + i);
+        }
+        index.record(9413L, names);
+        index.suggest(9413L, "a", 10);
+
+        int lookups = 10_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            assertThat(index.suggest(9413L, String.valueOf((char) ('a' + i % 26)), 10)).hasSize(10);
+        }
+        long averageNanos = (System.nanoTime() - start) / lookups;
+        assertThat(averageNanos).isLessThan(1_000_000L);
+    }
+
+    @Test
+    void rebuildsFromThePrescribedMedecines() {
+        Consultation consultation = consultation(9414L);
+        Prescription prescription = new Prescription().author("tester").consultation(consultation);
+        em.persist(prescription);
+        em.persist(new Medecine().name("Doliprane").ordonance(prescription));
+        em.persist(new Medecine().name("Doliprane").ordonance(prescription));
+        em.persist(new Medecine().name("Dafalgan").ordonance(prescription));
+        em.flush();
+
+        index.rebuild();
+
+        assertThat(index.suggest(9414L, "d", 10)).containsExactly("Doliprane", "Dafalgan");
+    }
+
+    @Test
+    void savingAPrescriptionPublishesItsMedecines() {
+        Consultation consultation = consultation(9415L);
+        ConsultationDTO consultationDTO = new ConsultationDTO();
+        consultationDTO.setId(consultation.getId());
+        PrescriptionDTO prescription = new PrescriptionDTO();
+        prescription.setAuthor("tester");
+        prescription.setCreationDate(Instant.now());
+        prescription.setConsultation(consultationDTO);
+        PrescriptionForm line = new PrescriptionForm();
+        line.setName("Ibuprofène");
+        prescription.setMedecines(Set.of(line));
+
+        prescriptionService.saveBis(prescription);
+
+        assertThat(events.stream(MedecinesPrescribedEvent.class))
+            .extracting(MedecinesPrescribedEvent::getHospitalId, MedecinesPrescribedEvent::getNames)
+            .containsExactly(tuple(9415L, List.of("Ibuprofène")));
+    }
+
+    private Consultation consultation(Long hospitalId) {
+        Patient patient = PatientResourceIT.createEntity(em, "410000000" + hospitalId, hospitalId);
+        em.persist(patient);
+        Consultation consultation = new Consultation()
+            .temperature(37.0)
+            .weight(60.0)
+            .tension("12/8")
+            .hypothesis("RAS")
+            .exams("RAS")
+            .treatment("RAS")
+            .patient(patient);
+        em.persist(consultation);
+        return consultation;
+    }
+}
@@ -0,0 +1,150 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.assertj.core.groups.Tuple;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.service.dto.PatientTimelineDTO;
+import sn.ngirwi.medical.service.dto.TimelineEventDTO;
+import sn.ngirwi.medical.service.dto.TimelineEventDTO.Type;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks the merged, keyset-paginated patient timeline.
+ */
+@SpringBootTest
+@Transactional
+class PatientTimelineTest {
+
+    private static final Instant DAY_1 = Instant.parse("2034-01-10T09:00:00Z");
+    private static final Instant DAY_2 = Instant.parse("2034-02-10T09:00:00Z");
+    private static final Instant DAY_3 = Instant.parse("2034-03-10T09:00:00Z");
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private Patient patient;
+
+    private final List<Tuple> expected = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        patient = PatientResourceIT.createEntity(em, "4500000000001", 9450L);
+        em.persist(patient);
+        Patient other = PatientResourceIT.createEntity(em, "4500000000002", 9450L);
+        em.persist(other);
+
+        Consultation first = consultation(patient, DAY_1, "Paludisme");
+        Prescription prescription = new Prescription().author("dr.fall").creationDate(DAY_1).consultation(first);
+        em.persist(prescription);
+        Bill bill = new Bill().author("caisse").date(DAY_2).desc("Consultation").total(new BigDecimal("15000")).patient(patient);
+        em.persist(bill);
+        Hospitalisation hospitalisation = new Hospitalisation().entryDate(DAY_2).doctorName("Dr Fall").patient(patient);
+        hospitalisation.setAdmissionReason("Déshydratation");
+        em.persist(hospitalisation);
+        Consultation second = consultation(patient, DAY_3, "Contrôle");
+        Consultation undated = consultation(patient, null, "Sans date");
+        Bill undatedBill = new Bill().author("caisse").desc("Carnet").total(new BigDecimal("1000")).patient(patient);
+        em.persist(undatedBill);
+        consultation(other, DAY_3, "Autre patient");
+        em.flush();
+        em.clear();
+
+        // most recent first; same date ordered by kind then id, descending; undated last
+        expected.add(tuple(Type.CONSULTATION, second.getId()));
+        expected.add(tuple(Type.HOSPITALISATION, hospitalisation.getId()));
+        expected.add(tuple(Type.BILL, bill.getId()));
+        expected.add(tuple(Type.PRESCRIPTION, prescription.getId()));
+        expected.add(tuple(Type.CONSULTATION, first.getId()));
+        expected.add(tuple(Type.CONSULTATION, undated.getId()));
+        expected.add(tuple(Type.BILL, undatedBill.getId()));
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void returnsAllEventsInOnePage() {
+        statistics.clear();
+        PatientTimelineDTO page = patientService.timeline(patient.getId(), null, 10).orElseThrow();
+
+        // patient lookup and the UNION query
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(page.getEvents()).extracting(TimelineEventDTO::getType, TimelineEventDTO::getId).containsExactlyElementsOf(expected);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getEvents().get(1).getSummary()).isEqualTo("Déshydratation");
+        assertThat(page.getEvents().get(2).getAmount()).isEqualByComparingTo("15000");
+        assertThat(page.getEvents().get(5).getDate()).isNull();
+    }
+
+    @Test
+    void pagesWithTheCursorWithoutGapsOrDuplicates() {
+        List<TimelineEventDTO> events = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PatientTimelineDTO page = patientService.timeline(patient.getId(), cursor, 2).orElseThrow();
+            assertThat(page.getEvents()).hasSizeLessThanOrEqualTo(2);
+            events.addAll(page.getEvents());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // the third page ends on an undated event: the last one continues in the undated segment
+        assertThat(pages).isEqualTo(4);
+        assertThat(events).extracting(TimelineEventDTO::getType, TimelineEventDTO::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertThat(patientService.timeline(Long.MAX_VALUE, null, 10)).isEmpty();
+        assertThatThrownBy(() -> patientService.timeline(patient.getId(), "not-a-cursor", 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> patientService.timeline(patient.getId(), null, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> patientService.timeline(patient.getId(), null, PatientService.MAX_TIMELINE_SIZE + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Consultation consultation(Patient p, Instant date, String hypothesis) {
+        Consultation consultation = new Consultation()
+            .dateTime(date)
+            .temperature(37.0)
+            .weight(60.0)
+            .tension("12/8")
+            .hypothesis(hypothesis)
+            .exams("RAS")
+            .treatment("RAS")
+            .author("dr.fall")
+            .patient(p);
+        em.persist(consultation);
+        return consultation;
+    }
+}
@@ -0,0 +1,167 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Medecine;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.repository.MedecineRepository;
+import sn.ngirwi.medical.service.dto.ConsultationDTO;
+import sn.ngirwi.medical.service.dto.PrescriptionDTO;
+import sn.ngirwi.medical.service.model.PrescriptionForm;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks that writing and deleting a 20-line prescription uses batched and bulk statements.
+ */
+@SpringBootTest
+@Transactional
+class PrescriptionServiceBatchWriteTest {
+
+    private static final int LINES = 20;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private MedecineRepository medecineRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private ConsultationDTO consultation;
+
+    @BeforeEach
+    void init() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Patient patient = PatientResourceIT.createEntity(em, "4200000000001", null);
+        em.persist(patient);
+        Consultation entity = new Consultation()
+            .temperature(37.0)
+            .weight(70.0)
+            .tension("13/8")
+            .hypothesis("Paludisme")
+            .exams("TDR")
+            .treatment("ACT")
+            .patient(patient);
+        em.persist(entity);
+        em.flush();
+        em.clear();
+        consultation = new ConsultationDTO();
+        consultation.setId(entity.getId());
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void saveBisInsertsTheLinesInOneBatch() {
+        statistics.clear();
+        PrescriptionDTO saved = prescriptionService.saveBis(newPrescription());
+        em.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(LINES + 1);
+        // consultation lookup, sequence, prescription insert and one batch of lines, instead of one statement per line
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(medecineRepository.findByOrdonance_Id(saved.getId())).hasSize(LINES);
+    }
+
+    @Test
+    void updateBisWritesOnlyTheDiff() {
+        PrescriptionDTO saved = prescriptionService.saveBis(newPrescription());
+        em.flush();
+        em.clear();
+
+        PrescriptionDTO update = newPrescription();
+        update.setId(saved.getId());
+        update.setMedecines(new HashSet<>());
+        int index = 0;
+        Long changedId = null;
+        for (Medecine medecine : medecineRepository.findByOrdonance_Id(saved.getId())) {
+            if (index++ % 2 == 0) {
+                // keep every other line, changing the duration of the first one
+                PrescriptionForm line = line(medecine.getName());
+                line.setId(medecine.getId());
+                if (changedId == null) {
+                    changedId = medecine.getId();
+                    line.setDuration("10");
+                }
+                update.getMedecines().add(line);
+            }
+        }
+        update.getMedecines().add(line("Médicament ajouté"));
+        em.clear();
+
+        statistics.clear();
+        prescriptionService.updateBis(update);
+        em.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isLessThanOrEqualTo(2);
+        // prescription and lines reads, one bulk DELETE, then the insert and updates: nothing per removed line
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(7);
+        em.clear();
+        List<Medecine> medecines = medecineRepository.findByOrdonance_Id(saved.getId());
+        assertThat(medecines).hasSize(LINES / 2 + 1);
+        Long changed = changedId;
+        assertThat(medecines).filteredOn(m -> m.getId().equals(changed)).extracting(Medecine::getDuration).containsExactly(10L);
+    }
+
+    @Test
+    void deleteRemovesTheLinesWithOneStatement() {
+        PrescriptionDTO saved = prescriptionService.saveBis(newPrescription());
+        em.flush();
+        em.clear();
+
+        statistics.clear();
+        prescriptionService.delete(saved.getId());
+        em.flush();
+
+        // prescription read, one bulk DELETE of the lines, tombstone insert (and at most one id block), prescription delete
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+        em.clear();
+        assertThat(medecineRepository.findByOrdonance_Id(saved.getId())).isEmpty();
+        assertThat(em.find(Prescription.class, saved.getId())).isNull();
+    }
+
+    private PrescriptionDTO newPrescription() {
+        PrescriptionDTO prescription = new PrescriptionDTO();
+        prescription.setAuthor("tester");
+        prescription.setCreationDate(Instant.now());
+        prescription.setConsultation(consultation);
+        Set<PrescriptionForm> lines = new HashSet<>();
+        for (int i = 0; i < LINES; i++) {
+            lines.add(line("Médicament " + i));
+        }
+        prescription.setMedecines(lines);
+        return prescription;
+    }
+
+    private static PrescriptionForm line(String name) {
+        PrescriptionForm line = new PrescriptionForm();
+        line.setName(name);
+        line.setDuration("5");
+        line.setFrequency("3");
+        return line;
+    }
+}
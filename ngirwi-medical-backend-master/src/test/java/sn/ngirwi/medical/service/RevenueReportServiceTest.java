@@ -0,0 +1,153 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.repository.RevenueDailyRollupRepository;
+import sn.ngirwi.medical.service.dto.BillDTO;
+import sn.ngirwi.medical.service.dto.BillElementDTO;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.service.dto.RevenueReportRowDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+@SpringBootTest
+@Transactional
+@RecordApplicationEvents
+class RevenueReportServiceTest {
+
+    private static final Long HOSPITAL_ID = 9038L;
+
+    private static final LocalDate FROM = LocalDate.of(2031, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2031, 3, 31);
+
+    @Autowired
+    private RevenueReportService revenueReportService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private RevenueDailyRollupRepository revenueDailyRollupRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private Patient patient;
+
+    @BeforeEach
+    void init() {
+        patient = PatientResourceIT.createEntity(em, "3800000000001", HOSPITAL_ID);
+        em.persist(patient);
+
+        billService.saveBis(bill("2031-03-05T10:00:00Z", "IPM Sonatel", 10000L));
+        billService.saveBis(bill("2031-03-05T16:00:00Z", null, 5000L));
+        billService.saveBis(bill("2031-03-06T09:00:00Z", "IPM Sonatel", 2000L));
+
+        Hospitalisation hospitalisation = new Hospitalisation()
+            .entryDate(Instant.parse("2031-03-02T08:00:00Z"))
+            .doctorName("Dr Test")
+            .patient(patient);
+        hospitalisation.setReleaseDate(Instant.parse("2031-03-06T12:00:00Z"));
+        hospitalisation.setService("Cardiologie");
+        hospitalisation.setTotalAmount(new BigDecimal("30000"));
+        em.persist(hospitalisation);
+
+        revenueReportService.reconcile(FROM, TO);
+    }
+
+    @Test
+    void groupsRevenueByDayAndMonth() {
+        assertThat(revenueReportService.report(FROM, TO, "day"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount, RevenueReportRowDTO::getCount)
+            .containsExactly(tuple("2031-03-05", 15000L, 2L), tuple("2031-03-06", 32000L, 2L));
+        assertThat(revenueReportService.report(FROM, TO, "month"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount, RevenueReportRowDTO::getCount)
+            .containsExactly(tuple("2031-03", 47000L, 4L));
+        assertThat(revenueReportService.report(LocalDate.of(2031, 3, 6), TO, "day")).hasSize(1);
+    }
+
+    @Test
+    void groupsRevenueBySourceServiceAndInsurer() {
+        assertThat(revenueReportService.report(FROM, TO, "source"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount, RevenueReportRowDTO::getCount)
+            .containsExactlyInAnyOrder(tuple("BILL", 17000L, 3L), tuple("HOSPITALISATION", 30000L, 1L));
+        assertThat(revenueReportService.report(FROM, TO, "service"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount)
+            .containsExactlyInAnyOrder(tuple(null, 17000L), tuple("Cardiologie", 30000L));
+        assertThat(revenueReportService.report(FROM, TO, "insurer"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount)
+            .containsExactlyInAnyOrder(tuple(null, 35000L), tuple("IPM Sonatel", 12000L));
+    }
+
+    @Test
+    void billWritesRequestARefreshOfTheirDays() {
+        assertThat(events.stream(RevenueChangedEvent.class))
+            .extracting(RevenueChangedEvent::getHospitalId, RevenueChangedEvent::getDates)
+            .contains(tuple(HOSPITAL_ID, Set.of(LocalDate.of(2031, 3, 5))), tuple(HOSPITAL_ID, Set.of(LocalDate.of(2031, 3, 6))));
+    }
+
+    @Test
+    void billMovedToAnotherHospitalRequestsARefreshOfBoth() {
+        Patient other = PatientResourceIT.createEntity(em, "3800000000002", HOSPITAL_ID + 1);
+        em.persist(other);
+        BillDTO bill = billService.saveBis(bill("2031-03-07T10:00:00Z", null, 1000L));
+        bill.getPatient().setId(other.getId());
+        bill.setBillElements(Set.of());
+
+        billService.updateBis(bill);
+
+        assertThat(events.stream(RevenueChangedEvent.class))
+            .extracting(RevenueChangedEvent::getHospitalId, RevenueChangedEvent::getDates)
+            .contains(tuple(HOSPITAL_ID, Set.of(LocalDate.of(2031, 3, 7))), tuple(HOSPITAL_ID + 1, Set.of(LocalDate.of(2031, 3, 7))));
+    }
+
+    @Test
+    void refreshingTheSameDaysTwiceKeepsOneRowPerKey() {
+        revenueReportService.reconcile(FROM, TO);
+        revenueDailyRollupRepository.refresh(HOSPITAL_ID, LocalDate.of(2031, 3, 5), LocalDate.of(2031, 3, 5));
+
+        assertThat(revenueReportService.report(FROM, TO, "insurer"))
+            .extracting(RevenueReportRowDTO::getKey, RevenueReportRowDTO::getAmount)
+            .containsExactlyInAnyOrder(tuple(null, 35000L), tuple("IPM Sonatel", 12000L));
+    }
+
+    @Test
+    void rejectsAnUnknownGrouping() {
+        assertThatThrownBy(() -> revenueReportService.report(FROM, TO, "doctor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> revenueReportService.report(TO, FROM, "day")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BillDTO bill(String date, String insurance, long price) {
+        BillDTO bill = new BillDTO();
+        bill.setDate(Instant.parse(date));
+        bill.setAuthor("tester");
+        bill.setInsurance(insurance);
+        PatientDTO patientDTO = new PatientDTO();
+        patientDTO.setId(patient.getId());
+        bill.setPatient(patientDTO);
+        BillElementDTO line = new BillElementDTO();
+        line.setName("Consultation");
+        line.setPrice(price);
+        line.setQuantity(1);
+        bill.setBillElements(Set.of(line));
+        return bill;
+    }
+}
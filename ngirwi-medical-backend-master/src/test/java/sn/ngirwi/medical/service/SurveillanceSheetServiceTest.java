@@ -0,0 +1,350 @@
+package sn.ngirwi.medical.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.service.dto.ActEntryDTO;
+import sn.ngirwi.medical.service.dto.HospitalisationDTO;
+import sn.ngirwi.medical.service.dto.MedicationEntryDTO;
+import sn.ngirwi.medical.service.dto.SurveillanceSheetBatchResultDTO;
+import sn.ngirwi.medical.service.dto.VitalsSeriesDTO;
+import sn.ngirwi.medical.service.dto.SurveillanceSheetDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks that editing one line of a surveillance sheet only writes that line.
+ */
+@SpringBootTest
+@Transactional
+class SurveillanceSheetServiceTest {
+
+    private static final int ENTRIES = 50;
+
+    @Autowired
+    private SurveillanceSheetService surveillanceSheetService;
+
+    @Autowired
+    private HospitalisationService hospitalisationService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    private SurveillanceSheetDTO sheet;
+
+    @BeforeEach
+    void createSheetWithFiftyEntries() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Hospitalisation hospitalisation = hospitalise("1000000000001");
+
+        SurveillanceSheetDTO dto = new SurveillanceSheetDTO();
+        dto.setHospitalisationId(hospitalisation.getId());
+        dto.setSheetDate(LocalDate.of(2024, 1, 10));
+        List<MedicationEntryDTO> medications = new ArrayList<>();
+        List<ActEntryDTO> acts = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            medications.add(medication("Med " + i, 1));
+            acts.add(act("Act " + i, 1));
+        }
+        dto.setMedications(medications);
+        dto.setActs(acts);
+        sheet = surveillanceSheetService.save(dto);
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void updateAddingOneMedicationInsertsOneRow() {
+        sheet.getMedications().add(medication("Med " + ENTRIES, 2));
+
+        surveillanceSheetService.update(sheet);
+        statistics.clear();
+        em.flush();
+
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        // the full update touches the audit columns of the sheet, then a single INSERT for the new line
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(reloadedMedications()).hasSize(ENTRIES + 1);
+    }
+
+    @Test
+    void partialUpdateEditingOneActUpdatesOneRow() {
+        sheet.getActs().get(ENTRIES / 2).setQuantity(3);
+        SurveillanceSheetDTO patch = new SurveillanceSheetDTO();
+        patch.setId(sheet.getId());
+        patch.setActs(sheet.getActs());
+
+        surveillanceSheetService.partialUpdate(patch);
+        statistics.clear();
+        em.flush();
+
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        em.clear();
+        assertThat(surveillanceSheetService.findOne(sheet.getId()).orElseThrow().getActs().get(ENTRIES / 2).getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void partialUpdateRemovingLastMedicationDeletesOneRow() {
+        SurveillanceSheetDTO patch = new SurveillanceSheetDTO();
+        patch.setId(sheet.getId());
+        patch.setMedications(sheet.getMedications().subList(0, ENTRIES - 1));
+
+        surveillanceSheetService.partialUpdate(patch);
+        statistics.clear();
+        em.flush();
+
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(reloadedMedications()).hasSize(ENTRIES - 1);
+    }
+
+    private List<MedicationEntryDTO> reloadedMedications() {
+        em.clear();
+        return surveillanceSheetService.findOne(sheet.getId()).orElseThrow().getMedications();
+    }
+
+    @Test
+    void saveBatchChecksAllSheetsWithOneQueryAndReportsErrorsPerSheet() {
+        Long hospitalisationId = sheet.getHospitalisationId();
+        SurveillanceSheetDTO invalidBloodPressure = batchSheet(hospitalisationId, LocalDate.of(2024, 1, 12));
+        invalidBloodPressure.setSystolicBP(70);
+        invalidBloodPressure.setDiastolicBP(90);
+
+        statistics.clear();
+        List<SurveillanceSheetBatchResultDTO> results = surveillanceSheetService.saveBatch(
+            List.of(
+                batchSheet(hospitalisationId, LocalDate.of(2024, 1, 11)),
+                batchSheet(hospitalisationId, sheet.getSheetDate()),
+                batchSheet(hospitalisationId, LocalDate.of(2024, 1, 11)),
+                batchSheet(Long.MAX_VALUE, LocalDate.of(2024, 1, 11)),
+                invalidBloodPressure,
+                batchSheet(hospitalisationId, LocalDate.of(2024, 1, 13))
+            )
+        );
+
+        // one query for the hospitalisations, one for the (hospitalisation, date) couples already taken
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+        assertThat(results).extracting(SurveillanceSheetBatchResultDTO::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(results)
+            .extracting(SurveillanceSheetBatchResultDTO::getErrorKey)
+            .containsExactly(null, "duplicate_hosp_date", "duplicate_hosp_date", "hospitalisationnotfound", "business_rule_violation", null);
+        assertThat(results.get(0).getId()).isNotNull();
+        assertThat(results.get(5).getId()).isNotNull();
+        em.clear();
+        assertThat(surveillanceSheetService.findOne(results.get(0).getId()).orElseThrow().getMedications()).hasSize(1);
+    }
+
+    @Test
+    void copyForwardClonesLinesButNotVitals() {
+        SurveillanceSheetDTO vitals = new SurveillanceSheetDTO();
+        vitals.setId(sheet.getId());
+        vitals.setPulseRate(95);
+        surveillanceSheetService.partialUpdate(vitals);
+        em.flush();
+        em.clear();
+        LocalDate nextDay = sheet.getSheetDate().plusDays(1);
+
+        SurveillanceSheetDTO copy = surveillanceSheetService.copyForward(sheet.getHospitalisationId(), nextDay);
+
+        assertThat(copy.getId()).isNotEqualTo(sheet.getId());
+        assertThat(copy.getSheetDate()).isEqualTo(nextDay);
+        assertThat(copy.getPulseRate()).isNull();
+        assertThat(copy.getMedications()).hasSize(ENTRIES);
+        assertThat(copy.getActs()).hasSize(ENTRIES);
+        assertThat(copy.getMedications().get(ENTRIES - 1).getName()).isEqualTo("Med " + (ENTRIES - 1));
+        assertThatThrownBy(() -> surveillanceSheetService.copyForward(sheet.getHospitalisationId(), nextDay))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void findVitalsReturnsColumnsAndAveragesWhenDownsampled() {
+        List<SurveillanceSheetDTO> days = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            SurveillanceSheetDTO day = batchSheet(sheet.getHospitalisationId(), sheet.getSheetDate().plusDays(i));
+            day.setPulseRate(60 + i);
+            day.setTemperature(new BigDecimal("37.0"));
+            days.add(day);
+        }
+        surveillanceSheetService.saveBatch(days);
+        em.flush();
+
+        VitalsSeriesDTO all = surveillanceSheetService.findVitals(sheet.getHospitalisationId(), null).orElseThrow();
+        assertThat(all.isDownsampled()).isFalse();
+        assertThat(all.getDates()).hasSize(11).startsWith(sheet.getSheetDate());
+        assertThat(all.getPulseRate()).startsWith(null, 61, 62);
+        assertThat(all.getTemperature()[10]).isEqualTo(37.0);
+
+        VitalsSeriesDTO downsampled = surveillanceSheetService.findVitals(sheet.getHospitalisationId(), 2).orElseThrow();
+        assertThat(downsampled.isDownsampled()).isTrue();
+        assertThat(downsampled.getDates()).containsExactly(sheet.getSheetDate(), sheet.getSheetDate().plusDays(5));
+        // unrecorded values are left out of the average: (61 + 62 + 63 + 64) / 4, then (65 + ... + 70) / 6
+        assertThat(downsampled.getPulseRate()).containsExactly(63, 68);
+
+        assertThat(surveillanceSheetService.findVitals(Long.MAX_VALUE, null)).isEmpty();
+    }
+
+    @Test
+    void earlyWarningScoreIsStoredOnTheSheetAndTheLatestOnTheHospitalisation() {
+        SurveillanceSheetDTO vitals = new SurveillanceSheetDTO();
+        vitals.setId(sheet.getId());
+        vitals.setRespirationRate(26);
+        vitals.setSpo2(90);
+        assertThat(surveillanceSheetService.partialUpdate(vitals).orElseThrow().getEarlyWarningScore()).isEqualTo(6);
+
+        // an older sheet does not replace the latest score
+        SurveillanceSheetDTO older = batchSheet(sheet.getHospitalisationId(), sheet.getSheetDate().minusDays(1));
+        surveillanceSheetService.saveBatch(List.of(older));
+
+        Hospitalisation other = hospitalise("1000000000002");
+        SurveillanceSheetDTO otherSheet = batchSheet(other.getId(), sheet.getSheetDate());
+        otherSheet.setPulseRate(95);
+        surveillanceSheetService.saveBatch(List.of(otherSheet));
+        Hospitalisation unscored = hospitalise("1000000000003");
+        em.flush();
+        em.clear();
+
+        HospitalisationDTO scored = hospitalisationService.findOne(sheet.getHospitalisationId()).orElseThrow();
+        assertThat(scored.getLatestEarlyWarningScore()).isEqualTo(6);
+        assertThat(scored.getLatestEarlyWarningScoreDate()).isEqualTo(sheet.getSheetDate());
+        // without score last, even where the database sorts NULLs first in descending order
+        assertThat(hospitalisationService.findActive(null, PageRequest.of(0, 100, Sort.by("score", "id"))).getContent())
+            .extracting(HospitalisationDTO::getId)
+            .containsSubsequence(sheet.getHospitalisationId(), other.getId(), unscored.getId());
+    }
+
+    @Test
+    void latestEarlyWarningScoreIsRecomputedWhenTheLatestSheetNoLongerHoldsIt() {
+        SurveillanceSheetDTO vitals = new SurveillanceSheetDTO();
+        vitals.setId(sheet.getId());
+        vitals.setRespirationRate(26);
+        vitals.setSpo2(90);
+        surveillanceSheetService.partialUpdate(vitals);
+        Long olderId = surveillanceSheetService
+            .saveBatch(List.of(batchSheet(sheet.getHospitalisationId(), sheet.getSheetDate().minusDays(1))))
+            .get(0)
+            .getId();
+        em.flush();
+        em.clear();
+
+        // the latest sheet moves before the other one
+        SurveillanceSheetDTO moved = new SurveillanceSheetDTO();
+        moved.setId(sheet.getId());
+        moved.setSheetDate(sheet.getSheetDate().minusDays(2));
+        surveillanceSheetService.partialUpdate(moved);
+        em.flush();
+        em.clear();
+        assertLatestScore(0, sheet.getSheetDate().minusDays(1));
+
+        // its vitals are cleared
+        SurveillanceSheetDTO cleared = surveillanceSheetService.findOne(olderId).orElseThrow();
+        cleared.setPulseRate(null);
+        surveillanceSheetService.update(cleared);
+        em.flush();
+        em.clear();
+        assertLatestScore(6, sheet.getSheetDate().minusDays(2));
+
+        // it is deleted
+        surveillanceSheetService.delete(sheet.getId());
+        em.flush();
+        em.clear();
+        assertLatestScore(null, null);
+    }
+
+    @Test
+    void clientsCannotWriteTheEarlyWarningScore() throws Exception {
+        SurveillanceSheetDTO vitals = new SurveillanceSheetDTO();
+        vitals.setId(sheet.getId());
+        vitals.setRespirationRate(26);
+        vitals.setSpo2(90);
+        surveillanceSheetService.partialUpdate(vitals);
+        em.flush();
+        em.clear();
+
+        HospitalisationDTO patch = objectMapper.readValue(
+            "{\"id\":" + sheet.getHospitalisationId() + ",\"latestEarlyWarningScore\":0,\"latestEarlyWarningScoreDate\":\"2000-01-01\"}",
+            HospitalisationDTO.class
+        );
+        assertThat(patch.getLatestEarlyWarningScore()).isNull();
+        patch.setLatestEarlyWarningScore(0);
+        patch.setLatestEarlyWarningScoreDate(LocalDate.of(2000, 1, 1));
+        hospitalisationService.partialUpdate(patch);
+        em.flush();
+        em.clear();
+        assertLatestScore(6, sheet.getSheetDate());
+    }
+
+    private void assertLatestScore(Integer score, LocalDate date) {
+        HospitalisationDTO hospitalisation = hospitalisationService.findOne(sheet.getHospitalisationId()).orElseThrow();
+        assertThat(hospitalisation.getLatestEarlyWarningScore()).isEqualTo(score);
+        assertThat(hospitalisation.getLatestEarlyWarningScoreDate()).isEqualTo(date);
+    }
+
+    private Hospitalisation hospitalise(String cni) {
+        Patient patient = PatientResourceIT.createEntity(em, cni, null);
+        em.persist(patient);
+        Hospitalisation hospitalisation = new Hospitalisation()
+            .entryDate(Instant.parse("2024-01-09T08:00:00Z"))
+            .doctorName("Dr Test")
+            .patient(patient);
+        em.persist(hospitalisation);
+        return hospitalisation;
+    }
+
+    private static SurveillanceSheetDTO batchSheet(Long hospitalisationId, LocalDate sheetDate) {
+        SurveillanceSheetDTO dto = new SurveillanceSheetDTO();
+        dto.setHospitalisationId(hospitalisationId);
+        dto.setSheetDate(sheetDate);
+        dto.setPulseRate(80);
+        dto.setMedications(new ArrayList<>(List.of(medication("Paracétamol", 1))));
+        return dto;
+    }
+
+    private static MedicationEntryDTO medication(String name, int quantity) {
+        MedicationEntryDTO dto = new MedicationEntryDTO();
+        dto.setName(name);
+        dto.setUnitPrice(new BigDecimal("500"));
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
+    private static ActEntryDTO act(String name, int quantity) {
+        ActEntryDTO dto = new ActEntryDTO();
+        dto.setName(name);
+        dto.setUnitPrice(new BigDecimal("1000"));
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
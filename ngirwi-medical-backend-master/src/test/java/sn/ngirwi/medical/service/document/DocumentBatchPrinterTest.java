@@ -0,0 +1,195 @@
+package sn.ngirwi.medical.service.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.BillElement;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Hospital;
+import sn.ngirwi.medical.domain.Hospitalisation;
+import sn.ngirwi.medical.domain.MedicationEntry;
+import sn.ngirwi.medical.domain.Medecine;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.domain.SurveillanceSheet;
+import sn.ngirwi.medical.service.dto.DocumentReferenceDTO;
+import sn.ngirwi.medical.service.dto.DocumentReferenceDTO.Type;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks that a batch print loads its documents with a few IN-queries and merges them, in order, into one PDF.
+ */
+@SpringBootTest
+@Transactional
+class DocumentBatchPrinterTest {
+
+    private static final int BILLS = 10;
+
+    private static final int PRESCRIPTIONS = 10;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentBatchPrinter documentBatchPrinter;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private final List<DocumentReferenceDTO> references = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Hospital hospital = new Hospital().name("Hôpital de Kaolack").phone("339000000").adress("Kaolack");
+        em.persist(hospital);
+        Patient patient = PatientResourceIT.createEntity(em, String.format("44%011d", hospital.getId()), hospital.getId());
+        em.persist(patient);
+
+        for (int i = 0; i < BILLS; i++) {
+            Bill bill = new Bill().author("caisse").date(Instant.now()).desc("Facture " + i).patient(patient);
+            bill.addBillElement(new BillElement().name("Consultation").price(10_000L).quantity(1).discountBp(0));
+            bill.addBillElement(new BillElement().name("Analyse").price(5_000L).quantity(2).discountBp(0));
+            em.persist(bill);
+            references.add(new DocumentReferenceDTO(Type.BILL, bill.getId()));
+            // one prescription per consultation
+            Consultation consultation = new Consultation()
+                .temperature(37.0)
+                .weight(60.0)
+                .tension("12/8")
+                .hypothesis("RAS")
+                .exams("RAS")
+                .treatment("RAS")
+                .patient(patient);
+            em.persist(consultation);
+            Prescription prescription = new Prescription().author("dr.sarr").creationDate(Instant.now()).consultation(consultation);
+            em.persist(prescription);
+            em.persist(new Medecine().name("Médicament " + i).duration(5L).frequency(2.0).ordonance(prescription));
+            em.persist(new Medecine().name("Vitamine C").duration(10L).frequency(1.0).ordonance(prescription));
+            references.add(new DocumentReferenceDTO(Type.PRESCRIPTION, prescription.getId()));
+        }
+
+        Hospitalisation hospitalisation = new Hospitalisation()
+            .entryDate(Instant.parse("2033-06-01T08:00:00Z"))
+            .doctorName("Dr Sarr")
+            .patient(patient);
+        hospitalisation.setDailyRate(new BigDecimal("10000"));
+        em.persist(hospitalisation);
+        SurveillanceSheet sheet = new SurveillanceSheet().sheetDate(LocalDate.of(2033, 6, 1)).hospitalisation(hospitalisation);
+        MedicationEntry medication = new MedicationEntry();
+        medication.setNom("Ceftriaxone");
+        medication.setPrixUnitaire(new BigDecimal("2500"));
+        medication.setQuantite(1);
+        sheet.setMedications(new ArrayList<>(List.of(medication)));
+        em.persist(sheet);
+        references.add(new DocumentReferenceDTO(Type.HOSPITALISATION, hospitalisation.getId()));
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void loadsTheBatchWithAFewQueriesAndMergesItInOrder() throws IOException {
+        statistics.clear();
+        List<Callable<byte[]>> documents = documentService.prepareBatch(references);
+        // one IN-query per type and one for the hospitals; the open hospitalisation adds its sheets and their lines
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        em.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentBatchPrinter.print(documents, out);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        try {
+            assertThat(reader.getNumberOfPages()).isGreaterThanOrEqualTo(BILLS + PRESCRIPTIONS + 1);
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            assertThat(extractor.getTextFromPage(1)).contains("FACTURE", "Facture 0", "Hôpital de Kaolack");
+            assertThat(extractor.getTextFromPage(2)).contains("ORDONNANCE", "Médicament 0");
+            assertThat(extractor.getTextFromPage(3)).contains("Facture 1");
+            assertThat(extractor.getTextFromPage(reader.getNumberOfPages())).contains("Ceftriaxone");
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    void keepsTheRequestOrderWhenEarlierDocumentsAreSlower() throws IOException {
+        List<Callable<byte[]>> documents = new ArrayList<>();
+        int count = DocumentBatchPrinter.WINDOW * 3;
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            documents.add(() -> {
+                Thread.sleep((count - index) * 2L);
+                return page("Document " + index);
+            });
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentBatchPrinter.print(documents, out);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        try {
+            assertThat(reader.getNumberOfPages()).isEqualTo(count);
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            for (int i = 0; i < count; i++) {
+                assertThat(extractor.getTextFromPage(i + 1)).contains("Document " + i);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    void rejectsUnknownDocumentsAndOversizedBatches() {
+        List<DocumentReferenceDTO> unknown = List.of(new DocumentReferenceDTO(Type.BILL, Long.MAX_VALUE));
+        assertThatThrownBy(() -> documentService.prepareBatch(unknown)).isInstanceOf(IllegalArgumentException.class);
+
+        List<DocumentReferenceDTO> tooMany = new ArrayList<>();
+        for (int i = 0; i <= DocumentService.MAX_BATCH_SIZE; i++) {
+            tooMany.add(references.get(0));
+        }
+        assertThatThrownBy(() -> documentService.prepareBatch(tooMany)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> documentService.prepareBatch(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] page(String text) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        document.add(new Paragraph(text));
+        document.close();
+        return out.toByteArray();
+    }
+}
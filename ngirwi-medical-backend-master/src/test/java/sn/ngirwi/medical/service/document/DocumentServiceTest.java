@@ -0,0 +1,198 @@
+package sn.ngirwi.medical.service.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.Image;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.BillElement;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Hospital;
+import sn.ngirwi.medical.domain.Medecine;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+@SpringBootTest
+@Transactional
+class DocumentServiceTest {
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentRenderer documentRenderer;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void compilesEachTemplateOnce() {
+        DocumentTemplate bill = documentRenderer.template(DocumentRenderer.BILL);
+
+        assertThat(documentRenderer.template(DocumentRenderer.BILL)).isSameAs(bill);
+        assertThat(documentRenderer.template(DocumentRenderer.PRESCRIPTION)).isNotNull();
+        assertThat(documentRenderer.template(DocumentRenderer.CERTIFICATE)).isNotNull();
+        assertThatThrownBy(() -> DocumentTemplate.compile("broken", "title Ok\nbogus directive")).hasMessageContaining("line 2");
+        assertThatThrownBy(() -> documentRenderer.template("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodesAHospitalLogoOnlyWhenItChanges() throws IOException {
+        Hospital hospital = new Hospital().id(9430L).name("Clinique du Cap").logo(png(Color.RED));
+
+        Image logo = documentRenderer.logo(hospital);
+
+        assertThat(logo).isNotNull();
+        assertThat(documentRenderer.logo(hospital)).isSameAs(logo);
+        hospital.logo(png(Color.BLUE));
+        assertThat(documentRenderer.logo(hospital)).isNotNull().isNotSameAs(logo);
+        assertThat(documentRenderer.logo(new Hospital().id(9431L))).isNull();
+    }
+
+    @Test
+    void rendersAPrescription() throws IOException {
+        Hospital hospital = hospital("Hôpital de Ziguinchor");
+        Consultation consultation = consultation(hospital);
+        Prescription prescription = new Prescription().author("dr.diallo").creationDate(Instant.now()).consultation(consultation);
+        em.persist(prescription);
+        em.persist(new Medecine().name("Amoxicilline 1g").duration(7L).frequency(2.0).ordonance(prescription));
+        em.persist(new Medecine().name("Paracétamol 500mg").duration(3L).frequency(3.0).ordonance(prescription));
+        em.flush();
+        em.clear();
+
+        String text = text(documentService.prescriptionPdf(prescription.getId()).orElseThrow());
+
+        assertThat(text).contains("ORDONNANCE", "Hôpital de Ziguinchor", "Mbaye", "Amoxicilline 1g", "Paracétamol 500mg", "dr.diallo");
+        assertThat(documentService.prescriptionPdf(Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void rendersABillWithItsTotal() throws IOException {
+        Hospital hospital = hospital("Clinique Bel Air");
+        Consultation consultation = consultation(hospital);
+        Bill bill = new Bill().author("caisse").date(Instant.now()).insurance("IPM Sonatel").patient(consultation.getPatient());
+        bill.addBillElement(new BillElement().name("Consultation").price(15_000L).quantity(1).discountBp(0));
+        bill.addBillElement(new BillElement().name("Échographie").price(25_000L).quantity(2).discountBp(2_000));
+        em.persist(bill);
+        em.flush();
+        em.clear();
+
+        String text = text(documentService.billPdf(bill.getId()).orElseThrow());
+
+        // 15 000 + 2 × 25 000 × 80 %
+        assertThat(text).contains("FACTURE", "Clinique Bel Air", "IPM Sonatel", "Échographie", "20 %", "55 000 FCFA");
+    }
+
+    @Test
+    void rendersACertificateWithTheRestPeriod() throws IOException {
+        Consultation consultation = consultation(hospital("Centre de santé de Mbour"));
+        em.flush();
+
+        String text = text(
+            documentService.certificatePdf(consultation.getId(), 3, LocalDate.of(2026, 10, 19), "Apte à reprendre ensuite.").orElseThrow()
+        );
+
+        assertThat(text).contains("CERTIFICAT", "3 jour(s)", "19/10/2026", "21/10/2026", "Apte à reprendre ensuite.");
+        assertThat(text(documentService.certificatePdf(consultation.getId(), null, null, null).orElseThrow())).doesNotContain("repos");
+        assertThatThrownBy(() -> documentService.certificatePdf(consultation.getId(), 400, null, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rendersAtLeastFiftyDocumentsPerSecond() throws IOException {
+        Hospital hospital = new Hospital().id(9432L).name("Hôpital régional").logo(png(Color.RED));
+        Map<String, Object> model = new HashMap<>();
+        model.put("prescription.id", 1L);
+        model.put("prescription.date", Instant.now());
+        model.put("patient.lastName", "Ndiaye");
+        model.put("patient.firstName", "Awa");
+        model.put(
+            "medecines",
+            List.of(
+                Map.of("name", "Amoxicilline", "duration", 7L, "frequency", 2.0),
+                Map.of("name", "Paracétamol", "duration", 3L, "frequency", 3.0),
+                Map.of("name", "Ibuprofène", "duration", 5L, "frequency", 2.0)
+            )
+        );
+        for (int i = 0; i < 50; i++) {
+            documentRenderer.render(DocumentRenderer.PRESCRIPTION, model, hospital);
+        }
+
+        int documents = 500;
+        long start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            assertThat(documentRenderer.render(DocumentRenderer.PRESCRIPTION, model, hospital)).isNotEmpty();
+        }
+        double perSecond = documents / ((System.nanoTime() - start) / 1e9);
+        assertThat(perSecond).isGreaterThan(50.0);
+    }
+
+    private Hospital hospital(String name) {
+        Hospital hospital = new Hospital().name(name).phone("338000000").adress("Sénégal");
+        em.persist(hospital);
+        return hospital;
+    }
+
+    private Consultation consultation(Hospital hospital) {
+        Patient patient = PatientResourceIT
+            .createEntity(em, String.format("43%011d", hospital.getId()), hospital.getId())
+            .lastName("Mbaye");
+        em.persist(patient);
+        Consultation consultation = new Consultation()
+            .dateTime(Instant.now())
+            .temperature(37.2)
+            .weight(74.0)
+            .tension("12/8")
+            .hypothesis("Angine")
+            .exams("RAS")
+            .treatment("Antibiotique")
+            .author("dr.diallo")
+            .patient(patient);
+        em.persist(consultation);
+        return consultation;
+    }
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, 40, 20);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String text(byte[] pdf) throws IOException {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            StringBuilder text = new StringBuilder();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                text.append(extractor.getTextFromPage(page)).append('\n');
+            }
+            return text.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
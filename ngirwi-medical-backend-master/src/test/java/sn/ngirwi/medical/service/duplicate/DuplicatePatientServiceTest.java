@@ -0,0 +1,156 @@
+package sn.ngirwi.medical.service.duplicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.enumeration.GENDER;
+import sn.ngirwi.medical.service.dto.DuplicateCandidateDTO;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks the blocking keys, the duplicate check on creation and the nightly per-hospital report.
+ */
+@SpringBootTest
+@Transactional
+class DuplicatePatientServiceTest {
+
+    private static final long HOSPITAL = 9470L;
+
+    private static final long OTHER_HOSPITAL = 9471L;
+
+    @Autowired
+    private DuplicatePatientService duplicatePatientService;
+
+    @Autowired
+    private EntityManager em;
+
+    private Patient aminata;
+
+    private Patient aminataAgain;
+
+    @BeforeEach
+    void init() {
+        aminata = patient("Aminata", "Ndiaye", LocalDate.of(1990, 5, 12), "771234567", "4700000000001", HOSPITAL);
+        patient("Awa", "Diop", LocalDate.of(1990, 5, 12), "781112233", "4700000000002", HOSPITAL);
+        patient("Moussa", "Ndiaye", LocalDate.of(1962, 1, 1), "769998877", "4700000000003", HOSPITAL);
+        aminataAgain = patient("Aminatta", "Njaay", LocalDate.of(1990, 5, 12), "+221 77 123 45 67", "4700000000010", HOSPITAL);
+        patient("Aminata", "Ndiaye", LocalDate.of(1990, 5, 12), "771234567", "4700000000005", OTHER_HOSPITAL);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void computesCoarseBlockingKeys() {
+        assertThat(PatientBlockingKeys.nameKey("Ndiaye"))
+            .isEqualTo(PatientBlockingKeys.nameKey("NDIAY"))
+            .isEqualTo(PatientBlockingKeys.nameKey("Njaay"));
+        assertThat(PatientBlockingKeys.nameKey("Gueye")).isEqualTo(PatientBlockingKeys.nameKey("Gaye"));
+        assertThat(PatientBlockingKeys.nameKey("Cissé")).isEqualTo(PatientBlockingKeys.nameKey("Sisse"));
+        assertThat(PatientBlockingKeys.nameKey("Diop")).isNotEqualTo(PatientBlockingKeys.nameKey("Ndiaye"));
+        assertThat(PatientBlockingKeys.nameKey(" - ")).isNull();
+
+        assertThat(PatientBlockingKeys.phoneKey("+221 77 123 45 67")).isEqualTo(PatientBlockingKeys.phoneKey("771234567"));
+        assertThat(PatientBlockingKeys.phoneKey("000000000")).isNull();
+        assertThat(PatientBlockingKeys.phoneKey("1234")).isNull();
+
+        assertThat(DuplicatePatientService.jaroWinkler("MARTHA", "MARHTA")).isCloseTo(0.961, within(0.001));
+        assertThat(DuplicatePatientService.oneTypo("4700000000001", "4700000000010")).isTrue();
+        assertThat(DuplicatePatientService.closeBirthdays(LocalDate.of(1990, 5, 12), LocalDate.of(1990, 12, 5))).isTrue();
+    }
+
+    @Test
+    void findsTheCandidatesOfANewPatientInItsHospital() {
+        PatientDTO newcomer = new PatientDTO();
+        newcomer.setFirstName("Aminata");
+        newcomer.setLastName("Ndiay");
+        newcomer.setBirthday(LocalDate.of(1990, 12, 5));
+        newcomer.setGender(GENDER.FEMALE);
+        newcomer.setPhone("77 123 45 67");
+        newcomer.setCni("4700000000099");
+
+        List<DuplicateCandidateDTO> candidates = duplicatePatientService.findCandidates(newcomer, HOSPITAL);
+
+        // Njaay shares the phonetic key and the phone but the first name and birthday differ: below the threshold
+        assertThat(candidates).extracting(DuplicateCandidateDTO::getCandidateId).containsExactly(aminata.getId());
+        assertThat(candidates.get(0).getReasons()).containsExactly("LAST_NAME", "FIRST_NAME", "PHONE");
+        assertThat(candidates.get(0).getScore()).isBetween(DuplicatePatientService.MIN_SCORE, 100);
+        assertThat(duplicatePatientService.findCandidates(newcomer, 9479L)).isEmpty();
+    }
+
+    @Test
+    void findsNamesakesBeyondAPlaceholderBirthdayBlock() {
+        LocalDate placeholder = LocalDate.of(1900, 1, 1);
+        for (int i = 0; i <= DuplicatePatientService.MAX_BLOCK_READ; i++) {
+            patient("Fatou", "Sow", placeholder, String.format("76%07d", i), String.format("471%010d", i), HOSPITAL);
+        }
+        em.flush();
+        em.clear();
+        PatientDTO newcomer = new PatientDTO();
+        newcomer.setFirstName("Aminata");
+        newcomer.setLastName("Ndiaye");
+        newcomer.setBirthday(placeholder);
+        newcomer.setGender(GENDER.FEMALE);
+        newcomer.setPhone("771234567");
+
+        assertThat(duplicatePatientService.findCandidates(newcomer, HOSPITAL))
+            .extracting(DuplicateCandidateDTO::getCandidateId)
+            .contains(aminata.getId());
+    }
+
+    @Test
+    void reportsThePairsOfEachHospitalAndReplacesThePreviousReport() {
+        assertThat(duplicatePatientService.refreshReport(HOSPITAL)).isEqualTo(1);
+        assertThat(duplicatePatientService.refreshReport(HOSPITAL)).isEqualTo(1);
+        assertThat(duplicatePatientService.refreshReport(OTHER_HOSPITAL)).isZero();
+
+        // no security context: the report of every hospital
+        List<DuplicateCandidateDTO> report = duplicatePatientService.report(PageRequest.of(0, 10)).getContent();
+        assertThat(report).hasSize(1);
+        DuplicateCandidateDTO pair = report.get(0);
+        assertThat(pair.getPatientId()).isEqualTo(aminataAgain.getId());
+        assertThat(pair.getPatientLastName()).isEqualTo("Njaay");
+        assertThat(pair.getCandidateId()).isEqualTo(aminata.getId());
+        assertThat(pair.getReasons()).containsExactly("LAST_NAME", "FIRST_NAME", "BIRTHDAY", "PHONE", "CNI");
+        assertThat(pair.getScore()).isGreaterThanOrEqualTo(DuplicatePatientService.MIN_SCORE);
+    }
+
+    @Test
+    void keysThePatientsSavedBeforeTheDetection() {
+        Patient legacy = patient("Fatou", "Gaye", LocalDate.of(1980, 3, 3), "770001122", "4700000000006", HOSPITAL);
+        legacy.setNameKey(null);
+        legacy.setPhoneKey(null);
+        em.flush();
+        em.clear();
+
+        assertThat(duplicatePatientService.backfillBlockingKeys()).isGreaterThanOrEqualTo(1);
+        em.clear();
+
+        Patient keyed = em.find(Patient.class, legacy.getId());
+        assertThat(keyed.getNameKey()).isEqualTo(PatientBlockingKeys.nameKey("Gueye"));
+        assertThat(keyed.getPhoneKey()).isEqualTo("0001122");
+    }
+
+    private Patient patient(String firstName, String lastName, LocalDate birthday, String phone, String cni, long hospitalId) {
+        Patient p = PatientResourceIT
+            .createEntity(em, cni, hospitalId)
+            .firstName(firstName)
+            .lastName(lastName)
+            .birthday(birthday)
+            .gender(GENDER.FEMALE)
+            .phone(phone);
+        PatientBlockingKeys.apply(p);
+        em.persist(p);
+        return p;
+    }
+}
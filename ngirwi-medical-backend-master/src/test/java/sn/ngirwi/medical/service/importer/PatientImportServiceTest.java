@@ -0,0 +1,135 @@
+package sn.ngirwi.medical.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.enumeration.GENDER;
+import sn.ngirwi.medical.service.dto.PatientImportReportDTO;
+import sn.ngirwi.medical.service.dto.PatientImportReportDTO.RowError;
+import sn.ngirwi.medical.service.duplicate.PatientBlockingKeys;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks the CSV patient import on H2 (JDBC batch staging); the {@code COPY} staging needs PostgreSQL.
+ */
+@SpringBootTest
+@Transactional
+class PatientImportServiceTest {
+
+    private static final long HOSPITAL = 9480L;
+
+    private static final long OTHER_HOSPITAL = 9481L;
+
+    @Autowired
+    private PatientImportService patientImportService;
+
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    void init() {
+        patient("Fatou", "Sow", "4800000000050", "Médecin", HOSPITAL);
+        patient("Ibrahima", "Fall", "4800000000060", null, OTHER_HOSPITAL);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void importsTheValidRowsAndReportsTheOthersByLine() throws Exception {
+        String csv =
+            "\uFEFFcni;firstName;lastName;birthday;gender;adress;phone;job\r\n" +
+            "4800000000001;Aminata;Ndiaye;1990-05-12;female;Dakar;771234567;\"Infirmière; chef\"\r\n" +
+            "4800 0000 00002;Moussa;Diop;01/02/1985;MALE;\"Rue 10\nMédina\";781112233;\r\n" +
+            "12345;Awa;Diop;1990-05-12;FEMALE;Dakar;771234567;\r\n" +
+            "4800000000003;;Diop;1990-05-12;FEMALE;Dakar;771234567;\r\n" +
+            "4800000000004;Awa;Diop;1990-13-01;FEMALE;Dakar;771234567;\r\n" +
+            "4800000000005;Awa;Diop;1990-05-12;X;Dakar;771234567;\r\n" +
+            "\r\n" +
+            "4800000000001;Aminata;Ndiaye;1990-05-12;FEMALE;Dakar;771234567;\r\n" +
+            "4800000000060;Ibrahima;Fall;1970-01-01;MALE;Thiès;770000001;\r\n" +
+            "4800000000050;Fatou;Sow;1980-03-03;FEMALE;Dakar;779876543;\r\n";
+
+        PatientImportReportDTO report = patientImportService.importCsv(stream(csv), HOSPITAL, "importer");
+
+        assertThat(report.getReceived()).isEqualTo(9);
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(6);
+        // the quoted address spans lines 3 and 4, the blank line 9 is skipped
+        assertThat(report.getErrors()).extracting(RowError::getLine).containsExactly(5L, 6L, 7L, 8L, 10L, 11L);
+        assertThat(report.getErrors()).extracting(RowError::getCni).containsExactly(
+            "12345",
+            "4800000000003",
+            "4800000000004",
+            "4800000000005",
+            "4800000000001",
+            "4800000000060"
+        );
+        assertThat(report.getErrors().get(1).getMessage()).contains("firstName");
+        em.clear();
+
+        Patient aminata = byCni("4800000000001");
+        assertThat(aminata.getHospitalId()).isEqualTo(HOSPITAL);
+        assertThat(aminata.getAuthor()).isEqualTo("importer");
+        assertThat(aminata.getGender()).isEqualTo(GENDER.FEMALE);
+        assertThat(aminata.getJob()).isEqualTo("Infirmière; chef");
+        assertThat(aminata.getNameKey()).isEqualTo(PatientBlockingKeys.nameKey("Ndiaye"));
+        assertThat(aminata.getDateCreated()).isNotNull();
+
+        Patient moussa = byCni("4800000000002");
+        assertThat(moussa.getBirthday()).isEqualTo(LocalDate.of(1985, 2, 1));
+        assertThat(moussa.getAdress()).isEqualTo("Rue 10\nMédina");
+        assertThat(moussa.getJob()).isNull();
+        // both ids come from one block of the pooled sequence
+        assertThat(moussa.getId()).isEqualTo(aminata.getId() + 1);
+
+        Patient fatou = byCni("4800000000050");
+        assertThat(fatou.getPhone()).isEqualTo("779876543");
+        assertThat(fatou.getPhoneKey()).isEqualTo("9876543");
+        assertThat(fatou.getJob()).isEqualTo("Médecin");
+        assertThat(fatou.getDateUpdated()).isNotNull();
+
+        assertThat(byCni("4800000000060").getHospitalId()).isEqualTo(OTHER_HOSPITAL);
+
+        // Hibernate keeps allocating its own ids
+        patient("Khady", "Fall", "4800000000070", null, HOSPITAL);
+        em.flush();
+        assertThat(byCni("4800000000070").getId()).isNotIn(aminata.getId(), moussa.getId());
+    }
+
+    @Test
+    void rejectsAnInvalidHeader() {
+        assertThatThrownBy(() -> patientImportService.importCsv(stream("cni,firstName,lastName,birthday,gender,address,phone\n"), HOSPITAL, "importer"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("address");
+        assertThatThrownBy(() -> patientImportService.importCsv(stream("cni,firstName,lastName,birthday,gender,phone\n"), HOSPITAL, "importer"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("adress");
+        assertThatThrownBy(() -> patientImportService.importCsv(stream(""), HOSPITAL, "importer")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Patient byCni(String cni) {
+        return em.createQuery("select p from Patient p where p.cni = :cni", Patient.class).setParameter("cni", cni).getSingleResult();
+    }
+
+    private void patient(String firstName, String lastName, String cni, String job, long hospitalId) {
+        Patient p = PatientResourceIT.createEntity(em, cni, hospitalId).firstName(firstName).lastName(lastName).job(job);
+        PatientBlockingKeys.apply(p);
+        em.persist(p);
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,97 @@
+package sn.ngirwi.medical.service.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.User;
+import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.UserRepository;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.service.dto.SyncChangesDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks that the watermark of the delta synchronisation never passes a transaction still running: each transaction
+ * commits for real, so the test is not transactional and removes its rows itself.
+ */
+@SpringBootTest
+@WithMockUser("sync-commit-order")
+class SyncServiceCommitOrderTest {
+
+    private static final long HOSPITAL = 9492L;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private TransactionTemplate newTransaction;
+
+    private User user;
+
+    private final List<Long> patientIds = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        user = new User();
+        user.setLogin("sync-commit-order");
+        user.setPassword("x".repeat(60));
+        user.setActivated(true);
+        user.setEmail("sync-commit-order@localhost");
+        user.setLangKey("fr");
+        user.setHospitalId(HOSPITAL);
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        patientRepository.deleteAllById(patientIds);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void doesNotPassAWriteThatCommitsAfterALaterOne() {
+        String start = syncService.changes(null, 100).getWatermark();
+        AtomicReference<SyncChangesDTO> whileRunning = new AtomicReference<>();
+
+        newTransaction.executeWithoutResult(slow -> {
+            // written and dated first, committed last
+            Patient slowPatient = PatientResourceIT.createEntity(em, "4920000000001", HOSPITAL);
+            Patient fastPatient = PatientResourceIT.createEntity(em, "4920000000002", HOSPITAL);
+            patientIds.add(patientRepository.saveAndFlush(slowPatient).getId());
+            patientIds.add(newTransaction.execute(fast -> patientRepository.saveAndFlush(fastPatient)).getId());
+            whileRunning.set(newTransaction.execute(read -> syncService.changes(start, 100)));
+        });
+
+        assertThat(whileRunning.get().getPatients()).isEmpty();
+        SyncChangesDTO afterCommit = syncService.changes(whileRunning.get().getWatermark(), 100);
+        assertThat(afterCommit.isFull()).isFalse();
+        assertThat(afterCommit.getPatients()).extracting(PatientDTO::getId).containsExactlyInAnyOrderElementsOf(patientIds);
+    }
+}
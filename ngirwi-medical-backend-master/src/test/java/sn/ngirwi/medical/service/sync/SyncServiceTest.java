@@ -0,0 +1,184 @@
+package sn.ngirwi.medical.service.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.SyncTombstone;
+import sn.ngirwi.medical.domain.User;
+import sn.ngirwi.medical.service.BillService;
+import sn.ngirwi.medical.service.PatientService;
+import sn.ngirwi.medical.service.dto.BillDTO;
+import sn.ngirwi.medical.service.dto.ConsultationDTO;
+import sn.ngirwi.medical.service.dto.PatientDTO;
+import sn.ngirwi.medical.service.dto.SyncChangesDTO;
+import sn.ngirwi.medical.web.rest.PatientResourceIT;
+
+/**
+ * Checks the delta synchronisation of a hospital: scope, watermark paging and tombstones.
+ */
+@SpringBootTest
+@Transactional
+@WithMockUser("sync-clinic")
+class SyncServiceTest {
+
+    private static final long HOSPITAL = 9490L;
+
+    private static final long OTHER_HOSPITAL = 9491L;
+
+    // the changes of the test transaction are still in flight for the fence of the service
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private EntityManager em;
+
+    private Patient patient;
+
+    private Consultation consultation;
+
+    private Bill bill;
+
+    @BeforeEach
+    void init() {
+        User user = new User();
+        user.setLogin("sync-clinic");
+        user.setPassword("x".repeat(60));
+        user.setActivated(true);
+        user.setEmail("sync-clinic@localhost");
+        user.setLangKey("fr");
+        user.setHospitalId(HOSPITAL);
+        em.persist(user);
+
+        patient = PatientResourceIT.createEntity(em, "4900000000001", HOSPITAL);
+        em.persist(patient);
+        Patient other = PatientResourceIT.createEntity(em, "4900000000002", OTHER_HOSPITAL);
+        em.persist(other);
+        consultation = consultation(patient);
+        consultation(other);
+        bill = new Bill().author("caisse").date(Instant.now()).desc("Consultation").total(new BigDecimal("15000")).patient(patient);
+        em.persist(bill);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void returnsTheChangesOfTheHospitalOnly() {
+        SyncChangesDTO changes = syncService.changes(null, 100, UNBOUNDED);
+
+        assertThat(changes.isFull()).isTrue();
+        assertThat(changes.isHasMore()).isFalse();
+        assertThat(changes.getPatients()).extracting(PatientDTO::getId).containsExactly(patient.getId());
+        assertThat(changes.getConsultations()).extracting(ConsultationDTO::getId).containsExactly(consultation.getId());
+        assertThat(changes.getBills()).extracting(BillDTO::getId).containsExactly(bill.getId());
+        assertThat(changes.getPrescriptions()).isEmpty();
+        assertThat(changes.getDeleted()).isEmpty();
+    }
+
+    @Test
+    void pagesWithTheWatermarkWithoutGapsOrDuplicates() {
+        List<Long> ids = new ArrayList<>();
+        String watermark = null;
+        SyncChangesDTO page;
+        int pages = 0;
+        do {
+            page = syncService.changes(watermark, 1, UNBOUNDED);
+            page.getPatients().forEach(p -> ids.add(p.getId()));
+            page.getConsultations().forEach(c -> ids.add(c.getId()));
+            page.getBills().forEach(b -> ids.add(b.getId()));
+            watermark = page.getWatermark();
+            pages++;
+        } while (page.isHasMore());
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).containsExactlyInAnyOrder(patient.getId(), consultation.getId(), bill.getId());
+
+        SyncChangesDTO empty = syncService.changes(watermark, 1, UNBOUNDED);
+        assertThat(empty.isFull()).isFalse();
+        assertThat(empty.isHasMore()).isFalse();
+        assertThat(position(empty.getWatermark())).isEqualTo(position(watermark));
+        assertThat(empty.getPatients()).isEmpty();
+    }
+
+    @Test
+    void returnsTheUpdatesAndDeletionsAfterTheWatermark() {
+        String watermark = syncService.changes(null, 100, UNBOUNDED).getWatermark();
+
+        PatientDTO update = new PatientDTO();
+        update.setId(patient.getId());
+        update.setPhone("771112233");
+        patientService.partialUpdate(update);
+        billService.delete(bill.getId());
+
+        SyncChangesDTO changes = syncService.changes(watermark, 100, UNBOUNDED);
+        assertThat(changes.isFull()).isFalse();
+        assertThat(changes.getPatients()).extracting(PatientDTO::getPhone).containsExactly("771112233");
+        assertThat(changes.getConsultations()).isEmpty();
+        assertThat(changes.getBills()).isEmpty();
+        assertThat(changes.getDeleted()).containsOnlyKeys(SyncTombstone.BILL);
+        assertThat(changes.getDeleted().get(SyncTombstone.BILL)).containsExactly(bill.getId());
+    }
+
+    @Test
+    void startsOverWhenTheWatermarkIsOlderThanTheRetention() {
+        String expired = Base64
+            .getUrlEncoder()
+            .withoutPadding()
+            .encodeToString("1|BILL|1|2000-01-01T00:00:00Z".getBytes(StandardCharsets.UTF_8));
+
+        SyncChangesDTO changes = syncService.changes(expired, 100, UNBOUNDED);
+        assertThat(changes.isFull()).isTrue();
+        assertThat(changes.getPatients()).extracting(PatientDTO::getId).containsExactly(patient.getId());
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertThatThrownBy(() -> syncService.changes("not a watermark", 100)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> syncService.changes(null, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> syncService.changes(null, SyncService.MAX_SIZE + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // the position of a watermark, without the date the client was last up to date
+    private static String position(String watermark) {
+        String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+        return raw.substring(0, raw.lastIndexOf('|'));
+    }
+
+    private Consultation consultation(Patient p) {
+        Consultation c = new Consultation()
+            .dateTime(Instant.now())
+            .temperature(37.5)
+            .weight(60.0)
+            .tension("12/8")
+            .hypothesis("Grippe")
+            .exams("NFS")
+            .treatment("Repos")
+            .author("dr.sarr")
+            .patient(p);
+        em.persist(c);
+        return c;
+    }
+}
@@ -0,0 +1,181 @@
+package sn.ngirwi.medical.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import sn.ngirwi.medical.IntegrationTest;
+import sn.ngirwi.medical.domain.Bill;
+import sn.ngirwi.medical.domain.Consultation;
+import sn.ngirwi.medical.domain.Patient;
+import sn.ngirwi.medical.domain.Prescription;
+import sn.ngirwi.medical.repository.BillRepository;
+import sn.ngirwi.medical.repository.ConsultationRepository;
+import sn.ngirwi.medical.repository.PatientRepository;
+import sn.ngirwi.medical.repository.PrescriptionRepository;
+import sn.ngirwi.medical.security.AuthoritiesConstants;
+
+/**
+ * Integration tests for the {@link BatchResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.DOCTOR)
+class BatchResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/batch";
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restBatchMockMvc;
+
+    @Test
+    @Transactional
+    void createsAConsultationWithItsPrescriptionAndBill() throws Exception {
+        Patient patient = PatientResourceIT.createEntity(em, "5000000000001", null);
+        em.persist(patient);
+        em.flush();
+
+        String batch =
+            "[" +
+            "{\"ref\":\"consultation\",\"method\":\"POST\",\"url\":\"/api/consultations\",\"body\":" +
+            "{\"temperature\":38.5,\"weight\":62,\"tension\":\"12/8\",\"hypothesis\":\"Paludisme\",\"exams\":\"TDR\"," +
+            "\"treatment\":\"ACT\",\"patient\":{\"id\":" +
+            patient.getId() +
+            "}}}," +
+            "{\"ref\":\"prescription\",\"method\":\"POST\",\"url\":\"/api/prescriptionsbis\",\"body\":" +
+            "{\"author\":\"dr.faye\",\"consultation\":{\"id\":\"${consultation.id}\"}," +
+            "\"medecines\":[{\"name\":\"Artéméther\",\"frequency\":\"2\",\"duration\":\"3\"}]}}," +
+            "{\"ref\":\"bill\",\"method\":\"POST\",\"url\":\"/api/bills\",\"body\":" +
+            "{\"author\":\"caisse\",\"desc\":\"Consultation\",\"total\":15000,\"billElements\":[],\"patient\":{\"id\":\"${consultation.patient.id}\"}}}," +
+            "{\"method\":\"GET\",\"url\":\"/api/consultations/${consultation.id}\"}" +
+            "]";
+
+        String content = restBatchMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(batch))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(4)))
+            .andExpect(jsonPath("$[0].status").value(201))
+            .andExpect(jsonPath("$[1].status").value(201))
+            .andExpect(jsonPath("$[2].status").value(201))
+            .andExpect(jsonPath("$[2].headers.Location").exists())
+            .andExpect(jsonPath("$[3].status").value(200))
+            .andExpect(jsonPath("$[3].body.hypothesis").value("Paludisme"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        JsonNode results = objectMapper.readTree(content);
+        Consultation consultation = consultationRepository.findById(results.get(0).path("body").path("id").asLong()).orElseThrow();
+        Prescription prescription = prescriptionRepository.findById(results.get(1).path("body").path("id").asLong()).orElseThrow();
+        Bill bill = billRepository.findById(results.get(2).path("body").path("id").asLong()).orElseThrow();
+        assertThat(consultation.getPatient().getId()).isEqualTo(patient.getId());
+        assertThat(prescription.getConsultation().getId()).isEqualTo(consultation.getId());
+        assertThat(bill.getPatient().getId()).isEqualTo(patient.getId());
+    }
+
+    @Test
+    void rollsBackTheWholeBatchAtTheFirstFailure() throws Exception {
+        long patients = patientRepository.count();
+        String batch =
+            "[" +
+            "{\"ref\":\"patient\",\"method\":\"POST\",\"url\":\"/api/patients\",\"body\":" +
+            "{\"firstName\":\"Ousmane\",\"lastName\":\"Gaye\",\"birthday\":\"1990-01-01\",\"gender\":\"MALE\"," +
+            "\"adress\":\"Kaolack\",\"phone\":\"770000051\",\"cni\":\"5000000000002\",\"author\":\"admin\"}}," +
+            "{\"method\":\"POST\",\"url\":\"/api/consultations\",\"body\":{\"patient\":{\"id\":\"${patient.id}\"}}}," +
+            "{\"method\":\"GET\",\"url\":\"/api/patients/${patient.id}\"}" +
+            "]";
+
+        restBatchMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(batch))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].status").value(201))
+            .andExpect(jsonPath("$[1].status").value(400));
+
+        assertThat(patientRepository.count()).isEqualTo(patients);
+    }
+
+    @Test
+    void rollsBackTheWholeBatchWhenAHandlerSwallowsAServiceFailure() throws Exception {
+        long patients = patientRepository.count();
+        String batch =
+            "[" +
+            "{\"ref\":\"patient\",\"method\":\"POST\",\"url\":\"/api/patients\",\"body\":" +
+            "{\"firstName\":\"Ousmane\",\"lastName\":\"Gaye\",\"birthday\":\"1990-01-01\",\"gender\":\"MALE\"," +
+            "\"adress\":\"Kaolack\",\"phone\":\"770000052\",\"cni\":\"5000000000003\",\"author\":\"admin\"}}," +
+            "{\"method\":\"DELETE\",\"url\":\"/api/batch-rollback-test/patients/" +
+            Long.MAX_VALUE +
+            "\"}," +
+            "{\"method\":\"GET\",\"url\":\"/api/patients/${patient.id}\"}" +
+            "]";
+
+        restBatchMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(batch))
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].status").value(201))
+            .andExpect(jsonPath("$[1].status").value(500));
+
+        assertThat(patientRepository.count()).isEqualTo(patients);
+    }
+
+    @Test
+    @Transactional
+    void rejectsInvalidBatches() throws Exception {
+        for (String batch : List.of(
+            "[]",
+            "[{\"method\":\"TRACE\",\"url\":\"/api/patients\"}]",
+            "[{\"method\":\"GET\",\"url\":\"/api/batch\"}]",
+            "[{\"method\":\"GET\",\"url\":\"/management/health\"}]",
+            "[{\"method\":\"GET\",\"url\":\"/api/patients/${unknown.id}\"}]",
+            "[{\"ref\":\"a\",\"method\":\"GET\",\"url\":\"/api/patients\"},{\"ref\":\"a\",\"method\":\"GET\",\"url\":\"/api/patients\"}]"
+        )) {
+            restBatchMockMvc
+                .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    @Transactional
+    void appliesTheSecurityRulesToEachOperation() throws Exception {
+        restBatchMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"method\":\"GET\",\"url\":\"/api/admin/users\"}]")
+            )
+            .andExpect(status().isForbidden())
+            .andExpect(jsonPath("$[0].status").value(403));
+    }
+}
@@ -0,0 +1,30 @@
+package sn.ngirwi.medical.web.rest;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import sn.ngirwi.medical.service.PatientService;
+
+/**
+ * Handler that answers with a success status after its service failed, for {@link BatchResourceIT}.
+ */
+@RestController
+@RequestMapping("/api/batch-rollback-test")
+public class BatchRollbackTestController {
+
+    private final PatientService patientService;
+
+    public BatchRollbackTestController(PatientService patientService) {
+        this.patientService = patientService;
+    }
+
+    @DeleteMapping("/patients/{id}")
+    public ResponseEntity<Void> deletePatientQuietly(@PathVariable Long id) {
+        try {
+            patientService.delete(id);
+        } catch (DataAccessException e) {
+            // already deleted
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
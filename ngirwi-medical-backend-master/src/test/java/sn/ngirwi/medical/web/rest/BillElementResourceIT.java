@@ -34,11 +34,11 @@ class BillElementResourceIT {
     private static final String DEFAULT_NAME = "AAAAAAAAAA";
     private static final String UPDATED_NAME = "BBBBBBBBBB";
 
-    private static final Double DEFAULT_PRICE = 1D;
-    private static final Double UPDATED_PRICE = 2D;
+    private static final Long DEFAULT_PRICE = 1L;
+    private static final Long UPDATED_PRICE = 2L;
 
-    private static final Double DEFAULT_PERCENTAGE = 1D;
-    private static final Double UPDATED_PERCENTAGE = 2D;
+    private static final Integer DEFAULT_DISCOUNT_BP = 100;
+    private static final Integer UPDATED_DISCOUNT_BP = 200;
 
     private static final Integer DEFAULT_QUANTITY = 1;
     private static final Integer UPDATED_QUANTITY = 2;
@@ -73,7 +73,7 @@ class BillElementResourceIT {
         BillElement billElement = new BillElement()
             .name(DEFAULT_NAME)
             .price(DEFAULT_PRICE)
-            .percentage(DEFAULT_PERCENTAGE)
+            .discountBp(DEFAULT_DISCOUNT_BP)
             .quantity(DEFAULT_QUANTITY);
         return billElement;
     }
@@ -88,7 +88,7 @@ class BillElementResourceIT {
         BillElement billElement = new BillElement()
             .name(UPDATED_NAME)
             .price(UPDATED_PRICE)
-            .percentage(UPDATED_PERCENTAGE)
+            .discountBp(UPDATED_DISCOUNT_BP)
             .quantity(UPDATED_QUANTITY);
         return billElement;
     }
@@ -116,7 +116,7 @@ class BillElementResourceIT {
         BillElement testBillElement = billElementList.get(billElementList.size() - 1);
         assertThat(testBillElement.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testBillElement.getPrice()).isEqualTo(DEFAULT_PRICE);
-        assertThat(testBillElement.getPercentage()).isEqualTo(DEFAULT_PERCENTAGE);
+        assertThat(testBillElement.getDiscountBp()).isEqualTo(DEFAULT_DISCOUNT_BP);
         assertThat(testBillElement.getQuantity()).isEqualTo(DEFAULT_QUANTITY);
     }
 
@@ -154,8 +154,8 @@ class BillElementResourceIT {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(billElement.getId().intValue())))
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
-            .andExpect(jsonPath("$.[*].price").value(hasItem(DEFAULT_PRICE.doubleValue())))
-            .andExpect(jsonPath("$.[*].percentage").value(hasItem(DEFAULT_PERCENTAGE.doubleValue())))
+            .andExpect(jsonPath("$.[*].price").value(hasItem(DEFAULT_PRICE.intValue())))
+            .andExpect(jsonPath("$.[*].percentage").value(hasItem(DEFAULT_DISCOUNT_BP / 100.0)))
             .andExpect(jsonPath("$.[*].quantity").value(hasItem(DEFAULT_QUANTITY)));
     }
 
@@ -172,8 +172,8 @@ class BillElementResourceIT {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.id").value(billElement.getId().intValue()))
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
-            .andExpect(jsonPath("$.price").value(DEFAULT_PRICE.doubleValue()))
-            .andExpect(jsonPath("$.percentage").value(DEFAULT_PERCENTAGE.doubleValue()))
+            .andExpect(jsonPath("$.price").value(DEFAULT_PRICE.intValue()))
+            .andExpect(jsonPath("$.percentage").value(DEFAULT_DISCOUNT_BP / 100.0))
             .andExpect(jsonPath("$.quantity").value(DEFAULT_QUANTITY));
     }
 
@@ -196,7 +196,7 @@ class BillElementResourceIT {
         BillElement updatedBillElement = billElementRepository.findById(billElement.getId()).get();
         // Disconnect from session so that the updates on updatedBillElement are not directly saved in db
         em.detach(updatedBillElement);
-        updatedBillElement.name(UPDATED_NAME).price(UPDATED_PRICE).percentage(UPDATED_PERCENTAGE).quantity(UPDATED_QUANTITY);
+        updatedBillElement.name(UPDATED_NAME).price(UPDATED_PRICE).discountBp(UPDATED_DISCOUNT_BP).quantity(UPDATED_QUANTITY);
         BillElementDTO billElementDTO = billElementMapper.toDto(updatedBillElement);
 
         restBillElementMockMvc
@@ -213,7 +213,7 @@ class BillElementResourceIT {
         BillElement testBillElement = billElementList.get(billElementList.size() - 1);
         assertThat(testBillElement.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testBillElement.getPrice()).isEqualTo(UPDATED_PRICE);
-        assertThat(testBillElement.getPercentage()).isEqualTo(UPDATED_PERCENTAGE);
+        assertThat(testBillElement.getDiscountBp()).isEqualTo(UPDATED_DISCOUNT_BP);
         assertThat(testBillElement.getQuantity()).isEqualTo(UPDATED_QUANTITY);
     }
 
@@ -294,13 +294,13 @@ class BillElementResourceIT {
         BillElement partialUpdatedBillElement = new BillElement();
         partialUpdatedBillElement.setId(billElement.getId());
 
-        partialUpdatedBillElement.name(UPDATED_NAME).percentage(UPDATED_PERCENTAGE);
+        partialUpdatedBillElement.name(UPDATED_NAME).discountBp(UPDATED_DISCOUNT_BP);
 
         restBillElementMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, partialUpdatedBillElement.getId())
                     .contentType("application/merge-patch+json")
-                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedBillElement))
+                    .content(TestUtil.convertObjectToJsonBytes(billElementMapper.toDto(partialUpdatedBillElement)))
             )
             .andExpect(status().isOk());
 
@@ -310,7 +310,7 @@ class BillElementResourceIT {
         BillElement testBillElement = billElementList.get(billElementList.size() - 1);
         assertThat(testBillElement.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testBillElement.getPrice()).isEqualTo(DEFAULT_PRICE);
-        assertThat(testBillElement.getPercentage()).isEqualTo(UPDATED_PERCENTAGE);
+        assertThat(testBillElement.getDiscountBp()).isEqualTo(UPDATED_DISCOUNT_BP);
         assertThat(testBillElement.getQuantity()).isEqualTo(DEFAULT_QUANTITY);
     }
 
@@ -326,13 +326,13 @@ class BillElementResourceIT {
         BillElement partialUpdatedBillElement = new BillElement();
         partialUpdatedBillElement.setId(billElement.getId());
 
-        partialUpdatedBillElement.name(UPDATED_NAME).price(UPDATED_PRICE).percentage(UPDATED_PERCENTAGE).quantity(UPDATED_QUANTITY);
+        partialUpdatedBillElement.name(UPDATED_NAME).price(UPDATED_PRICE).discountBp(UPDATED_DISCOUNT_BP).quantity(UPDATED_QUANTITY);
 
         restBillElementMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, partialUpdatedBillElement.getId())
                     .contentType("application/merge-patch+json")
-                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedBillElement))
+                    .content(TestUtil.convertObjectToJsonBytes(billElementMapper.toDto(partialUpdatedBillElement)))
             )
             .andExpect(status().isOk());
 
@@ -342,7 +342,7 @@ class BillElementResourceIT {
         BillElement testBillElement = billElementList.get(billElementList.size() - 1);
         assertThat(testBillElement.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testBillElement.getPrice()).isEqualTo(UPDATED_PRICE);
-        assertThat(testBillElement.getPercentage()).isEqualTo(UPDATED_PERCENTAGE);
+        assertThat(testBillElement.getDiscountBp()).isEqualTo(UPDATED_DISCOUNT_BP);
         assertThat(testBillElement.getQuantity()).isEqualTo(UPDATED_QUANTITY);
     }
 
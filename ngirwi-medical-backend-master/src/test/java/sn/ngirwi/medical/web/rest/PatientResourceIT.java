@@ -36,7 +36,7 @@ import sn.ngirwi.medical.service.mapper.PatientMapper;
 @IntegrationTest
 @AutoConfigureMockMvc
 @WithMockUser
-class PatientResourceIT {
+public class PatientResourceIT {
 
     private static final String DEFAULT_FIRST_NAME = "AAAAAAAAAA";
     private static final String UPDATED_FIRST_NAME = "BBBBBBBBBB";
@@ -125,6 +125,17 @@ class PatientResourceIT {
         return patient;
     }
 
+    /**
+     * Create an entity for the tests of another layer, with its own NIN and hospital.
+     *
+     * The NIN is unique and must be 13 digits, so each test passes its own.
+     */
+    public static Patient createEntity(EntityManager em, String cni, Long hospitalId) {
+        Patient patient = createEntity(em).cni(cni);
+        patient.setHospitalId(hospitalId);
+        return patient;
+    }
+
     /**
      * Create an updated entity for this test.
      *